@@ -20,6 +20,8 @@
 
 package com.sun.org.apache.xerces.internal.util;
 
+import java.util.StringPool;
+
 /**
  * This class is a symbol table implementation that guarantees that
  * strings used as identifiers are unique references. Multiple calls
@@ -417,6 +419,13 @@ public class SymbolTable {
     /**
      * This class is a symbol table entry. Each entry acts as a node
      * in a linked list.
+     * <p>
+     * Symbols are interned through the process-wide
+     * {@link StringPool#systemPool() string pool}, which every symbol
+     * table shares: they are still identical to the interned constants
+     * in {@link XMLSymbols}, but a symbol seen by an earlier parser is
+     * found without calling <code>String.intern()</code>, and without
+     * creating a string when it is added from a character array.
      */
     protected static final class Entry {
 
@@ -445,7 +454,7 @@ public class SymbolTable {
          * reference.
          */
         public Entry(String symbol, Entry next) {
-            this.symbol = symbol.intern();
+            this.symbol = StringPool.systemPool().intern(symbol);
             characters = new char[symbol.length()];
             symbol.getChars(0, characters.length, characters, 0);
             this.next = next;
@@ -458,7 +467,7 @@ public class SymbolTable {
         public Entry(char[] ch, int offset, int length, Entry next) {
             characters = new char[length];
             System.arraycopy(ch, offset, characters, 0, length);
-            symbol = new String(characters).intern();
+            symbol = StringPool.systemPool().intern(characters, 0, length);
             this.next = next;
         }
 
@@ -26,7 +26,6 @@
 package java.beans;
 
 import com.sun.beans.TypeResolver;
-import com.sun.beans.WeakCache;
 import com.sun.beans.finder.ClassFinder;
 import com.sun.beans.finder.MethodFinder;
 
@@ -107,7 +106,10 @@ public class Introspector {
     public final static int IGNORE_ALL_BEANINFO        = 3;
 
     // Static Caches to speed up introspection.
-    private static final WeakCache<Class<?>, Method[]> declaredMethodCache = new WeakCache<>();
+    private static volatile ClassValue<Method[]> declaredMethodCache = new DeclaredMethods();
+
+    // Guards the BeanInfo caches of thread group contexts.
+    private static final Object beanInfoCacheLock = new Object();
 
     private Class<?> beanClass;
     private BeanInfo explicitBeanInfo;
@@ -166,12 +168,12 @@ public class Introspector {
         }
         ThreadGroupContext context = ThreadGroupContext.getContext();
         BeanInfo beanInfo;
-        synchronized (declaredMethodCache) {
+        synchronized (beanInfoCacheLock) {
             beanInfo = context.getBeanInfo(beanClass);
         }
         if (beanInfo == null) {
             beanInfo = new Introspector(beanClass, null, USE_ALL_BEANINFO).getBeanInfo();
-            synchronized (declaredMethodCache) {
+            synchronized (beanInfoCacheLock) {
                 context.putBeanInfo(beanClass, beanInfo);
             }
         }
@@ -341,9 +343,9 @@ public class Introspector {
      */
 
     public static void flushCaches() {
-        synchronized (declaredMethodCache) {
+        synchronized (beanInfoCacheLock) {
             ThreadGroupContext.getContext().clearBeanInfoCache();
-            declaredMethodCache.clear();
+            declaredMethodCache = new DeclaredMethods();
         }
     }
 
@@ -366,9 +368,9 @@ public class Introspector {
         if (clz == null) {
             throw new NullPointerException();
         }
-        synchronized (declaredMethodCache) {
+        synchronized (beanInfoCacheLock) {
             ThreadGroupContext.getContext().removeBeanInfo(clz);
-            declaredMethodCache.put(clz, null);
+            declaredMethodCache.remove(clz);
         }
     }
 
@@ -1330,30 +1332,35 @@ public class Introspector {
         if (!ReflectUtil.isPackageAccessible(clz)) {
             return new Method[0];
         }
-        synchronized (declaredMethodCache) {
-            Method[] result = declaredMethodCache.get(clz);
-            if (result == null) {
-                result = clz.getMethods();
-                for (int i = 0; i < result.length; i++) {
-                    Method method = result[i];
-                    if (!method.getDeclaringClass().equals(clz)) {
-                        result[i] = null; // ignore methods declared elsewhere
+        return declaredMethodCache.get(clz);
+    }
+
+    /*
+     * The public methods declared by each class, computed once per class
+     * without locking.
+     */
+    private static final class DeclaredMethods extends ClassValue<Method[]> {
+        @Override
+        protected Method[] computeValue(Class<?> clz) {
+            Method[] result = clz.getMethods();
+            for (int i = 0; i < result.length; i++) {
+                Method method = result[i];
+                if (!method.getDeclaringClass().equals(clz)) {
+                    result[i] = null; // ignore methods declared elsewhere
+                }
+                else {
+                    try {
+                        method = MethodFinder.findAccessibleMethod(method);
+                        Class<?> type = method.getDeclaringClass();
+                        result[i] = type.equals(clz) || type.isInterface()
+                                ? method
+                                : null; // ignore methods from superclasses
                     }
-                    else {
-                        try {
-                            method = MethodFinder.findAccessibleMethod(method);
-                            Class<?> type = method.getDeclaringClass();
-                            result[i] = type.equals(clz) || type.isInterface()
-                                    ? method
-                                    : null; // ignore methods from superclasses
-                        }
-                        catch (NoSuchMethodException exception) {
-                            // commented out because of 6976577
-                            // result[i] = null; // ignore inaccessible methods
-                        }
+                    catch (NoSuchMethodException exception) {
+                        // commented out because of 6976577
+                        // result[i] = null; // ignore inaccessible methods
                     }
                 }
-                declaredMethodCache.put(clz, result);
             }
             return result;
         }
@@ -25,8 +25,13 @@
 
 package java.io;
 
+import java.lang.ref.Cleaner;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.List;
+import jdk.internal.ref.CleanerFactory;
 
 /**
  * Instances of the file descriptor class serve as an opaque handle
@@ -51,6 +56,9 @@ public final class FileDescriptor {
     private List<Closeable> otherParents;
     private boolean closed;
 
+    /* Closes the file if no stream does, or null */
+    private FileCleanup cleanup;
+
     /**
      * Constructs an (invalid) FileDescriptor
      * object.
@@ -194,6 +202,7 @@ public final class FileDescriptor {
     synchronized void closeAll(Closeable releaser) throws IOException {
         if (!closed) {
             closed = true;
+            unregisterCleanup();
             IOException ioe = null;
             try (Closeable c = releaser) {
                 if (otherParents != null) {
@@ -223,4 +232,67 @@ public final class FileDescriptor {
             }
         }
     }
+
+    /**
+     * Registers a cleanup that closes the file once this FileDescriptor,
+     * and with it every stream that uses it, is phantom reachable.  Called
+     * by the streams that open the file.
+     */
+    synchronized void registerCleanup() {
+        if (cleanup == null && fd != -1) {
+            cleanup = new FileCleanup(fd);
+            cleanup.cleanable = CleanerFactory.cleaner().register(this, cleanup);
+        }
+    }
+
+    /**
+     * Unregisters the cleanup, without closing the file, before it is
+     * closed by a stream.
+     */
+    private void unregisterCleanup() {
+        if (cleanup != null) {
+            cleanup.disarm();
+            cleanup = null;
+        }
+    }
+
+    /*
+     * Closes the raw file descriptor, which is copied so that the cleanup
+     * does not keep this FileDescriptor and its streams reachable.  The
+     * descriptor is closed through a stream on a fresh FileDescriptor, so
+     * that it takes the same native path as FileInputStream.close().
+     */
+    private static final class FileCleanup implements Runnable {
+        private int fd;
+        Cleaner.Cleanable cleanable;
+
+        FileCleanup(int fd) {
+            this.fd = fd;
+        }
+
+        void disarm() {
+            synchronized (this) {
+                fd = -1;
+            }
+            cleanable.clean();
+        }
+
+        public synchronized void run() {
+            if (fd != -1) {
+                final FileDescriptor raw = new FileDescriptor(fd);
+                fd = -1;
+                try {
+                    AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Void>() {
+                            public Void run() throws IOException {
+                                new FileInputStream(raw).close();
+                                return null;
+                            }
+                        });
+                } catch (PrivilegedActionException pae) {
+                    // nothing to report it to
+                }
+            }
+        }
+    }
 }
@@ -26,6 +26,8 @@
 package java.io;
 
 import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import sun.nio.ch.FileChannelImpl;
 
 
@@ -62,6 +64,9 @@ class FileInputStream extends InputStream
     private final Object closeLock = new Object();
     private volatile boolean closed = false;
 
+    /* Calls close() on finalization if a subclass overrides it, or null */
+    private final Object altFinalizer = AltFinalizer.get(this);
+
     /**
      * Creates a <code>FileInputStream</code> by
      * opening a connection to an actual file,
@@ -136,6 +141,7 @@ class FileInputStream extends InputStream
         fd.attach(this);
         path = name;
         open(name);
+        fd.registerCleanup();
     }
 
     /**
@@ -389,20 +395,59 @@ class FileInputStream extends InputStream
     }
 
     /**
-     * Ensures that the <code>close</code> method of this file input stream is
-     * called when there are no more references to it.
+     * Does nothing.  The file opened by this file input stream is closed
+     * by a cleaner once there are no more references to the stream or to
+     * its file descriptor.  An instance of a subclass that overrides
+     * <code>close</code> is still closed when there are no more
+     * references to it, so that the subclass can release its own
+     * resources.
      *
      * @exception  IOException  if an I/O error occurs.
      * @see        java.io.FileInputStream#close()
      */
     protected void finalize() throws IOException {
-        if ((fd != null) &&  (fd != FileDescriptor.in)) {
-            /* if fd is shared, the references in FileDescriptor
-             * will ensure that finalizer is only called when
-             * safe to do so. All references using the fd have
-             * become unreachable. We can call close()
-             */
-            close();
+    }
+
+    /*
+     * Finalized in place of an instance of a subclass that overrides
+     * close(), and calls it, as finalize() did before the file was closed
+     * by a cleaner.  Other instances have none, so that they are not
+     * finalized at all.
+     */
+    static class AltFinalizer {
+        private final FileInputStream fis;
+
+        private AltFinalizer(FileInputStream fis) {
+            this.fis = fis;
+        }
+
+        static Object get(FileInputStream fis) {
+            final Class<?> clazz = fis.getClass();
+            if (clazz == FileInputStream.class)
+                return null;
+            boolean overridesClose = AccessController.doPrivileged(
+                new PrivilegedAction<Boolean>() {
+                    public Boolean run() {
+                        try {
+                            return clazz.getMethod("close").getDeclaringClass()
+                                != FileInputStream.class;
+                        } catch (NoSuchMethodException e) {
+                            return false;
+                        }
+                    }
+                });
+            return overridesClose ? new AltFinalizer(fis) : null;
+        }
+
+        @Override
+        protected final void finalize() {
+            if ((fis.fd != null) && (fis.fd != FileDescriptor.in)) {
+                try {
+                    fis.close();
+                } catch (IOException ignore) {
+                    // nothing to report it to
+                }
+            }
         }
     }
 }
@@ -26,6 +26,8 @@
 package java.io;
 
 import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import sun.nio.ch.FileChannelImpl;
 
 
@@ -76,6 +78,9 @@ class FileOutputStream extends OutputStream
     private final Object closeLock = new Object();
     private volatile boolean closed = false;
 
+    /* Calls close() on finalization if a subclass overrides it, or null */
+    private final Object altFinalizer = AltFinalizer.get(this);
+
     /**
      * Creates a file output stream to write to the file with the
      * specified name. A new <code>FileDescriptor</code> object is
@@ -211,6 +216,7 @@ class FileOutputStream extends OutputStream
         this.path = name;
 
         open(name, append);
+        fd.registerCleanup();
     }
 
     /**
@@ -402,26 +408,17 @@ class FileOutputStream extends OutputStream
     }
 
     /**
-     * Cleans up the connection to the file, and ensures that the
-     * <code>close</code> method of this file output stream is
-     * called when there are no more references to this stream.
+     * Does nothing.  The file opened by this file output stream is closed
+     * by a cleaner once there are no more references to the stream or to
+     * its file descriptor.  An instance of a subclass that overrides
+     * <code>close</code> is still closed when there are no more references
+     * to it, so that the subclass can release its own resources; it is
+     * only flushed if it writes to the standard output or error stream.
      *
      * @exception  IOException  if an I/O error occurs.
      * @see        java.io.FileInputStream#close()
      */
     protected void finalize() throws IOException {
-        if (fd != null) {
-            if (fd == FileDescriptor.out || fd == FileDescriptor.err) {
-                flush();
-            } else {
-                /* if fd is shared, the references in FileDescriptor
-                 * will ensure that finalizer is only called when
-                 * safe to do so. All references using the fd have
-                 * become unreachable. We can call close()
-                 */
-                close();
-            }
-        }
     }
 
     private native void close0() throws IOException;
@@ -432,4 +429,50 @@ class FileOutputStream extends OutputStream
         initIDs();
     }
 
+    /*
+     * Finalized in place of an instance of a subclass that overrides
+     * close(), and calls it, as finalize() did before the file was closed
+     * by a cleaner.  Other instances have none, so that they are not
+     * finalized at all.
+     */
+    static class AltFinalizer {
+        private final FileOutputStream fos;
+
+        private AltFinalizer(FileOutputStream fos) {
+            this.fos = fos;
+        }
+
+        static Object get(FileOutputStream fos) {
+            final Class<?> clazz = fos.getClass();
+            if (clazz == FileOutputStream.class)
+                return null;
+            boolean overridesClose = AccessController.doPrivileged(
+                new PrivilegedAction<Boolean>() {
+                    public Boolean run() {
+                        try {
+                            return clazz.getMethod("close").getDeclaringClass()
+                                != FileOutputStream.class;
+                        } catch (NoSuchMethodException e) {
+                            return false;
+                        }
+                    }
+                });
+            return overridesClose ? new AltFinalizer(fos) : null;
+        }
+
+        @Override
+        protected final void finalize() {
+            if (fos.fd != null) {
+                try {
+                    if (fos.fd == FileDescriptor.out || fos.fd == FileDescriptor.err) {
+                        fos.flush();
+                    } else {
+                        fos.close();
+                    }
+                } catch (IOException ignore) {
+                    // nothing to report it to
+                }
+            }
+        }
+    }
 }
@@ -104,17 +104,25 @@ public class ObjectStreamClass implements Serializable {
             new ReflectionFactory.GetReflectionFactoryAction());
 
     private static class Caches {
-        /** cache mapping local classes -> descriptors */
-        static final ConcurrentMap<WeakClassKey,Reference<?>> localDescs =
-            new ConcurrentHashMap<>();
+        /** cache mapping local classes -> soft references to descriptors */
+        static final ClassValue<SoftReference<Object>> localDescs =
+            new ClassValue<SoftReference<Object>>() {
+                @Override
+                protected SoftReference<Object> computeValue(Class<?> type) {
+                    Object entry;
+                    try {
+                        entry = new ObjectStreamClass(type);
+                    } catch (Throwable th) {
+                        entry = th;
+                    }
+                    return new SoftReference<>(entry);
+                }
+            };
 
         /** cache mapping field group/local desc pairs -> field reflectors */
         static final ConcurrentMap<FieldReflectorKey,Reference<?>> reflectors =
             new ConcurrentHashMap<>();
 
-        /** queue for WeakReferences to local classes */
-        private static final ReferenceQueue<Class<?>> localDescsQueue =
-            new ReferenceQueue<>();
         /** queue for WeakReferences to field reflectors keys */
         private static final ReferenceQueue<Class<?>> reflectorsQueue =
             new ReferenceQueue<>();
@@ -344,60 +352,19 @@ public class ObjectStreamClass implements Serializable {
         if (!(all || Serializable.class.isAssignableFrom(cl))) {
             return null;
         }
-        processQueue(Caches.localDescsQueue, Caches.localDescs);
-        WeakClassKey key = new WeakClassKey(cl, Caches.localDescsQueue);
-        Reference<?> ref = Caches.localDescs.get(key);
-        Object entry = null;
-        if (ref != null) {
-            entry = ref.get();
-        }
-        EntryFuture future = null;
-        if (entry == null) {
-            EntryFuture newEntry = new EntryFuture();
-            Reference<?> newRef = new SoftReference<>(newEntry);
-            do {
-                if (ref != null) {
-                    Caches.localDescs.remove(key, ref);
-                }
-                ref = Caches.localDescs.putIfAbsent(key, newRef);
-                if (ref != null) {
-                    entry = ref.get();
-                }
-            } while (ref != null && entry == null);
-            if (entry == null) {
-                future = newEntry;
-            }
-        }
-
-        if (entry instanceof ObjectStreamClass) {  // check common case first
-            return (ObjectStreamClass) entry;
-        }
-        if (entry instanceof EntryFuture) {
-            future = (EntryFuture) entry;
-            if (future.getOwner() == Thread.currentThread()) {
-                /*
-                 * Handle nested call situation described by 4803747: waiting
-                 * for future value to be set by a lookup() call further up the
-                 * stack will result in deadlock, so calculate and set the
-                 * future value here instead.
-                 */
-                entry = null;
-            } else {
-                entry = future.get();
-            }
-        }
-        if (entry == null) {
-            try {
-                entry = new ObjectStreamClass(cl);
-            } catch (Throwable th) {
-                entry = th;
-            }
-            if (future.set(entry)) {
-                Caches.localDescs.put(key, new SoftReference<Object>(entry));
-            } else {
-                // nested lookup call already set future
-                entry = future.get();
+        /*
+         * The descriptor is computed without locking, so a nested lookup
+         * of the same class, as in 4803747, computes it again instead of
+         * waiting for itself; the first descriptor computed is kept.
+         */
+        Object entry;
+        for (;;) {
+            entry = Caches.localDescs.get(cl).get();
+            if (entry != null) {
+                break;
             }
+            // cleared under memory pressure; compute it again
+            Caches.localDescs.remove(cl);
         }
 
         if (entry instanceof ObjectStreamClass) {
@@ -412,7 +379,7 @@ public class ObjectStreamClass implements Serializable {
     }
 
     /**
-     * Placeholder used in class descriptor and field reflector lookup tables
+     * Placeholder used in the field reflector lookup table
      * for an entry in the process of being initialized.  (Internal) callers
      * which receive an EntryFuture belonging to another thread as the result
      * of a lookup should call the get() method of the EntryFuture; this will
@@ -422,7 +389,6 @@ public class ObjectStreamClass implements Serializable {
     private static class EntryFuture {
 
         private static final Object unset = new Object();
-        private final Thread owner = Thread.currentThread();
         private Object entry = unset;
 
         /**
@@ -466,13 +432,6 @@ public class ObjectStreamClass implements Serializable {
             }
             return entry;
         }
-
-        /**
-         * Returns the thread that created this EntryFuture.
-         */
-        Thread getOwner() {
-            return owner;
-        }
     }
 
     /**
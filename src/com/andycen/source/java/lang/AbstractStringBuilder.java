@@ -484,10 +484,24 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             return this.append((String)s);
         if (s instanceof AbstractStringBuilder)
             return this.append((AbstractStringBuilder)s);
+        if (s instanceof CompactString)
+            return this.append((CompactString)s);
 
         return this.append(s, 0, s.length());
     }
 
+    /**
+     * Appends a compact string, inflating its bytes directly into the
+     * value array rather than going through charAt.
+     */
+    AbstractStringBuilder append(CompactString cs) {
+        int len = cs.length();
+        ensureCapacityInternal(count + len);
+        cs.getChars(0, len, value, count);
+        count += len;
+        return this;
+    }
+
     private AbstractStringBuilder appendNull() {
         int c = count;
         ensureCapacityInternal(c + 4);
@@ -2021,6 +2021,88 @@ public final class Class<T> implements java.io.Serializable,
     }
 
 
+    /**
+     * Returns a {@code ClassModel} holding the declared and public fields,
+     * methods and constructors, and the declared and present annotations,
+     * of the class or interface represented by this {@code Class} object.
+     * The lists in the model have the same contents as the arrays returned
+     * by {@link #getDeclaredFields()}, {@link #getFields()},
+     * {@link #getDeclaredMethods()}, {@link #getMethods()},
+     * {@link #getDeclaredConstructors()}, {@link #getConstructors()},
+     * {@link #getDeclaredAnnotations()} and {@link #getAnnotations()}.
+     *
+     * <p> The data behind the model is fetched on the first call and
+     * cached by the class loader of this class, so that later calls
+     * usually only copy the member objects, as the methods above do.
+     * Each call returns a new model, see {@link ClassModel}.
+     *
+     * @return  the {@code ClassModel} of this class
+     * @throws  SecurityException
+     *          If a security manager, <i>s</i>, is present and any of the
+     *          following conditions is met:
+     *
+     *          <ul>
+     *
+     *          <li> the caller's class loader is not the same as the
+     *          class loader of this class and invocation of
+     *          {@link SecurityManager#checkPermission
+     *          s.checkPermission} method with
+     *          {@code RuntimePermission("accessDeclaredMembers")}
+     *          denies access to the declared members within this class
+     *
+     *          <li> the caller's class loader is not the same as or an
+     *          ancestor of the class loader for the current class and
+     *          invocation of {@link SecurityManager#checkPackageAccess
+     *          s.checkPackageAccess()} denies access to the package
+     *          of this class
+     *
+     *          </ul>
+     *
+     * @since 1.8
+     */
+    @CallerSensitive
+    public ClassModel<T> getClassModel() throws SecurityException {
+        checkMemberAccess(Member.DECLARED, Reflection.getCallerClass(), true);
+        checkInitted();
+        ClassModel.Root<T> root;
+        // VM-anonymous classes may be unloaded before their class loader
+        if (!useCaches || ReflectUtil.isVMAnonymousClass(this)) {
+            root = newClassModelRoot();
+        } else {
+            ClassModel.Cache cache = ClassModel.Cache.forLoader(getClassLoader0());
+            root = cache.get(this);
+            if (root == null || root.redefinedCount != classRedefinedCount) {
+                root = newClassModelRoot();
+                cache.put(root);
+            }
+        }
+        return new ClassModel<>(this,
+                                copyFields(root.declaredFields),
+                                copyFields(root.fields),
+                                copyMethods(root.declaredMethods),
+                                copyMethods(root.methods),
+                                copyConstructors(root.declaredConstructors),
+                                copyConstructors(root.constructors),
+                                root.declaredAnnotations,
+                                root.annotations);
+    }
+
+    private ClassModel.Root<T> newClassModelRoot() {
+        // Read the redefinition count first, so that a redefinition racing
+        // with the build leaves the root stale rather than wrong
+        int redefinedCount = classRedefinedCount;
+        return new ClassModel.Root<>(this, redefinedCount,
+                                     privateGetDeclaredFields(false),
+                                     privateGetPublicFields(null),
+                                     privateGetDeclaredMethods(false),
+                                     privateGetPublicMethods(),
+                                     privateGetDeclaredConstructors(false),
+                                     privateGetDeclaredConstructors(true),
+                                     AnnotationParser.toArray(annotationData().declaredAnnotations),
+                                     AnnotationParser.toArray(annotationData().annotations));
+    }
+
+
     /**
      * Returns a {@code Field} object that reflects the specified declared
      * field of the class or interface represented by this {@code Class}
@@ -2418,12 +2500,15 @@ public final class Class<T> implements java.io.Serializable,
         private static final long annotationTypeOffset;
         // offset of Class.annotationData instance field
         private static final long annotationDataOffset;
+        // offset of Class.classValueMap instance field
+        private static final long classValueMapOffset;
 
         static {
             Field[] fields = Class.class.getDeclaredFields0(false); // bypass caches
             reflectionDataOffset = objectFieldOffset(fields, "reflectionData");
             annotationTypeOffset = objectFieldOffset(fields, "annotationType");
             annotationDataOffset = objectFieldOffset(fields, "annotationData");
+            classValueMapOffset = objectFieldOffset(fields, "classValueMap");
         }
 
         private static long objectFieldOffset(Field[] fields, String fieldName) {
@@ -2451,6 +2536,12 @@ public final class Class<T> implements java.io.Serializable,
                                              AnnotationData newData) {
             return unsafe.compareAndSwapObject(clazz, annotationDataOffset, oldData, newData);
         }
+
+        static boolean casClassValueMap(Class<?> clazz,
+                                        ClassValue.ClassValueMap oldMap,
+                                        ClassValue.ClassValueMap newMap) {
+            return unsafe.compareAndSwapObject(clazz, classValueMapOffset, oldMap, newMap);
+        }
     }
 
     /**
@@ -3082,6 +3173,15 @@ public final class Class<T> implements java.io.Serializable,
         throw new NoSuchMethodException(getName() + ".<init>" + argumentTypesToString(parameterTypes));
     }
 
+    /*
+     * Links this class, verifying it, without initializing it.  The VM
+     * links a class before it reflects on its members, and the public
+     * fields so returned are dropped.
+     */
+    void link() {
+        getDeclaredFields0(true);
+    }
+
     //
     // Other helpers and base implementation
     //
@@ -3570,6 +3670,15 @@ public final class Class<T> implements java.io.Serializable,
      */
     transient ClassValue.ClassValueMap classValueMap;
 
+    /**
+     * Installs the given backing store of ClassValues on this class, if
+     * it still has the given one, atomically.
+     */
+    boolean casClassValueMap(ClassValue.ClassValueMap oldMap,
+                             ClassValue.ClassValueMap newMap) {
+        return Atomic.casClassValueMap(this, oldMap, newMap);
+    }
+
     /**
      * Returns an {@code AnnotatedType} object that represents the use of a
      * type to specify the superclass of the entity represented by this {@code
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * Records the classes that the system class loader loads during a run, and
+ * loads and links them again on later runs, on a few daemon threads, ahead
+ * of the application that needs them.
+ *
+ * <p>A training run with {@code -Djdk.classlist.record=<file>} writes the
+ * names of the classes it loaded through the system class loader, in the
+ * order they were loaded, when the VM exits.  A run with
+ * {@code -Djdk.classlist.replay=<file>} starts
+ * {@code jdk.classlist.replayThreads} threads, by default one less than the
+ * number of processors, as soon as the system class loader is set up.  They
+ * load the listed classes through it, which delegates as usual, and link
+ * them, which verifies them.  No class is initialized, so the application
+ * runs every static initializer itself, in its own order.
+ *
+ * <p>The replay threads and the application load each class under the same
+ * {@link ClassLoader#getClassLoadingLock class loading lock}, so a class the
+ * application needs while a replay thread loads it is waited for, and then
+ * found loaded, rather than loaded twice.  Classes that are no longer found,
+ * or fail to load or link, are skipped; the application meets the same
+ * error when it loads them itself.
+ */
+final class ClassList {
+
+    // The loader whose classes are recorded, set before recorded
+    private static ClassLoader systemLoader;
+
+    // The classes loaded so far, if they are to be written out
+    private static volatile ConcurrentLinkedQueue<String> recorded;
+
+    private ClassList() {
+        // no instantiation
+    }
+
+    /**
+     * Starts recording or replaying, as requested, once the system class
+     * loader is set.
+     */
+    static void initialize(ClassLoader scl) {
+        if (scl == null)
+            return;
+        final String recordPath = property("jdk.classlist.record");
+        if (recordPath != null) {
+            systemLoader = scl;
+            recorded = new ConcurrentLinkedQueue<>();
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    Runtime.getRuntime().addShutdownHook(new Thread("ClassList Writer") {
+                        public void run() {
+                            write(recordPath, recorded);
+                        }
+                    });
+                    return null;
+                }
+            });
+        }
+        String replayPath = property("jdk.classlist.replay");
+        if (replayPath != null) {
+            String[] names = read(replayPath);
+            if (names.length > 0)
+                replay(scl, names);
+        }
+    }
+
+    /**
+     * Notes that the given loader has loaded a class it did not have.
+     */
+    static void loaded(ClassLoader loader, Class<?> c) {
+        ConcurrentLinkedQueue<String> q = recorded;
+        if (q != null && loader == systemLoader)
+            q.add(c.getName());
+    }
+
+    private static String property(String key) {
+        return AccessController.doPrivileged(new GetPropertyAction(key));
+    }
+
+    private static void replay(final ClassLoader loader, final String[] names) {
+        int threads = Runtime.getRuntime().availableProcessors() - 1;
+        String s = property("jdk.classlist.replayThreads");
+        if (s != null) {
+            try {
+                threads = Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        final int count = Math.max(1, threads);
+        final AtomicInteger next = new AtomicInteger();
+        AccessController.doPrivileged(new PrivilegedAction<Void>() {
+            public Void run() {
+                for (int i = 0; i < count; i++) {
+                    Thread t = new Thread("ClassList Replay-" + i) {
+                        public void run() {
+                            int n;
+                            while ((n = next.getAndIncrement()) < names.length) {
+                                try {
+                                    Class.forName(names[n], false, loader).link();
+                                } catch (ClassNotFoundException | LinkageError e) {
+                                    // skip it
+                                }
+                            }
+                        }
+                    };
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    t.start();
+                }
+                return null;
+            }
+        });
+    }
+
+    private static String[] read(final String path) {
+        return AccessController.doPrivileged(new PrivilegedAction<String[]>() {
+            public String[] run() {
+                List<String> names = new ArrayList<>();
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(path), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty() && line.charAt(0) != '#')
+                            names.add(line);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Warning: cannot read class list " + path + ": " + e);
+                }
+                return names.toArray(new String[names.size()]);
+            }
+        });
+    }
+
+    private static void write(String path, Iterable<String> names) {
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(path), StandardCharsets.UTF_8))) {
+            out.write("# Classes loaded by the system class loader, in load order");
+            out.newLine();
+            for (String name : names) {
+                out.write(name);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: cannot write class list " + path + ": " + e);
+        }
+    }
+}
@@ -263,6 +263,18 @@ public abstract class ClassLoader {
         classes.addElement(c);
     }
 
+    // The ClassModel roots of classes defined by this loader, created on
+    // first use.  A lost race to create it only loses the roots cached meanwhile.
+    private volatile ClassModel.Cache classModels;
+
+    ClassModel.Cache classModelCache() {
+        ClassModel.Cache cache = classModels;
+        if (cache == null) {
+            classModels = cache = new ClassModel.Cache();
+        }
+        return cache;
+    }
+
     // The packages defined in this class loader.  Each package name is mapped
     // to its corresponding Package object.
     // @GuardedBy("itself")
@@ -428,6 +440,7 @@ public abstract class ClassLoader {
                     sun.misc.PerfCounter.getFindClassTime().addElapsedTimeFrom(t1);
                     sun.misc.PerfCounter.getFindClasses().increment();
                 }
+                ClassList.loaded(this, c);
             }
             if (resolve) {
                 resolveClass(c);
@@ -1471,6 +1484,7 @@ public abstract class ClassLoader {
                 }
             }
             sclSet = true;
+            ClassList.initialize(scl);
         }
     }
 
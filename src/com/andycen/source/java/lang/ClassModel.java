@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable snapshot of the reflective structure of a class: its
+ * fields, methods, constructors and annotations, as returned by the
+ * corresponding methods of {@link Class}, obtained together in one call
+ * with {@link Class#getClassModel()}.
+ *
+ * <p>The data behind the {@code Class} methods is softly reachable, so
+ * that it may have to be fetched from the virtual machine again after a
+ * garbage collection.  The data behind a {@code ClassModel} is instead
+ * fetched once, and kept strongly reachable in a bounded cache of the
+ * class loader that defined the class, so that frameworks that
+ * introspect the same classes repeatedly do not go back to the virtual
+ * machine for it.
+ *
+ * <p>The lists are unmodifiable.  As with the {@code Class} methods,
+ * every call to {@code getClassModel} returns a new model holding fresh
+ * member objects, so that changing the accessible flag of one of them
+ * does not affect any other caller.
+ *
+ * <p>A model reflects the class as it was when the model was built.  If
+ * the class is redefined, {@code getClassModel} returns a new model.
+ *
+ * @param <T> the type of the class modeled by this {@code ClassModel}
+ *
+ * @see     Class#getClassModel()
+ * @since   1.8
+ */
+public final class ClassModel<T> {
+
+    private final Class<T> type;
+    private final List<Field> declaredFields;
+    private final List<Field> fields;
+    private final List<Method> declaredMethods;
+    private final List<Method> methods;
+    private final List<Constructor<T>> declaredConstructors;
+    private final List<Constructor<T>> constructors;
+    private final List<Annotation> declaredAnnotations;
+    private final List<Annotation> annotations;
+
+    ClassModel(Class<T> type,
+               Field[] declaredFields, Field[] fields,
+               Method[] declaredMethods, Method[] methods,
+               Constructor<T>[] declaredConstructors, Constructor<T>[] constructors,
+               Annotation[] declaredAnnotations, Annotation[] annotations) {
+        this.type = type;
+        this.declaredFields = unmodifiableList(declaredFields);
+        this.fields = unmodifiableList(fields);
+        this.declaredMethods = unmodifiableList(declaredMethods);
+        this.methods = unmodifiableList(methods);
+        this.declaredConstructors = unmodifiableList(declaredConstructors);
+        this.constructors = unmodifiableList(constructors);
+        this.declaredAnnotations = unmodifiableList(declaredAnnotations);
+        this.annotations = unmodifiableList(annotations);
+    }
+
+    private static <E> List<E> unmodifiableList(E[] elements) {
+        return (elements.length == 0) ? Collections.<E>emptyList()
+                                      : Collections.unmodifiableList(Arrays.asList(elements));
+    }
+
+    /**
+     * Returns the class modeled by this {@code ClassModel}.
+     *
+     * @return the class modeled by this {@code ClassModel}
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the fields declared by the class, as
+     * {@link Class#getDeclaredFields()} does.
+     *
+     * @return an unmodifiable list of the declared fields
+     */
+    public List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * Returns the public fields of the class, including inherited ones,
+     * as {@link Class#getFields()} does.
+     *
+     * @return an unmodifiable list of the public fields
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the methods declared by the class, as
+     * {@link Class#getDeclaredMethods()} does.
+     *
+     * @return an unmodifiable list of the declared methods
+     */
+    public List<Method> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    /**
+     * Returns the public methods of the class, including inherited ones,
+     * as {@link Class#getMethods()} does.
+     *
+     * @return an unmodifiable list of the public methods
+     */
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the constructors declared by the class, as
+     * {@link Class#getDeclaredConstructors()} does.
+     *
+     * @return an unmodifiable list of the declared constructors
+     */
+    public List<Constructor<T>> getDeclaredConstructors() {
+        return declaredConstructors;
+    }
+
+    /**
+     * Returns the public constructors of the class, as
+     * {@link Class#getConstructors()} does.
+     *
+     * @return an unmodifiable list of the public constructors
+     */
+    public List<Constructor<T>> getConstructors() {
+        return constructors;
+    }
+
+    /**
+     * Returns the annotations directly present on the class, as
+     * {@link Class#getDeclaredAnnotations()} does.
+     *
+     * @return an unmodifiable list of the declared annotations
+     */
+    public List<Annotation> getDeclaredAnnotations() {
+        return declaredAnnotations;
+    }
+
+    /**
+     * Returns the annotations present on the class, including inherited
+     * ones, as {@link Class#getAnnotations()} does.
+     *
+     * @return an unmodifiable list of the annotations
+     */
+    public List<Annotation> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * Returns the annotation of the specified type present on the class,
+     * as {@link Class#getAnnotation(Class)} does.
+     *
+     * @param <A> the type of the annotation to query for
+     * @param annotationClass the Class object corresponding to the
+     *        annotation type
+     * @return the annotation of the specified type if present, else null
+     * @throws NullPointerException if the given annotation class is null
+     */
+    public <A extends Annotation> A getAnnotation(Class<A> annotationClass) {
+        return type.getAnnotation(annotationClass);
+    }
+
+    @Override
+    public String toString() {
+        return "ClassModel[" + type.getName() + "]";
+    }
+
+    /**
+     * The root member objects and annotations of a class, from which the
+     * members of each {@code ClassModel} are copied.  Roots are never
+     * handed out.
+     */
+    static final class Root<T> {
+        final Class<T> type;
+        // Value of classRedefinedCount when this root was built
+        final int redefinedCount;
+        final Field[] declaredFields;
+        final Field[] fields;
+        final Method[] declaredMethods;
+        final Method[] methods;
+        final Constructor<T>[] declaredConstructors;
+        final Constructor<T>[] constructors;
+        final Annotation[] declaredAnnotations;
+        final Annotation[] annotations;
+
+        Root(Class<T> type, int redefinedCount,
+             Field[] declaredFields, Field[] fields,
+             Method[] declaredMethods, Method[] methods,
+             Constructor<T>[] declaredConstructors, Constructor<T>[] constructors,
+             Annotation[] declaredAnnotations, Annotation[] annotations) {
+            this.type = type;
+            this.redefinedCount = redefinedCount;
+            this.declaredFields = declaredFields;
+            this.fields = fields;
+            this.declaredMethods = declaredMethods;
+            this.methods = methods;
+            this.declaredConstructors = declaredConstructors;
+            this.constructors = constructors;
+            this.declaredAnnotations = declaredAnnotations;
+            this.annotations = annotations;
+        }
+    }
+
+    /**
+     * The roots of the classes defined by one class loader.  Lookups
+     * and insertions are lock-free.  The cache holds at most
+     * {@link #MAX_ENTRIES} roots; beyond that, inserting a root evicts
+     * an arbitrary other one, which will be built again when it is next
+     * asked for.
+     *
+     * <p>The roots are strongly reachable from their class loader, which
+     * already keeps the ordinary classes it defined reachable.  A
+     * VM-anonymous class, such as a lambda proxy, shares the class loader
+     * of its host class but may be unloaded before it, so its root is
+     * never cached.
+     */
+    static final class Cache {
+
+        /** The maximum number of roots kept by one class loader. */
+        static final int MAX_ENTRIES = 1024;
+
+        /** The cache of the bootstrap class loader. */
+        private static final Cache BOOTSTRAP = new Cache();
+
+        private final ConcurrentHashMap<Class<?>, Root<?>> roots =
+            new ConcurrentHashMap<>();
+
+        /**
+         * Returns the cache of the given class loader, or of the
+         * bootstrap class loader if it is null.
+         */
+        static Cache forLoader(ClassLoader loader) {
+            return (loader == null) ? BOOTSTRAP : loader.classModelCache();
+        }
+
+        /**
+         * Returns the cached root of a class, or null if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        <T> Root<T> get(Class<T> c) {
+            return (Root<T>) roots.get(c);
+        }
+
+        /**
+         * Caches the root of a class, replacing any previous one.
+         */
+        void put(Root<?> root) {
+            if (roots.size() >= MAX_ENTRIES) {
+                Iterator<Class<?>> it = roots.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            roots.put(root.type, root);
+        }
+    }
+}
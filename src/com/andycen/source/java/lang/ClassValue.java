@@ -26,9 +26,11 @@
 package java.lang;
 
 import java.lang.ClassValue.ClassValueMap;
-import java.util.WeakHashMap;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import sun.misc.Unsafe;
 
 import static java.lang.ClassValue.ClassValueMap.probeHomeLocation;
 import static java.lang.ClassValue.ClassValueMap.probeBackupLocations;
@@ -39,6 +41,12 @@ import static java.lang.ClassValue.ClassValueMap.probeBackupLocations;
  * table for each class encountered at a message send call site,
  * it can use a {@code ClassValue} to cache information needed to
  * perform the message send quickly, for each class encountered.
+ * <p>
+ * Values are computed and retrieved without locking: threads that
+ * compute the values of many classes, or of the same class, at the
+ * same time do not wait for one another.  A group of values that are
+ * computed separately but kept together for each class can be kept
+ * in a {@link ClassValueGroup}.
  * @author John Rose, JSR 292 EG
  * @since 1.7
  */
@@ -214,6 +222,7 @@ public abstract class ClassValue<T> {
     Entry<T> castEntry(Entry<?> e) { return (Entry<T>) e; }
 
     /** Called when the fast path of get fails, and cache reprobe also fails.
+     *  Does not lock; a thread that loses a race with another simply retries.
      */
     private T getFromHashMap(Class<?> type) {
         // The fail-safe recovery is to fall back to the underlying classValueMap.
@@ -259,8 +268,22 @@ public abstract class ClassValue<T> {
 
     /**
      * Private key for retrieval of this object from ClassValueMap.
+     * A map keeps its own weak reference to the identity, see
+     * {@link ClassValueMap.WeakKey}, so that it can drop the entries
+     * of ClassValues that are no longer in use.
      */
     static class Identity {
+        /** Matches the weak keys that refer to this identity. */
+        @Override
+        public boolean equals(Object o) {
+            return o == this ||
+                (o instanceof ClassValueMap.WeakKey && ((ClassValueMap.WeakKey) o).get() == this);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
     }
     /**
      * This ClassValue's identity, expressed as an opaque object.
@@ -276,10 +299,10 @@ public abstract class ClassValue<T> {
      * But the version changes when a remove (on any type) is executed.
      * A version change invalidates all cache entries for the affected ClassValue,
      * by marking them as stale.  Stale cache entries do not force another call
-     * to computeValue, but they do require a synchronized visit to a backing map.
+     * to computeValue, but they do require a visit to a backing map.
      * <p>
-     * All user-visible state changes on the ClassValue take place under
-     * a lock inside the synchronized methods of ClassValueMap.
+     * All user-visible state changes on the ClassValue take place by
+     * atomic updates of a ClassValueMap.
      * Readers (of ClassValue.get) are notified of such state changes
      * when this.version is bumped to a new token.
      * This variable must be volatile so that an unsynchronized reader
@@ -287,7 +310,7 @@ public abstract class ClassValue<T> {
      * <p>
      * If version were not volatile, one thread T1 could persistently hold onto
      * a stale value this.value == V1, while while another thread T2 advances
-     * (under a lock) to this.value == V2.  This will typically be harmless,
+     * (atomically) to this.value == V2.  This will typically be harmless,
      * but if T1 and T2 interact causally via some other channel, such that
      * T1's further actions are constrained (in the JMM) to happen after
      * the V2 event, then T1's observation of V1 will be an error.
@@ -362,23 +385,19 @@ public abstract class ClassValue<T> {
     /** Return the backing map associated with this type. */
     private static ClassValueMap getMap(Class<?> type) {
         // racing type.classValueMap : null (blank) => unique ClassValueMap
-        // if a null is observed, a map is created (lazily, synchronously, uniquely)
-        // all further access to that map is synchronized
+        // if a null is observed, a map is created (lazily, atomically, uniquely)
         ClassValueMap map = type.classValueMap;
         if (map != null)  return map;
         return initializeMap(type);
     }
 
-    private static final Object CRITICAL_SECTION = new Object();
     private static ClassValueMap initializeMap(Class<?> type) {
-        ClassValueMap map;
-        synchronized (CRITICAL_SECTION) {  // private object to avoid deadlocks
-            // happens about once per type
-            if ((map = type.classValueMap) == null)
-                type.classValueMap = map = new ClassValueMap(type);
-        }
+        // happens about once per type; racing threads agree on the first map installed
+        ClassValueMap map = new ClassValueMap(type);
+        if (type.casClassValueMap(null, map))
             return map;
-        }
+        return type.classValueMap;
+    }
 
     static <T> Entry<T> makeEntry(Version<T> explicitVersion, T value) {
         // Note that explicitVersion might be different from this.version.
@@ -393,19 +412,25 @@ public abstract class ClassValue<T> {
         // a race because they are either final or have controlled states.
         // If the pointer from the entry to the version is still null,
         // or if the version goes immediately dead and is nulled out,
-        // the reader will take the slow path and retry under a lock.
+        // the reader will take the slow path and retry in the backing map.
     }
 
     // The following class could also be top level and non-public:
 
     /** A backing map for all ClassValues, relative a single given type.
-     *  Gives a fully serialized "true state" for each pair (ClassValue cv, Class type).
+     *  Gives a fully serialized "true state" for each pair (ClassValue cv, Class type),
+     *  by atomic updates of a concurrent hash table.
      *  Also manages an unserialized fast-path cache.
      */
-    static class ClassValueMap extends WeakHashMap<ClassValue.Identity, Entry<?>> {
+    static class ClassValueMap {
         private final Class<?> type;
-        private Entry<?>[] cacheArray;
+        private final ConcurrentHashMap<Object, Entry<?>> entries;
+        /** Keys whose ClassValue has been collected. */
+        private final ReferenceQueue<ClassValue.Identity> staleKeys = new ReferenceQueue<>();
+        private volatile Entry<?>[] cacheArray;
         private int cacheLoad, cacheLoadLimit;
+        /** Nonzero while a thread updates the cache; see tryLockCache. */
+        private volatile int cacheLocked;
 
         /** Number of entries initially allocated to each type when first used with any ClassValue.
          *  It would be pointless to make this much smaller than the Class and ClassValueMap objects themselves.
@@ -418,111 +443,176 @@ public abstract class ClassValue<T> {
          */
         ClassValueMap(Class<?> type) {
             this.type = type;
+            this.entries = new ConcurrentHashMap<>();
             sizeCache(INITIAL_ENTRIES);
         }
 
         Entry<?>[] getCache() { return cacheArray; }
 
+        @SuppressWarnings("unchecked")  // one map has entries for all value types <T>
+        private <T> Entry<T> getEntry(ClassValue<T> classValue) {
+            return (Entry<T>) entries.get(classValue.identity);
+        }
+
         /** Initiate a query.  Store a promise (placeholder) if there is no value yet. */
-        synchronized
         <T> Entry<T> startEntry(ClassValue<T> classValue) {
-            @SuppressWarnings("unchecked")  // one map has entries for all value types <T>
-            Entry<T> e = (Entry<T>) get(classValue.identity);
-            Version<T> v = classValue.version();
-            if (e == null) {
-                e = v.promise();
-                // The presence of a promise means that a value is pending for v.
-                // Eventually, finishEntry will overwrite the promise.
-                put(classValue.identity, e);
-                // Note that the promise is never entered into the cache!
-                return e;
-            } else if (e.isPromise()) {
-                // Somebody else has asked the same question.
-                // Let the races begin!
-                if (e.version() != v) {
+            expungeStaleKeys();
+            ClassValue.Identity id = classValue.identity;
+            for (;;) {
+                Entry<T> e = getEntry(classValue);
+                // read after e, so that v is at least as recent as e's version
+                Version<T> v = classValue.version();
+                if (e == null) {
                     e = v.promise();
-                    put(classValue.identity, e);
-                }
-                return e;
-            } else {
-                // there is already a completed entry here; report it
-                if (e.version() != v) {
-                    // There is a stale but valid entry here; make it fresh again.
-                    // Once an entry is in the hash table, we don't care what its version is.
-                    e = e.refreshVersion(v);
-                    put(classValue.identity, e);
+                    // The presence of a promise means that a value is pending for v.
+                    // Eventually, finishEntry will overwrite the promise.
+                    if (entries.putIfAbsent(new WeakKey(id, staleKeys), e) == null) {
+                        // Note that the promise is never entered into the cache!
+                        return e;
+                    }
+                } else if (e.isPromise()) {
+                    // Somebody else has asked the same question.
+                    // Let the races begin!
+                    if (e.version() == v)
+                        return e;
+                    Entry<T> e2 = v.promise();
+                    if (entries.replace(id, e, e2))
+                        return e2;
+                } else {
+                    // there is already a completed entry here; report it
+                    if (e.version() != v) {
+                        // There is a stale but valid entry here; make it fresh again.
+                        // Once an entry is in the hash table, we don't care what its version is.
+                        Entry<T> e2 = e.refreshVersion(v);
+                        if (!entries.replace(id, e, e2))
+                            continue;
+                        e = e2;
+                    }
+                    // Add to the cache, to enable the fast path, next time.
+                    cacheEntry(classValue, e);
+                    return e;
                 }
-                // Add to the cache, to enable the fast path, next time.
-                checkCacheLoad();
-                addToCache(classValue, e);
-                return e;
+                // Another thread changed the entry meanwhile; look again.
             }
         }
 
         /** Finish a query.  Overwrite a matching placeholder.  Drop stale incoming values. */
-        synchronized
         <T> Entry<T> finishEntry(ClassValue<T> classValue, Entry<T> e) {
-            @SuppressWarnings("unchecked")  // one map has entries for all value types <T>
-            Entry<T> e0 = (Entry<T>) get(classValue.identity);
-            if (e == e0) {
-                // We can get here during exception processing, unwinding from computeValue.
-                assert(e.isPromise());
-                remove(classValue.identity);
-                return null;
-            } else if (e0 != null && e0.isPromise() && e0.version() == e.version()) {
-                // If e0 matches the intended entry, there has not been a remove call
-                // between the previous startEntry and now.  So now overwrite e0.
-                Version<T> v = classValue.version();
-                if (e.version() != v)
-                    e = e.refreshVersion(v);
-                put(classValue.identity, e);
-                // Add to the cache, to enable the fast path, next time.
-                checkCacheLoad();
-                addToCache(classValue, e);
-                return e;
-            } else {
-                // Some sort of mismatch; caller must try again.
-                return null;
+            ClassValue.Identity id = classValue.identity;
+            for (;;) {
+                Entry<T> e0 = getEntry(classValue);
+                if (e == e0) {
+                    // We can get here during exception processing, unwinding from computeValue.
+                    assert(e.isPromise());
+                    entries.remove(id, e);
+                    return null;
+                } else if (e0 != null && e0.isPromise() && e0.version() == e.version()) {
+                    // If e0 matches the intended entry, there has not been a remove call
+                    // between the previous startEntry and now.  So now overwrite e0.
+                    Version<T> v = classValue.version();
+                    if (e.version() != v)
+                        e = e.refreshVersion(v);
+                    if (entries.replace(id, e0, e)) {
+                        // Add to the cache, to enable the fast path, next time.
+                        cacheEntry(classValue, e);
+                        return e;
+                    }
+                    // The promise was replaced meanwhile; look again.
+                } else {
+                    // Some sort of mismatch; caller must try again.
+                    return null;
+                }
             }
         }
 
         /** Remove an entry. */
-        synchronized
         void removeEntry(ClassValue<?> classValue) {
-            Entry<?> e = remove(classValue.identity);
-            if (e == null) {
-                // Uninitialized, and no pending calls to computeValue.  No change.
-            } else if (e.isPromise()) {
-                // State is uninitialized, with a pending call to finishEntry.
-                // Since remove is a no-op in such a state, keep the promise
-                // by putting it back into the map.
-                put(classValue.identity, e);
-            } else {
-                // In an initialized state.  Bump forward, and de-initialize.
+            ClassValue.Identity id = classValue.identity;
+            for (;;) {
+                Entry<?> e = entries.get(id);
+                if (e == null || e.isPromise()) {
+                    // Uninitialized, possibly with a pending call to finishEntry.
+                    // Since remove is a no-op in such a state, there is no change.
+                    return;
+                }
+                // In an initialized state.  Bump forward first, so that cached
+                // copies of the entry stop matching before it leaves the map.
                 classValue.bumpVersion();
-                // Make all cache elements for this guy go stale.
-                removeStaleEntries(classValue);
+                if (entries.remove(id, e)) {
+                    // Make all cache elements for this guy go stale.
+                    if (tryLockCache()) {
+                        try {
+                            removeStaleEntries(classValue);
+                        } finally {
+                            unlockCache();
+                        }
+                    }
+                    return;
+                }
+                // The entry was refreshed meanwhile; remove the fresh one.
             }
         }
 
         /** Change the value for an entry. */
-        synchronized
         <T> void changeEntry(ClassValue<T> classValue, T value) {
-            @SuppressWarnings("unchecked")  // one map has entries for all value types <T>
-            Entry<T> e0 = (Entry<T>) get(classValue.identity);
-            Version<T> version = classValue.version();
-            if (e0 != null) {
-                if (e0.version() == version && e0.value() == value)
-                    // no value change => no version change needed
+            expungeStaleKeys();
+            ClassValue.Identity id = classValue.identity;
+            for (;;) {
+                Entry<T> e0 = getEntry(classValue);
+                Version<T> version = classValue.version();
+                if (e0 != null) {
+                    if (e0.version() == version && e0.value() == value)
+                        // no value change => no version change needed
+                        return;
+                    classValue.bumpVersion();
+                }
+                Entry<T> e = makeEntry(version, value);
+                if (e0 == null ? entries.putIfAbsent(new WeakKey(id, staleKeys), e) == null
+                               : entries.replace(id, e0, e)) {
+                    // Add to the cache, to enable the fast path, next time.
+                    cacheEntry(classValue, e);
                     return;
-                classValue.bumpVersion();
-                removeStaleEntries(classValue);
+                }
+            }
+        }
+
+        /** Drop the entries of ClassValues that have been collected,
+         *  as WeakHashMap.expungeStaleEntries does.
+         */
+        private void expungeStaleKeys() {
+            for (Object k; (k = staleKeys.poll()) != null; ) {
+                // a cleared key is only equal to itself
+                entries.remove(k);
+            }
+        }
+
+        /**
+         * The key of an entry in one map.  Refers weakly to the identity
+         * of its ClassValue, which is strongly reachable only from the
+         * ClassValue, and is queued on the map once that is collected.
+         * Equal to the identity, and to other keys of it, for lookups.
+         */
+        static final class WeakKey extends WeakReference<ClassValue.Identity> {
+            private final int hash;
+
+            WeakKey(ClassValue.Identity id, ReferenceQueue<ClassValue.Identity> queue) {
+                super(id, queue);
+                this.hash = id.hashCode();
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (o == this)
+                    return true;
+                Object id = get();
+                return id != null &&
+                    (o == id || (o instanceof WeakKey && ((WeakKey) o).get() == id));
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
             }
-            Entry<T> e = makeEntry(version, value);
-            put(classValue.identity, e);
-            // Add to the cache, to enable the fast path, next time.
-            checkCacheLoad();
-            addToCache(classValue, e);
         }
 
         /// --------
@@ -588,8 +678,31 @@ public abstract class ClassValue<T> {
             return (pos - cv.hashCodeForCache) & mask;
         }
 
+        /** Add the given entry to the cache, unless another thread is updating it.
+         *  Then the entry will be cached by a later query.
+         */
+        private <T> void cacheEntry(ClassValue<T> classValue, Entry<T> e) {
+            if (PROBE_LIMIT <= 0 || !tryLockCache())  return;
+            try {
+                checkCacheLoad();
+                addToCache(classValue, e);
+            } finally {
+                unlockCache();
+            }
+        }
+
+        /** Take ownership of the cache for an update, if nobody has it. */
+        private boolean tryLockCache() {
+            return cacheLocked == 0 &&
+                UNSAFE.compareAndSwapInt(this, CACHE_LOCKED, 0, 1);
+        }
+
+        private void unlockCache() {
+            cacheLocked = 0;
+        }
+
         /// --------
-        /// Below this line all functions are private, and assume synchronized access.
+        /// Below this line all functions are private, and assume the cache is locked.
         /// --------
 
         private void sizeCache(int length) {
@@ -621,7 +734,7 @@ public abstract class ClassValue<T> {
         }
 
         /** Remove stale entries in the given range.
-         *  Should be executed under a Map lock.
+         *  Should be executed with the cache locked.
          */
         private void removeStaleEntries(Entry<?>[] cache, int begin, int count) {
             if (PROBE_LIMIT <= 0)  return;
@@ -756,5 +869,16 @@ public abstract class ClassValue<T> {
         /** Maximum number of probes to attempt. */
         private static final int PROBE_LIMIT      =  6;       // 1..
         // N.B.  Set PROBE_LIMIT=0 to disable all fast paths.
+
+        private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+        private static final long CACHE_LOCKED;
+        static {
+            try {
+                CACHE_LOCKED = UNSAFE.objectFieldOffset
+                    (ClassValueMap.class.getDeclaredField("cacheLocked"));
+            } catch (ReflectiveOperationException e) {
+                throw new Error(e);
+            }
+        }
     }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import sun.misc.Unsafe;
+
+/**
+ * A group of values lazily associated with (potentially) every type,
+ * which keeps all the values of the group for a class in the one
+ * {@link ClassValue} slot of the group.
+ * <p>
+ * Each value of the group is a {@link Member} with its own
+ * {@link Member#computeValue computeValue} method, invoked the first
+ * time the value is requested for a class, as for a {@code ClassValue}.
+ * A program that keeps many values per class, such as a serializer
+ * that derives several kinds of metadata from each class it handles,
+ * can keep them in a group rather than in as many {@code ClassValue}s,
+ * so that they take one slot of each class and the values of a class
+ * are found with one lookup.  For example:
+ * <pre>{@code
+ *     static final ClassValueGroup METADATA = new ClassValueGroup();
+ *     static final ClassValueGroup.Member<Field[]> FIELDS =
+ *         new ClassValueGroup.Member<Field[]>(METADATA) {
+ *             protected Field[] computeValue(Class<?> type) {
+ *                 return type.getDeclaredFields();
+ *             }
+ *         };
+ * }</pre>
+ * <p>
+ * Values are computed and retrieved without locking.  If several
+ * threads request a value that has not been computed yet at the same
+ * time, each of them may invoke {@code computeValue}; one of the
+ * results is kept, and returned to all of them.
+ *
+ * @see ClassValue
+ * @since 1.8
+ */
+public final class ClassValueGroup {
+
+    /** The values of this group, by class. */
+    private final ClassValue<Values> values = new ClassValue<Values>() {
+        @Override
+        protected Values computeValue(Class<?> type) {
+            return new Values(0, Math.max(MIN_SLOTS, size.get()));
+        }
+    };
+
+    /** The number of members of this group, and the index of the next one. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** The number of slots allocated at least at a time. */
+    private static final int MIN_SLOTS = 4;
+
+    /** The value stored for a computed value of {@code null}. */
+    private static final Object NULL = new Object();
+
+    /**
+     * Creates an empty group.  Its members are created with
+     * {@link Member#Member(ClassValueGroup) new Member(group)}.
+     */
+    public ClassValueGroup() {
+    }
+
+    /**
+     * Removes the values of all the members of this group for the given
+     * class.  If they are subsequently {@linkplain Member#get read}, they
+     * are recomputed, as for {@link ClassValue#remove ClassValue.remove}.
+     *
+     * @param type the type whose values must be removed
+     * @throws NullPointerException if the argument is null
+     */
+    public void remove(Class<?> type) {
+        values.remove(type);
+    }
+
+    /**
+     * A value of a {@link ClassValueGroup}.
+     *
+     * @param <T> the type of the value
+     * @since 1.8
+     */
+    public static abstract class Member<T> {
+        private final ClassValueGroup group;
+        private final int index;
+
+        /**
+         * Creates a member of the given group.
+         *
+         * @param group the group
+         * @throws NullPointerException if the argument is null
+         */
+        protected Member(ClassValueGroup group) {
+            this.group = group;
+            this.index = group.size.getAndIncrement();
+        }
+
+        /**
+         * Computes the given class's value of this member.
+         * <p>
+         * This method is invoked by the first thread that requests the
+         * value with the {@link #get get} method, and again if the values
+         * of the class have been {@linkplain ClassValueGroup#remove removed}.
+         * If it throws an exception, the corresponding call to {@code get}
+         * terminates abnormally with that exception, and no value is
+         * recorded.
+         *
+         * @param type the type whose value must be computed
+         * @return the newly computed value for the given class or interface
+         */
+        protected abstract T computeValue(Class<?> type);
+
+        /**
+         * Returns the value for the given class, computing it with
+         * {@link #computeValue computeValue} if it has not been computed
+         * yet.
+         *
+         * @param type the type whose value must be computed or retrieved
+         * @return the current value of this member for the given class or
+         *         interface
+         * @throws NullPointerException if the argument is null
+         */
+        @SuppressWarnings("unchecked")
+        public T get(Class<?> type) {
+            Values values = group.values.get(type);
+            Object value = values.get(index);
+            if (value == null)
+                value = install(type, values);
+            return (value == NULL) ? null : (T) value;
+        }
+
+        /** Computes and installs the value of a class, returning the one installed. */
+        private Object install(Class<?> type, Values values) {
+            for (;;) {
+                T computed = computeValue(type);
+                Object value = values.putIfAbsent(index, (computed != null) ? computed : NULL);
+                Values current = group.values.get(type);
+                if (current == values)
+                    return value;
+                // the values of the class were removed meanwhile, so the
+                // computed value may be stale; look again
+                values = current;
+                if ((value = values.get(index)) != null)
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * The values of a group for one class, as a chain of arrays, which
+     * grows when members are added to the group after the values of a
+     * class have been created.  Slots are set only once, from null.
+     */
+    private static final class Values {
+        /** index of the first slot of this array */
+        final int base;
+        final Object[] slots;
+        /** the next slots, created on demand */
+        volatile Values next;
+
+        Values(int base, int length) {
+            this.base = base;
+            this.slots = new Object[length];
+        }
+
+        /** Returns the value at the given index, or null if there is none yet. */
+        Object get(int index) {
+            Values v = this;
+            while (index >= v.base + v.slots.length) {
+                if ((v = v.next) == null)
+                    return null;
+            }
+            return U.getObjectVolatile(v.slots, slotOffset(index - v.base));
+        }
+
+        /** Sets the value at the given index, unless there is one; returns the value there. */
+        Object putIfAbsent(int index, Object value) {
+            Values v = this;
+            while (index >= v.base + v.slots.length) {
+                Values n = v.next;
+                if (n == null) {
+                    int base = v.base + v.slots.length;
+                    n = new Values(base, Math.max(MIN_SLOTS, index + 1 - base));
+                    if (!U.compareAndSwapObject(v, NEXT, null, n))
+                        n = v.next;
+                }
+                v = n;
+            }
+            long offset = slotOffset(index - v.base);
+            if (U.compareAndSwapObject(v.slots, offset, null, value))
+                return value;
+            return U.getObjectVolatile(v.slots, offset);
+        }
+
+        private static long slotOffset(int i) {
+            return ((long) i << ASHIFT) + ABASE;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long NEXT;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            NEXT = U.objectFieldOffset(Values.class.getDeclaredField("next"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+}
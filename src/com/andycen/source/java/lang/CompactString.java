@@ -0,0 +1,608 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * An immutable character sequence stored in one byte per character when
+ * all of its characters are in the Latin-1 range (U+0000 to U+00FF), and
+ * in two bytes per character otherwise.
+ *
+ * <p>A {@link String} always holds its characters in a {@code char[]},
+ * which doubles the footprint of the ASCII-dominated text that makes up
+ * most keys, identifiers and log lines.  The virtual machine depends on
+ * that layout, so the compact representation is provided as a separate
+ * {@link CharSequence} that long-lived text can be converted to with
+ * {@link #valueOf(CharSequence)} and back with {@link #toString()}.
+ *
+ * <p>The representation is canonical: a {@code CompactString} uses the
+ * two-byte form only if one of its characters needs it.  Equality, hash
+ * codes, ordering and searches therefore work directly on the bytes of
+ * Latin-1 strings.  The hash code is the one {@link String#hashCode()}
+ * computes for the same characters, and the ordering is that of
+ * {@link String#compareTo(String)}.
+ *
+ * <p>{@link StringBuilder} and {@link StringBuffer} append a
+ * {@code CompactString} without going through {@link #charAt(int)}, and
+ * {@link #getBytes(Charset)} and {@link #decode(byte[], int, int, Charset)}
+ * copy Latin-1 and ASCII text without a charset encoder or decoder.
+ *
+ * @see     String
+ * @since   1.8
+ */
+public final class CompactString
+    implements java.io.Serializable, Comparable<CompactString>, CharSequence {
+
+    private static final long serialVersionUID = 6497213281932616914L;
+
+    /** Coder of a string whose bytes are Latin-1 characters. */
+    static final byte LATIN1 = 0;
+
+    /** Coder of a string whose byte pairs are big-endian UTF-16 chars. */
+    static final byte UTF16 = 1;
+
+    /** The empty compact string. */
+    private static final CompactString EMPTY = new CompactString(new byte[0], LATIN1);
+
+    /**
+     * The characters, one byte each if coder is LATIN1, otherwise two
+     * bytes each, high byte first.
+     *
+     * @serial
+     */
+    private final byte[] value;
+
+    /**
+     * The encoding of value, LATIN1 or UTF16.
+     *
+     * @serial
+     */
+    private final byte coder;
+
+    /** Cache the hash code for the string */
+    private transient int hash; // Default to 0
+
+    /**
+     * Constructs a compact string that shares the given bytes.
+     */
+    CompactString(byte[] value, byte coder) {
+        this.value = value;
+        this.coder = coder;
+    }
+
+    /**
+     * Returns a compact string with the characters of the given sequence.
+     *
+     * @param  s  the character sequence
+     * @return a compact string with the same characters as {@code s}
+     */
+    public static CompactString valueOf(CharSequence s) {
+        if (s instanceof CompactString)
+            return (CompactString) s;
+        int len = s.length();
+        if (len == 0)
+            return EMPTY;
+        if (isLatin1(s, len)) {
+            byte[] v = new byte[len];
+            for (int i = 0; i < len; i++)
+                v[i] = (byte) s.charAt(i);
+            return new CompactString(v, LATIN1);
+        }
+        byte[] v = new byte[len << 1];
+        for (int i = 0; i < len; i++)
+            putChar(v, i, s.charAt(i));
+        return new CompactString(v, UTF16);
+    }
+
+    /**
+     * Returns a compact string with the characters of the given subarray.
+     *
+     * @param  data    the characters
+     * @param  offset  the index of the first character
+     * @param  count   the number of characters
+     * @return a compact string with the characters of the subarray
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code count}
+     *         is negative, or {@code offset + count} is larger than
+     *         {@code data.length}
+     */
+    public static CompactString valueOf(char[] data, int offset, int count) {
+        checkBoundsOffCount(offset, count, data.length);
+        return compress(data, offset, count);
+    }
+
+    /**
+     * Returns the compact form of count characters of the given array,
+     * which is assumed to be in bounds.
+     */
+    static CompactString compress(char[] data, int offset, int count) {
+        if (count == 0)
+            return EMPTY;
+        int end = offset + count;
+        int i = offset;
+        while (i < end && data[i] <= 0xFF)
+            i++;
+        if (i == end) {
+            byte[] v = new byte[count];
+            for (int j = 0; j < count; j++)
+                v[j] = (byte) data[offset + j];
+            return new CompactString(v, LATIN1);
+        }
+        byte[] v = new byte[count << 1];
+        for (int j = 0; j < count; j++)
+            putChar(v, j, data[offset + j]);
+        return new CompactString(v, UTF16);
+    }
+
+    /**
+     * Decodes the given subarray of bytes in the given charset.  Text in
+     * ISO-8859-1, and ASCII text in US-ASCII or UTF-8, is copied as is;
+     * other input is decoded with the charset's decoder.
+     *
+     * @param  bytes    the bytes to decode
+     * @param  offset   the index of the first byte
+     * @param  length   the number of bytes
+     * @param  charset  the charset of the bytes
+     * @return the decoded compact string
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code length}
+     *         is negative, or {@code offset + length} is larger than
+     *         {@code bytes.length}
+     */
+    public static CompactString decode(byte[] bytes, int offset, int length,
+                                       Charset charset) {
+        checkBoundsOffCount(offset, length, bytes.length);
+        return StringCoding.decodeCompact(charset, bytes, offset, length);
+    }
+
+    private static boolean isLatin1(CharSequence s, int len) {
+        for (int i = 0; i < len; i++)
+            if (s.charAt(i) > 0xFF)
+                return false;
+        return true;
+    }
+
+    private static void putChar(byte[] v, int i, char c) {
+        v[i << 1] = (byte) (c >> 8);
+        v[(i << 1) + 1] = (byte) c;
+    }
+
+    private static char getChar(byte[] v, int i) {
+        return (char) (((v[i << 1] & 0xFF) << 8) | (v[(i << 1) + 1] & 0xFF));
+    }
+
+    static void checkBoundsOffCount(int offset, int count, int length) {
+        if (offset < 0 || count < 0 || offset > length - count)
+            throw new StringIndexOutOfBoundsException(
+                "offset " + offset + ", count " + count + ", length " + length);
+    }
+
+    boolean isLatin1() {
+        return coder == LATIN1;
+    }
+
+    /**
+     * Returns the bytes of a Latin-1 string, not copied.
+     */
+    byte[] latin1Bytes() {
+        return value;
+    }
+
+    /**
+     * Returns the length of this string.
+     *
+     * @return  the number of characters in this string
+     */
+    public int length() {
+        return value.length >> coder;
+    }
+
+    /**
+     * Returns {@code true} if, and only if, {@link #length()} is {@code 0}.
+     *
+     * @return {@code true} if {@link #length()} is {@code 0}, otherwise
+     * {@code false}
+     */
+    public boolean isEmpty() {
+        return value.length == 0;
+    }
+
+    /**
+     * Returns the {@code char} value at the specified index.
+     *
+     * @param      index   the index of the {@code char} value.
+     * @return     the {@code char} value at the specified index of this string.
+     * @exception  IndexOutOfBoundsException  if the {@code index}
+     *             argument is negative or not less than the length of this
+     *             string.
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= length())
+            throw new StringIndexOutOfBoundsException(index);
+        return coder == LATIN1 ? (char) (value[index] & 0xFF) : getChar(value, index);
+    }
+
+    /**
+     * Copies characters from this string into the destination character
+     * array.
+     *
+     * @param      srcBegin   index of the first character in the string
+     *                        to copy.
+     * @param      srcEnd     index after the last character in the string
+     *                        to copy.
+     * @param      dst        the destination array.
+     * @param      dstBegin   the start offset in the destination array.
+     * @exception IndexOutOfBoundsException if any of the indices is out of
+     *            range
+     */
+    public void getChars(int srcBegin, int srcEnd, char dst[], int dstBegin) {
+        if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > length())
+            throw new StringIndexOutOfBoundsException(
+                "begin " + srcBegin + ", end " + srcEnd + ", length " + length());
+        checkBoundsOffCount(dstBegin, srcEnd - srcBegin, dst.length);
+        if (coder == LATIN1) {
+            for (int i = srcBegin, j = dstBegin; i < srcEnd; i++, j++)
+                dst[j] = (char) (value[i] & 0xFF);
+        } else {
+            for (int i = srcBegin, j = dstBegin; i < srcEnd; i++, j++)
+                dst[j] = getChar(value, i);
+        }
+    }
+
+    /**
+     * Encodes this string into a sequence of bytes using the given charset.
+     * Latin-1 strings are copied without an encoder when the charset is
+     * ISO-8859-1, or when the string is ASCII and the charset is US-ASCII
+     * or UTF-8.
+     *
+     * @param  charset the charset to encode the string with
+     * @return  the resultant byte array
+     */
+    public byte[] getBytes(Charset charset) {
+        if (charset == null) throw new NullPointerException();
+        return StringCoding.encode(charset, this);
+    }
+
+    /**
+     * Compares this string to the specified object.  The result is {@code
+     * true} if and only if the argument is a {@code CompactString} that
+     * represents the same sequence of characters as this object.
+     *
+     * @param  anObject
+     *         The object to compare this {@code CompactString} against
+     *
+     * @return  {@code true} if the given object represents a
+     *          {@code CompactString} equivalent to this string,
+     *          {@code false} otherwise
+     *
+     * @see  #contentEquals(CharSequence)
+     */
+    public boolean equals(Object anObject) {
+        if (this == anObject) {
+            return true;
+        }
+        if (anObject instanceof CompactString) {
+            CompactString other = (CompactString) anObject;
+            // The representation is canonical, so the coders must agree
+            return coder == other.coder && Arrays.equals(value, other.value);
+        }
+        return false;
+    }
+
+    /**
+     * Compares this string to the specified {@code CharSequence}.  The
+     * result is {@code true} if and only if this {@code CompactString}
+     * represents the same sequence of char values as the specified
+     * sequence.
+     *
+     * @param  cs
+     *         The sequence to compare this {@code CompactString} against
+     *
+     * @return  {@code true} if this {@code CompactString} represents the
+     *          same sequence of char values as the specified sequence,
+     *          {@code false} otherwise
+     */
+    public boolean contentEquals(CharSequence cs) {
+        if (cs instanceof CompactString)
+            return equals(cs);
+        int n = length();
+        if (n != cs.length())
+            return false;
+        if (coder == LATIN1) {
+            for (int i = 0; i < n; i++)
+                if ((value[i] & 0xFF) != cs.charAt(i))
+                    return false;
+        } else {
+            for (int i = 0; i < n; i++)
+                if (getChar(value, i) != cs.charAt(i))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code for this string, equal to the hash code of the
+     * {@code String} with the same characters.
+     *
+     * @return  a hash code value for this object.
+     */
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && value.length > 0) {
+            byte[] v = value;
+            if (coder == LATIN1) {
+                for (byte b : v)
+                    h = 31 * h + (b & 0xFF);
+            } else {
+                for (int i = 0, n = v.length >> 1; i < n; i++)
+                    h = 31 * h + getChar(v, i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Compares two strings lexicographically, with the same result as
+     * {@link String#compareTo(String)} for the same characters.
+     *
+     * @param   anotherString   the {@code CompactString} to be compared.
+     * @return  the value {@code 0} if the argument string is equal to
+     *          this string; a value less than {@code 0} if this string
+     *          is lexicographically less than the string argument; and a
+     *          value greater than {@code 0} if this string is
+     *          lexicographically greater than the string argument.
+     */
+    public int compareTo(CompactString anotherString) {
+        byte[] v1 = value, v2 = anotherString.value;
+        int len1 = length(), len2 = anotherString.length();
+        int lim = Math.min(len1, len2);
+        if (coder == LATIN1 && anotherString.coder == LATIN1) {
+            for (int k = 0; k < lim; k++) {
+                if (v1[k] != v2[k])
+                    return (v1[k] & 0xFF) - (v2[k] & 0xFF);
+            }
+        } else {
+            for (int k = 0; k < lim; k++) {
+                char c1 = charAt(k), c2 = anotherString.charAt(k);
+                if (c1 != c2)
+                    return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of
+     * the specified character, starting the search at the specified index.
+     * Supplementary characters are matched as in
+     * {@link String#indexOf(int, int)}.
+     *
+     * @param   ch          a character (Unicode code point).
+     * @param   fromIndex   the index to start the search from.
+     * @return  the index of the first occurrence of the character in this
+     *          string that is greater than or equal to {@code fromIndex},
+     *          or {@code -1} if the character does not occur.
+     */
+    public int indexOf(int ch, int fromIndex) {
+        int n = length();
+        if (fromIndex < 0)
+            fromIndex = 0;
+        if (coder == LATIN1) {
+            // A Latin-1 string cannot contain anything else
+            if (ch >>> 8 != 0)
+                return -1;
+            byte b = (byte) ch;
+            byte[] v = value;
+            for (int i = fromIndex; i < n; i++)
+                if (v[i] == b)
+                    return i;
+            return -1;
+        }
+        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            for (int i = fromIndex; i < n; i++)
+                if (getChar(value, i) == ch)
+                    return i;
+        } else if (Character.isValidCodePoint(ch)) {
+            char hi = Character.highSurrogate(ch), lo = Character.lowSurrogate(ch);
+            for (int i = fromIndex; i < n - 1; i++)
+                if (getChar(value, i) == hi && getChar(value, i + 1) == lo)
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of
+     * the specified character.
+     *
+     * @param   ch   a character (Unicode code point).
+     * @return  the index of the first occurrence of the character in this
+     *          string, or {@code -1} if the character does not occur.
+     */
+    public int indexOf(int ch) {
+        return indexOf(ch, 0);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified sequence, starting at the specified index.
+     *
+     * @param   str         the sequence to search for.
+     * @param   fromIndex   the index from which to start the search.
+     * @return  the index of the first occurrence of the specified sequence,
+     *          starting at the specified index, or {@code -1} if there is
+     *          no such occurrence.
+     */
+    public int indexOf(CharSequence str, int fromIndex) {
+        int n = length(), m = str.length();
+        if (fromIndex < 0)
+            fromIndex = 0;
+        if (fromIndex > n)
+            return m == 0 ? n : -1;
+        if (m == 0)
+            return fromIndex;
+        if (coder == LATIN1) {
+            // Match the first character with a byte scan, then verify
+            char first = str.charAt(0);
+            if (first > 0xFF)
+                return -1;
+            byte[] v = value;
+            byte b = (byte) first;
+            for (int i = fromIndex, max = n - m; i <= max; i++) {
+                if (v[i] != b)
+                    continue;
+                int j = 1;
+                while (j < m && (v[i + j] & 0xFF) == str.charAt(j))
+                    j++;
+                if (j == m)
+                    return i;
+            }
+            return -1;
+        }
+        for (int i = fromIndex, max = n - m; i <= max; i++) {
+            int j = 0;
+            while (j < m && getChar(value, i + j) == str.charAt(j))
+                j++;
+            if (j == m)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified sequence.
+     *
+     * @param   str   the sequence to search for.
+     * @return  the index of the first occurrence of the specified sequence,
+     *          or {@code -1} if there is no such occurrence.
+     */
+    public int indexOf(CharSequence str) {
+        return indexOf(str, 0);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of
+     * the specified character.
+     *
+     * @param   ch   a character (Unicode code point).
+     * @return  the index of the last occurrence of the character in this
+     *          string, or {@code -1} if the character does not occur.
+     */
+    public int lastIndexOf(int ch) {
+        if (coder == LATIN1) {
+            if (ch >>> 8 != 0)
+                return -1;
+            byte b = (byte) ch;
+            for (int i = value.length - 1; i >= 0; i--)
+                if (value[i] == b)
+                    return i;
+            return -1;
+        }
+        return toString().lastIndexOf(ch);
+    }
+
+    /**
+     * Tests if this string starts with the specified prefix.
+     *
+     * @param   prefix   the prefix.
+     * @return  {@code true} if the character sequence represented by the
+     *          argument is a prefix of the character sequence represented by
+     *          this string; {@code false} otherwise.
+     */
+    public boolean startsWith(CharSequence prefix) {
+        int m = prefix.length();
+        if (m > length())
+            return false;
+        for (int i = 0; i < m; i++)
+            if (charAt(i) != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns a compact string that is a subsequence of this sequence.
+     *
+     * @param      beginIndex   the begin index, inclusive.
+     * @param      endIndex     the end index, exclusive.
+     * @return     the specified subsequence.
+     *
+     * @throws  IndexOutOfBoundsException
+     *          if {@code beginIndex} or {@code endIndex} is negative,
+     *          if {@code endIndex} is greater than {@code length()},
+     *          or if {@code beginIndex} is greater than {@code endIndex}
+     */
+    public CompactString subSequence(int beginIndex, int endIndex) {
+        int n = length();
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > n)
+            throw new StringIndexOutOfBoundsException(
+                "begin " + beginIndex + ", end " + endIndex + ", length " + n);
+        if (beginIndex == 0 && endIndex == n)
+            return this;
+        if (coder == LATIN1)
+            return new CompactString(Arrays.copyOfRange(value, beginIndex, endIndex), LATIN1);
+        // A slice of a two-byte string may fit in one byte per character
+        char[] chars = new char[endIndex - beginIndex];
+        getChars(beginIndex, endIndex, chars, 0);
+        return compress(chars, 0, chars.length);
+    }
+
+    /**
+     * Returns the {@code String} with the characters of this string.
+     *
+     * @return  a string with the same characters.
+     */
+    public String toString() {
+        char[] chars = new char[length()];
+        getChars(0, chars.length, chars, 0);
+        return new String(chars, true);
+    }
+
+    /**
+     * Validates the representation of a deserialized string.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (value == null || (coder != LATIN1 && coder != UTF16) ||
+            (coder == UTF16 && (value.length & 1) != 0))
+            throw new java.io.InvalidObjectException("invalid CompactString");
+    }
+
+    /**
+     * Restores the canonical representation, which equals relies on, in
+     * an array of its own: the stream may hold other references to the
+     * deserialized array.
+     */
+    private Object readResolve() {
+        if (coder == LATIN1)
+            return new CompactString(value.clone(), LATIN1);
+        char[] chars = new char[length()];
+        getChars(0, chars.length, chars, 0);
+        return compress(chars, 0, chars.length);
+    }
+}
@@ -0,0 +1,980 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the decimal representation of {@code int}, {@code long} and
+ * {@code double} values directly into caller supplied buffers, and parses
+ * decimal numbers from ranges of a {@code CharSequence} or of an ASCII
+ * {@code byte[]}, without creating intermediate strings.
+ *
+ * <p>The characters written are exactly those of {@link Integer#toString(int)}
+ * and {@link Long#toString(long)}.  A {@code double} is written in the format
+ * described by {@link Double#toString(double)}, using the shortest decimal
+ * that rounds back to the same {@code double}; when several decimals of that
+ * length qualify, the one closest to the exact binary value is chosen.  The
+ * conversion follows Ulf Adams' Ry&#363; algorithm and needs no arbitrary
+ * precision arithmetic, so it is considerably faster than
+ * {@code Double.toString}, which may also produce more digits than needed.
+ *
+ * <p>The {@code write} methods taking an array return the index following the
+ * last character written.  They throw {@code IndexOutOfBoundsException}
+ * without modifying the array if the representation does not fit.  Bytes are
+ * written in US-ASCII, which is also valid UTF-8 and ISO-8859-1.
+ *
+ * <p>None of the {@code write} methods allocate.  {@code append} does not
+ * allocate when the target is a {@link StringBuilder}; other
+ * {@code Appendable}s receive the characters through a small temporary
+ * array.  The parse methods only allocate when the input falls back to the
+ * general algorithm of {@link Double#parseDouble(String)} or is malformed.
+ *
+ * @since 1.8
+ */
+public final class DecimalDigits {
+
+    /**
+     * The maximum number of characters written for an {@code int}.
+     */
+    public static final int MAX_INT_LENGTH = 11;
+
+    /**
+     * The maximum number of characters written for a {@code long}.
+     */
+    public static final int MAX_LONG_LENGTH = 20;
+
+    /**
+     * The maximum number of characters written for a {@code double}, as in
+     * {@code "-2.2250738585072014E-308"}.
+     */
+    public static final int MAX_DOUBLE_LENGTH = 24;
+
+    private DecimalDigits() {}
+
+    // Integral values
+
+    /**
+     * Returns the number of characters in the decimal representation of
+     * {@code v}.
+     *
+     * @param v the value
+     * @return the length of {@code Integer.toString(v)}
+     */
+    public static int length(int v) {
+        return v < 0 ? lengthOf(-(long) v) + 1 : lengthOf(v);
+    }
+
+    /**
+     * Returns the number of characters in the decimal representation of
+     * {@code v}.
+     *
+     * @param v the value
+     * @return the length of {@code Long.toString(v)}
+     */
+    public static int length(long v) {
+        if (v == Long.MIN_VALUE)
+            return MAX_LONG_LENGTH;
+        return v < 0 ? lengthOf(-v) + 1 : lengthOf(v);
+    }
+
+    /**
+     * Writes the decimal representation of {@code v} into {@code dst},
+     * starting at {@code off}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first character to write
+     * @return the index following the last character written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(int v, char[] dst, int off) {
+        return writeLong(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII decimal representation of {@code v} into
+     * {@code dst}, starting at {@code off}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(int v, byte[] dst, int off) {
+        return writeLong(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII decimal representation of {@code v} into
+     * {@code dst} at its position, and advances the position.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @return {@code dst}
+     * @throws java.nio.BufferOverflowException if the representation does
+     *         not fit in the remaining bytes
+     * @throws java.nio.ReadOnlyBufferException if {@code dst} is read-only
+     */
+    public static ByteBuffer write(int v, ByteBuffer dst) {
+        return put(dst, writeLong(v, checkWritable(dst), dst.position(), dst.limit()));
+    }
+
+    /**
+     * Appends the decimal representation of {@code v} to {@code a}.
+     *
+     * @param <A> the type of the target
+     * @param a the target
+     * @param v the value
+     * @return {@code a}
+     * @throws IOException if {@code a} throws it
+     */
+    public static <A extends Appendable> A append(A a, int v) throws IOException {
+        return append(a, v, false);
+    }
+
+    /**
+     * Writes the decimal representation of {@code v} into {@code dst},
+     * starting at {@code off}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first character to write
+     * @return the index following the last character written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(long v, char[] dst, int off) {
+        return writeLong(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII decimal representation of {@code v} into
+     * {@code dst}, starting at {@code off}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(long v, byte[] dst, int off) {
+        return writeLong(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII decimal representation of {@code v} into
+     * {@code dst} at its position, and advances the position.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @return {@code dst}
+     * @throws java.nio.BufferOverflowException if the representation does
+     *         not fit in the remaining bytes
+     * @throws java.nio.ReadOnlyBufferException if {@code dst} is read-only
+     */
+    public static ByteBuffer write(long v, ByteBuffer dst) {
+        return put(dst, writeLong(v, checkWritable(dst), dst.position(), dst.limit()));
+    }
+
+    /**
+     * Appends the decimal representation of {@code v} to {@code a}.
+     *
+     * @param <A> the type of the target
+     * @param a the target
+     * @param v the value
+     * @return {@code a}
+     * @throws IOException if {@code a} throws it
+     */
+    public static <A extends Appendable> A append(A a, long v) throws IOException {
+        return append(a, v, false);
+    }
+
+    // Floating point values
+
+    /**
+     * Writes the representation of {@code v} described by
+     * {@link Double#toString(double)} into {@code dst}, starting at
+     * {@code off}, using the shortest decimal that uniquely distinguishes
+     * {@code v}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first character to write
+     * @return the index following the last character written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(double v, char[] dst, int off) {
+        return writeDouble(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII representation of {@code v} described by
+     * {@link Double#toString(double)} into {@code dst}, starting at
+     * {@code off}, using the shortest decimal that uniquely distinguishes
+     * {@code v}.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @param off the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     */
+    public static int write(double v, byte[] dst, int off) {
+        return writeDouble(v, dst, off, dst.length);
+    }
+
+    /**
+     * Writes the US-ASCII representation of {@code v} described by
+     * {@link Double#toString(double)} into {@code dst} at its position,
+     * using the shortest decimal that uniquely distinguishes {@code v}, and
+     * advances the position.
+     *
+     * @param v the value
+     * @param dst the destination
+     * @return {@code dst}
+     * @throws java.nio.BufferOverflowException if the representation does
+     *         not fit in the remaining bytes
+     * @throws java.nio.ReadOnlyBufferException if {@code dst} is read-only
+     */
+    public static ByteBuffer write(double v, ByteBuffer dst) {
+        return put(dst, writeDouble(v, checkWritable(dst), dst.position(), dst.limit()));
+    }
+
+    /**
+     * Appends the representation of {@code v} described by
+     * {@link Double#toString(double)} to {@code a}, using the shortest
+     * decimal that uniquely distinguishes {@code v}.
+     *
+     * @param <A> the type of the target
+     * @param a the target
+     * @param v the value
+     * @return {@code a}
+     * @throws IOException if {@code a} throws it
+     */
+    public static <A extends Appendable> A append(A a, double v) throws IOException {
+        return append(a, Double.doubleToRawLongBits(v), true);
+    }
+
+    /**
+     * Returns the representation of {@code v} described by
+     * {@link Double#toString(double)}, using the shortest decimal that
+     * uniquely distinguishes {@code v}.
+     *
+     * @param v the value
+     * @return the shortest representation of {@code v}
+     */
+    public static String toString(double v) {
+        char[] buf = new char[MAX_DOUBLE_LENGTH];
+        return new String(buf, 0, writeDouble(v, buf, 0, buf.length));
+    }
+
+    // Parsing
+
+    /**
+     * Parses the characters from {@code beginIndex} to {@code endIndex - 1}
+     * as a signed decimal {@code int}, as {@link Integer#parseInt(String)}
+     * would parse the corresponding substring.
+     *
+     * @param s the characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within {@code s}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code int}
+     */
+    public static int parseInt(CharSequence s, int beginIndex, int endIndex) {
+        return Integer.parseInt(s, beginIndex, endIndex, 10);
+    }
+
+    /**
+     * Parses the US-ASCII bytes from {@code beginIndex} to
+     * {@code endIndex - 1} as a signed decimal {@code int}, as
+     * {@link Integer#parseInt(String)} would parse the corresponding string.
+     *
+     * @param ascii the bytes
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within
+     *         {@code ascii}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code int}
+     */
+    public static int parseInt(byte[] ascii, int beginIndex, int endIndex) {
+        long v = parseLong(ascii, beginIndex, endIndex, Integer.MIN_VALUE);
+        return (int) v;
+    }
+
+    /**
+     * Parses the characters from {@code beginIndex} to {@code endIndex - 1}
+     * as a signed decimal {@code long}, as {@link Long#parseLong(String)}
+     * would parse the corresponding substring.
+     *
+     * @param s the characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within {@code s}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code long}
+     */
+    public static long parseLong(CharSequence s, int beginIndex, int endIndex) {
+        return Long.parseLong(s, beginIndex, endIndex, 10);
+    }
+
+    /**
+     * Parses the US-ASCII bytes from {@code beginIndex} to
+     * {@code endIndex - 1} as a signed decimal {@code long}, as
+     * {@link Long#parseLong(String)} would parse the corresponding string.
+     *
+     * @param ascii the bytes
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within
+     *         {@code ascii}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code long}
+     */
+    public static long parseLong(byte[] ascii, int beginIndex, int endIndex) {
+        return parseLong(ascii, beginIndex, endIndex, Long.MIN_VALUE);
+    }
+
+    /**
+     * Parses the characters from {@code beginIndex} to {@code endIndex - 1}
+     * as a {@code double}, as {@link Double#parseDouble(String)} would parse
+     * the corresponding substring.  Plain decimals of up to 15 significant
+     * digits with a small exponent, the common case, are converted without
+     * allocating.
+     *
+     * @param s the characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within {@code s}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code double}
+     */
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex) {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > s.length())
+            throw new IndexOutOfBoundsException();
+        double d = parseFast(s, beginIndex, endIndex);
+        if (d == d)
+            return d;
+        return Double.parseDouble(s.subSequence(beginIndex, endIndex).toString());
+    }
+
+    /**
+     * Parses the US-ASCII bytes from {@code beginIndex} to
+     * {@code endIndex - 1} as a {@code double}, as
+     * {@link Double#parseDouble(String)} would parse the corresponding
+     * string.  Plain decimals of up to 15 significant digits with a small
+     * exponent, the common case, are converted without allocating.
+     *
+     * @param ascii the bytes
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the value
+     * @throws IndexOutOfBoundsException if the range is not within
+     *         {@code ascii}
+     * @throws NumberFormatException if the range does not contain a parsable
+     *         {@code double}
+     */
+    @SuppressWarnings("deprecation")
+    public static double parseDouble(byte[] ascii, int beginIndex, int endIndex) {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > ascii.length)
+            throw new IndexOutOfBoundsException();
+        double d = parseFast(ascii, beginIndex, endIndex);
+        if (d == d)
+            return d;
+        return Double.parseDouble(new String(ascii, 0, beginIndex, endIndex - beginIndex));
+    }
+
+    // Writing
+
+    /*
+     * The destination of the writers below is a char[], a byte[] or a
+     * ByteBuffer written with absolute puts.  Passing it as an Object keeps a
+     * single copy of each formatting algorithm; the type check in put is
+     * trivially predicted at any one call site.
+     */
+
+    private static void put(Object dst, int index, int c) {
+        if (dst instanceof char[])
+            ((char[]) dst)[index] = (char) c;
+        else if (dst instanceof byte[])
+            ((byte[]) dst)[index] = (byte) c;
+        else
+            ((ByteBuffer) dst).put(index, (byte) c);
+    }
+
+    private static void checkFits(int off, int length, int end) {
+        if (off < 0 || off > end || length > end - off)
+            throw new IndexOutOfBoundsException("off " + off + ", length " +
+                                                length + ", end " + end);
+    }
+
+    private static ByteBuffer checkWritable(ByteBuffer dst) {
+        if (dst.isReadOnly())
+            throw new java.nio.ReadOnlyBufferException();
+        return dst;
+    }
+
+    /**
+     * Advances the position of a buffer written by a writer called with its
+     * position and limit.
+     */
+    private static ByteBuffer put(ByteBuffer dst, int end) {
+        dst.position(end);
+        return dst;
+    }
+
+    /**
+     * Returns the number of decimal digits of a non-negative value.
+     */
+    private static int lengthOf(long v) {
+        long p = 10;
+        for (int i = 1; i < 19; i++) {
+            if (v < p)
+                return i;
+            p = 10 * p;
+        }
+        return 19;
+    }
+
+    /**
+     * Writes the digits of a non-negative value backwards, ending just before
+     * {@code end}.
+     */
+    private static void writeDigits(Object dst, int end, long v) {
+        while (v >= 100) {
+            long q = v / 100;
+            int r = (int) (v - q * 100);
+            v = q;
+            put(dst, --end, Integer.DigitOnes[r]);
+            put(dst, --end, Integer.DigitTens[r]);
+        }
+        int r = (int) v;
+        if (r >= 10) {
+            put(dst, --end, Integer.DigitOnes[r]);
+            put(dst, --end, Integer.DigitTens[r]);
+        } else {
+            put(dst, --end, '0' + r);
+        }
+    }
+
+    private static int writeLong(long v, Object dst, int off, int end) {
+        int length = length(v);
+        if (dst instanceof ByteBuffer && (off > end || length > end - off))
+            throw new java.nio.BufferOverflowException();
+        checkFits(off, length, end);
+        int pos = off + length;
+        if (v < 0) {
+            put(dst, off, '-');
+            if (v == Long.MIN_VALUE) {
+                // The magnitude does not fit; write the last digit separately
+                put(dst, pos - 1, '8');
+                writeDigits(dst, pos - 1, 922337203685477580L);
+                return pos;
+            }
+            v = -v;
+        }
+        writeDigits(dst, pos, v);
+        return pos;
+    }
+
+    private static <A extends Appendable> A append(A a, long v, boolean isDouble)
+            throws IOException {
+        if (a instanceof StringBuilder) {
+            StringBuilder sb = (StringBuilder) a;
+            sb.ensureCapacity(sb.count + MAX_DOUBLE_LENGTH);
+            sb.count = isDouble
+                ? writeDouble(Double.longBitsToDouble(v), sb.value, sb.count, sb.value.length)
+                : writeLong(v, sb.value, sb.count, sb.value.length);
+        } else {
+            char[] buf = new char[MAX_DOUBLE_LENGTH];
+            int n = isDouble
+                ? writeDouble(Double.longBitsToDouble(v), buf, 0, buf.length)
+                : writeLong(v, buf, 0, buf.length);
+            for (int i = 0; i < n; i++)
+                a.append(buf[i]);
+        }
+        return a;
+    }
+
+    private static int writeString(String s, Object dst, int off, int end) {
+        int length = s.length();
+        if (dst instanceof ByteBuffer && (off > end || length > end - off))
+            throw new java.nio.BufferOverflowException();
+        checkFits(off, length, end);
+        for (int i = 0; i < length; i++)
+            put(dst, off + i, s.charAt(i));
+        return off + length;
+    }
+
+    /*
+     * Shortest decimal conversion of doubles, after Ulf Adams, "Ryu: fast
+     * float-to-string conversion", PLDI 2018.  The value is scaled to the
+     * exact interval of decimals that round to it, using 125 bits of 5^q or
+     * of 2^k / 5^q; digits are then removed while the interval still holds
+     * more than one candidate.
+     */
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int EXPONENT_BIAS = 1023;
+    private static final int POW5_BITCOUNT = 125;
+    private static final int POW5_INV_BITCOUNT = 125;
+
+    /**
+     * Tables of 5^i scaled to 125 bits, and of the 125-bit reciprocals of
+     * 5^i, stored low word first.  They are built on first use.
+     */
+    private static final class Pow5 {
+        static final int SIZE = 326;
+        static final int INV_SIZE = 342;
+        static final long[] SPLIT = new long[2 * SIZE];
+        static final long[] INV_SPLIT = new long[2 * INV_SIZE];
+
+        static {
+            BigInteger pow5 = BigInteger.ONE;
+            BigInteger five = BigInteger.valueOf(5);
+            for (int i = 0; i < INV_SIZE; i++) {
+                int bits = pow5.bitLength();
+                if (i < SIZE) {
+                    BigInteger v = pow5.shiftRight(bits - POW5_BITCOUNT);
+                    SPLIT[2 * i] = v.longValue();
+                    SPLIT[2 * i + 1] = v.shiftRight(64).longValue();
+                }
+                BigInteger inv = BigInteger.ONE.shiftLeft(bits - 1 + POW5_INV_BITCOUNT)
+                                               .divide(pow5).add(BigInteger.ONE);
+                INV_SPLIT[2 * i] = inv.longValue();
+                INV_SPLIT[2 * i + 1] = inv.shiftRight(64).longValue();
+                pow5 = pow5.multiply(five);
+            }
+        }
+    }
+
+    /** Returns ceil(log2(5^e)), or 1 for e == 0; for 0 <= e <= 3528. */
+    private static int pow5bits(int e) {
+        return ((e * 1217359) >>> 19) + 1;
+    }
+
+    /** Returns floor(log10(2^e)); for 0 <= e <= 1650. */
+    private static int log10Pow2(int e) {
+        return (e * 78913) >>> 18;
+    }
+
+    /** Returns floor(log10(5^e)); for 0 <= e <= 2620. */
+    private static int log10Pow5(int e) {
+        return (e * 732923) >>> 20;
+    }
+
+    private static boolean multipleOfPowerOf5(long v, int p) {
+        int count = 0;
+        while (v % 5 == 0) {
+            v /= 5;
+            if (++count >= p)
+                return true;
+        }
+        return count >= p;
+    }
+
+    private static boolean multipleOfPowerOf2(long v, int p) {
+        return (v & ((1L << p) - 1)) == 0;
+    }
+
+    /** Returns the high 64 bits of the unsigned 128-bit product. */
+    private static long multiplyHighUnsigned(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        long p01 = x0 * y1, p10 = x1 * y0;
+        long middle = ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+    /**
+     * Returns (m * mul) >> j, where mul is the 128-bit table entry at
+     * {@code table[index]}, m has at most 55 bits and 64 < j < 128.
+     */
+    private static long mulShift(long m, long[] table, int index, int j) {
+        long lo = table[index], hi = table[index + 1];
+        long high1 = multiplyHighUnsigned(m, hi);
+        long low1 = m * hi;
+        long high0 = multiplyHighUnsigned(m, lo);
+        long sum = high0 + low1;
+        if (Long.compareUnsigned(sum, high0) < 0)
+            high1++;
+        int dist = j - 64;
+        return (high1 << (64 - dist)) | (sum >>> dist);
+    }
+
+    private static int writeDouble(double v, Object dst, int off, int end) {
+        long bits = Double.doubleToRawLongBits(v);
+        int ieeeExponent = (int) (bits >>> MANTISSA_BITS) & 0x7FF;
+        long ieeeMantissa = bits & ((1L << MANTISSA_BITS) - 1);
+        boolean sign = bits < 0;
+
+        if (ieeeExponent == 0x7FF) {
+            return writeString(ieeeMantissa != 0 ? "NaN"
+                               : sign ? "-Infinity" : "Infinity", dst, off, end);
+        }
+        if (ieeeExponent == 0 && ieeeMantissa == 0) {
+            return writeString(sign ? "-0.0" : "0.0", dst, off, end);
+        }
+
+        // Step 1: decode the value as m2 * 2^e2, shifted to leave room for
+        // the bounds of its rounding interval.
+        int e2;
+        long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+        }
+        boolean acceptBounds = (m2 & 1) == 0;
+
+        // Step 2: the interval of decimals rounding to v is (mv - mmShift - 1,
+        // mv + 2) * 2^e2, narrower below powers of two.
+        long mv = 4 * m2;
+        int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+
+        // Step 3: convert the interval to a decimal power base.
+        long vr, vp, vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        if (e2 >= 0) {
+            int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(4 * m2, Pow5.INV_SPLIT, 2 * q, i);
+            vp = mulShift(4 * m2 + 2, Pow5.INV_SPLIT, 2 * q, i);
+            vm = mulShift(4 * m2 - 1 - mmShift, Pow5.INV_SPLIT, 2 * q, i);
+            if (q <= 21) {
+                // Only one of mp, mv and mm can be a multiple of 5, if any.
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = multipleOfPowerOf5(mv, q);
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = multipleOfPowerOf5(mv - 1 - mmShift, q);
+                } else {
+                    vp -= multipleOfPowerOf5(mv + 2, q) ? 1 : 0;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(4 * m2, Pow5.SPLIT, 2 * i, j);
+            vp = mulShift(4 * m2 + 2, Pow5.SPLIT, 2 * i, j);
+            vm = mulShift(4 * m2 - 1 - mmShift, Pow5.SPLIT, 2 * i, j);
+            if (q <= 1) {
+                // mv has at least two trailing zero bits, so vr is exact.
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 63) {
+                // vr is exact if mv * 5^i is a multiple of 2^q.
+                vrIsTrailingZeros = multipleOfPowerOf2(mv, q);
+            }
+        }
+
+        // Step 4: find the shortest decimal in the interval, and of those the
+        // closest to v.
+        int removed = 0;
+        long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            // Rare: the bounds or the value are exact, so ties matter.
+            int lastRemovedDigit = 0;
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int) (vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // Round an exact ...50..0 to even
+                lastRemovedDigit = 4;
+            }
+            output = vr + ((vr == vm && (!acceptBounds || !vmIsTrailingZeros))
+                           || lastRemovedDigit >= 5 ? 1 : 0);
+        } else {
+            boolean roundUp = false;
+            if (vp / 100 > vm / 100) {
+                // Most values lose at least two digits
+                long vrDiv100 = vr / 100;
+                roundUp = vr - 100 * vrDiv100 >= 50;
+                vr = vrDiv100;
+                vp /= 100;
+                vm /= 100;
+                removed += 2;
+            }
+            while (vp / 10 > vm / 10) {
+                long vrDiv10 = vr / 10;
+                roundUp = vr - 10 * vrDiv10 >= 5;
+                vr = vrDiv10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + (vr == vm || roundUp ? 1 : 0);
+        }
+
+        // Step 5: lay out output * 10^exp as Double.toString does.
+        int digits = lengthOf(output);
+        int exp = e10 + removed + digits - 1;
+        int length;
+        if (exp >= 0 && exp < 7) {
+            length = Math.max(digits, exp + 1) + (digits > exp + 1 ? 1 : 2);
+        } else if (exp < 0 && exp >= -3) {
+            length = digits + 1 - exp;
+        } else {
+            int expDigits = exp >= 100 || exp <= -100 ? 3 : exp >= 10 || exp <= -10 ? 2 : 1;
+            length = (digits == 1 ? 3 : digits + 1) + 1 + (exp < 0 ? 1 : 0) + expDigits;
+        }
+        if (sign)
+            length++;
+        if (dst instanceof ByteBuffer && (off > end || length > end - off))
+            throw new java.nio.BufferOverflowException();
+        checkFits(off, length, end);
+
+        int pos = off;
+        if (sign)
+            put(dst, pos++, '-');
+        if (exp >= 0 && exp < 7) {
+            // ddd.ddd, ddd.0 or ddd000.0
+            int intDigits = exp + 1;
+            if (digits > intDigits) {
+                writeDigits(dst, pos + digits + 1, output);
+                // Shift the integer digits left over the decimal point
+                for (int i = 0; i < intDigits; i++)
+                    put(dst, pos + i, digitAt(dst, pos + i + 1));
+                put(dst, pos + intDigits, '.');
+                pos += digits + 1;
+            } else {
+                writeDigits(dst, pos + digits, output);
+                pos += digits;
+                for (int i = digits; i < intDigits; i++)
+                    put(dst, pos++, '0');
+                put(dst, pos++, '.');
+                put(dst, pos++, '0');
+            }
+        } else if (exp < 0 && exp >= -3) {
+            // 0.000ddd
+            put(dst, pos++, '0');
+            put(dst, pos++, '.');
+            for (int i = -1; i > exp; i--)
+                put(dst, pos++, '0');
+            writeDigits(dst, pos + digits, output);
+            pos += digits;
+        } else {
+            // d.dddE[-]x
+            if (digits == 1) {
+                put(dst, pos++, (int) ('0' + output));
+                put(dst, pos++, '.');
+                put(dst, pos++, '0');
+            } else {
+                writeDigits(dst, pos + digits + 1, output);
+                put(dst, pos, digitAt(dst, pos + 1));
+                put(dst, pos + 1, '.');
+                pos += digits + 1;
+            }
+            put(dst, pos++, 'E');
+            if (exp < 0) {
+                put(dst, pos++, '-');
+                exp = -exp;
+            }
+            int expDigits = exp >= 100 ? 3 : exp >= 10 ? 2 : 1;
+            writeDigits(dst, pos + expDigits, exp);
+            pos += expDigits;
+        }
+        return pos;
+    }
+
+    private static int digitAt(Object dst, int index) {
+        if (dst instanceof char[])
+            return ((char[]) dst)[index];
+        else if (dst instanceof byte[])
+            return ((byte[]) dst)[index];
+        else
+            return ((ByteBuffer) dst).get(index);
+    }
+
+    // Parsing
+
+    @SuppressWarnings("deprecation")
+    private static long parseLong(byte[] ascii, int beginIndex, int endIndex, long min) {
+        if (beginIndex < 0 || beginIndex > endIndex || endIndex > ascii.length)
+            throw new IndexOutOfBoundsException();
+        int i = beginIndex;
+        if (i == endIndex)
+            throw NumberFormatException.forInputString("");
+        boolean negative = false;
+        long limit = min + 1;
+        int first = ascii[i];
+        if (first < '0') { // Possible leading "+" or "-"
+            if (first == '-') {
+                negative = true;
+                limit = min;
+            } else if (first != '+') {
+                throw forBytes(ascii, beginIndex, endIndex, i);
+            }
+            if (++i == endIndex) // Cannot have lone "+" or "-"
+                throw forBytes(ascii, beginIndex, endIndex, i);
+        }
+        long multmin = limit / 10;
+        long result = 0;
+        while (i < endIndex) {
+            // Accumulating negatively avoids surprises near MAX_VALUE
+            int digit = ascii[i] - '0';
+            if (digit < 0 || digit > 9 || result < multmin)
+                throw forBytes(ascii, beginIndex, endIndex, i);
+            result *= 10;
+            if (result < limit + digit)
+                throw forBytes(ascii, beginIndex, endIndex, i);
+            result -= digit;
+            i++;
+        }
+        return negative ? result : -result;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static NumberFormatException forBytes(byte[] ascii, int beginIndex,
+                                                  int endIndex, int errorIndex) {
+        return NumberFormatException.forCharSequence(
+            new String(ascii, 0, beginIndex, endIndex - beginIndex),
+            0, endIndex - beginIndex, errorIndex - beginIndex);
+    }
+
+    /** Exactly representable powers of ten. */
+    private static final double[] SMALL_10_POW = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+
+    /**
+     * Parses [+-]digits[.digits][(e|E)[+-]digits] when the significand fits
+     * in 53 bits and the decimal exponent is within the exactly representable
+     * powers of ten, so that a single rounded multiplication or division is
+     * correctly rounded.  Returns NaN for any other input.
+     */
+    private static double parseFast(Object src, int i, int end) {
+        boolean negative = false;
+        if (i < end) {
+            int c = charAt(src, i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+        }
+        long significand = 0;
+        int digits = 0;        // significant digits, excluding leading zeros
+        int scale = 0;         // decimal exponent adjustment from the point
+        boolean any = false;
+        boolean point = false;
+        int c = 0;
+        for (; i < end; i++) {
+            c = charAt(src, i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (significand != 0 || c != '0') {
+                    if (++digits > 18)
+                        return Double.NaN;
+                    significand = 10 * significand + (c - '0');
+                }
+                if (point)
+                    scale--;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!any)
+            return Double.NaN;
+        if (i < end) {
+            if (c != 'e' && c != 'E' || ++i == end)
+                return Double.NaN;
+            boolean negativeExp = false;
+            c = charAt(src, i);
+            if (c == '-' || c == '+') {
+                negativeExp = c == '-';
+                if (++i == end)
+                    return Double.NaN;
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                c = charAt(src, i);
+                if (c < '0' || c > '9' || exp > 1000)
+                    return Double.NaN;
+                exp = 10 * exp + (c - '0');
+            }
+            scale += negativeExp ? -exp : exp;
+        }
+        if (significand > (1L << 53))
+            return Double.NaN;
+        double d = (double) significand;
+        if (significand == 0) {
+            // Zero with any exponent
+        } else if (scale < 0 && scale >= -22) {
+            d /= SMALL_10_POW[-scale];
+        } else if (scale >= 0 && scale <= 22) {
+            d *= SMALL_10_POW[scale];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -d : d;
+    }
+
+    private static int charAt(Object src, int index) {
+        if (src instanceof byte[])
+            return ((byte[]) src)[index];
+        return ((CharSequence) src).charAt(index);
+    }
+}
@@ -46,6 +46,13 @@ import java.lang.ref.*;
  */
 
 public class InheritableThreadLocal<T> extends ThreadLocal<T> {
+    /**
+     * Creates an inheritable thread local variable.
+     */
+    public InheritableThreadLocal() {
+        super(false);
+    }
+
     /**
      * Computes the child's initial value for this inheritable thread-local
      * variable as a function of the parent's value at the time the child
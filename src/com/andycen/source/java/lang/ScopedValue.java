@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A value that is bound to an immutable value for the dynamic extent of a
+ * call, in the thread that makes it.  Where a {@link ThreadLocal} is a
+ * per-thread variable that may be set at any time, a {@code ScopedValue}
+ * is bound by {@link #runWhere runWhere}, {@link #callWhere callWhere} or a
+ * {@link Carrier}, read with {@link #get} by any code the operation calls,
+ * and unbound again when the operation completes, normally or not.
+ * Bindings can be nested, and an inner binding of a value hides the outer
+ * one until it ends.
+ *
+ * <p>For example, a server can make the current request available to the
+ * code it calls without passing it around:
+ * <pre>{@code
+ *     static final ScopedValue<Request> REQUEST = ScopedValue.newInstance();
+ *
+ *     void serve(Request request) {
+ *         ScopedValue.runWhere(REQUEST, request, () -> handle());
+ *     }
+ *
+ *     void audit() {
+ *         Request request = REQUEST.get();  // the request being served
+ *         ...
+ *     }
+ * }</pre>
+ *
+ * <p>The bindings of a thread are an immutable list, which a binding
+ * extends without copying anything.  A {@link java.util.concurrent.ForkJoinTask},
+ * including the asynchronous stages of a
+ * {@link java.util.concurrent.CompletableFuture}, inherits the bindings of
+ * the thread that created it, and runs with them wherever it is executed;
+ * this costs a reference per task and nothing more.  New threads and the
+ * tasks of other executors start without bindings, as a task submitted to
+ * them does not outlive the thread's call by construction.
+ *
+ * <p>Looking up a value whose binding is nowhere in the current bindings
+ * takes constant time.  The values found are cached per thread, until the
+ * thread's bindings change, so that repeated lookups also take constant
+ * time regardless of the number of bindings.
+ *
+ * @param <T> the type of the value
+ * @since 1.8
+ */
+public final class ScopedValue<T> {
+
+    /**
+     * Successive hashes are spread like ThreadLocal hash codes.  The top
+     * five bits select the bit of this value in the bitmask of bindings,
+     * the next four its entry in the per-thread cache.
+     */
+    private static final AtomicInteger nextHash = new AtomicInteger();
+    private static final int HASH_INCREMENT = 0x61c88647;
+
+    private static final int CACHE_SIZE = 16;   // a power of two
+
+    /** The result of a lookup that found no binding. */
+    private static final Object UNBOUND = new Object();
+
+    private final int bit;
+    private final int cacheIndex;
+
+    private ScopedValue() {
+        int hash = nextHash.getAndAdd(HASH_INCREMENT);
+        bit = 1 << (hash >>> 27);
+        cacheIndex = 1 + (((hash >>> 23) & (CACHE_SIZE - 1)) << 1);
+    }
+
+    /**
+     * Creates a scoped value that is not bound in any thread.
+     *
+     * @param <T> the type of the value
+     * @return a new scoped value
+     */
+    public static <T> ScopedValue<T> newInstance() {
+        return new ScopedValue<>();
+    }
+
+    /**
+     * Returns the value bound to this scoped value in the current thread.
+     *
+     * @return the value bound to this scoped value
+     * @throws NoSuchElementException if this scoped value is not bound
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object value = find();
+        if (value == UNBOUND)
+            throw new NoSuchElementException();
+        return (T) value;
+    }
+
+    /**
+     * Returns whether this scoped value is bound in the current thread.
+     *
+     * @return {@code true} if this scoped value is bound
+     */
+    public boolean isBound() {
+        return find() != UNBOUND;
+    }
+
+    /**
+     * Returns the value bound to this scoped value in the current thread,
+     * or {@code other} if it is not bound.
+     *
+     * @param other the value to return if this scoped value is not bound,
+     *        may be {@code null}
+     * @return the value bound to this scoped value, or {@code other}
+     */
+    @SuppressWarnings("unchecked")
+    public T orElse(T other) {
+        Object value = find();
+        return (value == UNBOUND) ? other : (T) value;
+    }
+
+    /**
+     * Returns the value bound to this scoped value in the current thread,
+     * or throws an exception produced by the given supplier if it is not
+     * bound.
+     *
+     * @param <X> the type of the exception
+     * @param exceptionSupplier the supplier of the exception to throw
+     * @return the value bound to this scoped value
+     * @throws X if this scoped value is not bound
+     * @throws NullPointerException if this scoped value is not bound and
+     *         {@code exceptionSupplier} is null
+     */
+    @SuppressWarnings("unchecked")
+    public <X extends Throwable> T orElseThrow(Supplier<? extends X> exceptionSupplier) throws X {
+        Object value = find();
+        if (value == UNBOUND)
+            throw exceptionSupplier.get();
+        return (T) value;
+    }
+
+    /**
+     * Returns the value bound to this scoped value in the current thread,
+     * from the thread's cache if it holds it, or UNBOUND.
+     */
+    private Object find() {
+        Thread t = Thread.currentThread();
+        Bindings bindings = (Bindings) t.scopedValueBindings;
+        if (bindings == null || (bindings.bitmask & bit) == 0)
+            return UNBOUND;
+        Object[] cache = t.scopedValueCache;
+        int i = cacheIndex;
+        if (cache != null && cache[0] == bindings && cache[i] == this)
+            return cache[i + 1];
+        for (Bindings b = bindings; b != null; b = b.prev) {
+            if (b.key == this) {
+                if (cache == null) {
+                    cache = t.scopedValueCache = new Object[1 + 2 * CACHE_SIZE];
+                } else if (cache[0] != bindings) {
+                    for (int j = 1; j < cache.length; j++)
+                        cache[j] = null;
+                }
+                cache[0] = bindings;
+                cache[i] = this;
+                cache[i + 1] = b.value;
+                return b.value;
+            }
+        }
+        return UNBOUND;
+    }
+
+    /**
+     * Returns a carrier of a single binding of the given scoped value to
+     * the given value, to which more bindings may be added.
+     *
+     * @param <T> the type of the value
+     * @param key the scoped value to bind
+     * @param value the value to bind it to, may be {@code null}
+     * @return a carrier of the binding
+     * @throws NullPointerException if {@code key} is null
+     */
+    public static <T> Carrier where(ScopedValue<T> key, T value) {
+        return new Carrier(Objects.requireNonNull(key), value, null);
+    }
+
+    /**
+     * Runs an operation with the given scoped value bound to the given
+     * value in the current thread.
+     *
+     * @param <T> the type of the value
+     * @param key the scoped value to bind
+     * @param value the value to bind it to, may be {@code null}
+     * @param op the operation to run
+     * @throws NullPointerException if {@code key} or {@code op} is null
+     */
+    public static <T> void runWhere(ScopedValue<T> key, T value, Runnable op) {
+        where(key, value).run(op);
+    }
+
+    /**
+     * Calls an operation with the given scoped value bound to the given
+     * value in the current thread, and returns its result.
+     *
+     * @param <T> the type of the value
+     * @param <R> the type of the result
+     * @param key the scoped value to bind
+     * @param value the value to bind it to, may be {@code null}
+     * @param op the operation to call
+     * @return the result of the operation
+     * @throws Exception if the operation throws it
+     * @throws NullPointerException if {@code key} or {@code op} is null
+     */
+    public static <T, R> R callWhere(ScopedValue<T> key, T value,
+                                     Callable<? extends R> op) throws Exception {
+        return where(key, value).call(op);
+    }
+
+    /**
+     * Gets the result of an operation with the given scoped value bound
+     * to the given value in the current thread.
+     *
+     * @param <T> the type of the value
+     * @param <R> the type of the result
+     * @param key the scoped value to bind
+     * @param value the value to bind it to, may be {@code null}
+     * @param op the operation to get the result of
+     * @return the result of the operation
+     * @throws NullPointerException if {@code key} or {@code op} is null
+     */
+    public static <T, R> R getWhere(ScopedValue<T> key, T value, Supplier<? extends R> op) {
+        return where(key, value).get(op);
+    }
+
+    /**
+     * An immutable set of bindings of scoped values, to be established for
+     * the dynamic extent of an operation.  A carrier may be used any number
+     * of times, by any number of threads.
+     *
+     * @since 1.8
+     */
+    public static final class Carrier {
+        private final ScopedValue<?> key;
+        private final Object value;
+        private final Carrier prev;
+
+        Carrier(ScopedValue<?> key, Object value, Carrier prev) {
+            this.key = key;
+            this.value = value;
+            this.prev = prev;
+        }
+
+        /**
+         * Returns a carrier of the bindings of this carrier and a binding
+         * of the given scoped value to the given value, which takes
+         * precedence over a binding of the same scoped value in this
+         * carrier.
+         *
+         * @param <T> the type of the value
+         * @param key the scoped value to bind
+         * @param value the value to bind it to, may be {@code null}
+         * @return a carrier of the bindings
+         * @throws NullPointerException if {@code key} is null
+         */
+        public <T> Carrier where(ScopedValue<T> key, T value) {
+            return new Carrier(Objects.requireNonNull(key), value, this);
+        }
+
+        /**
+         * Returns the value this carrier binds the given scoped value to.
+         *
+         * @param <T> the type of the value
+         * @param key the scoped value
+         * @return the value bound to {@code key}
+         * @throws NoSuchElementException if this carrier does not bind
+         *         {@code key}
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(ScopedValue<T> key) {
+            for (Carrier c = this; c != null; c = c.prev) {
+                if (c.key == key)
+                    return (T) c.value;
+            }
+            throw new NoSuchElementException();
+        }
+
+        /**
+         * Runs an operation with the bindings of this carrier in the
+         * current thread.
+         *
+         * @param op the operation to run
+         * @throws NullPointerException if {@code op} is null
+         */
+        public void run(Runnable op) {
+            Objects.requireNonNull(op);
+            Thread t = Thread.currentThread();
+            Object prevBindings = bind(t);
+            try {
+                op.run();
+            } finally {
+                unbind(t, prevBindings);
+            }
+        }
+
+        /**
+         * Calls an operation with the bindings of this carrier in the
+         * current thread, and returns its result.
+         *
+         * @param <R> the type of the result
+         * @param op the operation to call
+         * @return the result of the operation
+         * @throws Exception if the operation throws it
+         * @throws NullPointerException if {@code op} is null
+         */
+        public <R> R call(Callable<? extends R> op) throws Exception {
+            Objects.requireNonNull(op);
+            Thread t = Thread.currentThread();
+            Object prevBindings = bind(t);
+            try {
+                return op.call();
+            } finally {
+                unbind(t, prevBindings);
+            }
+        }
+
+        /**
+         * Gets the result of an operation with the bindings of this
+         * carrier in the current thread.
+         *
+         * @param <R> the type of the result
+         * @param op the operation to get the result of
+         * @return the result of the operation
+         * @throws NullPointerException if {@code op} is null
+         */
+        public <R> R get(Supplier<? extends R> op) {
+            Objects.requireNonNull(op);
+            Thread t = Thread.currentThread();
+            Object prevBindings = bind(t);
+            try {
+                return op.get();
+            } finally {
+                unbind(t, prevBindings);
+            }
+        }
+
+        /**
+         * Pushes the bindings of this carrier, oldest first, onto those
+         * of the given thread, and returns the thread's previous bindings.
+         */
+        private Object bind(Thread t) {
+            Object prevBindings = t.scopedValueBindings;
+            t.scopedValueBindings = push((Bindings) prevBindings);
+            return prevBindings;
+        }
+
+        private Bindings push(Bindings bindings) {
+            return new Bindings(key, value, (prev == null) ? bindings : prev.push(bindings));
+        }
+
+        /**
+         * Restores the previous bindings of the given thread, and drops its
+         * cached values once it has no bindings left.
+         */
+        private static void unbind(Thread t, Object prevBindings) {
+            t.scopedValueBindings = prevBindings;
+            if (prevBindings == null)
+                t.scopedValueCache = null;
+        }
+    }
+
+    /**
+     * The bindings of a thread, newest first, with the bits of all their
+     * scoped values, so that a scoped value bound nowhere in them is
+     * rejected without a search.
+     */
+    private static final class Bindings {
+        final ScopedValue<?> key;
+        final Object value;
+        final Bindings prev;
+        final int bitmask;
+
+        Bindings(ScopedValue<?> key, Object value, Bindings prev) {
+            this.key = key;
+            this.value = value;
+            this.prev = prev;
+            this.bitmask = key.bit | ((prev == null) ? 0 : prev.bitmask);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+/**
+ * A per-thread cache of {@link StringBuilder}s whose buffers are kept across
+ * uses, so that code building many short-lived strings, such as log
+ * formatting, does not allocate and grow a new buffer for each one.
+ *
+ * <pre>{@code
+ *     StringBuilder sb = pool.acquire();
+ *     try {
+ *         sb.append(level).append(' ').append(message);
+ *         return sb.toString();
+ *     } finally {
+ *         pool.release(sb);
+ *     }
+ * }</pre>
+ *
+ * <p>Each thread keeps a few builders, so that code called while a builder
+ * is in use, such as a {@code toString} method, may acquire its own.  A
+ * released builder is emptied; if its buffer grew beyond the pool's retained
+ * capacity it is replaced by a buffer of the initial capacity, so that one
+ * very long string does not pin a large buffer for the life of the thread.
+ * A builder must not be used after it has been released.
+ *
+ * @since 1.8
+ */
+public final class StringBuilderPool {
+
+    /** The number of builders retained per thread. */
+    private static final int DEPTH = 4;
+
+    private static final StringBuilderPool SHARED = new StringBuilderPool(256, 8192);
+
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private final ThreadLocal<StringBuilder[]> cache;
+
+    /**
+     * Creates a pool of builders with the given capacities.
+     *
+     * @param initialCapacity the capacity of newly created builders
+     * @param maxRetainedCapacity the largest capacity kept when a builder
+     *        is released
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         negative or larger than {@code maxRetainedCapacity}
+     */
+    public StringBuilderPool(int initialCapacity, int maxRetainedCapacity) {
+        if (initialCapacity < 0 || maxRetainedCapacity < initialCapacity)
+            throw new IllegalArgumentException("initialCapacity " + initialCapacity +
+                                               ", maxRetainedCapacity " + maxRetainedCapacity);
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.cache = ThreadLocal.withInitial(() -> new StringBuilder[DEPTH]);
+    }
+
+    /**
+     * Returns a pool shared by the platform, with builders of an initial
+     * capacity of 256 characters that retain at most 8192.
+     *
+     * @return the shared pool
+     */
+    public static StringBuilderPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns an empty builder, reusing one released by the current thread
+     * if possible.
+     *
+     * @return an empty builder owned by the caller until it is released
+     */
+    public StringBuilder acquire() {
+        StringBuilder[] builders = cache.get();
+        for (int i = DEPTH - 1; i >= 0; i--) {
+            StringBuilder sb = builders[i];
+            if (sb != null) {
+                builders[i] = null;
+                return sb;
+            }
+        }
+        return new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * Empties the builder and returns it to the current thread's cache.
+     * The builder is dropped if the cache is full.
+     *
+     * @param sb a builder obtained from {@link #acquire}
+     */
+    public void release(StringBuilder sb) {
+        sb.count = 0;
+        if (sb.value.length > maxRetainedCapacity)
+            sb.value = new char[initialCapacity];
+        StringBuilder[] builders = cache.get();
+        int free = -1;
+        for (int i = 0; i < DEPTH; i++) {
+            if (builders[i] == sb)
+                return;     // released twice
+            if (builders[i] == null && free < 0)
+                free = i;
+        }
+        if (free >= 0)
+            builders[free] = sb;
+    }
+
+    /**
+     * Returns the contents of the builder and releases it.
+     *
+     * @param sb a builder obtained from {@link #acquire}
+     * @return the contents of {@code sb}
+     */
+    public String toStringAndRelease(StringBuilder sb) {
+        String s = sb.toString();
+        release(sb);
+        return s;
+    }
+}
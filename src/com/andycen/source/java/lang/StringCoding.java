@@ -36,6 +36,7 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
 import sun.misc.MessageUtils;
@@ -124,6 +125,7 @@ class StringCoding {
         private final Charset cs;
         private final CharsetDecoder cd;
         private final boolean isTrusted;
+        private final int fastPath;
 
         private StringDecoder(Charset cs, String rcn) {
             this.requestedCharsetName = rcn;
@@ -132,6 +134,7 @@ class StringCoding {
                 .onMalformedInput(CodingErrorAction.REPLACE)
                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
             this.isTrusted = (cs.getClass().getClassLoader0() == null);
+            this.fastPath = fastPath(cs);
         }
 
         String charsetName() {
@@ -145,6 +148,11 @@ class StringCoding {
         }
 
         char[] decode(byte[] ba, int off, int len) {
+            if (fastPath != 0) {
+                char[] ca = decodeFast(fastPath, ba, off, len);
+                if (ca != null)
+                    return ca;
+            }
             int en = scale(len, cd.maxCharsPerByte());
             char[] ca = new char[en];
             if (len == 0)
@@ -210,6 +218,12 @@ class StringCoding {
         // check (... && (isTrusted || SM == null || getClassLoader0())) in trim
         // but it then can be argued that the SM is null when the opertaion
         // is started...
+        int fast = fastPath(cs);
+        if (fast != 0) {
+            char[] ca = decodeFast(fast, ba, off, len);
+            if (ca != null)
+                return ca;
+        }
         CharsetDecoder cd = cs.newDecoder();
         int en = scale(len, cd.maxCharsPerByte());
         char[] ca = new char[en];
@@ -275,6 +289,7 @@ class StringCoding {
         private CharsetEncoder ce;
         private final String requestedCharsetName;
         private final boolean isTrusted;
+        private final int fastPath;
 
         private StringEncoder(Charset cs, String rcn) {
             this.requestedCharsetName = rcn;
@@ -283,6 +298,7 @@ class StringCoding {
                 .onMalformedInput(CodingErrorAction.REPLACE)
                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
             this.isTrusted = (cs.getClass().getClassLoader0() == null);
+            this.fastPath = fastPath(cs);
         }
 
         String charsetName() {
@@ -296,6 +312,11 @@ class StringCoding {
         }
 
         byte[] encode(char[] ca, int off, int len) {
+            if (fastPath != 0) {
+                byte[] ba = encodeFast(fastPath, ca, off, len);
+                if (ba != null)
+                    return ba;
+            }
             int en = scale(len, ce.maxBytesPerChar());
             byte[] ba = new byte[en];
             if (len == 0)
@@ -345,6 +366,12 @@ class StringCoding {
     }
 
     static byte[] encode(Charset cs, char[] ca, int off, int len) {
+        int fast = fastPath(cs);
+        if (fast != 0) {
+            byte[] ba = encodeFast(fast, ca, off, len);
+            if (ba != null)
+                return ba;
+        }
         CharsetEncoder ce = cs.newEncoder();
         int en = scale(len, ce.maxBytesPerChar());
         byte[] ba = new byte[en];
@@ -401,4 +428,300 @@ class StringCoding {
             return null;
         }
     }
+
+    // -- Compact strings --
+
+    /**
+     * Decodes bytes into a compact string.  ISO-8859-1 bytes, and ASCII
+     * bytes in the other ASCII-compatible charsets, are copied as they are
+     * since they already are the Latin-1 form.
+     */
+    static CompactString decodeCompact(Charset cs, byte[] ba, int off, int len) {
+        int fast = fastPath(cs);
+        if (fast == ISO_8859_1 ||
+            (fast != 0 && countPositives(ba, off, len) == len))
+            return new CompactString(Arrays.copyOfRange(ba, off, off + len),
+                                     CompactString.LATIN1);
+        char[] ca = decode(cs, ba, off, len);
+        return CompactString.compress(ca, 0, ca.length);
+    }
+
+    /**
+     * Encodes a compact string.  Latin-1 strings in ISO-8859-1, and ASCII
+     * strings in the other ASCII-compatible charsets, are copied as they
+     * are.
+     */
+    static byte[] encode(Charset cs, CompactString s) {
+        if (s.isLatin1()) {
+            byte[] v = s.latin1Bytes();
+            int fast = fastPath(cs);
+            if (fast == ISO_8859_1 ||
+                (fast != 0 && countPositives(v, 0, v.length) == v.length))
+                return v.clone();
+        }
+        char[] ca = new char[s.length()];
+        s.getChars(0, ca.length, ca, 0);
+        return encode(cs, ca, 0, ca.length);
+    }
+
+    // -- Fast paths for UTF-8, ISO-8859-1 and US-ASCII --
+
+    /*
+     * These charsets are decoded and encoded by the loops below instead of
+     * a CharsetDecoder or CharsetEncoder: no coder is created or looked
+     * up, ASCII runs are scanned eight units at a time, and the result is
+     * allocated at its exact size instead of being trimmed from a
+     * worst-case array.  Input whose decoding would involve replacement
+     * (malformed UTF-8, non-ASCII bytes in US-ASCII) or whose encoding
+     * would (unmappable or unpaired surrogate chars) is left to the
+     * general path, so the results are those of the charset's coders.
+     */
+
+    private static final int UTF_8 = 1, ISO_8859_1 = 2, US_ASCII = 3;
+
+    /**
+     * Returns the fast path for the charset, or 0 if there is none.  The
+     * standard charsets are singletons, so identity is enough.
+     */
+    private static int fastPath(Charset cs) {
+        if (cs == StandardCharsets.UTF_8)
+            return UTF_8;
+        if (cs == StandardCharsets.ISO_8859_1)
+            return ISO_8859_1;
+        if (cs == StandardCharsets.US_ASCII)
+            return US_ASCII;
+        return 0;
+    }
+
+    /**
+     * Returns the number of leading bytes in ba[off, off + len) that are
+     * below 0x80.
+     */
+    static int countPositives(byte[] ba, int off, int len) {
+        int i = off, end = off + len;
+        // Or together eight bytes at a time; the sign bit tells if any is negative
+        for (int limit = end - 7; i < limit; i += 8) {
+            if ((ba[i]     | ba[i + 1] | ba[i + 2] | ba[i + 3] |
+                 ba[i + 4] | ba[i + 5] | ba[i + 6] | ba[i + 7]) < 0)
+                break;
+        }
+        while (i < end && ba[i] >= 0)
+            i++;
+        return i - off;
+    }
+
+    /**
+     * Returns the number of leading chars in ca[off, off + len) that are
+     * below U+0080.
+     */
+    private static int countAscii(char[] ca, int off, int len) {
+        int i = off, end = off + len;
+        for (int limit = end - 7; i < limit; i += 8) {
+            if ((ca[i]     | ca[i + 1] | ca[i + 2] | ca[i + 3] |
+                 ca[i + 4] | ca[i + 5] | ca[i + 6] | ca[i + 7]) >= 0x80)
+                break;
+        }
+        while (i < end && ca[i] < 0x80)
+            i++;
+        return i - off;
+    }
+
+    /**
+     * Decodes the bytes with the given fast path, or returns null if the
+     * general path has to be taken.
+     */
+    private static char[] decodeFast(int fast, byte[] ba, int off, int len) {
+        int n = countPositives(ba, off, len);
+        if (n < len && fast == US_ASCII)
+            return null;
+        int clen = n;
+        if (n < len) {
+            clen = fast == ISO_8859_1 ? len : n + utf8Length(ba, off + n, off + len);
+            if (clen < n)
+                return null;
+        }
+        char[] ca = new char[clen];
+        for (int i = 0; i < n; i++)
+            ca[i] = (char) ba[off + i];
+        if (n < len) {
+            if (fast == ISO_8859_1) {
+                for (int i = n; i < len; i++)
+                    ca[i] = (char) (ba[off + i] & 0xff);
+            } else {
+                decodeUtf8(ba, off + n, off + len, ca, n);
+            }
+        }
+        return ca;
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xc0) == 0x80;
+    }
+
+    /**
+     * Returns the number of chars the well-formed UTF-8 in ba[sp, sl)
+     * decodes to, or a negative value if it is malformed, truncated, or
+     * encodes a surrogate.
+     */
+    private static int utf8Length(byte[] ba, int sp, int sl) {
+        int n = 0;
+        while (sp < sl) {
+            int b1 = ba[sp];
+            if (b1 >= 0) {
+                sp++;
+                n++;
+            } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
+                // 2 bytes, 11 bits: 110xxxxx 10xxxxxx, not overlong
+                if (sl - sp < 2 || !isContinuation(ba[sp + 1]))
+                    return -1;
+                sp += 2;
+                n++;
+            } else if ((b1 >> 4) == -2) {
+                // 3 bytes, 16 bits: 1110xxxx 10xxxxxx 10xxxxxx
+                if (sl - sp < 3)
+                    return -1;
+                int b2 = ba[sp + 1], b3 = ba[sp + 2];
+                if (!isContinuation(b2) || !isContinuation(b3) ||
+                    (b1 == (byte) 0xe0 && (b2 & 0xe0) == 0x80) ||   // overlong
+                    (b1 == (byte) 0xed && (b2 & 0xe0) == 0xa0))     // surrogate
+                    return -1;
+                sp += 3;
+                n++;
+            } else if ((b1 >> 3) == -2) {
+                // 4 bytes, 21 bits: 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
+                if (sl - sp < 4)
+                    return -1;
+                int b2 = ba[sp + 1], b3 = ba[sp + 2], b4 = ba[sp + 3];
+                int uc = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12);
+                if (!isContinuation(b2) || !isContinuation(b3) || !isContinuation(b4) ||
+                    uc < Character.MIN_SUPPLEMENTARY_CODE_POINT ||
+                    uc > Character.MAX_CODE_POINT)
+                    return -1;
+                sp += 4;
+                n += 2;
+            } else {
+                return -1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Decodes the UTF-8 in ba[sp, sl), which utf8Length has validated,
+     * into ca starting at dp.
+     */
+    private static void decodeUtf8(byte[] ba, int sp, int sl, char[] ca, int dp) {
+        while (sp < sl) {
+            int b1 = ba[sp];
+            if (b1 >= 0) {
+                // Stay in the ASCII loop for as long as the run lasts
+                do {
+                    ca[dp++] = (char) b1;
+                } while (++sp < sl && (b1 = ba[sp]) >= 0);
+            } else if ((b1 >> 5) == -2) {
+                int b2 = ba[sp + 1];
+                ca[dp++] = (char) (((b1 & 0x1f) << 6) | (b2 & 0x3f));
+                sp += 2;
+            } else if ((b1 >> 4) == -2) {
+                int b2 = ba[sp + 1], b3 = ba[sp + 2];
+                ca[dp++] = (char) (((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f));
+                sp += 3;
+            } else {
+                int b2 = ba[sp + 1], b3 = ba[sp + 2], b4 = ba[sp + 3];
+                int uc = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12) |
+                         ((b3 & 0x3f) << 6) | (b4 & 0x3f);
+                ca[dp++] = Character.highSurrogate(uc);
+                ca[dp++] = Character.lowSurrogate(uc);
+                sp += 4;
+            }
+        }
+    }
+
+    /**
+     * Encodes the chars with the given fast path, or returns null if the
+     * general path has to be taken.
+     */
+    private static byte[] encodeFast(int fast, char[] ca, int off, int len) {
+        int n = countAscii(ca, off, len);
+        int blen = n;
+        if (n < len) {
+            if (fast == US_ASCII)
+                return null;
+            blen = fast == ISO_8859_1 ? (isLatin1(ca, off + n, off + len) ? len : -1)
+                                      : n + utf8Bytes(ca, off + n, off + len);
+            if (blen < n)
+                return null;
+        }
+        byte[] ba = new byte[blen];
+        for (int i = 0; i < n; i++)
+            ba[i] = (byte) ca[off + i];
+        if (n < len) {
+            if (fast == ISO_8859_1) {
+                for (int i = n; i < len; i++)
+                    ba[i] = (byte) ca[off + i];
+            } else {
+                encodeUtf8(ca, off + n, off + len, ba, n);
+            }
+        }
+        return ba;
+    }
+
+    private static boolean isLatin1(char[] ca, int sp, int sl) {
+        for (; sp < sl; sp++) {
+            if (ca[sp] > 0xff)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes the chars in ca[sp, sl) encode to in
+     * UTF-8, or a negative value if there is an unpaired surrogate.
+     */
+    private static int utf8Bytes(char[] ca, int sp, int sl) {
+        int n = 0;
+        while (sp < sl) {
+            char c = ca[sp++];
+            if (c < 0x80) {
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c) || sp == sl ||
+                    !Character.isLowSurrogate(ca[sp]))
+                    return -1;
+                sp++;
+                n += 4;
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Encodes the chars in ca[sp, sl), which utf8Bytes has validated, into
+     * ba starting at dp.
+     */
+    private static void encodeUtf8(char[] ca, int sp, int sl, byte[] ba, int dp) {
+        while (sp < sl) {
+            char c = ca[sp++];
+            if (c < 0x80) {
+                ba[dp++] = (byte) c;
+            } else if (c < 0x800) {
+                ba[dp++] = (byte) (0xc0 | (c >> 6));
+                ba[dp++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                int uc = Character.toCodePoint(c, ca[sp++]);
+                ba[dp++] = (byte) (0xf0 | (uc >> 18));
+                ba[dp++] = (byte) (0x80 | ((uc >> 12) & 0x3f));
+                ba[dp++] = (byte) (0x80 | ((uc >> 6) & 0x3f));
+                ba[dp++] = (byte) (0x80 | (uc & 0x3f));
+            } else {
+                ba[dp++] = (byte) (0xe0 | (c >> 12));
+                ba[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                ba[dp++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
 }
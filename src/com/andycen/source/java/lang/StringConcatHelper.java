@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+/**
+ * Helper methods called by the concatenation methods spun by
+ * {@link java.lang.invoke.StringConcatFactory}.  A concatenation first
+ * converts its reference and floating point arguments to strings, then
+ * mixes the length of every argument into the length of the constant text,
+ * and finally appends the constants and arguments into a single array of
+ * exactly that length, which becomes the value of the result without a
+ * further copy.  Integral, character and boolean arguments are measured and
+ * written in place with the digit routines of Integer and Long, without an
+ * intermediate string.
+ */
+final class StringConcatHelper {
+
+    private StringConcatHelper() {
+        // no instantiation
+    }
+
+    /**
+     * Check for overflow, throw exception on overflow.
+     * @param length String length
+     * @return     the given parameter value, if valid
+     */
+    private static int checkOverflow(int length) {
+        if (length >= 0) {
+            return length;
+        }
+        throw new OutOfMemoryError("Overflow: String length out of range");
+    }
+
+    /**
+     * Mix value length into current length
+     * @param current current length
+     * @param value   value to mix in
+     * @return new length
+     */
+    static int mix(int current, String value) {
+        return checkOverflow(current + value.length());
+    }
+
+    static int mix(int current, int value) {
+        return checkOverflow(current + stringSize(value));
+    }
+
+    static int mix(int current, long value) {
+        return checkOverflow(current + stringSize(value));
+    }
+
+    static int mix(int current, char value) {
+        return checkOverflow(current + 1);
+    }
+
+    static int mix(int current, boolean value) {
+        return checkOverflow(current + (value ? 4 : 5));
+    }
+
+    /**
+     * Appends the value to buffer at the given index
+     * @param buf   buffer to append to
+     * @param index position in the buffer
+     * @param value value to append
+     * @return new index
+     */
+    static int append(char[] buf, int index, String value) {
+        int len = value.length();
+        value.getChars(0, len, buf, index);
+        return index + len;
+    }
+
+    static int append(char[] buf, int index, int value) {
+        if (value == Integer.MIN_VALUE)
+            return append(buf, index, "-2147483648");
+        int end = index + stringSize(value);
+        Integer.getChars(value, end, buf);
+        return end;
+    }
+
+    static int append(char[] buf, int index, long value) {
+        if (value == Long.MIN_VALUE)
+            return append(buf, index, "-9223372036854775808");
+        int end = index + stringSize(value);
+        Long.getChars(value, end, buf);
+        return end;
+    }
+
+    static int append(char[] buf, int index, char value) {
+        buf[index] = value;
+        return index + 1;
+    }
+
+    static int append(char[] buf, int index, boolean value) {
+        return append(buf, index, value ? "true" : "false");
+    }
+
+    private static int stringSize(int value) {
+        return value < 0 ? (value == Integer.MIN_VALUE ? 11 : Integer.stringSize(-value) + 1)
+                         : Integer.stringSize(value);
+    }
+
+    private static int stringSize(long value) {
+        return value < 0 ? (value == Long.MIN_VALUE ? 20 : Long.stringSize(-value) + 1)
+                         : Long.stringSize(value);
+    }
+
+    /**
+     * Instantiates the String with given buffer
+     * @param buf   buffer to use
+     * @param index remaining index
+     * @return String resulting string
+     */
+    static String newString(char[] buf, int index) {
+        if (index != buf.length) {
+            throw new InternalError("Storage is not completely initialized, " +
+                                    index + " characters written");
+        }
+        return new String(buf, true);
+    }
+}
@@ -177,6 +177,10 @@ class Thread implements Runnable {
         return threadInitNumber++;
     }
 
+    /* ThreadLocal values pertaining to this thread, indexed by ThreadLocal.
+     * These slots are maintained by the ThreadLocal class. */
+    ThreadLocal.Slot[] threadLocalSlots = null;
+
     /* ThreadLocal values pertaining to this thread. This map is maintained
      * by the ThreadLocal class. */
     ThreadLocal.ThreadLocalMap threadLocals = null;
@@ -187,6 +191,11 @@ class Thread implements Runnable {
      */
     ThreadLocal.ThreadLocalMap inheritableThreadLocals = null;
 
+    /* ScopedValue bindings of this thread, and the values found in them.
+     * These are maintained by the ScopedValue class. */
+    Object scopedValueBindings = null;
+    Object[] scopedValueCache = null;
+
     /*
      * The requested stack size for this thread, or 0 if the creator did
      * not specify a stack size.  It is up to the VM to do whatever it
@@ -762,8 +771,11 @@ class Thread implements Runnable {
         /* Aggressively null out all reference fields: see bug 4006245 */
         target = null;
         /* Speed the release of some of these resources */
+        threadLocalSlots = null;
         threadLocals = null;
         inheritableThreadLocals = null;
+        scopedValueBindings = null;
+        scopedValueCache = null;
         inheritedAccessControlContext = null;
         blocker = null;
         uncaughtExceptionHandler = null;
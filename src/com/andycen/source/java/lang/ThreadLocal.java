@@ -25,6 +25,7 @@
 
 package java.lang;
 import java.lang.ref.*;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -68,19 +69,43 @@ import java.util.function.Supplier;
  * thread-local instances are subject to garbage collection (unless other
  * references to these copies exist).
  *
+ * <p>A thread that runs unrelated tasks, such as a pool thread, may discard
+ * the values of all its thread-local variables between tasks with
+ * {@link #removeAll}, e.g. from {@code ThreadPoolExecutor.afterExecute}.
+ *
  * @author  Josh Bloch and Doug Lea
  * @since   1.2
  */
 public class ThreadLocal<T> {
+    /*
+     * Each ThreadLocal is assigned an index, unique among the live
+     * ThreadLocals, and its value for a thread is kept at that index of
+     * an array of slots attached to the thread (Thread.threadLocalSlots),
+     * so that get and set take no more than an array access.  Slots hold
+     * their ThreadLocal weakly, like ThreadLocalMap entries, and the index
+     * of a collected ThreadLocal is given to a new one once its reference
+     * is enqueued; until a thread overwrites or expunges a slot whose
+     * ThreadLocal was collected, it keeps the value, as a stale map entry
+     * does.
+     *
+     * InheritableThreadLocals are copied to each new thread through
+     * childValue, and keep using per-thread linear-probe hash maps
+     * (Thread.inheritableThreadLocals), which are only ever created for
+     * them.
+     */
+
     /**
-     * ThreadLocals rely on per-thread linear-probe hash maps attached
-     * to each thread (Thread.threadLocals and
-     * inheritableThreadLocals).  The ThreadLocal objects act as keys,
-     * searched via threadLocalHashCode.  This is a custom hash code
-     * (useful only within ThreadLocalMaps) that eliminates collisions
-     * in the common case where consecutively constructed ThreadLocals
-     * are used by the same threads, while remaining well-behaved in
-     * less common cases.
+     * The index of this ThreadLocal's slot, or -1 if its values are kept
+     * in a ThreadLocalMap.
+     */
+    private final int index;
+
+    /**
+     * ThreadLocalMaps use threadLocalHashCode to search their keys.  This
+     * is a custom hash code (useful only within ThreadLocalMaps) that
+     * eliminates collisions in the common case where consecutively
+     * constructed ThreadLocals are used by the same threads, while
+     * remaining well-behaved in less common cases.
      */
     private final int threadLocalHashCode = nextHashCode();
 
@@ -146,6 +171,15 @@ public class ThreadLocal<T> {
      * @see #withInitial(java.util.function.Supplier)
      */
     public ThreadLocal() {
+        this(true);
+    }
+
+    /**
+     * Creates a thread local variable whose values are kept in slots if
+     * indexed, or in the map returned by getMap otherwise.
+     */
+    ThreadLocal(boolean indexed) {
+        index = indexed ? Indexes.acquire(this) : -1;
     }
 
     /**
@@ -158,6 +192,17 @@ public class ThreadLocal<T> {
      */
     public T get() {
         Thread t = Thread.currentThread();
+        if (index >= 0) {
+            Slot[] slots = t.threadLocalSlots;
+            Slot s;
+            if (slots != null && index < slots.length &&
+                (s = slots[index]) != null && s.get() == this) {
+                @SuppressWarnings("unchecked")
+                T result = (T)s.value;
+                return result;
+            }
+            return setInitialValue();
+        }
         ThreadLocalMap map = getMap(t);
         if (map != null) {
             ThreadLocalMap.Entry e = map.getEntry(this);
@@ -179,6 +224,10 @@ public class ThreadLocal<T> {
     private T setInitialValue() {
         T value = initialValue();
         Thread t = Thread.currentThread();
+        if (index >= 0) {
+            setSlot(t, value);
+            return value;
+        }
         ThreadLocalMap map = getMap(t);
         if (map != null)
             map.set(this, value);
@@ -198,6 +247,10 @@ public class ThreadLocal<T> {
      */
     public void set(T value) {
         Thread t = Thread.currentThread();
+        if (index >= 0) {
+            setSlot(t, value);
+            return;
+        }
         ThreadLocalMap map = getMap(t);
         if (map != null)
             map.set(this, value);
@@ -217,11 +270,155 @@ public class ThreadLocal<T> {
      * @since 1.5
      */
      public void remove() {
-         ThreadLocalMap m = getMap(Thread.currentThread());
+         Thread t = Thread.currentThread();
+         if (index >= 0) {
+             Slot[] slots = t.threadLocalSlots;
+             if (slots != null && index < slots.length &&
+                 slots[index] != null && slots[index].get() == this) {
+                 slots[index].clear();
+                 slots[index] = null;
+             }
+             return;
+         }
+         ThreadLocalMap m = getMap(t);
          if (m != null)
              m.remove(this);
      }
 
+    /**
+     * Removes the current thread's values of all thread-local variables,
+     * including inheritable ones, as if {@link #remove} was invoked on
+     * every thread-local variable the current thread has a value for.
+     * Each of them will be reinitialized by invoking its
+     * {@link #initialValue} method when next read by the current thread,
+     * unless set in the interim.
+     *
+     * <p>This method lets a thread that is reused for unrelated tasks,
+     * such as a pool thread, start each task without the thread-local
+     * state of the previous one, and without holding on to that state.
+     *
+     * @since 1.8
+     */
+    public static void removeAll() {
+        Thread t = Thread.currentThread();
+        t.threadLocalSlots = null;
+        t.threadLocals = null;
+        t.inheritableThreadLocals = null;
+    }
+
+    /**
+     * Sets the value of this indexed ThreadLocal in the slots of the
+     * given thread, growing them as needed.
+     */
+    private void setSlot(Thread t, Object value) {
+        Slot[] slots = t.threadLocalSlots;
+        if (slots == null || index >= slots.length) {
+            int n = Math.max(INITIAL_SLOTS, Integer.highestOneBit(index) << 1);
+            slots = t.threadLocalSlots =
+                (slots == null) ? new Slot[n] : expungeStaleSlots(Arrays.copyOf(slots, n));
+        }
+        Slot s = slots[index];
+        if (s != null && s.get() == this) {
+            s.value = value;
+        } else {
+            slots[index] = new Slot(this, value);
+            expungeSomeSlots(slots, index);
+        }
+    }
+
+    /**
+     * The initial number of slots of a thread.
+     */
+    private static final int INITIAL_SLOTS = 16;
+
+    /**
+     * Clears the slots whose ThreadLocal was collected.
+     */
+    private static Slot[] expungeStaleSlots(Slot[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slots[i].get() == null)
+                slots[i] = null;
+        }
+        return slots;
+    }
+
+    /**
+     * Heuristically scans a logarithmic number of the slots following
+     * the given one, and clears those whose ThreadLocal was collected, so
+     * that the values of collected ThreadLocals are dropped over time
+     * by threads that keep setting new ones, as in ThreadLocalMap's
+     * cleanSomeSlots.
+     */
+    private static void expungeSomeSlots(Slot[] slots, int i) {
+        int len = slots.length;
+        for (int n = len; (n >>>= 1) != 0; ) {
+            if (++i == len)
+                i = 0;
+            Slot s = slots[i];
+            if (s != null && s.get() == null)
+                slots[i] = null;
+        }
+    }
+
+    /**
+     * The slot holding the value of an indexed ThreadLocal for a thread.
+     * Like ThreadLocalMap entries, slots refer to their ThreadLocal
+     * weakly.
+     */
+    static final class Slot extends WeakReference<ThreadLocal<?>> {
+        /** The value associated with this ThreadLocal. */
+        Object value;
+
+        Slot(ThreadLocal<?> k, Object v) {
+            super(k);
+            value = v;
+        }
+    }
+
+    /**
+     * The allocator of slot indexes.  Indexes of collected ThreadLocals
+     * are reused, so that slot arrays are no longer than the number of
+     * ThreadLocals live at once.
+     */
+    private static final class Indexes {
+        private static final ReferenceQueue<ThreadLocal<?>> collected =
+            new ReferenceQueue<>();
+
+        /** The references tracking each index in use, by index. */
+        private static IndexRef[] refs = new IndexRef[INITIAL_SLOTS];
+        private static int[] free = new int[INITIAL_SLOTS];
+        private static int freeCount;
+        private static int nextIndex;
+
+        private static final class IndexRef extends WeakReference<ThreadLocal<?>> {
+            final int index;
+
+            IndexRef(ThreadLocal<?> tl, int index) {
+                super(tl, collected);
+                this.index = index;
+            }
+        }
+
+        static synchronized int acquire(ThreadLocal<?> tl) {
+            for (Reference<?> r; (r = collected.poll()) != null; ) {
+                int i = ((IndexRef)r).index;
+                refs[i] = null;
+                if (freeCount == free.length)
+                    free = Arrays.copyOf(free, freeCount * 2);
+                free[freeCount++] = i;
+            }
+            int i;
+            if (freeCount > 0) {
+                i = free[--freeCount];
+            } else {
+                if ((i = nextIndex++) == refs.length)
+                    refs = Arrays.copyOf(refs, i * 2);
+            }
+            refs[i] = new IndexRef(tl, i);
+            return i;
+        }
+    }
+
     /**
      * Get the map associated with a ThreadLocal. Overridden in
      * InheritableThreadLocal.
@@ -52,7 +52,8 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
     private static final Unsafe UNSAFE = Unsafe.getUnsafe();
 
     private static final int CLASSFILE_VERSION = 52;
-    private static final String METHOD_DESCRIPTOR_VOID = Type.getMethodDescriptor(Type.VOID_TYPE);
+    // "()V", spelled out so that a class found in the archive does not load ASM
+    private static final String METHOD_DESCRIPTOR_VOID = "()V";
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
     private static final String NAME_CTOR = "<init>";
     private static final String NAME_FACTORY = "get$Lambda";
@@ -100,7 +101,6 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
     private final String implMethodDesc;             // Type descriptor for implementation methods "(I)Ljava/lang/String;"
     private final Class<?> implMethodReturnClass;    // class for implementaion method return type "Ljava/lang/String;"
     private final MethodType constructorType;        // Generated class constructor type "(CC)void"
-    private final ClassWriter cw;                    // ASM class writer
     private final String[] argNames;                 // Generated names for the constructor arguments
     private final String[] argDescs;                 // Type descriptors for the constructor arguments
     private final String lambdaClassName;            // Generated name for the generated class "X$$Lambda$1"
@@ -163,7 +163,6 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
                 : implMethodType.returnType();
         constructorType = invokedType.changeReturnType(Void.TYPE);
         lambdaClassName = targetClass.getName().replace('.', '/') + "$$Lambda$" + counter.incrementAndGet();
-        cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
         int parameterCount = invokedType.parameterCount();
         if (parameterCount > 0) {
             argNames = new String[parameterCount];
@@ -233,7 +232,7 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
 
     /**
      * Generate a class file which implements the functional
-     * interface, define and return the class.
+     * interface, or find it in the archive, define and return the class.
      *
      * @implNote The class that is generated does not include signature
      * information for exceptions that may be present on the SAM method.
@@ -247,6 +246,62 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
      * is not found
      */
     private Class<?> spinInnerClass() throws LambdaConversionException {
+        final byte[] classBytes;
+        if (SpunClassArchive.isEnabled()) {
+            // Define the archived class if there is one, and note it either way
+            String key = archiveKey();
+            byte[] archived = SpunClassArchive.find(key);
+            classBytes = (archived != null) ? archived : generateClassBytes();
+            SpunClassArchive.record(key, classBytes);
+        } else {
+            classBytes = generateClassBytes();
+        }
+
+        // If requested, dump out to a file for debugging purposes
+        if (dumper != null) {
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    dumper.dumpClass(lambdaClassName, classBytes);
+                    return null;
+                }
+            }, null,
+            new FilePermission("<<ALL FILES>>", "read, write"),
+            // createDirectories may need it
+            new PropertyPermission("user.dir", "read"));
+        }
+
+        return UNSAFE.defineAnonymousClass(targetClass, classBytes, null);
+    }
+
+    /**
+     * Returns the key of the class spun for this call site in a
+     * {@link SpunClassArchive}: everything the class file depends on but
+     * its name, which is irrelevant to an anonymous class.
+     */
+    private String archiveKey() {
+        StringBuilder sb = new StringBuilder("lambda ");
+        sb.append(targetClass.getName()).append(' ')
+          .append(samMethodName).append(invokedType.toMethodDescriptorString()).append(' ')
+          .append(samMethodType.toMethodDescriptorString()).append(' ')
+          .append(implKind).append(' ').append(implMethodClassName).append('.')
+          .append(implMethodName).append(implMethodDesc).append(' ')
+          .append(instantiatedMethodType.toMethodDescriptorString());
+        if (isSerializable)
+            sb.append(" serializable");
+        for (Class<?> markerInterface : markerInterfaces)
+            sb.append(" +").append(markerInterface.getName());
+        if (additionalBridges != null) {
+            for (MethodType mt : additionalBridges)
+                sb.append(" &").append(mt.toMethodDescriptorString());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generate a class file which implements the functional interface.
+     */
+    private byte[] generateClassBytes() throws LambdaConversionException {
         String[] interfaces;
         String samIntf = samBase.getName().replace('.', '/');
         boolean accidentallySerializable = !isSerializable && Serializable.class.isAssignableFrom(samBase);
@@ -263,6 +318,7 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
             interfaces = itfs.toArray(new String[itfs.size()]);
         }
 
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
         cw.visit(CLASSFILE_VERSION, ACC_SUPER + ACC_FINAL + ACC_SYNTHETIC,
                  lambdaClassName, null,
                  JAVA_LANG_OBJECT, interfaces);
@@ -276,10 +332,10 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
             fv.visitEnd();
         }
 
-        generateConstructor();
+        generateConstructor(cw);
 
         if (invokedType.parameterCount() != 0) {
-            generateFactory();
+            generateFactory(cw);
         }
 
         // Forward the SAM method
@@ -299,37 +355,19 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
         }
 
         if (isSerializable)
-            generateSerializationFriendlyMethods();
+            generateSerializationFriendlyMethods(cw);
         else if (accidentallySerializable)
-            generateSerializationHostileMethods();
+            generateSerializationHostileMethods(cw);
 
         cw.visitEnd();
 
-        // Define the generated class in this VM.
-
-        final byte[] classBytes = cw.toByteArray();
-
-        // If requested, dump out to a file for debugging purposes
-        if (dumper != null) {
-            AccessController.doPrivileged(new PrivilegedAction<Void>() {
-                @Override
-                public Void run() {
-                    dumper.dumpClass(lambdaClassName, classBytes);
-                    return null;
-                }
-            }, null,
-            new FilePermission("<<ALL FILES>>", "read, write"),
-            // createDirectories may need it
-            new PropertyPermission("user.dir", "read"));
-        }
-
-        return UNSAFE.defineAnonymousClass(targetClass, classBytes, null);
+        return cw.toByteArray();
     }
 
     /**
      * Generate the factory method for the class
      */
-    private void generateFactory() {
+    private void generateFactory(ClassWriter cw) {
         MethodVisitor m = cw.visitMethod(ACC_PRIVATE | ACC_STATIC, NAME_FACTORY, invokedType.toMethodDescriptorString(), null, null);
         m.visitCode();
         m.visitTypeInsn(NEW, lambdaClassName);
@@ -349,7 +387,7 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
     /**
      * Generate the constructor for the class
      */
-    private void generateConstructor() {
+    private void generateConstructor(ClassWriter cw) {
         // Generate constructor
         MethodVisitor ctor = cw.visitMethod(ACC_PRIVATE, NAME_CTOR,
                                             constructorType.toMethodDescriptorString(), null, null);
@@ -374,7 +412,7 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
     /**
      * Generate a writeReplace method that supports serialization
      */
-    private void generateSerializationFriendlyMethods() {
+    private void generateSerializationFriendlyMethods(ClassWriter cw) {
         TypeConvertingMethodAdapter mv
                 = new TypeConvertingMethodAdapter(
                     cw.visitMethod(ACC_PRIVATE + ACC_FINAL,
@@ -414,7 +452,7 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
     /**
      * Generate a readObject/writeObject method that is hostile to serialization
      */
-    private void generateSerializationHostileMethods() {
+    private void generateSerializationHostileMethods(ClassWriter cw) {
         MethodVisitor mv = cw.visitMethod(ACC_PRIVATE + ACC_FINAL,
                                           NAME_METHOD_WRITE_OBJECT, DESCR_METHOD_WRITE_OBJECT,
                                           null, SER_HOSTILE_EXCEPTIONS);
@@ -0,0 +1,570 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.invoke;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import sun.invoke.util.Wrapper;
+import sun.reflect.Reflection;
+
+/**
+ * This class consists exclusively of static methods that turn reflected
+ * members into strongly typed functional objects: invokers of methods and
+ * constructors implementing a given functional interface, and getters and
+ * setters of fields.  Calling them costs about as much as calling the
+ * member directly, with no argument array, no boxing of primitive
+ * arguments, results or field values, and no
+ * {@link java.lang.reflect.InvocationTargetException} wrapping.
+ *
+ * <p>Access to the member is checked once, when the functional object is
+ * created, against the given lookup object, as by
+ * {@link MethodHandles.Lookup#unreflect unreflect} and its siblings.
+ *
+ * <p>If the lookup object has private access, and the member and the
+ * types in its signature are accessible from the lookup class, the
+ * invokers are spun by the {@link LambdaMetafactory}, exactly like lambda
+ * expressions and method references in the lookup class, so that the JIT
+ * compiles a call through them into a direct call of the member.
+ * Otherwise they call a method handle on the member.
+ *
+ * @see LambdaMetafactory
+ * @see MethodHandleProxies
+ * @since 1.8
+ */
+public final class MemberInvokers {
+
+    private MemberInvokers() { }  // do not instantiate
+
+    /**
+     * Returns an instance of a functional interface whose single abstract
+     * method invokes the given method.  For an instance method, the first
+     * parameter of the functional interface method is the receiver.
+     * The parameter and return types of the functional interface method
+     * must be adaptable to those of the method as for a method reference.
+     *
+     * @param <F> the functional interface type
+     * @param lookup the lookup object used to access the method
+     * @param method the method to invoke
+     * @param functionalInterface the functional interface to implement
+     * @return an invoker of the method
+     * @throws IllegalAccessException if the method is not accessible
+     *         from the lookup object
+     * @throws IllegalArgumentException if {@code functionalInterface} is
+     *         not a functional interface, or its method is not compatible
+     *         with the given method
+     * @throws NullPointerException if any argument is null
+     */
+    public static <F> F invoker(MethodHandles.Lookup lookup, Method method,
+                                Class<F> functionalInterface)
+        throws IllegalAccessException
+    {
+        return implement(lookup, lookup.unreflect(method), method, functionalInterface);
+    }
+
+    /**
+     * Returns an instance of a functional interface whose single abstract
+     * method invokes the given constructor, and returns the new object.
+     * The parameter and return types of the functional interface method
+     * must be adaptable to those of the constructor as for a constructor
+     * reference.
+     *
+     * @param <F> the functional interface type
+     * @param lookup the lookup object used to access the constructor
+     * @param constructor the constructor to invoke
+     * @param functionalInterface the functional interface to implement
+     * @return an invoker of the constructor
+     * @throws IllegalAccessException if the constructor is not accessible
+     *         from the lookup object
+     * @throws IllegalArgumentException if {@code functionalInterface} is
+     *         not a functional interface, or its method is not compatible
+     *         with the given constructor
+     * @throws NullPointerException if any argument is null
+     */
+    public static <F> F invoker(MethodHandles.Lookup lookup, Constructor<?> constructor,
+                                Class<F> functionalInterface)
+        throws IllegalAccessException
+    {
+        return implement(lookup, lookup.unreflectConstructor(constructor), constructor,
+                         functionalInterface);
+    }
+
+    /**
+     * Returns a getter of the given field.  For a static field, the
+     * argument of the getter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param <R> the type of the field, or a supertype
+     * @param lookup the lookup object used to access the field
+     * @param field the field to read
+     * @return a getter of the field, which throws
+     *         {@code ClassCastException} if its argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T, R> Function<T, R> getter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new Getter<>(getterHandle(lookup, field, Object.class));
+    }
+
+    /**
+     * Returns a setter of the given field.  For a static field, the first
+     * argument of the setter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param <V> the type of the field, or a subtype
+     * @param lookup the lookup object used to access the field
+     * @param field the field to write
+     * @return a setter of the field, which throws
+     *         {@code ClassCastException} if its arguments do not match the
+     *         class declaring the field and the type of the field, and
+     *         {@code NullPointerException} if a null value is given for a
+     *         primitive field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object, or is final
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T, V> BiConsumer<T, V> setter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new Setter<>(setterHandle(lookup, field, Object.class));
+    }
+
+    /**
+     * Returns a getter of the given field, whose type must be {@code int}
+     * or convertible to it by a widening primitive conversion.  For a
+     * static field, the argument of the getter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to read
+     * @return a getter of the field, which throws
+     *         {@code ClassCastException} if its argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object
+     * @throws IllegalArgumentException if the type of the field is not
+     *         convertible to {@code int}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ToIntFunction<T> intGetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new IntGetter<>(getterHandle(lookup, field, int.class));
+    }
+
+    /**
+     * Returns a setter of the given {@code int} field.  For a static
+     * field, the first argument of the setter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to write
+     * @return a setter of the field, which throws
+     *         {@code ClassCastException} if its first argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object, or is final
+     * @throws IllegalArgumentException if the type of the field is not
+     *         {@code int}, {@code long}, {@code float} or {@code double}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ObjIntConsumer<T> intSetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new IntSetter<>(setterHandle(lookup, field, int.class));
+    }
+
+    /**
+     * Returns a getter of the given field, whose type must be
+     * {@code long} or convertible to it by a widening primitive
+     * conversion.  For a static field, the argument of the getter is
+     * ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to read
+     * @return a getter of the field, which throws
+     *         {@code ClassCastException} if its argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object
+     * @throws IllegalArgumentException if the type of the field is not
+     *         convertible to {@code long}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ToLongFunction<T> longGetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new LongGetter<>(getterHandle(lookup, field, long.class));
+    }
+
+    /**
+     * Returns a setter of the given {@code long} field.  For a static
+     * field, the first argument of the setter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to write
+     * @return a setter of the field, which throws
+     *         {@code ClassCastException} if its first argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object, or is final
+     * @throws IllegalArgumentException if the type of the field is not
+     *         {@code long}, {@code float} or {@code double}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ObjLongConsumer<T> longSetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new LongSetter<>(setterHandle(lookup, field, long.class));
+    }
+
+    /**
+     * Returns a getter of the given field, whose type must be
+     * {@code double} or convertible to it by a widening primitive
+     * conversion.  For a static field, the argument of the getter is
+     * ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to read
+     * @return a getter of the field, which throws
+     *         {@code ClassCastException} if its argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object
+     * @throws IllegalArgumentException if the type of the field is not
+     *         convertible to {@code double}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ToDoubleFunction<T> doubleGetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new DoubleGetter<>(getterHandle(lookup, field, double.class));
+    }
+
+    /**
+     * Returns a setter of the given {@code double} field.  For a static
+     * field, the first argument of the setter is ignored.
+     *
+     * @param <T> the type of the object holding the field
+     * @param lookup the lookup object used to access the field
+     * @param field the field to write
+     * @return a setter of the field, which throws
+     *         {@code ClassCastException} if its first argument is not an
+     *         instance of the class declaring the field
+     * @throws IllegalAccessException if the field is not accessible from
+     *         the lookup object, or is final
+     * @throws IllegalArgumentException if the type of the field is not
+     *         {@code double}
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T> ObjDoubleConsumer<T> doubleSetter(MethodHandles.Lookup lookup, Field field)
+        throws IllegalAccessException
+    {
+        return new DoubleSetter<>(setterHandle(lookup, field, double.class));
+    }
+
+    // Implementation
+
+    private static <F> F implement(MethodHandles.Lookup lookup, MethodHandle target,
+                                   Member member, Class<F> functionalInterface) {
+        Method sam = findSingleAbstractMethod(functionalInterface);
+        MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        if (canSpin(lookup, member, target.type())) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                    lookup, sam.getName(), MethodType.methodType(functionalInterface),
+                    samType, target, instantiatedType(samType, target.type()));
+                return functionalInterface.cast(site.getTarget().invoke());
+            } catch (LambdaConversionException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InternalError(e);
+            }
+        }
+        try {
+            return MethodHandleProxies.asInterfaceInstance(functionalInterface, target.asType(samType));
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns whether a class spun by the lambda metafactory in the lookup
+     * class can invoke the member directly.
+     */
+    private static boolean canSpin(MethodHandles.Lookup lookup, Member member, MethodType type) {
+        if ((lookup.lookupModes() & MethodHandles.Lookup.PRIVATE) == 0)
+            return false;
+        Class<?> lookupClass = lookup.lookupClass();
+        if (!Reflection.verifyMemberAccess(lookupClass, member.getDeclaringClass(), null,
+                                           member.getModifiers()))
+            return false;
+        for (int i = -1; i < type.parameterCount(); i++) {
+            Class<?> c = (i < 0) ? type.returnType() : type.parameterType(i);
+            while (c.isArray())
+                c = c.getComponentType();
+            if (!c.isPrimitive() &&
+                !Reflection.verifyMemberAccess(lookupClass, c, null, Modifier.PUBLIC))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the functional interface method type specialized to the
+     * reference types of the target, as javac does for method references.
+     * A reference type of the interface method that stands for a primitive
+     * type of the target is specialized to the wrapper of that type, so
+     * that the metafactory boxes and unboxes it.
+     */
+    private static MethodType instantiatedType(MethodType samType, MethodType targetType) {
+        if (samType.parameterCount() != targetType.parameterCount())
+            return samType;  // let the metafactory report the mismatch
+        MethodType type = samType;
+        for (int i = 0; i < samType.parameterCount(); i++) {
+            Class<?> t = instantiated(samType.parameterType(i), targetType.parameterType(i));
+            if (t != null)
+                type = type.changeParameterType(i, t);
+        }
+        Class<?> t = instantiated(samType.returnType(), targetType.returnType());
+        if (t != null)
+            type = type.changeReturnType(t);
+        return type;
+    }
+
+    /**
+     * Returns the type to which a type of the interface method is
+     * specialized for the given target type, or null if it is kept.
+     */
+    private static Class<?> instantiated(Class<?> s, Class<?> t) {
+        if (s.isPrimitive() || t == void.class)
+            return null;
+        if (t.isPrimitive())
+            t = Wrapper.asWrapperType(t);
+        return s.isAssignableFrom(t) ? t : null;
+    }
+
+    private static Method findSingleAbstractMethod(Class<?> functionalInterface) {
+        if (!functionalInterface.isInterface())
+            throw new IllegalArgumentException("not an interface: " + functionalInterface.getName());
+        Method sam = null;
+        for (Method m : functionalInterface.getMethods()) {
+            if (!Modifier.isAbstract(m.getModifiers()) || isObjectMethod(m))
+                continue;
+            if (sam != null && !(sam.getName().equals(m.getName()) &&
+                                 sam.getReturnType() == m.getReturnType() &&
+                                 MethodType.methodType(void.class, sam.getParameterTypes())
+                                     .equals(MethodType.methodType(void.class, m.getParameterTypes()))))
+                throw new IllegalArgumentException("not a functional interface: " +
+                                                   functionalInterface.getName());
+            sam = m;
+        }
+        if (sam == null)
+            throw new IllegalArgumentException("not a functional interface: " +
+                                               functionalInterface.getName());
+        return sam;
+    }
+
+    private static boolean isObjectMethod(Method m) {
+        switch (m.getName()) {
+        case "toString":
+            return (m.getReturnType() == String.class && m.getParameterCount() == 0);
+        case "hashCode":
+            return (m.getReturnType() == int.class && m.getParameterCount() == 0);
+        case "equals":
+            return (m.getReturnType() == boolean.class && m.getParameterCount() == 1 &&
+                    m.getParameterTypes()[0] == Object.class);
+        }
+        return false;
+    }
+
+    /** Returns a getter handle of type (Object)type. */
+    private static MethodHandle getterHandle(MethodHandles.Lookup lookup, Field field, Class<?> type)
+        throws IllegalAccessException
+    {
+        MethodHandle mh = lookup.unreflectGetter(field);
+        if (Modifier.isStatic(field.getModifiers()))
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        return adapt(mh, MethodType.methodType(type, Object.class), field);
+    }
+
+    /** Returns a setter handle of type (Object,type)void. */
+    private static MethodHandle setterHandle(MethodHandles.Lookup lookup, Field field, Class<?> type)
+        throws IllegalAccessException
+    {
+        MethodHandle mh = lookup.unreflectSetter(field);
+        if (Modifier.isStatic(field.getModifiers()))
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        return adapt(mh, MethodType.methodType(void.class, Object.class, type), field);
+    }
+
+    private static MethodHandle adapt(MethodHandle mh, MethodType type, Field field) {
+        try {
+            return mh.asType(type);
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException("field " + field + " cannot be accessed as " + type, e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        throw new UndeclaredThrowableException(t);
+    }
+
+    private static final class Getter<T, R> implements Function<T, R> {
+        private final MethodHandle mh;  // (Object)Object
+        Getter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public R apply(T obj) {
+            try {
+                return (R) (Object) mh.invokeExact((Object) obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class Setter<T, V> implements BiConsumer<T, V> {
+        private final MethodHandle mh;  // (Object,Object)void
+        Setter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public void accept(T obj, V value) {
+            try {
+                mh.invokeExact((Object) obj, (Object) value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class IntGetter<T> implements ToIntFunction<T> {
+        private final MethodHandle mh;  // (Object)int
+        IntGetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public int applyAsInt(T obj) {
+            try {
+                return (int) mh.invokeExact((Object) obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class IntSetter<T> implements ObjIntConsumer<T> {
+        private final MethodHandle mh;  // (Object,int)void
+        IntSetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public void accept(T obj, int value) {
+            try {
+                mh.invokeExact((Object) obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class LongGetter<T> implements ToLongFunction<T> {
+        private final MethodHandle mh;  // (Object)long
+        LongGetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public long applyAsLong(T obj) {
+            try {
+                return (long) mh.invokeExact((Object) obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class LongSetter<T> implements ObjLongConsumer<T> {
+        private final MethodHandle mh;  // (Object,long)void
+        LongSetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public void accept(T obj, long value) {
+            try {
+                mh.invokeExact((Object) obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class DoubleGetter<T> implements ToDoubleFunction<T> {
+        private final MethodHandle mh;  // (Object)double
+        DoubleGetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public double applyAsDouble(T obj) {
+            try {
+                return (double) mh.invokeExact((Object) obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class DoubleSetter<T> implements ObjDoubleConsumer<T> {
+        private final MethodHandle mh;  // (Object,double)void
+        DoubleSetter(MethodHandle mh) { this.mh = mh; }
+
+        @Override
+        public void accept(T obj, double value) {
+            try {
+                mh.invokeExact((Object) obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+}
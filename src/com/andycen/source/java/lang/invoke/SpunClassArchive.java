@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.invoke;
+
+import jdk.internal.org.objectweb.asm.ClassReader;
+import jdk.internal.org.objectweb.asm.ClassVisitor;
+import jdk.internal.org.objectweb.asm.Handle;
+import jdk.internal.org.objectweb.asm.MethodVisitor;
+import jdk.internal.org.objectweb.asm.Opcodes;
+import jdk.internal.org.objectweb.asm.Type;
+import sun.security.action.GetPropertyAction;
+import sun.util.logging.PlatformLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PropertyPermission;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static java.lang.invoke.MethodHandles.Lookup.IMPL_LOOKUP;
+
+/**
+ * An archive of the class files spun by {@code InnerClassLambdaMetafactory}
+ * and {@code StringConcatFactory}, so that an application can define its
+ * lambda proxies and concatenation classes without generating them, and
+ * without loading ASM at all, on the next start.
+ *
+ * <p>The generated bytes are a pure function of the call site: the caller,
+ * the method types and the implementation method of a lambda, or the type
+ * and recipe of a concatenation.  They are archived under a key built from
+ * exactly these, and looked up under the same key before spinning.  An
+ * archive is produced either by a training run with
+ * {@code -Djdk.internal.lambda.archive.dump=<file>}, which writes every class
+ * linked during the run when the VM exits, or ahead of time by running this
+ * class on the application jars, which links every lambda and concatenation
+ * {@code invokedynamic} site found in them:
+ * <pre>
+ *     java -cp app.jar java.lang.invoke.SpunClassArchive app.jsa app.jar
+ *     java -Djdk.internal.lambda.archive=app.jsa -jar app.jar
+ * </pre>
+ * An archive is only used by the runtime that wrote it, and should be
+ * written again whenever the application changes, as the generated code
+ * also depends on the class hierarchy of the types it converts between.
+ *
+ * @implNote
+ * <p> Because this class is called by LambdaMetafactory, make use
+ * of lambda lead to recursive calls cause stack overflow.
+ */
+final class SpunClassArchive {
+    private static final int MAGIC = 0x4C414D42;
+    private static final int VERSION = 1;
+
+    private static final String ARCHIVE_KEY = "jdk.internal.lambda.archive";
+    private static final String DUMP_KEY = "jdk.internal.lambda.archive.dump";
+
+    private static final String LAMBDA_METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    // The classes of the archive in use, by key, or null
+    private static final Map<String, byte[]> archived;
+
+    // The classes linked so far, by key, if they are to be written out
+    private static volatile Map<String, byte[]> recorded;
+
+    static {
+        String path = property(ARCHIVE_KEY);
+        archived = (path == null) ? null : load(path);
+        final String dumpPath = property(DUMP_KEY);
+        if (dumpPath != null) {
+            recorded = new ConcurrentHashMap<>();
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    Runtime.getRuntime().addShutdownHook(new Thread() {
+                        @Override
+                        public void run() {
+                            try {
+                                store(dumpPath, recorded);
+                            } catch (IOException e) {
+                                logger().warning("Exception writing " + dumpPath, e);
+                            }
+                        }
+                    });
+                    return null;
+                }
+            });
+        }
+    }
+
+    private SpunClassArchive() {
+        // no instantiation
+    }
+
+    /**
+     * Returns whether an archive is read or written, that is whether call
+     * sites need to compute their keys at all.
+     */
+    static boolean isEnabled() {
+        return archived != null || recorded != null;
+    }
+
+    /**
+     * Returns the archived bytes of the class with the given key, or null.
+     */
+    static byte[] find(String key) {
+        return (archived == null) ? null : archived.get(key);
+    }
+
+    /**
+     * Notes that the class with the given key and bytes has been linked,
+     * whether it was spun or found in the archive.
+     */
+    static void record(String key, byte[] classBytes) {
+        Map<String, byte[]> m = recorded;
+        if (m != null)
+            m.putIfAbsent(key, classBytes);
+    }
+
+    private static String property(String key) {
+        return AccessController.doPrivileged(
+                new GetPropertyAction(key), null,
+                new PropertyPermission(key, "read"));
+    }
+
+    private static PlatformLogger logger() {
+        return PlatformLogger.getLogger(SpunClassArchive.class.getName());
+    }
+
+    private static String runtimeVersion() {
+        return String.valueOf(property("java.runtime.version"));
+    }
+
+    private static Map<String, byte[]> load(final String path) {
+        return AccessController.doPrivileged(new PrivilegedAction<Map<String, byte[]>>() {
+            @Override
+            public Map<String, byte[]> run() {
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(path)))) {
+                    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                        logger().warning(path + " is not a lambda archive - archive disabled");
+                        return null;
+                    }
+                    String version = in.readUTF();
+                    if (!version.equals(runtimeVersion())) {
+                        logger().warning(path + " was written by " + version +
+                                         " - archive disabled");
+                        return null;
+                    }
+                    int count = in.readInt();
+                    Map<String, byte[]> m = new HashMap<>(count * 4 / 3 + 1);
+                    for (int i = 0; i < count; i++) {
+                        byte[] key = new byte[in.readInt()];
+                        in.readFully(key);
+                        byte[] classBytes = new byte[in.readInt()];
+                        in.readFully(classBytes);
+                        m.put(new String(key, StandardCharsets.UTF_8), classBytes);
+                    }
+                    return m;
+                } catch (IOException | RuntimeException e) {
+                    logger().warning("Exception reading " + path + " - archive disabled", e);
+                    return null;
+                }
+            }
+        }, null, new FilePermission(path, "read"), new PropertyPermission("*", "read"));
+    }
+
+    private static void store(String path, Map<String, byte[]> classes) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(runtimeVersion());
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes an archive of the classes spun for the lambda and string
+     * concatenation call sites of the given jars.
+     *
+     * <p>Every {@code invokedynamic} instruction bootstrapped by
+     * {@link LambdaMetafactory} or {@link StringConcatFactory} is linked
+     * here exactly as the VM would link it, on behalf of its class, which
+     * is loaded but not initialized.  Sites whose classes or types cannot be
+     * loaded are reported and left out, and are spun at run time as usual.
+     *
+     * @param args the archive file, followed by the application jars
+     * @throws IOException if a jar cannot be read or the archive written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java -cp <classpath> " + SpunClassArchive.class.getName() +
+                               " <archive> <jar>...");
+            System.exit(1);
+        }
+        Map<String, byte[]> classes = new ConcurrentHashMap<>();
+        recorded = classes;
+
+        URL[] urls = new URL[args.length - 1];
+        for (int i = 1; i < args.length; i++)
+            urls[i - 1] = new File(args[i]).toURI().toURL();
+        ClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
+
+        int sites = 0, failed = 0;
+        for (int i = 1; i < args.length; i++) {
+            try (JarFile jar = new JarFile(args[i])) {
+                for (Enumeration<JarEntry> en = jar.entries(); en.hasMoreElements(); ) {
+                    JarEntry entry = en.nextElement();
+                    String name = entry.getName();
+                    if (!name.endsWith(".class") || name.startsWith("META-INF/"))
+                        continue;
+                    List<Object[]> indys;
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        indys = scan(new ClassReader(in));
+                    }
+                    if (indys.isEmpty())
+                        continue;
+                    String className = name.substring(0, name.length() - 6).replace('/', '.');
+                    for (Object[] indy : indys) {
+                        sites++;
+                        try {
+                            link(Class.forName(className, false, loader), indy);
+                        } catch (Throwable t) {
+                            failed++;
+                            System.err.println("Skipping a call site in " + className + ": " + t);
+                        }
+                    }
+                }
+            }
+        }
+        store(args[0], classes);
+        System.out.println("Archived " + classes.size() + " classes for " +
+                           (sites - failed) + " of " + sites + " call sites in " + args[0]);
+    }
+
+    /**
+     * Returns the name, descriptor, bootstrap handle and bootstrap arguments
+     * of each lambda or string concatenation call site of a class.
+     */
+    private static List<Object[]> scan(ClassReader reader) {
+        final List<Object[]> indys = new ArrayList<>();
+        reader.accept(new ClassVisitor(Opcodes.ASM5) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc,
+                                             String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM5) {
+                    @Override
+                    public void visitInvokeDynamicInsn(String name, String desc, Handle bsm,
+                                                       Object... bsmArgs) {
+                        if (bsm.getOwner().equals(LAMBDA_METAFACTORY) ||
+                                bsm.getOwner().equals(STRING_CONCAT_FACTORY))
+                            indys.add(new Object[] { name, desc, bsm, bsmArgs });
+                    }
+                };
+            }
+        }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return indys;
+    }
+
+    /**
+     * Links a call site of the given class by calling its bootstrap method
+     * with a full-privilege lookup on the class, as the VM does.
+     */
+    private static void link(Class<?> caller, Object[] indy) throws Throwable {
+        ClassLoader loader = caller.getClassLoader();
+        Object[] bsmArgs = (Object[]) indy[3];
+        Object[] args = new Object[3 + bsmArgs.length];
+        args[0] = IMPL_LOOKUP.in(caller);
+        args[1] = indy[0];
+        args[2] = MethodType.fromMethodDescriptorString((String) indy[1], loader);
+        for (int i = 0; i < bsmArgs.length; i++)
+            args[3 + i] = constant(caller, bsmArgs[i]);
+        handle(caller, (Handle) indy[2]).invokeWithArguments(args);
+    }
+
+    private static Object constant(Class<?> caller, Object cst) throws ClassNotFoundException {
+        if (cst instanceof Handle)
+            return handle(caller, (Handle) cst);
+        if (cst instanceof Type) {
+            Type t = (Type) cst;
+            MethodType mt = MethodType.fromMethodDescriptorString(
+                    (t.getSort() == Type.METHOD) ? t.getDescriptor() : "()" + t.getDescriptor(),
+                    caller.getClassLoader());
+            return (t.getSort() == Type.METHOD) ? mt : mt.returnType();
+        }
+        return cst;
+    }
+
+    private static MethodHandle handle(Class<?> caller, Handle h) throws ClassNotFoundException {
+        Class<?> defc = Class.forName(h.getOwner().replace('/', '.'), false, caller.getClassLoader());
+        Object type = constant(caller, Type.getType(h.getDesc()));
+        return MethodHandleNatives.linkMethodHandleConstant(caller, h.getTag(), defc, h.getName(), type);
+    }
+}
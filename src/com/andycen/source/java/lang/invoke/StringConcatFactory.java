@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.invoke;
+
+import jdk.internal.org.objectweb.asm.ClassWriter;
+import jdk.internal.org.objectweb.asm.MethodVisitor;
+import jdk.internal.org.objectweb.asm.Type;
+import sun.misc.Unsafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.invoke.MethodHandles.Lookup.IMPL_LOOKUP;
+import static jdk.internal.org.objectweb.asm.Opcodes.*;
+
+/**
+ * <p>Methods to facilitate the creation of String concatenation methods, that
+ * can be used to efficiently concatenate a known number of arguments of known
+ * types, possibly after type adaptation and partial evaluation of arguments.
+ * These methods are typically used as <em>bootstrap methods</em> for
+ * {@code invokedynamic} call sites, to support the <em>string
+ * concatenation</em> feature of the Java Programming Language, and can also
+ * be called directly to obtain a reusable concatenation method.
+ *
+ * <p>Unlike a chain of {@code StringBuilder.append} calls, which starts from
+ * a default capacity and grows by copying, the linked method measures all of
+ * its arguments first and fills one array of the exact length, which then
+ * becomes the value of the result without a further copy.  {@code int},
+ * {@code long}, {@code short}, {@code byte}, {@code char} and
+ * {@code boolean} arguments are written directly; other arguments are
+ * converted with {@link String#valueOf(Object)} or the matching primitive
+ * overload exactly once, in argument order, before any text is copied.
+ * Each call site is linked to a small class spun for its recipe and
+ * argument types, so that the whole concatenation is plain straight-line
+ * code the compiler can inline.
+ *
+ * <p>For example, a logger can link
+ * <pre>{@code
+ *     MethodHandle concat = StringConcatFactory.makeConcatWithConstants(
+ *             MethodHandles.lookup(), "log",
+ *             MethodType.methodType(String.class, String.class, int.class, long.class),
+ *             "user \1 logged in from node \1 in \1 ms").getTarget();
+ *     String line = (String) concat.invokeExact(user, node, elapsed);
+ * }</pre>
+ *
+ * @since 1.8
+ */
+public final class StringConcatFactory {
+
+    /**
+     * Tag used to demarcate an ordinary argument.
+     */
+    private static final char TAG_ARG = '\u0001';
+
+    /**
+     * Tag used to demarcate a constant.
+     */
+    private static final char TAG_CONST = '\u0002';
+
+    /**
+     * Maximum number of argument slots in String Concat call.
+     *
+     * While the maximum number of argument slots that indy call can handle is
+     * 253, we do not use all those slots, to leave room for the locals of
+     * the spun concatenation method.
+     */
+    private static final int MAX_INDY_CONCAT_ARG_SLOTS = 200;
+
+    private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+
+    private static final int CLASSFILE_VERSION = 52;
+
+    /**
+     * The host of the spun classes, whose package-private methods they call.
+     */
+    private static final Class<?> HELPER;
+    private static final String HELPER_NAME = "java/lang/StringConcatHelper";
+    private static final String CONCAT_CLASS_NAME = HELPER_NAME + "$Concat";
+    private static final String NAME_METHOD = "concat";
+    static {
+        try {
+            HELPER = Class.forName("java.lang.StringConcatHelper");
+        } catch (ClassNotFoundException e) {
+            throw new Error(e);
+        }
+    }
+
+    private StringConcatFactory() {
+        // no instantiation
+    }
+
+    /**
+     * Facilitates the creation of optimized String concatenation methods,
+     * that can be used to efficiently concatenate a known number of
+     * arguments of known types.  The returned call site target concatenates
+     * the string representations of all its arguments, in order, as
+     * specified by JLS 15.18.1.
+     *
+     * @param lookup   Represents a lookup context with the accessibility
+     *                 privileges of the caller.  Currently unused.
+     * @param name     The name of the method to implement.  This name is
+     *                 arbitrary, and has no meaning for this linkage method.
+     * @param concatType The expected signature of the {@code CallSite}.  The
+     *                 return type must be {@code String}.
+     * @return a CallSite whose target can be used to perform String
+     * concatenation, with dynamic concatenation arguments described by the
+     * given {@code concatType}.
+     * @throws StringConcatException If any of the linkage invariants
+     *                               described here are violated.
+     * @throws NullPointerException If any of the incoming arguments is null.
+     */
+    public static CallSite makeConcat(MethodHandles.Lookup lookup,
+                                      String name,
+                                      MethodType concatType) throws StringConcatException {
+        char[] recipe = new char[concatType.parameterCount()];
+        Arrays.fill(recipe, TAG_ARG);
+        return doStringConcat(lookup, name, concatType, new String(recipe), new Object[0]);
+    }
+
+    /**
+     * Facilitates the creation of optimized String concatenation methods,
+     * that can be used to efficiently concatenate a known number of
+     * arguments of known types, interleaved with constant text described by
+     * a recipe.
+     *
+     * <p>In the recipe, {@code "\1"} (Unicode point 0001) marks the next
+     * dynamic argument, {@code "\2"} (Unicode point 0002) marks the next
+     * element of {@code constants}, which is converted with
+     * {@code String.valueOf}, and every other character is copied as is.
+     *
+     * @param lookup   Represents a lookup context with the accessibility
+     *                 privileges of the caller.  Currently unused.
+     * @param name     The name of the method to implement.  This name is
+     *                 arbitrary, and has no meaning for this linkage method.
+     * @param concatType The expected signature of the {@code CallSite}.  The
+     *                 return type must be {@code String}.
+     * @param recipe   Concatenation recipe, described above.
+     * @param constants A vararg parameter representing the constants passed
+     *                  to the linkage method.
+     * @return a CallSite whose target can be used to perform String
+     * concatenation, with dynamic concatenation arguments described by the
+     * given {@code concatType}.
+     * @throws StringConcatException If any of the linkage invariants
+     *                               described here are violated.
+     * @throws NullPointerException If any of the incoming arguments is null,
+     *                              or any constant in {@code recipe} is null.
+     */
+    public static CallSite makeConcatWithConstants(MethodHandles.Lookup lookup,
+                                                   String name,
+                                                   MethodType concatType,
+                                                   String recipe,
+                                                   Object... constants) throws StringConcatException {
+        return doStringConcat(lookup, name, concatType, recipe, constants);
+    }
+
+    private static CallSite doStringConcat(MethodHandles.Lookup lookup,
+                                           String name,
+                                           MethodType concatType,
+                                           String recipe,
+                                           Object[] constants) throws StringConcatException {
+        if (lookup == null || name == null || concatType == null ||
+                recipe == null || constants == null) {
+            throw new NullPointerException();
+        }
+        if (concatType.returnType() != String.class) {
+            throw new StringConcatException("The return type should be compatible with String, but it is " +
+                    concatType.returnType());
+        }
+        int paramCount = concatType.parameterCount();
+        int slots = 0;
+        for (Class<?> ptype : concatType.parameterList()) {
+            slots += (ptype == long.class || ptype == double.class) ? 2 : 1;
+        }
+        if (slots > MAX_INDY_CONCAT_ARG_SLOTS) {
+            throw new StringConcatException("Too many concat argument slots: " +
+                    slots + ", can only accept " + MAX_INDY_CONCAT_ARG_SLOTS);
+        }
+
+        // Split the recipe into the constant text around each argument
+        String[] fragments = new String[paramCount + 1];
+        StringBuilder acc = new StringBuilder();
+        int arg = 0, cst = 0;
+        for (int i = 0; i < recipe.length(); i++) {
+            char c = recipe.charAt(i);
+            if (c == TAG_CONST) {
+                if (cst == constants.length) {
+                    throw new StringConcatException("Mismatched number of concat constants: recipe wants more than " +
+                            constants.length + " constants: " + Arrays.toString(constants));
+                }
+                Object cnst = constants[cst++];
+                if (cnst == null) {
+                    throw new NullPointerException("Constant " + (cst - 1) + " is null");
+                }
+                acc.append(cnst);
+            } else if (c == TAG_ARG) {
+                if (arg == paramCount) {
+                    throw new StringConcatException("Mismatched number of concat arguments: recipe wants more than " +
+                            paramCount + " arguments: \"" + recipe + "\"");
+                }
+                fragments[arg++] = acc.toString();
+                acc.setLength(0);
+            } else {
+                acc.append(c);
+            }
+        }
+        if (arg != paramCount) {
+            throw new StringConcatException("Mismatched number of concat arguments: recipe wants " +
+                    arg + " arguments, but signature provides " + paramCount);
+        }
+        if (cst != constants.length) {
+            throw new StringConcatException("Mismatched number of concat constants: recipe wants " +
+                    cst + " constants, but only " + constants.length + " are passed");
+        }
+        fragments[paramCount] = acc.toString();
+
+        // Merge adjacent constants, so that each element is either a String
+        // or the Integer index of an argument
+        List<Object> elements = new ArrayList<>();
+        for (int i = 0; i <= paramCount; i++) {
+            if (!fragments[i].isEmpty())
+                elements.add(fragments[i]);
+            if (i < paramCount)
+                elements.add(i);
+        }
+
+        try {
+            Class<?> concatClass = spinConcatClass(concatType, elements);
+            MethodHandle mh = IMPL_LOOKUP.findStatic(concatClass, NAME_METHOD, concatType);
+            return new ConstantCallSite(mh);
+        } catch (ReflectiveOperationException e) {
+            throw new StringConcatException("Exception while spinning the class", e);
+        }
+    }
+
+    /**
+     * Spins a class, or finds it in the archive, with a static method of
+     * the given type, which computes the exact length of the result,
+     * allocates it and appends every element in order.  The class is anonymous in java.lang, so it may call
+     * the package-private StringConcatHelper and String constructor.
+     */
+    private static Class<?> spinConcatClass(MethodType concatType, List<Object> elements) {
+        byte[] classBytes;
+        if (SpunClassArchive.isEnabled()) {
+            String key = archiveKey(concatType, elements);
+            classBytes = SpunClassArchive.find(key);
+            if (classBytes == null)
+                classBytes = generateClassBytes(concatType, elements);
+            SpunClassArchive.record(key, classBytes);
+        } else {
+            classBytes = generateClassBytes(concatType, elements);
+        }
+        return UNSAFE.defineAnonymousClass(HELPER, classBytes, null);
+    }
+
+    /**
+     * Returns the key of a concatenation class in a {@link SpunClassArchive}.
+     * Constants are prefixed with their length, so that no two element
+     * lists share a key.
+     */
+    private static String archiveKey(MethodType concatType, List<Object> elements) {
+        StringBuilder sb = new StringBuilder("concat ");
+        sb.append(concatType.toMethodDescriptorString());
+        for (Object e : elements) {
+            if (e instanceof String)
+                sb.append(' ').append(((String) e).length()).append(':').append((String) e);
+            else
+                sb.append(" $").append(e);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] generateClassBytes(MethodType concatType, List<Object> elements) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(CLASSFILE_VERSION, ACC_SUPER + ACC_FINAL + ACC_SYNTHETIC,
+                 CONCAT_CLASS_NAME, null, "java/lang/Object", null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC + ACC_PRIVATE + ACC_FINAL,
+                NAME_METHOD, concatType.toMethodDescriptorString(), null, null);
+        mv.visitAnnotation("Ljava/lang/invoke/ForceInline;", true);
+        mv.visitCode();
+
+        // Locate the arguments, and convert those that are neither integral,
+        // char nor boolean to strings, in argument order
+        int paramCount = concatType.parameterCount();
+        int[] slots = new int[paramCount];
+        String[] descs = new String[paramCount];
+        int slot = 0;
+        for (int i = 0; i < paramCount; i++) {
+            slots[i] = slot;
+            slot += (concatType.parameterType(i) == long.class ||
+                     concatType.parameterType(i) == double.class) ? 2 : 1;
+        }
+        for (int i = 0; i < paramCount; i++) {
+            Class<?> ptype = concatType.parameterType(i);
+            Type t = Type.getType(ptype);
+            if (ptype == int.class || ptype == short.class || ptype == byte.class) {
+                descs[i] = "I";
+            } else if (ptype == long.class || ptype == char.class || ptype == boolean.class) {
+                descs[i] = t.getDescriptor();
+            } else {
+                String valueOf = ptype.isPrimitive() ? t.getDescriptor() : "Ljava/lang/Object;";
+                mv.visitVarInsn(t.getOpcode(ILOAD), slots[i]);
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf",
+                        "(" + valueOf + ")Ljava/lang/String;", false);
+                mv.visitVarInsn(ASTORE, slot);
+                slots[i] = slot++;
+                descs[i] = "Ljava/lang/String;";
+            }
+        }
+        int bufSlot = slot++;
+        int indexSlot = slot;
+
+        // int length = <constant length>; length = mix(length, arg)...
+        int constLength = 0;
+        for (Object e : elements) {
+            if (e instanceof String)
+                constLength += ((String) e).length();
+        }
+        mv.visitLdcInsn(constLength);
+        for (Object e : elements) {
+            if (e instanceof Integer) {
+                int i = (Integer) e;
+                loadArg(mv, descs[i], slots[i]);
+                mv.visitMethodInsn(INVOKESTATIC, HELPER_NAME, "mix",
+                        "(I" + descs[i] + ")I", false);
+            }
+        }
+        mv.visitIntInsn(NEWARRAY, T_CHAR);
+        mv.visitVarInsn(ASTORE, bufSlot);
+
+        // int index = 0; index = append(buf, index, element)...
+        mv.visitInsn(ICONST_0);
+        for (Object e : elements) {
+            mv.visitVarInsn(ISTORE, indexSlot);
+            mv.visitVarInsn(ALOAD, bufSlot);
+            mv.visitVarInsn(ILOAD, indexSlot);
+            String desc;
+            if (e instanceof String) {
+                mv.visitLdcInsn(e);
+                desc = "Ljava/lang/String;";
+            } else {
+                int i = (Integer) e;
+                loadArg(mv, descs[i], slots[i]);
+                desc = descs[i];
+            }
+            mv.visitMethodInsn(INVOKESTATIC, HELPER_NAME, "append",
+                    "([CI" + desc + ")I", false);
+        }
+        mv.visitVarInsn(ISTORE, indexSlot);
+
+        // return newString(buf, index);
+        mv.visitVarInsn(ALOAD, bufSlot);
+        mv.visitVarInsn(ILOAD, indexSlot);
+        mv.visitMethodInsn(INVOKESTATIC, HELPER_NAME, "newString",
+                "([CI)Ljava/lang/String;", false);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(-1, -1);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        return cw.toByteArray();
+    }
+
+    private static void loadArg(MethodVisitor mv, String desc, int slot) {
+        switch (desc) {
+            case "J":
+                mv.visitVarInsn(LLOAD, slot);
+                break;
+            case "Ljava/lang/String;":
+                mv.visitVarInsn(ALOAD, slot);
+                break;
+            default:
+                mv.visitVarInsn(ILOAD, slot);
+                break;
+        }
+    }
+}
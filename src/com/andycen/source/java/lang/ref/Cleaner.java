@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.ref;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Cleaner} manages a set of object references and corresponding
+ * cleaning actions.
+ *
+ * <p>Cleaning actions are {@link #register registered} to run after the
+ * cleaner is notified that the object has become phantom reachable.  The
+ * cleaner uses {@link PhantomReference} and {@link ReferenceQueue} to be
+ * notified when the reachability changes, and runs the cleaning actions in
+ * its own threads, of which there may be several.  Unlike finalization,
+ * a cleaning action does not resurrect the object, and objects of classes
+ * with cleaning actions are not held back by a single thread.
+ *
+ * <p>The cleaning action of an object should not refer to the object, nor
+ * be a lambda or an inner class that captures it, or else the object never
+ * becomes phantom reachable.  An object that holds a resource usually
+ * keeps the resource in a separate object, which its cleaning action
+ * releases, and calls {@link Cleanable#clean Cleanable.clean} when it is
+ * closed explicitly, so that the action runs at most once:
+ * <pre>{@code
+ *     public class Connection implements AutoCloseable {
+ *         private static final Cleaner cleaner = Cleaner.create();
+ *
+ *         private final Handle handle;     // releases the native handle
+ *         private final Cleaner.Cleanable cleanable;
+ *
+ *         public Connection() {
+ *             handle = new Handle(open());
+ *             cleanable = cleaner.register(this, handle);
+ *         }
+ *
+ *         public void close() {
+ *             cleanable.clean();
+ *         }
+ *     }
+ * }</pre>
+ *
+ * <p>The threads of a cleaner terminate once the cleaner itself has become
+ * phantom reachable and all of its cleaning actions have run.  A cleaner
+ * also counts the references that wait in its queue, the cleaning actions
+ * its threads have run, and how long the references waited, so that a
+ * cleaner that falls behind can be noticed.
+ *
+ * @since 1.8
+ */
+public final class Cleaner {
+
+    /**
+     * {@code Cleanable} represents an object and a cleaning action
+     * registered in a {@code Cleaner}.
+     *
+     * @since 1.8
+     */
+    public interface Cleanable {
+        /**
+         * Unregisters the cleanable and invokes the cleaning action.
+         * The cleaning action is invoked at most once regardless of the
+         * number of calls to {@code clean}.
+         */
+        void clean();
+    }
+
+    private final Impl impl;
+
+    private Cleaner(ThreadFactory threadFactory, int threads) {
+        impl = new Impl();
+        // the cleaner's own cleanable keeps its threads alive until the
+        // cleaner becomes phantom reachable
+        new PhantomCleanable(this, impl, NO_ACTION);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = threadFactory.newThread(impl);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns a new {@code Cleaner} with a single daemon thread.
+     *
+     * @return a new {@code Cleaner}
+     * @throws SecurityException if the current thread is not allowed to
+     *         create or start the thread
+     */
+    public static Cleaner create() {
+        return create(defaultThreadFactory(), 1);
+    }
+
+    /**
+     * Returns a new {@code Cleaner} with a single thread created by the
+     * given thread factory, which is made a daemon thread.
+     *
+     * @param threadFactory a {@code ThreadFactory} to return a new
+     *        {@code Thread} to process cleaning actions
+     * @return a new {@code Cleaner}
+     * @throws IllegalThreadStateException if the thread from the thread
+     *         factory was not a new thread
+     * @throws SecurityException if the current thread is not allowed to
+     *         create or start the thread
+     */
+    public static Cleaner create(ThreadFactory threadFactory) {
+        return create(threadFactory, 1);
+    }
+
+    /**
+     * Returns a new {@code Cleaner} with the given number of threads
+     * created by the given thread factory, which are made daemon threads.
+     * The threads remove phantom reachable objects from a common queue and
+     * run their cleaning actions concurrently.
+     *
+     * @param threadFactory a {@code ThreadFactory} to return new
+     *        {@code Thread}s to process cleaning actions
+     * @param threads the number of threads
+     * @return a new {@code Cleaner}
+     * @throws IllegalArgumentException if {@code threads} is not positive
+     * @throws IllegalThreadStateException if a thread from the thread
+     *         factory was not a new thread
+     * @throws SecurityException if the current thread is not allowed to
+     *         create or start the threads
+     */
+    public static Cleaner create(ThreadFactory threadFactory, int threads) {
+        Objects.requireNonNull(threadFactory, "threadFactory");
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads: " + threads);
+        return new Cleaner(threadFactory, threads);
+    }
+
+    /**
+     * Registers an object and a cleaning action to run when the object
+     * becomes phantom reachable.
+     *
+     * @param obj the object to monitor
+     * @param action a {@code Runnable} to invoke when the object becomes
+     *        phantom reachable
+     * @return a {@code Cleanable} instance
+     */
+    public Cleanable register(Object obj, Runnable action) {
+        Objects.requireNonNull(obj, "obj");
+        Objects.requireNonNull(action, "action");
+        return new PhantomCleanable(obj, impl, action);
+    }
+
+    /**
+     * Returns the number of objects that have become phantom reachable
+     * and wait for a thread of this cleaner to run their cleaning actions.
+     *
+     * @return the number of waiting objects
+     */
+    public long getQueueLength() {
+        return impl.queue.length();
+    }
+
+    /**
+     * Returns the number of cleaning actions the threads of this cleaner
+     * have run, not counting those run by {@link Cleanable#clean}.
+     *
+     * @return the number of cleaning actions run
+     */
+    public long getCleanedCount() {
+        return impl.cleaned.get();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that the objects whose
+     * cleaning actions the threads of this cleaner have run waited in its
+     * queue before their actions started.
+     *
+     * @return the total latency in nanoseconds
+     */
+    public long getTotalLatency() {
+        return impl.totalLatency.get();
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that an object waited in
+     * the queue of this cleaner before its cleaning action started.
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return impl.maxLatency.get();
+    }
+
+    private static ThreadFactory defaultThreadFactory() {
+        return new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+                    public Thread run() {
+                        ThreadGroup tg = Thread.currentThread().getThreadGroup();
+                        for (ThreadGroup tgn = tg;
+                             tgn != null;
+                             tg = tgn, tgn = tg.getParent());
+                        Thread t = new Thread(tg, r, "Cleaner-" + threadNumber.getAndIncrement());
+                        t.setPriority(Thread.MAX_PRIORITY - 2);
+                        t.setContextClassLoader(null);
+                        return t;
+                    }
+                });
+            }
+        };
+    }
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private static final Runnable NO_ACTION = new Runnable() {
+        public void run() { }
+    };
+
+    /**
+     * The state of a cleaner, shared by its threads and cleanables, which
+     * do not refer to the cleaner itself.
+     */
+    private static final class Impl implements Runnable {
+        final CleanerQueue queue = new CleanerQueue();
+        final PhantomCleanable list = new PhantomCleanable();
+        final AtomicLong cleaned = new AtomicLong();
+        final AtomicLong totalLatency = new AtomicLong();
+        final AtomicLong maxLatency = new AtomicLong();
+
+        public void run() {
+            while (!list.isListEmpty()) {
+                try {
+                    PhantomCleanable ref = (PhantomCleanable) queue.remove(60 * 1000L);
+                    if (ref != null) {
+                        long latency = System.nanoTime() - ref.enqueueTime;
+                        ref.clean();
+                        cleaned.incrementAndGet();
+                        totalLatency.addAndGet(latency);
+                        for (long max; latency > (max = maxLatency.get()); ) {
+                            if (maxLatency.compareAndSet(max, latency))
+                                break;
+                        }
+                    }
+                } catch (Throwable e) {
+                    // ignore exceptions from the cleaning action and
+                    // interrupts, and continue
+                }
+            }
+        }
+    }
+
+    /**
+     * The queue of a cleaner, which stamps its references with the time
+     * they are enqueued.
+     */
+    private static final class CleanerQueue extends ReferenceQueue<Object> {
+        boolean enqueue(Reference<? extends Object> r) {
+            if (r instanceof PhantomCleanable)
+                ((PhantomCleanable) r).enqueueTime = System.nanoTime();
+            return super.enqueue(r);
+        }
+    }
+
+    /**
+     * A cleanable, linked into the list of its cleaner so that it stays
+     * reachable until it is cleaned.
+     */
+    private static final class PhantomCleanable extends PhantomReference<Object>
+            implements Cleanable {
+        private final Runnable action;
+        private final PhantomCleanable list;
+        private PhantomCleanable prev = this, next = this;
+        volatile long enqueueTime;
+
+        PhantomCleanable(Object referent, Impl impl, Runnable action) {
+            super(referent, impl.queue);
+            this.action = action;
+            this.list = impl.list;
+            insert();
+        }
+
+        /** Creates the head of a list. */
+        PhantomCleanable() {
+            super(null, null);
+            this.action = null;
+            this.list = this;
+        }
+
+        private void insert() {
+            synchronized (list) {
+                prev = list;
+                next = list.next;
+                next.prev = this;
+                list.next = this;
+            }
+        }
+
+        private boolean remove() {
+            synchronized (list) {
+                if (next != this) {
+                    next.prev = prev;
+                    prev.next = next;
+                    prev = this;
+                    next = this;
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        boolean isListEmpty() {
+            synchronized (list) {
+                return list == list.next;
+            }
+        }
+
+        public void clean() {
+            if (remove()) {
+                super.clear();
+                action.run();
+            }
+        }
+    }
+}
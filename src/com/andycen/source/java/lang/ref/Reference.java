@@ -155,35 +155,148 @@ public abstract class Reference<T> {
         }
     }
 
+    /* Threads that help the Reference-handler thread with a long pending
+     * list.  The handler processes a batch of the list itself and hands the
+     * rest to an idle helper, if there is one or another may be started.
+     * A single chain is handed off at a time, so that handing off never
+     * allocates.  The helpers, like the handler, never terminate.
+     */
+    private static class ReferenceHandlerHelper extends Thread {
+
+        ReferenceHandlerHelper(ThreadGroup g, String name) {
+            super(g, name);
+        }
+
+        public void run() {
+            while (true) {
+                Reference<Object> r;
+                synchronized (handoffLock) {
+                    idleHelpers++;
+                    try {
+                        while ((r = handoff) == null) {
+                            handoffLock.wait();
+                        }
+                    } catch (InterruptedException x) {
+                        // retry
+                        continue;
+                    } finally {
+                        idleHelpers--;
+                    }
+                    handoff = null;
+                }
+                processPending(r);
+            }
+        }
+    }
+
+    /* The number of pending References the handler processes before it
+     * hands the rest of the list off to a helper */
+    private static final int HANDOFF_BATCH = 256;
+
+    private static final Object handoffLock = new Object();
+    private static Reference<Object> handoff;   /* guarded by handoffLock */
+    private static int helpers, idleHelpers;    /* guarded by handoffLock */
+    private static int maxHelpers = -1;         /* guarded by handoffLock */
+
+    /**
+     * Hands a chain of pending References off to a helper thread, starting
+     * one if none is idle.  Returns {@code false} if the chain is to be
+     * processed by the current thread.
+     */
+    private static boolean handOff(Reference<Object> r) {
+        // threads that help via JavaLangRefAccess keep their chain
+        Thread t = Thread.currentThread();
+        if (!(t instanceof ReferenceHandler || t instanceof ReferenceHandlerHelper))
+            return false;
+        synchronized (handoffLock) {
+            if (handoff != null)
+                return false;
+            if (idleHelpers == 0) {
+                if (maxHelpers < 0) {
+                    if (!sun.misc.VM.isBooted())
+                        return false;
+                    maxHelpers = maxHelpers();
+                }
+                if (helpers >= maxHelpers)
+                    return false;
+                try {
+                    ThreadGroup tg = Thread.currentThread().getThreadGroup();
+                    for (ThreadGroup tgn = tg;
+                         tgn != null;
+                         tg = tgn, tgn = tg.getParent());
+                    Thread helper = new ReferenceHandlerHelper(tg,
+                        "Reference Handler-" + (helpers + 1));
+                    helper.setPriority(Thread.MAX_PRIORITY);
+                    helper.setContextClassLoader(null);
+                    helper.setDaemon(true);
+                    helper.start();
+                } catch (Throwable x) {
+                    // most likely OutOfMemoryError, process the chain here
+                    return false;
+                }
+                helpers++;
+            }
+            handoff = r;
+            handoffLock.notify();
+            return true;
+        }
+    }
+
+    /* The number of helper threads, from the system property
+     * jdk.lang.ref.handlerHelpers, or else up to three on a machine with
+     * enough processors to run them */
+    private static int maxHelpers() {
+        String s = sun.misc.VM.getSavedProperty("jdk.lang.ref.handlerHelpers");
+        if (s != null) {
+            try {
+                return Math.max(0, Integer.parseInt(s));
+            } catch (NumberFormatException x) {
+                // use the default
+            }
+        }
+        return Math.min(3, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
     /**
-     * Try handle pending {@link Reference} if there is one.<p>
+     * Try handle pending {@link Reference}s if there are some.<p>
      * Return {@code true} as a hint that there might be another
      * {@link Reference} pending or {@code false} when there are no more pending
      * {@link Reference}s at the moment and the program can do some other
      * useful work instead of looping.
      *
+     * <p>The Reference-handler thread and its helpers take the whole
+     * pending list at once, so that the lock the collector uses is
+     * acquired once per list rather than per {@link Reference}.  Past the
+     * first references of a long list, the rest may be handed off to a
+     * helper thread.  Any other thread, such as one that helps from
+     * {@code java.nio.Bits.reserveMemory}, takes a single {@link Reference},
+     * so that it goes back to its own work without delay and leaves the
+     * rest of the list to the handler.
+     *
      * @param waitForNotify if {@code true} and there was no pending
      *                      {@link Reference}, wait until notified from VM
      *                      or interrupted; if {@code false}, return immediately
      *                      when there is no pending {@link Reference}.
-     * @return {@code true} if there was a {@link Reference} pending and it
-     *         was processed, or we waited for notification and either got it
+     * @return {@code true} if there were {@link Reference}s pending and they
+     *         were processed, or we waited for notification and either got it
      *         or thread was interrupted before being notified;
      *         {@code false} otherwise.
      */
     static boolean tryHandlePending(boolean waitForNotify) {
         Reference<Object> r;
-        Cleaner c;
         try {
             synchronized (lock) {
                 if (pending != null) {
                     r = pending;
-                    // 'instanceof' might throw OutOfMemoryError sometimes
-                    // so do this before un-linking 'r' from the 'pending' chain...
-                    c = r instanceof Cleaner ? (Cleaner) r : null;
-                    // unlink 'r' from 'pending' chain
-                    pending = r.discovered;
-                    r.discovered = null;
+                    Thread t = Thread.currentThread();
+                    if (t instanceof ReferenceHandler || t instanceof ReferenceHandlerHelper) {
+                        // take the whole 'pending' chain
+                        pending = null;
+                    } else {
+                        // unlink 'r' from the 'pending' chain
+                        pending = r.discovered;
+                        r.discovered = null;
+                    }
                 } else {
                     // The waiting on the lock may cause an OutOfMemoryError
                     // because it may try to allocate exception objects.
@@ -197,8 +310,6 @@ public abstract class Reference<T> {
         } catch (OutOfMemoryError x) {
             // Give other threads CPU time so they hopefully drop some live references
             // and GC reclaims some space.
-            // Also prevent CPU intensive spinning in case 'r instanceof Cleaner' above
-            // persistently throws OOME for some time...
             Thread.yield();
             // retry
             return true;
@@ -207,15 +318,60 @@ public abstract class Reference<T> {
             return true;
         }
 
-        // Fast path for cleaners
-        if (c != null) {
-            c.clean();
-            return true;
+        processPending(r);
+        return true;
+    }
+
+    /**
+     * Enqueues the References of a chain linked through their discovered
+     * fields, and cleans the Cleaners among them, handing the chain off
+     * after every batch if it is long.
+     */
+    private static void processPending(Reference<Object> r) {
+        int n = 0;
+        while (r != null) {
+            if (++n > HANDOFF_BATCH) {
+                n = 0;
+                if (handOff(r))
+                    return;
+            }
+            Cleaner c;
+            try {
+                // 'instanceof' might throw OutOfMemoryError sometimes
+                // so do this before un-linking 'r' from the chain...
+                c = r instanceof Cleaner ? (Cleaner) r : null;
+            } catch (OutOfMemoryError x) {
+                // Put the rest of the chain back on the 'pending' list and
+                // give other threads CPU time, so that they hopefully drop
+                // some live references and GC reclaims some space.
+                repend(r);
+                Thread.yield();
+                return;
+            }
+            Reference<Object> next = r.discovered;
+            r.discovered = null;
+
+            // Fast path for cleaners
+            if (c != null) {
+                c.clean();
+            } else {
+                ReferenceQueue<? super Object> q = r.queue;
+                if (q != ReferenceQueue.NULL) q.enqueue(r);
+            }
+            r = next;
         }
+    }
 
-        ReferenceQueue<? super Object> q = r.queue;
-        if (q != ReferenceQueue.NULL) q.enqueue(r);
-        return true;
+    /* Prepends a chain of References to the 'pending' list */
+    private static void repend(Reference<Object> r) {
+        Reference<Object> last = r;
+        while (last.discovered != null)
+            last = last.discovered;
+        synchronized (lock) {
+            last.discovered = pending;
+            pending = r;
+            lock.notifyAll();
+        }
     }
 
     static {
@@ -25,12 +25,20 @@
 
 package java.lang.ref;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
 
 /**
  * Reference queues, to which registered reference objects are appended by the
  * garbage collector after the appropriate reachability changes are detected.
  *
+ * <p> References are appended and removed without locking, and may be
+ * removed in batches by {@link #poll(int)} and {@link #drainTo drainTo}.
+ * A queue only locks to wake up threads that wait in {@link #remove(long)}.
+ *
  * @author   Mark Reinhold
  * @since    1.2
  */
@@ -54,46 +62,67 @@ public class ReferenceQueue<T> {
     static private class Lock { };
     private Lock lock = new Lock();
     private volatile Reference<? extends T> head = null;
-    private long queueLength = 0;
+    private volatile long queueLength = 0;
+    private volatile int waiters = 0;   /* threads waiting on lock, changed
+                                           only while holding it */
 
     boolean enqueue(Reference<? extends T> r) { /* Called only by Reference class */
-        synchronized (lock) {
-            // Check that since getting the lock this reference hasn't already been
-            // enqueued (and even then removed)
-            ReferenceQueue<?> queue = r.queue;
-            if ((queue == NULL) || (queue == ENQUEUED)) {
-                return false;
-            }
-            assert queue == this;
-            r.queue = ENQUEUED;
-            r.next = (head == null) ? r : head;
-            head = r;
-            queueLength++;
-            if (r instanceof FinalReference) {
+        // Claim the reference, so that a reference enqueued by both the
+        // handler and Reference.enqueue is only appended once
+        if (!U.compareAndSwapObject(r, QUEUE, this, ENQUEUED)) {
+            return false;
+        }
+        for (Reference<? extends T> h;;) {
+            h = head;
+            r.next = (h == null) ? r : h;
+            if (U.compareAndSwapObject(this, HEAD, h, r))
+                break;
+        }
+        U.getAndAddLong(this, QUEUE_LENGTH, 1);
+        if (r instanceof FinalReference) {
+            synchronized (lock) {
                 sun.misc.VM.addFinalRefCount(1);
             }
-            lock.notifyAll();
-            return true;
         }
+        if (waiters > 0) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+        return true;
     }
 
-    private Reference<? extends T> reallyPoll() {       /* Must hold lock */
-        Reference<? extends T> r = head;
-        if (r != null) {
+    private Reference<? extends T> reallyPoll() {
+        for (Reference<? extends T> r; (r = head) != null; ) {
             @SuppressWarnings("unchecked")
             Reference<? extends T> rn = r.next;
-            head = (rn == r) ? null : rn;
-            r.queue = NULL;
-            r.next = r;
-            queueLength--;
-            if (r instanceof FinalReference) {
-                sun.misc.VM.addFinalRefCount(-1);
+            // A removed reference is never appended again, so it cannot
+            // come back to the head of this queue
+            if (U.compareAndSwapObject(this, HEAD, r, (rn == r) ? null : rn)) {
+                dequeued(r);
+                U.getAndAddLong(this, QUEUE_LENGTH, -1);
+                return r;
             }
-            return r;
         }
         return null;
     }
 
+    /* Makes a removed reference inactive */
+    private void dequeued(Reference<? extends T> r) {
+        r.queue = NULL;
+        r.next = r;
+        if (r instanceof FinalReference) {
+            synchronized (lock) {
+                sun.misc.VM.addFinalRefCount(-1);
+            }
+        }
+    }
+
+    /* Returns the number of references in this queue, for monitoring */
+    long length() {
+        return queueLength;
+    }
+
     /**
      * Polls this queue to see if a reference object is available.  If one is
      * available without further delay then it is removed from the queue and
@@ -105,11 +134,112 @@ public class ReferenceQueue<T> {
     public Reference<? extends T> poll() {
         if (head == null)
             return null;
-        synchronized (lock) {
-            return reallyPoll();
+        return reallyPoll();
+    }
+
+    /**
+     * Polls this queue for up to the given number of reference objects.
+     * The reference objects that are available without further delay are
+     * removed from the queue and returned, up to <code>max</code> of them.
+     *
+     * @param  max  The maximum number of reference objects to remove
+     *
+     * @return  A list of the reference objects removed, which is empty if
+     *          none was immediately available
+     *
+     * @throws  IllegalArgumentException
+     *          If the value of the max argument is negative
+     *
+     * @since 1.8
+     */
+    public List<Reference<? extends T>> poll(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Negative max value");
+        }
+        List<Reference<? extends T>> refs = new ArrayList<>();
+        drainTo(refs, max);
+        return refs;
+    }
+
+    /**
+     * Removes all reference objects that are available in this queue and
+     * adds them to the given collection.  All of them are taken from the
+     * queue at once.  If adding a reference object to the collection
+     * fails, the exception is thrown after the remaining ones have been
+     * removed from the queue as well, without being added.
+     *
+     * @param  c  The collection to transfer reference objects into
+     *
+     * @return  The number of reference objects transferred
+     *
+     * @throws  NullPointerException
+     *          If the collection is <code>null</code>
+     *
+     * @since 1.8
+     */
+    public int drainTo(Collection<? super Reference<? extends T>> c) {
+        Objects.requireNonNull(c);
+        Reference<? extends T> r;
+        do {
+            if ((r = head) == null)
+                return 0;
+        } while (!U.compareAndSwapObject(this, HEAD, r, null));
+
+        int n = 0;
+        Reference<? extends T> rn = r;
+        try {
+            for (;;) {
+                @SuppressWarnings("unchecked")
+                Reference<? extends T> next = r.next;
+                rn = next;
+                dequeued(r);
+                U.getAndAddLong(this, QUEUE_LENGTH, -1);
+                c.add(r);
+                n++;
+                if (rn == r)
+                    return n;
+                r = rn;
+            }
+        } catch (RuntimeException | Error e) {
+            while (rn != r) {
+                r = rn;
+                @SuppressWarnings("unchecked")
+                Reference<? extends T> next = r.next;
+                rn = next;
+                dequeued(r);
+                U.getAndAddLong(this, QUEUE_LENGTH, -1);
+            }
+            throw e;
         }
     }
 
+    /**
+     * Removes up to the given number of reference objects that are
+     * available in this queue and adds them to the given collection.
+     * If adding a reference object to the collection fails, it is removed
+     * from the queue nonetheless.
+     *
+     * @param  c  The collection to transfer reference objects into
+     * @param  maxElements  The maximum number of reference objects to
+     *                      transfer
+     *
+     * @return  The number of reference objects transferred
+     *
+     * @throws  NullPointerException
+     *          If the collection is <code>null</code>
+     *
+     * @since 1.8
+     */
+    public int drainTo(Collection<? super Reference<? extends T>> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (maxElements == Integer.MAX_VALUE)
+            return drainTo(c);
+        int n = 0;
+        for (Reference<? extends T> r; n < maxElements && (r = poll()) != null; n++)
+            c.add(r);
+        return n;
+    }
+
     /**
      * Removes the next reference object in this queue, blocking until either
      * one becomes available or the given timeout period expires.
@@ -136,20 +266,29 @@ public class ReferenceQueue<T> {
         if (timeout < 0) {
             throw new IllegalArgumentException("Negative timeout value");
         }
+        Reference<? extends T> r = reallyPoll();
+        if (r != null) return r;
         synchronized (lock) {
-            Reference<? extends T> r = reallyPoll();
-            if (r != null) return r;
-            long start = (timeout == 0) ? 0 : System.nanoTime();
-            for (;;) {
-                lock.wait(timeout);
+            // an enqueuing thread that does not see this waiter has
+            // appended its reference before the poll below
+            waiters++;
+            try {
                 r = reallyPoll();
                 if (r != null) return r;
-                if (timeout != 0) {
-                    long end = System.nanoTime();
-                    timeout -= (end - start) / 1000_000;
-                    if (timeout <= 0) return null;
-                    start = end;
+                long start = (timeout == 0) ? 0 : System.nanoTime();
+                for (;;) {
+                    lock.wait(timeout);
+                    r = reallyPoll();
+                    if (r != null) return r;
+                    if (timeout != 0) {
+                        long end = System.nanoTime();
+                        timeout -= (end - start) / 1000_000;
+                        if (timeout <= 0) return null;
+                        start = end;
+                    }
                 }
+            } finally {
+                waiters--;
             }
         }
     }
@@ -193,4 +332,25 @@ public class ReferenceQueue<T> {
             }
         }
     }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long HEAD;
+    private static final long QUEUE_LENGTH;
+    private static final long QUEUE;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ReferenceQueue.class;
+            HEAD = U.objectFieldOffset
+                (k.getDeclaredField("head"));
+            QUEUE_LENGTH = U.objectFieldOffset
+                (k.getDeclaredField("queueLength"));
+            QUEUE = U.objectFieldOffset
+                (Reference.class.getDeclaredField("queue"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
 }
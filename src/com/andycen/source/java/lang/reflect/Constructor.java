@@ -457,7 +457,10 @@ public final class Constructor<T> extends Executable {
             constructorAccessor = tmp;
         } else {
             // Otherwise fabricate one and propagate it up to the root
-            tmp = reflectionFactory.newConstructorAccessor(this);
+            tmp = MethodHandleAccessors.newConstructorAccessor(root != null ? root : this);
+            if (tmp == null) {
+                tmp = reflectionFactory.newConstructorAccessor(this);
+            }
             setConstructorAccessor(tmp);
         }
 
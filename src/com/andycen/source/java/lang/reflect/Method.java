@@ -561,7 +561,10 @@ public final class Method extends Executable {
             methodAccessor = tmp;
         } else {
             // Otherwise fabricate one and propagate it up to the root
-            tmp = reflectionFactory.newMethodAccessor(this);
+            tmp = MethodHandleAccessors.newMethodAccessor(root != null ? root : this);
+            if (tmp == null) {
+                tmp = reflectionFactory.newMethodAccessor(this);
+            }
             setMethodAccessor(tmp);
         }
 
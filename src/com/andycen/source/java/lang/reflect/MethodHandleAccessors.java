@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.security.AccessController;
+import sun.invoke.util.Wrapper;
+import sun.misc.Unsafe;
+import sun.misc.VM;
+import sun.reflect.ConstructorAccessor;
+import sun.reflect.MethodAccessor;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * Method and constructor accessors that invoke their target through a
+ * direct method handle, instead of through JNI or through bytecode
+ * generated after the inflation threshold.  The method handle is
+ * compiled like an ordinary call from its first use, and the JIT can
+ * inline the target into callers that invoke through a constant
+ * {@code Method}.
+ *
+ * <p>These accessors are used when the system property
+ * {@code sun.reflect.useMethodHandleAccessor} is {@code true}, except for
+ * <ul>
+ * <li>members used while the VM is booting, and members of
+ *     {@code java.lang.invoke}, which itself relies on core reflection;
+ * <li>caller-sensitive methods, which must see the class that called
+ *     {@code Method.invoke} as their caller;
+ * <li>constructors of abstract classes, which must fail with
+ *     {@code InstantiationException}.
+ * </ul>
+ * For those the accessors of {@code ReflectionFactory} are used.
+ *
+ * <p>The arguments are checked against the parameter types before the
+ * call, so that a mismatch is reported with an
+ * {@code IllegalArgumentException}, and anything thrown by the call
+ * itself is wrapped in an {@code InvocationTargetException}, as with the
+ * other accessors.
+ */
+final class MethodHandleAccessors {
+
+    private MethodHandleAccessors() {}
+
+    private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+
+    // To be able to query system properties as soon as they're available
+    private static boolean initted = false;
+    private static boolean enabled = false;
+
+    private static boolean isEnabled() {
+        if (!initted) {
+            if (!VM.isBooted())
+                return false;
+            String val = AccessController.doPrivileged(
+                new GetPropertyAction("sun.reflect.useMethodHandleAccessor"));
+            enabled = "true".equals(val);
+            initted = true;
+        }
+        return enabled;
+    }
+
+    private static boolean isEligible(Class<?> declaringClass) {
+        if (declaringClass == Class.class)
+            return false;
+        String name = declaringClass.getName();
+        return !name.startsWith("java.lang.invoke.") && !name.startsWith("sun.invoke.");
+    }
+
+    /**
+     * Returns a method handle accessor for a root method, or null if the
+     * method should use the accessors of {@code ReflectionFactory}.
+     */
+    static MethodAccessor newMethodAccessor(Method root) {
+        Class<?> declaringClass = root.getDeclaringClass();
+        if (!isEnabled() || !isEligible(declaringClass))
+            return null;
+
+        Method method = root.copy();
+        method.override = true;
+        MethodHandle target;
+        try {
+            // The public lookup refuses caller-sensitive methods
+            target = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        if (isStatic) {
+            // Fail here, outside the InvocationTargetException wrapping,
+            // as the other accessors do
+            UNSAFE.ensureClassInitialized(declaringClass);
+        }
+        target = target.asType(target.type().generic())
+                       .asSpreader(Object[].class, method.getParameterCount());
+        return isStatic
+            ? new StaticMethodAccessor(target, method.getParameterTypes())
+            : new InstanceMethodAccessor(target, declaringClass, method.getParameterTypes());
+    }
+
+    /**
+     * Returns a method handle accessor for a root constructor, or null if
+     * the constructor should use the accessors of
+     * {@code ReflectionFactory}.
+     */
+    static ConstructorAccessor newConstructorAccessor(Constructor<?> root) {
+        Class<?> declaringClass = root.getDeclaringClass();
+        if (!isEnabled() || !isEligible(declaringClass) ||
+            Modifier.isAbstract(declaringClass.getModifiers()))
+            return null;
+
+        Constructor<?> constructor = root.copy();
+        constructor.override = true;
+        MethodHandle target;
+        try {
+            target = MethodHandles.publicLookup().unreflectConstructor(constructor);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+
+        UNSAFE.ensureClassInitialized(declaringClass);
+        target = target.asType(target.type().generic())
+                       .asSpreader(Object[].class, constructor.getParameterCount());
+        return new ConstructorAccessorImpl(target, constructor.getParameterTypes());
+    }
+
+    /**
+     * Checks that the arguments can be passed for parameters of the given
+     * types, by identity, widening reference, or unboxing followed by
+     * widening primitive conversions.
+     */
+    private static void checkArguments(Class<?>[] parameterTypes, Object[] args) {
+        int argc = (args == null) ? 0 : args.length;
+        if (argc != parameterTypes.length)
+            throw new IllegalArgumentException("wrong number of arguments");
+        for (int i = 0; i < argc; i++) {
+            Class<?> type = parameterTypes[i];
+            Object arg = args[i];
+            if (type.isPrimitive()) {
+                if (arg == null || !Wrapper.isWrapperType(arg.getClass()) ||
+                    !Wrapper.forPrimitiveType(type)
+                            .isConvertibleFrom(Wrapper.forWrapperType(arg.getClass())))
+                    throw new IllegalArgumentException("argument type mismatch");
+            } else if (arg != null && !type.isInstance(arg)) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+    }
+
+    private static final class InstanceMethodAccessor implements MethodAccessor {
+        // (Object, Object[])Object
+        private final MethodHandle target;
+        private final Class<?> declaringClass;
+        private final Class<?>[] parameterTypes;
+
+        InstanceMethodAccessor(MethodHandle target, Class<?> declaringClass,
+                               Class<?>[] parameterTypes) {
+            this.target = target;
+            this.declaringClass = declaringClass;
+            this.parameterTypes = parameterTypes;
+        }
+
+        public Object invoke(Object obj, Object[] args)
+            throws IllegalArgumentException, InvocationTargetException
+        {
+            if (!declaringClass.isInstance(obj)) {
+                if (obj == null)
+                    throw new NullPointerException();
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+            checkArguments(parameterTypes, args);
+            try {
+                return target.invokeExact(obj, args);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+
+    private static final class StaticMethodAccessor implements MethodAccessor {
+        // (Object[])Object
+        private final MethodHandle target;
+        private final Class<?>[] parameterTypes;
+
+        StaticMethodAccessor(MethodHandle target, Class<?>[] parameterTypes) {
+            this.target = target;
+            this.parameterTypes = parameterTypes;
+        }
+
+        public Object invoke(Object obj, Object[] args)
+            throws IllegalArgumentException, InvocationTargetException
+        {
+            checkArguments(parameterTypes, args);
+            try {
+                return target.invokeExact(args);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+
+    private static final class ConstructorAccessorImpl implements ConstructorAccessor {
+        // (Object[])Object
+        private final MethodHandle target;
+        private final Class<?>[] parameterTypes;
+
+        ConstructorAccessorImpl(MethodHandle target, Class<?>[] parameterTypes) {
+            this.target = target;
+            this.parameterTypes = parameterTypes;
+        }
+
+        public Object newInstance(Object[] args)
+            throws InstantiationException, IllegalArgumentException, InvocationTargetException
+        {
+            checkArguments(parameterTypes, args);
+            try {
+                return target.invokeExact(args);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * An invocation handler that implements the methods of a proxy instance
+ * with method handles, which the proxy instance calls with its arguments
+ * as they are, without wrapping primitive values or collecting the
+ * arguments into an array.
+ *
+ * <p>The first time a method is invoked on a proxy instance whose
+ * handler is a {@code MethodHandleInvocationHandler}, the proxy instance
+ * asks the handler for the {@link #methodHandle methodHandle} of the
+ * method, and keeps it to invoke the method from then on.  The handle
+ * receives the proxy instance followed by the arguments of the method,
+ * and returns its result.  For example, a handler of an interface
+ * <pre>{@code
+ *     interface Counter {
+ *         long add(long delta);
+ *     }
+ * }</pre>
+ * may return a handle of type {@code (Object,long)long} for
+ * {@code add}, which the proxy invokes with a {@code long} delta and
+ * which returns a {@code long}.
+ *
+ * <p>Exceptions thrown by a method handle are treated as those thrown by
+ * {@link InvocationHandler#invoke invoke}: a checked exception that the
+ * method does not declare is wrapped in an
+ * {@link UndeclaredThrowableException}.
+ *
+ * @see     Proxy
+ * @since   1.8
+ */
+public interface MethodHandleInvocationHandler extends InvocationHandler {
+
+    /**
+     * Returns the method handle that implements the given method of the
+     * proxy instances that dispatch to this handler.  The handle is
+     * adapted with {@link MethodHandle#asType asType} to a type whose
+     * first parameter type is {@code Object}, for the proxy instance, and
+     * whose other parameter types and return type are those of the
+     * method.  This method is called at most once per proxy instance
+     * and method, apart from races, so a handler shared by many proxy
+     * instances should return the same handle for the same method.
+     *
+     * @param   method the {@code Method} instance corresponding to the
+     * interface method, as passed to {@link InvocationHandler#invoke
+     * invoke}
+     *
+     * @return  the method handle implementing the method, or {@code null}
+     * to have the method dispatched to {@code invoke}
+     */
+    MethodHandle methodHandle(Method method);
+
+    /**
+     * Processes a method invocation on a proxy instance, by invoking the
+     * method handle of the method with the proxy instance and the
+     * arguments.  This method is only invoked by proxy instances for the
+     * methods for which {@link #methodHandle methodHandle} returns
+     * {@code null}, and by callers that invoke the handler themselves.
+     *
+     * @throws  UnsupportedOperationException if {@code methodHandle}
+     *          returns {@code null} for the method
+     */
+    @Override
+    default Object invoke(Object proxy, Method method, Object[] args)
+        throws Throwable
+    {
+        MethodHandle mh = methodHandle(method);
+        if (mh == null) {
+            throw new UnsupportedOperationException(method.toString());
+        }
+        int n = (args == null) ? 0 : args.length;
+        Object[] arguments = new Object[1 + n];
+        arguments[0] = proxy;
+        if (n > 0) {
+            System.arraycopy(args, 0, arguments, 1, n);
+        }
+        return mh.invokeWithArguments(arguments);
+    }
+}
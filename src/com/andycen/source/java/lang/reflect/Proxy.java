@@ -25,6 +25,9 @@
 
 package java.lang.reflect;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.WeakReference;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -33,8 +36,8 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
-import sun.misc.ProxyGenerator;
 import sun.misc.VM;
 import sun.reflect.CallerSensitive;
 import sun.reflect.Reflection;
@@ -221,6 +224,19 @@ import sun.security.util.SecurityConstants;
  * passed to the {@code invoke} method can necessarily be thrown
  * successfully by the {@code invoke} method.
  *
+ * <h3>Method Handle Dispatch</h3>
+ *
+ * <p>If the invocation handler of a proxy instance is a
+ * {@link MethodHandleInvocationHandler}, a method invocation on the
+ * proxy instance is dispatched to the method handle the handler returns
+ * for the method, with the proxy instance and the arguments of the
+ * invocation as they are: primitive arguments and return values are not
+ * boxed, and no array is allocated for the arguments.  The method handle
+ * is looked up on the first invocation of the method on the proxy
+ * instance and kept for later invocations.  If the handler returns
+ * {@code null} for a method, invocations of that method are dispatched
+ * to its {@code invoke} method as described above.
+ *
  * @author      Peter Jones
  * @see         InvocationHandler
  * @since       1.3
@@ -245,6 +261,43 @@ public class Proxy implements java.io.Serializable {
      */
     protected InvocationHandler h;
 
+    /**
+     * the method handles of this proxy instance by method index, if its
+     * invocation handler is a MethodHandleInvocationHandler
+     */
+    private transient volatile MethodHandle[] handles;
+
+    /** the public constructors of proxy classes */
+    private static final ClassValue<Constructor<?>> proxyConstructors =
+        new ClassValue<Constructor<?>>() {
+            @Override
+            protected Constructor<?> computeValue(Class<?> cl) {
+                final Constructor<?> cons;
+                try {
+                    cons = cl.getConstructor(constructorParams);
+                } catch (NoSuchMethodException e) {
+                    throw new InternalError(e.toString(), e);
+                }
+                if (!Modifier.isPublic(cl.getModifiers())) {
+                    AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                        public Void run() {
+                            cons.setAccessible(true);
+                            return null;
+                        }
+                    });
+                }
+                return cons;
+            }
+        };
+
+    /**
+     * number of proxy class lookups, of those that generated a class, and
+     * of those that failed
+     */
+    private static final LongAdder proxyClassLookups = new LongAdder();
+    private static final LongAdder proxyClassMisses = new LongAdder();
+    private static final LongAdder proxyClassFailures = new LongAdder();
+
     /**
      * Prohibits instantiation.
      */
@@ -416,7 +469,108 @@ public class Proxy implements java.io.Serializable {
         // If the proxy class defined by the given loader implementing
         // the given interfaces exists, this will simply return the cached copy;
         // otherwise, it will create the proxy class via the ProxyClassFactory
-        return proxyClassCache.get(loader, interfaces);
+        proxyClassLookups.increment();
+        try {
+            return proxyClassCache.get(loader, interfaces);
+        } catch (RuntimeException | Error e) {
+            // invalid interfaces are neither hits nor misses
+            proxyClassFailures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of times a proxy class has been looked up by
+     * {@link #getProxyClass getProxyClass} or
+     * {@link #newProxyInstance newProxyInstance} and found in the cache
+     * of proxy classes.
+     *
+     * @return the number of proxy class cache hits
+     * @since 1.8
+     */
+    public static long getProxyClassCacheHits() {
+        // read misses and failures first, so that a lookup in progress
+        // counts as neither
+        long notHits = proxyClassMisses.sum() + proxyClassFailures.sum();
+        return Math.max(0L, proxyClassLookups.sum() - notHits);
+    }
+
+    /**
+     * Returns the number of times a proxy class has been looked up and
+     * not found in the cache of proxy classes, so that one was generated.
+     *
+     * @return the number of proxy class cache misses
+     * @since 1.8
+     */
+    public static long getProxyClassCacheMisses() {
+        return proxyClassMisses.sum();
+    }
+
+    /**
+     * Returns the method handle that implements a method of this proxy
+     * instance, of the method's type with a leading {@code Object}
+     * parameter for the proxy instance, or {@code null} if the method is
+     * to be dispatched to {@link InvocationHandler#invoke}.  Called by
+     * the methods of proxy classes.
+     *
+     * @param  method the method
+     * @param  index the index of the method in its proxy class
+     * @param  count the number of methods of the proxy class
+     * @return the method handle, or {@code null}
+     */
+    protected final MethodHandle handle(Method method, int index, int count) {
+        MethodHandle[] hs = handles;
+        MethodHandle mh;
+        if (hs != null && (mh = hs[index]) != null)
+            return mh;
+        if (!(h instanceof MethodHandleInvocationHandler))
+            return null;
+
+        MethodType type = MethodType.methodType(method.getReturnType(),
+                                                method.getParameterTypes())
+                                    .insertParameterTypes(0, Object.class);
+        mh = ((MethodHandleInvocationHandler) h).methodHandle(method);
+        if (mh == null) {
+            mh = invokeHandle(h, method, type);
+        }
+        mh = mh.asType(type);
+        if (hs == null) {
+            // racing threads may each install an array; that only costs
+            // looking up a handle again
+            handles = hs = new MethodHandle[count];
+        }
+        hs[index] = mh;
+        return mh;
+    }
+
+    /** InvocationHandler.invoke, once looked up */
+    private static volatile MethodHandle invokeMethod;
+
+    /**
+     * Returns a method handle, convertible to the given type, that
+     * dispatches the given method to the {@code invoke} method of the
+     * given handler.
+     */
+    private static MethodHandle invokeHandle(InvocationHandler h, Method method,
+                                             MethodType type) {
+        MethodHandle invoke = invokeMethod;
+        if (invoke == null) {
+            try {
+                invokeMethod = invoke = MethodHandles.publicLookup().findVirtual(
+                    InvocationHandler.class, "invoke",
+                    MethodType.methodType(Object.class, Object.class,
+                                          Method.class, Object[].class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new InternalError(e.toString(), e);
+            }
+        }
+        int argc = type.parameterCount() - 1;
+        if (argc == 0) {
+            // as the generated code does, pass null for no arguments
+            return MethodHandles.insertArguments(invoke, 2, method, null).bindTo(h);
+        }
+        return MethodHandles.insertArguments(invoke, 2, method).bindTo(h)
+            .asCollector(Object[].class, argc);
     }
 
     /*
@@ -636,11 +790,13 @@ public class Proxy implements java.io.Serializable {
             /*
              * Generate the specified proxy class.
              */
-            byte[] proxyClassFile = ProxyGenerator.generateProxyClass(
+            byte[] proxyClassFile = ProxyClassGenerator.generateProxyClass(
                 proxyName, interfaces, accessFlags);
             try {
-                return defineClass0(loader, proxyName,
-                                    proxyClassFile, 0, proxyClassFile.length);
+                Class<?> proxyClass = defineClass0(loader, proxyName,
+                                                   proxyClassFile, 0, proxyClassFile.length);
+                proxyClassMisses.increment();
+                return proxyClass;
             } catch (ClassFormatError e) {
                 /*
                  * A ClassFormatError here means that (barring bugs in the
@@ -726,17 +882,7 @@ public class Proxy implements java.io.Serializable {
                 checkNewProxyPermission(Reflection.getCallerClass(), cl);
             }
 
-            final Constructor<?> cons = cl.getConstructor(constructorParams);
-            final InvocationHandler ih = h;
-            if (!Modifier.isPublic(cl.getModifiers())) {
-                AccessController.doPrivileged(new PrivilegedAction<Void>() {
-                    public Void run() {
-                        cons.setAccessible(true);
-                        return null;
-                    }
-                });
-            }
-            return cons.newInstance(new Object[]{h});
+            return proxyConstructors.get(cl).newInstance(new Object[]{h});
         } catch (IllegalAccessException|InstantiationException e) {
             throw new InternalError(e.toString(), e);
         } catch (InvocationTargetException e) {
@@ -746,8 +892,6 @@ public class Proxy implements java.io.Serializable {
             } else {
                 throw new InternalError(t.toString(), t);
             }
-        } catch (NoSuchMethodException e) {
-            throw new InternalError(e.toString(), e);
         }
     }
 
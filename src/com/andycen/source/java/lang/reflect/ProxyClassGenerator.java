@@ -0,0 +1,560 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.reflect;
+
+import jdk.internal.org.objectweb.asm.ClassWriter;
+import jdk.internal.org.objectweb.asm.Label;
+import jdk.internal.org.objectweb.asm.MethodVisitor;
+import jdk.internal.org.objectweb.asm.Type;
+import sun.security.action.GetBooleanAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import static jdk.internal.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates the class files of proxy classes.
+ *
+ * <p>Each method of a proxy class asks {@link Proxy#handle Proxy.handle}
+ * for the method handle that implements it, which there is if the
+ * invocation handler is a {@link MethodHandleInvocationHandler}, and
+ * invokes the handle with its arguments as they are.  Otherwise it boxes
+ * its arguments into an array and dispatches to
+ * {@link InvocationHandler#invoke}.  The {@code Method} objects of the
+ * methods are looked up once, when the proxy class is initialized.
+ *
+ * <p>Methods of different interfaces with the same signature are
+ * implemented once, and throw only the checked exceptions that all of
+ * them declare, as with the classes generated by
+ * {@code sun.misc.ProxyGenerator}, whose system property
+ * {@code sun.misc.ProxyGenerator.saveGeneratedFiles} is also honored.
+ */
+final class ProxyClassGenerator {
+
+    private ProxyClassGenerator() {}
+
+    private static final String PROXY = "java/lang/reflect/Proxy";
+    private static final String HANDLER = "java/lang/reflect/InvocationHandler";
+    private static final String METHOD = "java/lang/reflect/Method";
+    private static final String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+
+    private static final String HANDLE_DESC =
+        "(Ljava/lang/reflect/Method;II)Ljava/lang/invoke/MethodHandle;";
+    private static final String INVOKE_DESC =
+        "(Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    /** debugging flag for saving generated class files */
+    private static final boolean saveGeneratedFiles =
+        AccessController.doPrivileged(
+            new GetBooleanAction("sun.misc.ProxyGenerator.saveGeneratedFiles")).booleanValue();
+
+    private static final Method hashCodeMethod;
+    private static final Method equalsMethod;
+    private static final Method toStringMethod;
+    static {
+        try {
+            hashCodeMethod = Object.class.getMethod("hashCode");
+            equalsMethod = Object.class.getMethod("equals", Object.class);
+            toStringMethod = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new NoSuchMethodError(e.getMessage());
+        }
+    }
+
+    /**
+     * A method of a proxy class, and the interface it is looked up in.
+     */
+    private static final class ProxyMethod {
+        final Method method;
+        final Class<?> fromClass;
+        final Class<?>[] parameterTypes;
+        final Class<?> returnType;
+        List<Class<?>> exceptionTypes;
+        String fieldName;
+
+        ProxyMethod(Method method, Class<?> fromClass) {
+            this.method = method;
+            this.fromClass = fromClass;
+            this.parameterTypes = method.getParameterTypes();
+            this.returnType = method.getReturnType();
+            this.exceptionTypes = new ArrayList<>();
+            for (Class<?> ex : method.getExceptionTypes())
+                exceptionTypes.add(ex);
+        }
+    }
+
+    /**
+     * Generates the class file of a proxy class with the given name,
+     * interfaces and access flags.
+     */
+    static byte[] generateProxyClass(final String name,
+                                     Class<?>[] interfaces,
+                                     int accessFlags) {
+        // methods by name and parameter descriptor, Object's first
+        Map<String, List<ProxyMethod>> proxyMethods = new LinkedHashMap<>();
+        addProxyMethod(proxyMethods, hashCodeMethod, Object.class);
+        addProxyMethod(proxyMethods, equalsMethod, Object.class);
+        addProxyMethod(proxyMethods, toStringMethod, Object.class);
+        for (Class<?> intf : interfaces) {
+            for (Method m : intf.getMethods()) {
+                if (!Modifier.isStatic(m.getModifiers())) {
+                    addProxyMethod(proxyMethods, m, intf);
+                }
+            }
+        }
+        List<ProxyMethod> methods = new ArrayList<>();
+        for (List<ProxyMethod> sigmethods : proxyMethods.values()) {
+            checkReturnTypes(sigmethods);
+            for (ProxyMethod pm : sigmethods) {
+                pm.fieldName = "m" + methods.size();
+                methods.add(pm);
+            }
+        }
+        if (methods.size() > 65535) {
+            throw new IllegalArgumentException("method limit exceeded");
+        }
+
+        String className = name.replace('.', '/');
+        String[] interfaceNames = new String[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++)
+            interfaceNames[i] = Type.getInternalName(interfaces[i]);
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // frames only ever merge a local with itself or with TOP
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V1_8, accessFlags | ACC_SUPER, className, null, PROXY, interfaceNames);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>",
+            "(Ljava/lang/reflect/InvocationHandler;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, PROXY, "<init>",
+            "(Ljava/lang/reflect/InvocationHandler;)V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(-1, -1);
+        mv.visitEnd();
+
+        for (int i = 0; i < methods.size(); i++) {
+            ProxyMethod pm = methods.get(i);
+            cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, pm.fieldName,
+                "Ljava/lang/reflect/Method;", null, null).visitEnd();
+            generateMethod(cw, className, pm, i, methods.size());
+        }
+        generateStaticInitializer(cw, className, methods);
+        cw.visitEnd();
+
+        final byte[] classFile = cw.toByteArray();
+        if (saveGeneratedFiles) {
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    try {
+                        Path path = Paths.get(name.replace('.', '/') + ".class");
+                        if (path.getParent() != null)
+                            Files.createDirectories(path.getParent());
+                        Files.write(path, classFile);
+                        return null;
+                    } catch (IOException e) {
+                        throw new InternalError(
+                            "I/O exception saving generated file: " + e);
+                    }
+                }
+            });
+        }
+        return classFile;
+    }
+
+    /**
+     * Adds a method of an interface, merging it with the methods of the
+     * same signature and return type that have already been added.
+     */
+    private static void addProxyMethod(Map<String, List<ProxyMethod>> proxyMethods,
+                                       Method m, Class<?> fromClass) {
+        String sig = m.getName() + Type.getMethodDescriptor(m).substring(0,
+            Type.getMethodDescriptor(m).indexOf(')') + 1);
+        List<ProxyMethod> sigmethods = proxyMethods.get(sig);
+        if (sigmethods != null) {
+            for (ProxyMethod pm : sigmethods) {
+                if (m.getReturnType() == pm.returnType) {
+                    // the method throws what both of the methods may throw
+                    List<Class<?>> legalExceptions = new ArrayList<>();
+                    Class<?>[] exceptionTypes = m.getExceptionTypes();
+                    List<Class<?>> others = pm.exceptionTypes;
+                    collectCompatibleTypes(exceptionTypes, others, legalExceptions);
+                    collectCompatibleTypes(others.toArray(new Class<?>[others.size()]),
+                        toList(exceptionTypes), legalExceptions);
+                    pm.exceptionTypes = legalExceptions;
+                    return;
+                }
+            }
+        } else {
+            sigmethods = new ArrayList<>(3);
+            proxyMethods.put(sig, sigmethods);
+        }
+        sigmethods.add(new ProxyMethod(m, fromClass));
+    }
+
+    private static List<Class<?>> toList(Class<?>[] types) {
+        List<Class<?>> list = new ArrayList<>(types.length);
+        for (Class<?> type : types)
+            list.add(type);
+        return list;
+    }
+
+    /**
+     * Adds to the list the types of the first array that are assignable
+     * to a type of the second.
+     */
+    private static void collectCompatibleTypes(Class<?>[] from,
+                                               List<Class<?>> with,
+                                               List<Class<?>> list) {
+        for (Class<?> fc : from) {
+            if (!list.contains(fc)) {
+                for (Class<?> wc : with) {
+                    if (wc.isAssignableFrom(fc)) {
+                        list.add(fc);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that, of the methods with the same signature, one has a
+     * return type assignable to the return types of all the others.
+     */
+    private static void checkReturnTypes(List<ProxyMethod> methods) {
+        if (methods.size() < 2)
+            return;
+
+        List<Class<?>> uncoveredReturnTypes = new ArrayList<>();
+    nextNewReturnType:
+        for (ProxyMethod pm : methods) {
+            Class<?> newReturnType = pm.returnType;
+            if (newReturnType.isPrimitive()) {
+                throw new IllegalArgumentException(
+                    "methods with same signature " +
+                    pm.method.getName() + " but incompatible return types: " +
+                    newReturnType.getName() + " and others");
+            }
+            boolean added = false;
+            ListIterator<Class<?>> liter = uncoveredReturnTypes.listIterator();
+            while (liter.hasNext()) {
+                Class<?> uncoveredReturnType = liter.next();
+                if (newReturnType.isAssignableFrom(uncoveredReturnType)) {
+                    // the new return type is covered by one already found
+                    continue nextNewReturnType;
+                } else if (uncoveredReturnType.isAssignableFrom(newReturnType)) {
+                    // the new return type covers one already found
+                    if (!added) {
+                        liter.set(newReturnType);
+                        added = true;
+                    } else {
+                        liter.remove();
+                    }
+                }
+            }
+            if (!added) {
+                uncoveredReturnTypes.add(newReturnType);
+            }
+        }
+
+        if (uncoveredReturnTypes.size() > 1) {
+            ProxyMethod pm = methods.get(0);
+            throw new IllegalArgumentException(
+                "methods with same signature " + pm.method.getName() +
+                " but incompatible return types: " + uncoveredReturnTypes);
+        }
+    }
+
+    /**
+     * Returns the exception types a proxy method must let through, with
+     * no type that is a subclass of another, or an empty list if it may
+     * throw anything.
+     */
+    private static List<Class<?>> computeUniqueCatchList(List<Class<?>> exceptions) {
+        List<Class<?>> uniqueList = new ArrayList<>();
+        uniqueList.add(Error.class);
+        uniqueList.add(RuntimeException.class);
+
+    nextException:
+        for (Class<?> ex : exceptions) {
+            if (ex.isAssignableFrom(Throwable.class)) {
+                // the method may throw anything
+                uniqueList.clear();
+                break;
+            } else if (!Throwable.class.isAssignableFrom(ex)) {
+                // ignore types that are not exceptions
+                continue;
+            }
+            for (int j = 0; j < uniqueList.size();) {
+                Class<?> ex2 = uniqueList.get(j);
+                if (ex2.isAssignableFrom(ex)) {
+                    continue nextException;
+                } else if (ex.isAssignableFrom(ex2)) {
+                    uniqueList.remove(j);
+                } else {
+                    j++;
+                }
+            }
+            uniqueList.add(ex);
+        }
+        return uniqueList;
+    }
+
+    private static void generateMethod(ClassWriter cw, String className,
+                                       ProxyMethod pm, int index, int count) {
+        Class<?>[] parameterTypes = pm.parameterTypes;
+        Type[] argumentTypes = new Type[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++)
+            argumentTypes[i] = Type.getType(parameterTypes[i]);
+        Type returnType = Type.getType(pm.returnType);
+        String[] exceptions = new String[pm.exceptionTypes.size()];
+        for (int i = 0; i < exceptions.length; i++)
+            exceptions[i] = Type.getInternalName(pm.exceptionTypes.get(i));
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_FINAL,
+            pm.method.getName(), Type.getMethodDescriptor(returnType, argumentTypes),
+            null, exceptions);
+        mv.visitCode();
+
+        List<Class<?>> catchList = computeUniqueCatchList(pm.exceptionTypes);
+        Label tryStart = new Label(), tryEnd = new Label(), wrap = new Label();
+        // one handler per type, since frames do not merge exception types
+        Label[] rethrow = new Label[catchList.size()];
+        for (int i = 0; i < rethrow.length; i++) {
+            rethrow[i] = new Label();
+            mv.visitTryCatchBlock(tryStart, tryEnd, rethrow[i],
+                Type.getInternalName(catchList.get(i)));
+        }
+        if (!catchList.isEmpty())
+            mv.visitTryCatchBlock(tryStart, tryEnd, wrap, "java/lang/Throwable");
+        mv.visitLabel(tryStart);
+
+        // MethodHandle mh = handle(mN, index, count);
+        int mhSlot = 1;
+        for (Type t : argumentTypes)
+            mhSlot += t.getSize();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETSTATIC, className, pm.fieldName, "Ljava/lang/reflect/Method;");
+        pushInt(mv, index);
+        pushInt(mv, count);
+        mv.visitMethodInsn(INVOKEVIRTUAL, PROXY, "handle", HANDLE_DESC, false);
+        mv.visitVarInsn(ASTORE, mhSlot);
+
+        // if (mh != null) return mh.invokeExact(this, args...);
+        Label dispatch = new Label();
+        mv.visitVarInsn(ALOAD, mhSlot);
+        mv.visitJumpInsn(IFNULL, dispatch);
+        mv.visitVarInsn(ALOAD, mhSlot);
+        mv.visitVarInsn(ALOAD, 0);
+        Type[] exactTypes = new Type[argumentTypes.length + 1];
+        exactTypes[0] = Type.getType(Object.class);
+        int slot = 1;
+        for (int i = 0; i < argumentTypes.length; i++) {
+            exactTypes[i + 1] = argumentTypes[i];
+            mv.visitVarInsn(argumentTypes[i].getOpcode(ILOAD), slot);
+            slot += argumentTypes[i].getSize();
+        }
+        mv.visitMethodInsn(INVOKEVIRTUAL, METHOD_HANDLE, "invokeExact",
+            Type.getMethodDescriptor(returnType, exactTypes), false);
+        mv.visitInsn(returnType.getOpcode(IRETURN));
+
+        // return h.invoke(this, mN, new Object[] { args... });
+        mv.visitLabel(dispatch);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, PROXY, "h", "Ljava/lang/reflect/InvocationHandler;");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETSTATIC, className, pm.fieldName, "Ljava/lang/reflect/Method;");
+        if (argumentTypes.length > 0) {
+            pushInt(mv, argumentTypes.length);
+            mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+            slot = 1;
+            for (int i = 0; i < argumentTypes.length; i++) {
+                mv.visitInsn(DUP);
+                pushInt(mv, i);
+                mv.visitVarInsn(argumentTypes[i].getOpcode(ILOAD), slot);
+                box(mv, argumentTypes[i]);
+                mv.visitInsn(AASTORE);
+                slot += argumentTypes[i].getSize();
+            }
+        } else {
+            mv.visitInsn(ACONST_NULL);
+        }
+        mv.visitMethodInsn(INVOKEINTERFACE, HANDLER, "invoke", INVOKE_DESC, true);
+        if (returnType.getSort() == Type.VOID) {
+            mv.visitInsn(POP);
+            mv.visitInsn(RETURN);
+        } else {
+            unbox(mv, returnType);
+            mv.visitInsn(returnType.getOpcode(IRETURN));
+        }
+        mv.visitLabel(tryEnd);
+
+        if (!catchList.isEmpty()) {
+            for (Label handler : rethrow) {
+                mv.visitLabel(handler);
+                mv.visitInsn(ATHROW);
+            }
+
+            mv.visitLabel(wrap);
+            mv.visitVarInsn(ASTORE, 1);
+            mv.visitTypeInsn(NEW, "java/lang/reflect/UndeclaredThrowableException");
+            mv.visitInsn(DUP);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/reflect/UndeclaredThrowableException",
+                "<init>", "(Ljava/lang/Throwable;)V", false);
+            mv.visitInsn(ATHROW);
+        }
+        mv.visitMaxs(-1, -1);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates the static initializer, which looks up the Method of each
+     * proxy method in the interface it was found in.
+     */
+    private static void generateStaticInitializer(ClassWriter cw, String className,
+                                                  List<ProxyMethod> methods) {
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        Label tryStart = new Label(), tryEnd = new Label();
+        Label noSuchMethod = new Label(), classNotFound = new Label();
+        mv.visitTryCatchBlock(tryStart, tryEnd, noSuchMethod,
+            "java/lang/NoSuchMethodException");
+        mv.visitTryCatchBlock(tryStart, tryEnd, classNotFound,
+            "java/lang/ClassNotFoundException");
+        mv.visitLabel(tryStart);
+        for (ProxyMethod pm : methods) {
+            pushClass(mv, pm.fromClass);
+            mv.visitLdcInsn(pm.method.getName());
+            pushInt(mv, pm.parameterTypes.length);
+            mv.visitTypeInsn(ANEWARRAY, "java/lang/Class");
+            for (int i = 0; i < pm.parameterTypes.length; i++) {
+                mv.visitInsn(DUP);
+                pushInt(mv, i);
+                pushClass(mv, pm.parameterTypes[i]);
+                mv.visitInsn(AASTORE);
+            }
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Class", "getMethod",
+                "(Ljava/lang/String;[Ljava/lang/Class;)Ljava/lang/reflect/Method;", false);
+            mv.visitFieldInsn(PUTSTATIC, className, pm.fieldName, "Ljava/lang/reflect/Method;");
+        }
+        mv.visitInsn(RETURN);
+        mv.visitLabel(tryEnd);
+
+        rethrowAs(mv, noSuchMethod, "java/lang/NoSuchMethodError");
+        rethrowAs(mv, classNotFound, "java/lang/NoClassDefFoundError");
+        mv.visitMaxs(-1, -1);
+        mv.visitEnd();
+    }
+
+    private static void rethrowAs(MethodVisitor mv, Label handler, String error) {
+        mv.visitLabel(handler);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Throwable", "getMessage",
+            "()Ljava/lang/String;", false);
+        mv.visitVarInsn(ASTORE, 0);
+        mv.visitTypeInsn(NEW, error);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, error, "<init>", "(Ljava/lang/String;)V", false);
+        mv.visitInsn(ATHROW);
+    }
+
+    /**
+     * Pushes a class, loaded by name through the defining loader of the
+     * proxy class, so that no access check applies, or the class of a
+     * primitive type.
+     */
+    private static void pushClass(MethodVisitor mv, Class<?> c) {
+        if (c.isPrimitive()) {
+            mv.visitFieldInsn(GETSTATIC, wrapper(Type.getType(c)), "TYPE",
+                "Ljava/lang/Class;");
+        } else {
+            mv.visitLdcInsn(c.getName());
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Class", "forName",
+                "(Ljava/lang/String;)Ljava/lang/Class;", false);
+        }
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private static void box(MethodVisitor mv, Type type) {
+        if (type.getSort() <= Type.DOUBLE) {
+            String wrapper = wrapper(type);
+            mv.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf",
+                "(" + type.getDescriptor() + ")L" + wrapper + ";", false);
+        }
+    }
+
+    private static void unbox(MethodVisitor mv, Type type) {
+        if (type.getSort() <= Type.DOUBLE) {
+            String wrapper = wrapper(type);
+            mv.visitTypeInsn(CHECKCAST, wrapper);
+            mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getClassName() + "Value",
+                "()" + type.getDescriptor(), false);
+        } else if (!type.getDescriptor().equals("Ljava/lang/Object;")) {
+            mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+        }
+    }
+
+    private static String wrapper(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN: return "java/lang/Boolean";
+            case Type.CHAR:    return "java/lang/Character";
+            case Type.BYTE:    return "java/lang/Byte";
+            case Type.SHORT:   return "java/lang/Short";
+            case Type.INT:     return "java/lang/Integer";
+            case Type.FLOAT:   return "java/lang/Float";
+            case Type.LONG:    return "java/lang/Long";
+            case Type.DOUBLE:  return "java/lang/Double";
+            default:           throw new InternalError(type.toString());
+        }
+    }
+}
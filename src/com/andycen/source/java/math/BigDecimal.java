@@ -225,7 +225,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * @serial
      * @see #unscaledValue
      */
-    private final BigInteger intVal;
+    final BigInteger intVal;
 
     /**
      * The scale of this BigDecimal, as returned by {@link #scale}.
@@ -233,7 +233,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * @serial
      * @see #scale
      */
-    private final int scale;  // Note: this may have any value, so
+    final int scale;  // Note: this may have any value, so
                               // calculations must be done in longs
 
     /**
@@ -265,7 +265,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * less than or equal to {@code Long.MAX_VALUE}, the value can be
      * compactly stored in this field and used in computations.
      */
-    private final transient long intCompact;
+    final transient long intCompact;
 
     // All 18-digit base ten strings fit into a long; not all 19-digit
     // strings will
@@ -3577,7 +3577,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
     }
 
-    private static final long[] LONG_TEN_POWERS_TABLE = {
+    static final long[] LONG_TEN_POWERS_TABLE = {
         1,                     // 0 / 10^0
         10,                    // 1 / 10^1
         100,                   // 2 / 10^2
@@ -3652,7 +3652,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * Compute val * 10 ^ n; return this product if it is
      * representable as a long, INFLATED otherwise.
      */
-    private static long longMultiplyPowerTen(long val, int n) {
+    static long longMultiplyPowerTen(long val, int n) {
         if (val == 0 || n <= 0)
             return val;
         long[] tab = LONG_TEN_POWERS_TABLE;
@@ -3851,7 +3851,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * INFLATED if too big. Relies on internal representation of
      * {@code BigInteger}.
      */
-    private static long compactValFor(BigInteger b) {
+    static long compactValFor(BigInteger b) {
         int[] m = b.mag;
         int len = m.length;
         if (len == 0)
@@ -3940,7 +3940,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     }
 
     /* the same as checkScale where value!=0 */
-    private static int checkScaleNonZero(long val) {
+    static int checkScaleNonZero(long val) {
         int asInt = (int)val;
         if (asInt != val) {
             throw new ArithmeticException(asInt>0 ? "Underflow":"Overflow");
@@ -3948,7 +3948,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         return asInt;
     }
 
-    private static int checkScale(long intCompact, long val) {
+    static int checkScale(long intCompact, long val) {
         int asInt = (int)val;
         if (asInt != val) {
             asInt = val>Integer.MAX_VALUE ? Integer.MAX_VALUE : Integer.MIN_VALUE;
@@ -4126,7 +4126,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * Divides {@code long} by {@code long} and do rounding based on the
      * passed in roundingMode.
      */
-    private static long divideAndRound(long ldividend, long ldivisor, int roundingMode) {
+    static long divideAndRound(long ldividend, long ldivisor, int roundingMode) {
         int qsign; // quotient sign
         long q = ldividend / ldivisor; // store quotient in long
         if (roundingMode == ROUND_DOWN)
@@ -4416,7 +4416,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     /*
      * returns INFLATED if oveflow
      */
-    private static long add(long xs, long ys){
+    static long add(long xs, long ys){
         long sum = xs + ys;
         // See "Hacker's Delight" section 2-12 for explanation of
         // the overflow test.
@@ -5020,7 +5020,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
     }
 
-    private static long multiply(long x, long y){
+    static long multiply(long x, long y){
                 long product = x * y;
         long ax = Math.abs(x);
         long ay = Math.abs(y);
@@ -35,6 +35,9 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamField;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import sun.misc.DoubleConsts;
 import sun.misc.FloatConsts;
@@ -242,6 +245,24 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      */
     private static final int TOOM_COOK_SQUARE_THRESHOLD = 216;
 
+    /**
+     * The threshold value for using number theoretic transform
+     * multiplication.  If the number of ints in both mag arrays are
+     * greater than this number, and the product is small enough for the
+     * transform, it will be used instead of Toom-Cook multiplication.
+     * This value is found experimentally to work well.
+     */
+    private static final int NTT_THRESHOLD = 6000;
+
+    /**
+     * The threshold value for using number theoretic transform squaring.
+     * If the number of ints in the number are larger than this value,
+     * and the square is small enough for the transform, it will be used
+     * instead of Toom-Cook squaring.  This value is found experimentally
+     * to work well.
+     */
+    private static final int NTT_SQUARE_THRESHOLD = 8000;
+
     /**
      * The threshold value for using Burnikel-Ziegler division.  If the number
      * of ints in the divisor are larger than this value, Burnikel-Ziegler
@@ -1166,7 +1187,9 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
             && TOOM_COOK_THRESHOLD < Integer.MAX_VALUE
             && 0 < KARATSUBA_SQUARE_THRESHOLD
             && KARATSUBA_SQUARE_THRESHOLD < TOOM_COOK_SQUARE_THRESHOLD
-            && TOOM_COOK_SQUARE_THRESHOLD < Integer.MAX_VALUE :
+            && TOOM_COOK_SQUARE_THRESHOLD < Integer.MAX_VALUE
+            && TOOM_COOK_THRESHOLD < NTT_THRESHOLD
+            && TOOM_COOK_SQUARE_THRESHOLD < NTT_SQUARE_THRESHOLD :
             "Algorithm thresholds are inconsistent";
 
         for (int i = 1; i <= MAX_CONSTANT; i++) {
@@ -1490,7 +1513,33 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this * val}
      */
     public BigInteger multiply(BigInteger val) {
-        return multiply(val, false);
+        return multiply(val, false, false, 0);
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}.  When both
+     * {@code this} and {@code val} are large, typically in the thousands to
+     * tens of thousands of bits, parallel multiply might be used.  This
+     * method returns the exact same mathematical result as
+     * {@link #multiply}.
+     *
+     * @implNote This implementation may offer better algorithmic
+     * performance when {@code val == this}.
+     *
+     * @implNote Compared to {@link #multiply}, an implementation's
+     * parallel multiplication algorithm would typically use more CPU
+     * resources to compute the result faster, and may do so with a slight
+     * increase in memory consumption.  The parallel subtasks are run in the
+     * {@link ForkJoinPool#commonPool() common pool}, or in the pool of the
+     * calling worker thread.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @return {@code this * val}
+     * @see #multiply
+     * @since 1.8
+     */
+    public BigInteger parallelMultiply(BigInteger val) {
+        return multiply(val, false, true, 0);
     }
 
     /**
@@ -1499,16 +1548,19 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      *
      * @param  val value to be multiplied by this BigInteger.
      * @param  isRecursion whether this is a recursive invocation
+     * @param  parallel whether the multiply should be done in parallel
+     * @param  depth the recursion depth of a parallel multiply
      * @return {@code this * val}
      */
-    private BigInteger multiply(BigInteger val, boolean isRecursion) {
+    private BigInteger multiply(BigInteger val, boolean isRecursion,
+                                boolean parallel, int depth) {
         if (val.signum == 0 || signum == 0)
             return ZERO;
 
         int xlen = mag.length;
 
         if (val == this && xlen > MULTIPLY_SQUARE_THRESHOLD) {
-            return square();
+            return square(isRecursion, parallel, depth);
         }
 
         int ylen = val.mag.length;
@@ -1586,7 +1638,14 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return multiplyToomCook3(this, val);
+                if (xlen >= NTT_THRESHOLD && ylen >= NTT_THRESHOLD &&
+                    NumberTheoreticTransform.fits(xlen, ylen)) {
+                    int[] result = NumberTheoreticTransform.multiply(mag, val.mag, parallel);
+                    return new BigInteger(trustedStripLeadingZeroInts(result),
+                                          signum == val.signum ? 1 : -1);
+                }
+
+                return multiplyToomCook3(this, val, parallel, depth);
             }
         }
     }
@@ -1762,7 +1821,8 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * LNCS #4547. Springer, Madrid, Spain, June 21-22, 2007.
      *
      */
-    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b) {
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b,
+                                                boolean parallel, int depth) {
         int alen = a.mag.length;
         int blen = b.mag.length;
 
@@ -1786,16 +1846,25 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1, db1;
 
-        v0 = a0.multiply(b0, true);
+        // The five products are independent; in a parallel multiply the
+        // first four are forked and the last is computed in this thread.
+        depth++;
+        RecursiveTask<BigInteger> v0Task = RecursiveOp.multiply(a0, b0, parallel, depth);
         da1 = a2.add(a0);
         db1 = b2.add(b0);
-        vm1 = da1.subtract(a1).multiply(db1.subtract(b1), true);
+        RecursiveTask<BigInteger> vm1Task =
+            RecursiveOp.multiply(da1.subtract(a1), db1.subtract(b1), parallel, depth);
         da1 = da1.add(a1);
         db1 = db1.add(b1);
-        v1 = da1.multiply(db1, true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
-             db1.add(b2).shiftLeft(1).subtract(b0), true);
-        vinf = a2.multiply(b2, true);
+        RecursiveTask<BigInteger> v1Task = RecursiveOp.multiply(da1, db1, parallel, depth);
+        RecursiveTask<BigInteger> v2Task =
+            RecursiveOp.multiply(da1.add(a2).shiftLeft(1).subtract(a0),
+                                 db1.add(b2).shiftLeft(1).subtract(b0), parallel, depth);
+        vinf = a2.multiply(b2, true, parallel, depth);
+        v0 = v0Task.join();
+        vm1 = vm1Task.join();
+        v1 = v1Task.join();
+        v2 = v2Task.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -1824,6 +1893,96 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
     }
 
 
+    /**
+     * A product or square computed as a subtask of a parallel Toom-Cook
+     * multiplication.  Subtasks are forked until the recursion is deeper
+     * than the log of the parallelism of the pool, below which there is
+     * nothing to gain from more tasks; past that depth, or when the
+     * multiplication is not parallel, they are invoked directly.
+     */
+    @SuppressWarnings("serial")
+    private abstract static class RecursiveOp extends RecursiveTask<BigInteger> {
+        /**
+         * The maximum depth at which subtasks are forked in the common
+         * pool.
+         */
+        private static final int PARALLEL_FORK_DEPTH_THRESHOLD =
+            calculateMaximumDepth(ForkJoinPool.getCommonPoolParallelism());
+
+        private static int calculateMaximumDepth(int parallelism) {
+            return 32 - Integer.numberOfLeadingZeros(parallelism);
+        }
+
+        final boolean parallel;
+
+        /**
+         * The current recursing depth.  Since it is a logarithmic
+         * algorithm, we do not need an int to hold the number.
+         */
+        final byte depth;
+
+        private RecursiveOp(boolean parallel, int depth) {
+            this.parallel = parallel;
+            this.depth = (byte) depth;
+        }
+
+        private static int getParallelForkDepthThreshold() {
+            Thread t = Thread.currentThread();
+            if (t instanceof ForkJoinWorkerThread) {
+                return calculateMaximumDepth(((ForkJoinWorkerThread) t).getPool().getParallelism());
+            }
+            return PARALLEL_FORK_DEPTH_THRESHOLD;
+        }
+
+        RecursiveTask<BigInteger> forkOrInvoke() {
+            if (parallel && depth <= getParallelForkDepthThreshold()) {
+                fork();
+            } else {
+                invoke();
+            }
+            return this;
+        }
+
+        private static final class RecursiveMultiply extends RecursiveOp {
+            private final BigInteger a;
+            private final BigInteger b;
+
+            RecursiveMultiply(BigInteger a, BigInteger b, boolean parallel, int depth) {
+                super(parallel, depth);
+                this.a = a;
+                this.b = b;
+            }
+
+            @Override
+            protected BigInteger compute() {
+                return a.multiply(b, true, parallel, depth);
+            }
+        }
+
+        private static final class RecursiveSquare extends RecursiveOp {
+            private final BigInteger a;
+
+            RecursiveSquare(BigInteger a, boolean parallel, int depth) {
+                super(parallel, depth);
+                this.a = a;
+            }
+
+            @Override
+            protected BigInteger compute() {
+                return a.square(true, parallel, depth);
+            }
+        }
+
+        static RecursiveTask<BigInteger> multiply(BigInteger a, BigInteger b,
+                                                  boolean parallel, int depth) {
+            return new RecursiveMultiply(a, b, parallel, depth).forkOrInvoke();
+        }
+
+        static RecursiveTask<BigInteger> square(BigInteger a, boolean parallel, int depth) {
+            return new RecursiveSquare(a, parallel, depth).forkOrInvoke();
+        }
+    }
+
     /**
      * Returns a slice of a BigInteger for use in Toom-Cook multiplication.
      *
@@ -1961,7 +2120,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this<sup>2</sup>}
      */
     private BigInteger square() {
-        return square(false);
+        return square(false, false, 0);
     }
 
     /**
@@ -1969,9 +2128,11 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * the invocation is recursive certain overflow checks are skipped.
      *
      * @param isRecursion whether this is a recursive invocation
+     * @param parallel whether the square should be done in parallel
+     * @param depth the recursion depth of a parallel square
      * @return {@code this<sup>2</sup>}
      */
-    private BigInteger square(boolean isRecursion) {
+    private BigInteger square(boolean isRecursion, boolean parallel, int depth) {
         if (signum == 0) {
             return ZERO;
         }
@@ -1993,7 +2154,13 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return squareToomCook3();
+                if (len >= NTT_SQUARE_THRESHOLD &&
+                    NumberTheoreticTransform.fits(len, len)) {
+                    int[] result = NumberTheoreticTransform.multiply(mag, mag, parallel);
+                    return new BigInteger(trustedStripLeadingZeroInts(result), 1);
+                }
+
+                return squareToomCook3(parallel, depth);
             }
         }
     }
@@ -2126,7 +2293,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * that has better asymptotic performance than the algorithm used in
      * squareToLen or squareKaratsuba.
      */
-    private BigInteger squareToomCook3() {
+    private BigInteger squareToomCook3(boolean parallel, int depth) {
         int len = mag.length;
 
         // k is the size (in ints) of the lower-order slices.
@@ -2143,13 +2310,18 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         a0 = getToomSlice(k, r, 2, len);
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1;
 
-        v0 = a0.square(true);
+        depth++;
+        RecursiveTask<BigInteger> v0Task = RecursiveOp.square(a0, parallel, depth);
         da1 = a2.add(a0);
-        vm1 = da1.subtract(a1).square(true);
+        RecursiveTask<BigInteger> vm1Task =
+            RecursiveOp.square(da1.subtract(a1), parallel, depth);
         da1 = da1.add(a1);
-        v1 = da1.square(true);
-        vinf = a2.square(true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true);
+        RecursiveTask<BigInteger> v1Task = RecursiveOp.square(da1, parallel, depth);
+        vinf = a2.square(true, parallel, depth);
+        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true, parallel, depth);
+        v0 = v0Task.join();
+        vm1 = vm1Task.join();
+        v1 = v1Task.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
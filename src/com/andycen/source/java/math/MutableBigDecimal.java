@@ -0,0 +1,518 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.math;
+
+import static java.math.BigDecimal.INFLATED;
+import static java.math.BigDecimal.LONG_TEN_POWERS_TABLE;
+
+/**
+ * A mutable, arbitrary-precision signed decimal number, for accumulating
+ * sums and products without creating a {@code BigDecimal} for every
+ * intermediate result.  Like a {@code BigDecimal}, a
+ * {@code MutableBigDecimal} consists of an unscaled integer value and a
+ * 32-bit integer <i>scale</i>, and represents the number
+ * <code>(unscaledValue &times; 10<sup>-scale</sup>)</code>.
+ *
+ * <p>The arithmetic operations update this number in place and return
+ * it, so that they can be chained.  Their results, including their
+ * scales, are exactly those of the corresponding {@code BigDecimal}
+ * operations: {@code add} and {@code subtract} produce the larger of the
+ * two scales, {@code multiply} the sum of the two scales, and
+ * {@link #round round} and {@link #setScale setScale} behave as their
+ * {@code BigDecimal} namesakes.
+ *
+ * <p>While the unscaled value fits in a {@code long}, that is, for up to
+ * 18 decimal digits, and the operands do too, the operations work on a
+ * single {@code long} and allocate nothing.  A result that does not fit
+ * overflows into a {@code BigInteger}, and the number returns to the
+ * compact representation as soon as a later result fits again.
+ *
+ * <p>Instances of {@code MutableBigDecimal} are not safe for use by
+ * multiple threads.
+ *
+ * @see     BigDecimal
+ * @see     MathContext
+ * @since   1.8
+ */
+public final class MutableBigDecimal implements Comparable<MutableBigDecimal> {
+
+    /**
+     * The unscaled value, or {@link BigDecimal#INFLATED} if it does not
+     * fit in a {@code long} and is held in {@link #intVal}.
+     */
+    private long intCompact;
+
+    /**
+     * The unscaled value if it does not fit in a {@code long}, null
+     * otherwise.
+     */
+    private BigInteger intVal;
+
+    /**
+     * The scale.  This may have any value, so calculations must be done
+     * in longs.
+     */
+    private int scale;
+
+    /**
+     * Constructs a {@code MutableBigDecimal} with the value zero and a
+     * scale of zero.
+     */
+    public MutableBigDecimal() {
+    }
+
+    /**
+     * Constructs a {@code MutableBigDecimal} with the value
+     * <code>(unscaledVal &times; 10<sup>-scale</sup>)</code>.
+     *
+     * @param unscaledVal unscaled value.
+     * @param scale scale.
+     */
+    public MutableBigDecimal(long unscaledVal, int scale) {
+        set(unscaledVal, scale);
+    }
+
+    /**
+     * Constructs a {@code MutableBigDecimal} with the value and scale of
+     * a {@code BigDecimal}.
+     *
+     * @param val the initial value.
+     */
+    public MutableBigDecimal(BigDecimal val) {
+        set(val);
+    }
+
+    // Assignment
+
+    /**
+     * Sets this number to
+     * <code>(unscaledVal &times; 10<sup>-scale</sup>)</code>.
+     *
+     * @param unscaledVal unscaled value.
+     * @param scale scale.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal set(long unscaledVal, int scale) {
+        if (unscaledVal == INFLATED) {
+            this.intVal = BigInteger.valueOf(unscaledVal);
+        } else {
+            this.intVal = null;
+        }
+        this.intCompact = unscaledVal;
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Sets this number to the value and scale of a {@code BigDecimal}.
+     *
+     * @param val the new value.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal set(BigDecimal val) {
+        long cs = val.intCompact;
+        this.intVal = (cs == INFLATED) ? val.intVal : null;
+        this.intCompact = cs;
+        this.scale = val.scale;
+        return this;
+    }
+
+    /**
+     * Sets this number to the value and scale of another
+     * {@code MutableBigDecimal}.
+     *
+     * @param val the new value.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal set(MutableBigDecimal val) {
+        this.intVal = val.intVal;
+        this.intCompact = val.intCompact;
+        this.scale = val.scale;
+        return this;
+    }
+
+    /**
+     * Sets this number to the result of a {@code BigDecimal} operation,
+     * returning to the compact representation if its value fits.
+     */
+    private MutableBigDecimal setResult(BigDecimal result) {
+        long cs = result.intCompact;
+        if (cs == INFLATED)
+            cs = BigDecimal.compactValFor(result.intVal);
+        this.intVal = (cs == INFLATED) ? result.intVal : null;
+        this.intCompact = cs;
+        this.scale = result.scale;
+        return this;
+    }
+
+    // Arithmetic Operations
+
+    /**
+     * Adds <code>(unscaledVal &times; 10<sup>-scale</sup>)</code> to this
+     * number.  The scale of the result is the larger of the two scales.
+     *
+     * @param unscaledVal unscaled value of the augend.
+     * @param scale scale of the augend.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal add(long unscaledVal, int scale) {
+        long xs = intCompact;
+        long ys = unscaledVal;
+        if (xs != INFLATED && ys != INFLATED) {
+            long sdiff = (long) this.scale - scale;
+            long sum;
+            if (sdiff == 0) {
+                if ((sum = BigDecimal.add(xs, ys)) != INFLATED) {
+                    intCompact = sum;
+                    return this;
+                }
+            } else if (sdiff < 0) {
+                xs = BigDecimal.longMultiplyPowerTen(xs, saturatePositive(-sdiff));
+                if (xs != INFLATED && (sum = BigDecimal.add(xs, ys)) != INFLATED) {
+                    intCompact = sum;
+                    this.scale = scale;
+                    return this;
+                }
+            } else {
+                ys = BigDecimal.longMultiplyPowerTen(ys, saturatePositive(sdiff));
+                if (ys != INFLATED && (sum = BigDecimal.add(xs, ys)) != INFLATED) {
+                    intCompact = sum;
+                    return this;
+                }
+            }
+        }
+        return setResult(toBigDecimal().add(BigDecimal.valueOf(unscaledVal, scale)));
+    }
+
+    /**
+     * Adds a {@code BigDecimal} to this number.  The scale of the result
+     * is the larger of the two scales.
+     *
+     * @param augend value to be added to this number.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal add(BigDecimal augend) {
+        if (augend.intCompact != INFLATED)
+            return add(augend.intCompact, augend.scale);
+        return setResult(toBigDecimal().add(augend));
+    }
+
+    /**
+     * Adds another {@code MutableBigDecimal} to this number.  The scale
+     * of the result is the larger of the two scales.
+     *
+     * @param augend value to be added to this number.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal add(MutableBigDecimal augend) {
+        if (augend.intCompact != INFLATED)
+            return add(augend.intCompact, augend.scale);
+        return setResult(toBigDecimal().add(augend.toBigDecimal()));
+    }
+
+    /**
+     * Adds a {@code BigDecimal} to this number, then rounds it according
+     * to the context settings.  This is equivalent to
+     * {@code add(augend).round(mc)}.
+     *
+     * @param augend value to be added to this number.
+     * @param mc the context to use.
+     * @return this {@code MutableBigDecimal}
+     * @throws ArithmeticException if the result is inexact but the
+     *         rounding mode is {@code UNNECESSARY}.
+     */
+    public MutableBigDecimal add(BigDecimal augend, MathContext mc) {
+        return add(augend).round(mc);
+    }
+
+    /**
+     * Subtracts <code>(unscaledVal &times; 10<sup>-scale</sup>)</code>
+     * from this number.  The scale of the result is the larger of the two
+     * scales.
+     *
+     * @param unscaledVal unscaled value of the subtrahend.
+     * @param scale scale of the subtrahend.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal subtract(long unscaledVal, int scale) {
+        if (unscaledVal != INFLATED)
+            return add(-unscaledVal, scale);
+        return setResult(toBigDecimal().subtract(BigDecimal.valueOf(unscaledVal, scale)));
+    }
+
+    /**
+     * Subtracts a {@code BigDecimal} from this number.  The scale of the
+     * result is the larger of the two scales.
+     *
+     * @param subtrahend value to be subtracted from this number.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal subtract(BigDecimal subtrahend) {
+        if (subtrahend.intCompact != INFLATED)
+            return add(-subtrahend.intCompact, subtrahend.scale);
+        return setResult(toBigDecimal().subtract(subtrahend));
+    }
+
+    /**
+     * Subtracts another {@code MutableBigDecimal} from this number.  The
+     * scale of the result is the larger of the two scales.
+     *
+     * @param subtrahend value to be subtracted from this number.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal subtract(MutableBigDecimal subtrahend) {
+        if (subtrahend.intCompact != INFLATED)
+            return add(-subtrahend.intCompact, subtrahend.scale);
+        return setResult(toBigDecimal().subtract(subtrahend.toBigDecimal()));
+    }
+
+    /**
+     * Multiplies this number by
+     * <code>(unscaledVal &times; 10<sup>-scale</sup>)</code>.  The scale
+     * of the result is the sum of the two scales.
+     *
+     * @param unscaledVal unscaled value of the multiplicand.
+     * @param scale scale of the multiplicand.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal multiply(long unscaledVal, int scale) {
+        long xs = intCompact;
+        if (xs != INFLATED && unscaledVal != INFLATED) {
+            int productScale = BigDecimal.checkScale(xs, (long) this.scale + scale);
+            long product = BigDecimal.multiply(xs, unscaledVal);
+            if (product != INFLATED) {
+                intCompact = product;
+                this.scale = productScale;
+                return this;
+            }
+        }
+        return setResult(toBigDecimal().multiply(BigDecimal.valueOf(unscaledVal, scale)));
+    }
+
+    /**
+     * Multiplies this number by a {@code BigDecimal}.  The scale of the
+     * result is the sum of the two scales.
+     *
+     * @param multiplicand value to multiply this number by.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal multiply(BigDecimal multiplicand) {
+        if (multiplicand.intCompact != INFLATED)
+            return multiply(multiplicand.intCompact, multiplicand.scale);
+        return setResult(toBigDecimal().multiply(multiplicand));
+    }
+
+    /**
+     * Multiplies this number by another {@code MutableBigDecimal}.  The
+     * scale of the result is the sum of the two scales.
+     *
+     * @param multiplicand value to multiply this number by.
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal multiply(MutableBigDecimal multiplicand) {
+        if (multiplicand.intCompact != INFLATED)
+            return multiply(multiplicand.intCompact, multiplicand.scale);
+        return setResult(toBigDecimal().multiply(multiplicand.toBigDecimal()));
+    }
+
+    /**
+     * Multiplies this number by a {@code BigDecimal}, then rounds it
+     * according to the context settings.  This is equivalent to
+     * {@code multiply(multiplicand).round(mc)}.
+     *
+     * @param multiplicand value to multiply this number by.
+     * @param mc the context to use.
+     * @return this {@code MutableBigDecimal}
+     * @throws ArithmeticException if the result is inexact but the
+     *         rounding mode is {@code UNNECESSARY}.
+     */
+    public MutableBigDecimal multiply(BigDecimal multiplicand, MathContext mc) {
+        return multiply(multiplicand).round(mc);
+    }
+
+    /**
+     * Negates this number.  The scale is unchanged.
+     *
+     * @return this {@code MutableBigDecimal}
+     */
+    public MutableBigDecimal negate() {
+        if (intCompact != INFLATED)
+            intCompact = -intCompact;
+        else
+            intVal = intVal.negate();
+        return this;
+    }
+
+    // Rounding
+
+    /**
+     * Rounds this number according to the {@code MathContext} settings.
+     * If the precision setting is 0 then no rounding takes place.
+     *
+     * <p>The effect of this method is identical to that of
+     * {@link BigDecimal#round(MathContext)}.
+     *
+     * @param mc the context to use.
+     * @return this {@code MutableBigDecimal}
+     * @throws ArithmeticException if the rounding mode is
+     *         {@code UNNECESSARY} and the result is inexact.
+     */
+    public MutableBigDecimal round(MathContext mc) {
+        int mcp = mc.precision;
+        if (mcp == 0)
+            return this;
+        long cs = intCompact;
+        if (cs != INFLATED) {
+            int drop = BigDecimal.longDigitLength(cs) - mcp;  // drop can't be more than 18
+            while (drop > 0) {
+                int newScale = BigDecimal.checkScaleNonZero((long) scale - drop);
+                cs = BigDecimal.divideAndRound(cs, LONG_TEN_POWERS_TABLE[drop],
+                                               mc.roundingMode.oldMode);
+                intCompact = cs;
+                scale = newScale;
+                drop = BigDecimal.longDigitLength(cs) - mcp;
+            }
+            return this;
+        }
+        return setResult(toBigDecimal().round(mc));
+    }
+
+    /**
+     * Sets the scale of this number, multiplying or dividing its unscaled
+     * value by the appropriate power of ten to maintain its overall value.
+     * If the scale is reduced, digits are discarded and the specified
+     * rounding mode is applied.
+     *
+     * <p>The effect of this method is identical to that of
+     * {@link BigDecimal#setScale(int, RoundingMode)}.
+     *
+     * @param newScale the new scale.
+     * @param roundingMode the rounding mode to apply.
+     * @return this {@code MutableBigDecimal}
+     * @throws ArithmeticException if {@code roundingMode==UNNECESSARY}
+     *         and the specified scaling operation would require
+     *         rounding.
+     */
+    public MutableBigDecimal setScale(int newScale, RoundingMode roundingMode) {
+        int mode = roundingMode.oldMode;
+        long cs = intCompact;
+        if (cs != INFLATED) {
+            long sdiff = (long) newScale - scale;
+            if (sdiff == 0 || cs == 0) {
+                scale = newScale;
+                return this;
+            }
+            if (sdiff > 0) {
+                if (sdiff < LONG_TEN_POWERS_TABLE.length &&
+                    (cs = BigDecimal.longMultiplyPowerTen(cs, (int) sdiff)) != INFLATED) {
+                    intCompact = cs;
+                    scale = newScale;
+                    return this;
+                }
+            } else if (-sdiff < LONG_TEN_POWERS_TABLE.length) {
+                intCompact = BigDecimal.divideAndRound(cs, LONG_TEN_POWERS_TABLE[(int) -sdiff], mode);
+                scale = newScale;
+                return this;
+            }
+        }
+        return setResult(toBigDecimal().setScale(newScale, roundingMode));
+    }
+
+    // Query Operations
+
+    /**
+     * Returns the signum function of this number.
+     *
+     * @return -1, 0, or 1 as the value of this number is negative, zero,
+     *         or positive.
+     */
+    public int signum() {
+        return (intCompact != INFLATED) ? Long.signum(intCompact) : intVal.signum();
+    }
+
+    /**
+     * Returns the <i>scale</i> of this number.
+     *
+     * @return the scale of this number.
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Returns the <i>precision</i> of this number, the number of digits
+     * in its unscaled value.  The precision of a zero value is 1.
+     *
+     * @return the precision of this number.
+     */
+    public int precision() {
+        return (intCompact != INFLATED) ? BigDecimal.longDigitLength(intCompact)
+                                        : toBigDecimal().precision();
+    }
+
+    /**
+     * Compares this number with the specified one.  Two numbers that are
+     * equal in value but have a different scale (like 2.0 and 2.00) are
+     * considered equal by this method.
+     *
+     * @param val number to which this number is to be compared.
+     * @return -1, 0, or 1 as this number is numerically less than, equal
+     *         to, or greater than {@code val}.
+     */
+    @Override
+    public int compareTo(MutableBigDecimal val) {
+        if (scale == val.scale && intCompact != INFLATED && val.intCompact != INFLATED)
+            return Long.compare(intCompact, val.intCompact);
+        return toBigDecimal().compareTo(val.toBigDecimal());
+    }
+
+    // Conversions
+
+    /**
+     * Returns a {@code BigDecimal} with the value and scale of this
+     * number.
+     *
+     * @return a {@code BigDecimal} equal to this number.
+     */
+    public BigDecimal toBigDecimal() {
+        if (intCompact != INFLATED)
+            return BigDecimal.valueOf(intCompact, scale);
+        return new BigDecimal(intVal, scale);
+    }
+
+    /**
+     * Returns the string representation of this number, as
+     * {@link BigDecimal#toString()} would.
+     *
+     * @return string representation of this number.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    private static int saturatePositive(long n) {
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.math;
+
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Multiplies very large magnitudes with number theoretic transforms, in
+ * O(n log n) time.  The magnitudes are split into 16-bit digits, and their
+ * cyclic convolution is computed modulo two primes of the form k*2^m + 1,
+ * each supporting transforms of up to 2^26 points.  Every coefficient of
+ * the convolution is below n * 2^32 < 2^58, which is less than the product
+ * of the primes, so the Chinese remainder theorem recovers it exactly
+ * before the carries are propagated.
+ *
+ * <p>The transforms use Montgomery multiplication with R = 2^32, and pair a
+ * decimation-in-frequency forward transform with a decimation-in-time
+ * inverse, so that no bit-reversal permutation is needed.
+ *
+ * @see     BigInteger
+ */
+final class NumberTheoreticTransform {
+
+    private NumberTheoreticTransform() {}
+
+    private static final long LONG_MASK = 0xffffffffL;
+
+    /**
+     * The largest transform supported by both primes, in 16-bit digits.
+     */
+    static final int MAX_DIGITS = 1 << 26;
+
+    /** 15 * 2^27 + 1, with primitive root 31. */
+    private static final Modulus P1 = new Modulus(2013265921, 31);
+
+    /** 7 * 2^26 + 1, with primitive root 3. */
+    private static final Modulus P2 = new Modulus(469762049, 3);
+
+    /** The inverse of P1 modulo P2, for the recombination. */
+    private static final long P1_INV_MOD_P2 = P2.pow(P1.p % P2.p, P2.p - 2);
+
+    /**
+     * Returns whether the product of magnitudes of the given lengths, in
+     * ints, fits in the largest supported transform.
+     */
+    static boolean fits(int xlen, int ylen) {
+        return 2L * ((long) xlen + ylen) <= MAX_DIGITS;
+    }
+
+    /**
+     * Returns the magnitude of the product of two magnitudes, possibly with
+     * leading zeros.  If {@code parallel} is true the two convolutions are
+     * computed concurrently in the common ForkJoinPool.
+     */
+    static int[] multiply(final int[] x, final int[] y, boolean parallel) {
+        final boolean square = x == y;
+        int digits = 2 * (x.length + y.length);
+        final int n = Integer.highestOneBit(digits - 1) << 1;
+
+        int[] c1;
+        int[] c2;
+        if (parallel) {
+            ForkJoinTask<int[]> task =
+                ForkJoinTask.adapt(() -> P2.convolve(x, y, square, n)).fork();
+            c1 = P1.convolve(x, y, square, n);
+            c2 = task.join();
+        } else {
+            c1 = P1.convolve(x, y, square, n);
+            c2 = P2.convolve(x, y, square, n);
+        }
+
+        // Recombine each coefficient and propagate the carries
+        int[] result = new int[x.length + y.length];
+        int k = result.length - 1;
+        long carry = 0;
+        for (int i = 0; i < digits; i += 2) {
+            long lo = carry + recombine(c1[i], c2[i]);
+            long hi = (lo >>> 16) + recombine(c1[i + 1], c2[i + 1]);
+            result[k--] = (int) ((lo & 0xffff) | (hi << 16));
+            carry = hi >>> 16;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the coefficient congruent to r1 modulo P1 and to r2 modulo P2,
+     * by Garner's algorithm.
+     */
+    private static long recombine(int r1, int r2) {
+        long t = r2 - r1 % P2.p;
+        if (t < 0)
+            t += P2.p;
+        t = t * P1_INV_MOD_P2 % P2.p;
+        return r1 + t * P1.p;
+    }
+
+    /**
+     * A prime modulus p < 2^31 with its transform tables.
+     */
+    private static final class Modulus {
+        final int p;
+        final int g;
+        /** -p^-1 mod 2^32 */
+        final int pInvNeg;
+
+        Modulus(int p, int g) {
+            this.p = p;
+            this.g = g;
+            int inv = p;            // Newton's iteration for p^-1 mod 2^32
+            for (int i = 0; i < 4; i++)
+                inv *= 2 - p * inv;
+            this.pInvNeg = -inv;
+        }
+
+        long pow(long base, long exp) {
+            long result = 1;
+            base %= p;
+            while (exp > 0) {
+                if ((exp & 1) != 0)
+                    result = result * base % p;
+                base = base * base % p;
+                exp >>= 1;
+            }
+            return result;
+        }
+
+        /** Returns x * 2^32 mod p, the Montgomery form of x. */
+        int toMontgomery(long x) {
+            return (int) ((x % p << 32) % p);
+        }
+
+        /** Returns a * b / 2^32 mod p. */
+        int mul(int a, int b) {
+            long t = (long) a * b;
+            long m = ((int) t * pInvNeg) & LONG_MASK;
+            long u = (t + m * p) >>> 32;    // unsigned, below 2p
+            return (int) (u >= p ? u - p : u);
+        }
+
+        int add(int a, int b) {
+            int s = a + (b - p);
+            return s < 0 ? s + p : s;
+        }
+
+        int sub(int a, int b) {
+            int d = a - b;
+            return d < 0 ? d + p : d;
+        }
+
+        /**
+         * The largest tables of roots kept for reuse, in ints.  A table for
+         * n points is a prefix of the table for any larger n.
+         */
+        private static final int MAX_CACHED_ROOTS = 1 << 22;
+
+        private volatile int[] cachedRoots = new int[0];
+        private volatile int[] cachedInverseRoots = new int[0];
+
+        /**
+         * Returns the Montgomery forms of the powers of the primitive roots
+         * of unity of each order 2, 4, ..., n: the powers w^j, 0 <= j < m/2,
+         * of the root w of order m are at [m/2, m).  Uses the inverse roots
+         * if {@code inverse} is true.
+         */
+        int[] roots(int n, boolean inverse) {
+            int[] roots = inverse ? cachedInverseRoots : cachedRoots;
+            if (roots.length >= n)
+                return roots;
+            roots = new int[Math.max(n, 2)];
+            int one = toMontgomery(1);
+            for (int half = 1; half < n; half <<= 1) {
+                long w = pow(g, (p - 1) / (2L * half));
+                if (inverse)
+                    w = pow(w, p - 2);
+                int wm = toMontgomery(w);
+                int power = one;
+                for (int j = 0; j < half; j++) {
+                    roots[half + j] = power;
+                    power = mul(power, wm);
+                }
+            }
+            if (n <= MAX_CACHED_ROOTS) {
+                if (inverse)
+                    cachedInverseRoots = roots;
+                else
+                    cachedRoots = roots;
+            }
+            return roots;
+        }
+
+        /**
+         * Returns the first 2 * (x.length + y.length) coefficients of the
+         * cyclic convolution of the 16-bit digits of x and y, modulo p, in
+         * a transform of n points.
+         */
+        int[] convolve(int[] x, int[] y, boolean square, int n) {
+            int[] a = digits(x, n);
+            forward(a, n);
+            if (square) {
+                for (int i = 0; i < n; i++)
+                    a[i] = mul(a[i], a[i]);
+            } else {
+                int[] b = digits(y, n);
+                forward(b, n);
+                for (int i = 0; i < n; i++)
+                    a[i] = mul(a[i], b[i]);
+            }
+            inverse(a, n);
+
+            // The pointwise products are off by 2^-32; scale by 2^32 / n
+            long nInv = pow(n, p - 2);
+            int scale = toMontgomery(toMontgomery(nInv) & LONG_MASK);
+            for (int i = 0; i < n; i++)
+                a[i] = mul(a[i], scale);
+            return a;
+        }
+
+        /**
+         * Returns the 16-bit digits of a magnitude, least significant
+         * first, padded with zeros to n.
+         */
+        private static int[] digits(int[] mag, int n) {
+            int[] a = new int[n];
+            for (int i = 0, k = mag.length - 1; k >= 0; k--, i += 2) {
+                a[i] = mag[k] & 0xffff;
+                a[i + 1] = mag[k] >>> 16;
+            }
+            return a;
+        }
+
+        /** Decimation in frequency; leaves the result in bit-reversed order. */
+        private void forward(int[] a, int n) {
+            int[] roots = roots(n, false);
+            for (int len = n; len >= 2; len >>= 1) {
+                int half = len >> 1;
+                for (int start = 0; start < n; start += len) {
+                    for (int j = 0; j < half; j++) {
+                        int u = a[start + j];
+                        int v = a[start + j + half];
+                        a[start + j] = add(u, v);
+                        a[start + j + half] = mul(sub(u, v), roots[half + j]);
+                    }
+                }
+            }
+        }
+
+        /** Decimation in time of a bit-reversed input. */
+        private void inverse(int[] a, int n) {
+            int[] roots = roots(n, true);
+            for (int len = 2; len <= n; len <<= 1) {
+                int half = len >> 1;
+                for (int start = 0; start < n; start += len) {
+                    for (int j = 0; j < half; j++) {
+                        int u = a[start + j];
+                        int v = mul(a[start + j + half], roots[half + j]);
+                        a[start + j] = add(u, v);
+                        a[start + j + half] = sub(u, v);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import sun.misc.Resource;
+import sun.misc.URLClassPath;
+import sun.net.util.URLUtil;
+import sun.net.www.ParseUtil;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * An index of the packages in each jar file of a URLClassLoader's search
+ * path, so that a class or resource is looked up in the jars that hold its
+ * package only, in search path order, instead of in every jar until one has
+ * it.  A resource of a package that no jar holds is not looked up at all.
+ *
+ * <p>The index is enabled by setting {@code jdk.net.URLClassLoader.indexDir}
+ * to a directory, in which the packages of each jar are saved the first time
+ * the jar is indexed.  A saved index is used as long as the jar keeps its
+ * size and modification time, and the jar is read again otherwise.
+ *
+ * <p>Directories, URLs other than {@code file:} URLs, and jars that extend
+ * the search path with a {@code Class-Path} attribute or a jar index may
+ * hold anything, and are always searched.  Each entry of the search path
+ * is searched through a URLClassPath of its own, which opens it when it is
+ * first needed, so that the code source, manifest and permission checks of
+ * a resource are exactly those it has without the index.
+ */
+final class ClassPathIndex {
+    private static final int MAGIC = 0x43504958;
+    private static final int VERSION = 1;
+
+    private static final String INDEX_DIR_KEY = "jdk.net.URLClassLoader.indexDir";
+    private static final File indexDir;
+    static {
+        String dir = AccessController.doPrivileged(new GetPropertyAction(INDEX_DIR_KEY));
+        indexDir = (dir == null || dir.isEmpty()) ? null : new File(dir);
+    }
+
+    /* An entry of the search path; packages is null if it may hold anything */
+    private static final class Entry {
+        final URL url;
+        final Set<String> packages;
+        private URLClassPath ucp;
+
+        Entry(URL url, Set<String> packages) {
+            this.url = url;
+            this.packages = packages;
+        }
+
+        boolean mayHold(String pkg) {
+            return packages == null || packages.contains(pkg);
+        }
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final AccessControlContext acc;
+
+    /* The search path, in order, and the entries that may hold each package */
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> urls = new HashSet<>();
+    private final ConcurrentHashMap<String, Entry[]> byPackage = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    private ClassPathIndex(AccessControlContext acc) {
+        this.acc = acc;
+    }
+
+    /**
+     * Returns an index of the given search path, or null if the index is
+     * not enabled or handlers may map URLs to something other than files.
+     */
+    static ClassPathIndex newInstance(URL[] urls, URLStreamHandlerFactory factory,
+                                      AccessControlContext acc) {
+        if (indexDir == null || factory != null)
+            return null;
+        ClassPathIndex index = new ClassPathIndex(acc);
+        for (URL url : urls)
+            index.addURL(url);
+        return index;
+    }
+
+    /**
+     * Appends the given URL to the search path, unless it is null or
+     * already on it, or the index is closed.
+     */
+    synchronized void addURL(URL url) {
+        if (closed || url == null || !urls.add(URLUtil.urlNoFragString(url)))
+            return;
+        entries.add(new Entry(url, packagesOf(url)));
+        byPackage.clear();
+    }
+
+    /**
+     * Finds the resource with the given name, as URLClassPath does.
+     */
+    Resource getResource(String name, boolean check) {
+        for (Entry e : entriesFor(name)) {
+            Resource res = classPath(e).getResource(name, check);
+            if (res != null)
+                return res;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the URL of the resource with the given name, as URLClassPath
+     * does.
+     */
+    URL findResource(String name, boolean check) {
+        for (Entry e : entriesFor(name)) {
+            URL url = classPath(e).findResource(name, check);
+            if (url != null)
+                return url;
+        }
+        return null;
+    }
+
+    /**
+     * Closes the jar files opened by this index, and returns the exceptions
+     * thrown doing so.
+     */
+    synchronized List<IOException> closeLoaders() {
+        List<IOException> errors = new ArrayList<>();
+        if (!closed) {
+            closed = true;
+            for (Entry e : entries) {
+                if (e.ucp != null)
+                    errors.addAll(e.ucp.closeLoaders());
+            }
+            entries.clear();
+            byPackage.clear();
+        }
+        return errors;
+    }
+
+    private Entry[] entriesFor(String name) {
+        int i = name.lastIndexOf('/');
+        String pkg = (i < 0) ? "" : name.substring(0, i);
+        Entry[] candidates = byPackage.get(pkg);
+        if (candidates == null) {
+            synchronized (this) {
+                List<Entry> list = new ArrayList<>();
+                for (Entry e : entries) {
+                    if (e.mayHold(pkg))
+                        list.add(e);
+                }
+                candidates = list.isEmpty() ? NO_ENTRIES : list.toArray(new Entry[list.size()]);
+                if (!closed)
+                    byPackage.put(pkg, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private synchronized URLClassPath classPath(Entry e) {
+        if (e.ucp == null) {
+            e.ucp = new URLClassPath(new URL[] { e.url }, acc);
+            if (closed)
+                e.ucp.closeLoaders();
+        }
+        return e.ucp;
+    }
+
+    /*
+     * Returns the packages of a local jar file, from the saved index if it
+     * is up to date, or null if the URL may hold anything.
+     */
+    private Set<String> packagesOf(URL url) {
+        if (!"file".equals(url.getProtocol()) || url.getFile().endsWith("/"))
+            return null;
+        final File jar = new File(ParseUtil.decode(url.getFile()));
+        return AccessController.doPrivileged(new PrivilegedAction<Set<String>>() {
+            public Set<String> run() {
+                if (!jar.isFile())
+                    return null;
+                long length = jar.length();
+                long lastModified = jar.lastModified();
+                File saved = new File(indexDir, Integer.toHexString(jar.getPath().hashCode())
+                                      + "-" + jar.getName() + ".idx");
+                Set<String> packages = load(saved, jar, length, lastModified);
+                if (packages == null) {
+                    packages = scan(jar);
+                    if (packages == null)
+                        return null;
+                    save(saved, jar, length, lastModified, packages);
+                }
+                return packages.contains(null) ? null : packages;
+            }
+        }, acc);
+    }
+
+    /*
+     * Returns the packages of a jar file, including the null package if it
+     * extends the search path, or null if it cannot be read now.
+     */
+    private static Set<String> scan(File jar) {
+        Set<String> packages = new HashSet<>();
+        try (JarFile jf = new JarFile(jar, false)) {
+            Manifest man = jf.getManifest();
+            if ((man != null && man.getMainAttributes().get(Attributes.Name.CLASS_PATH) != null)
+                    || jf.getEntry("META-INF/INDEX.LIST") != null) {
+                packages.add(null);
+            }
+            for (Enumeration<? extends ZipEntry> en = jf.entries(); en.hasMoreElements(); ) {
+                // A directory entry is also found without its trailing slash
+                String name = en.nextElement().getName();
+                int end = name.endsWith("/") ? name.length() - 1 : name.length();
+                int i = name.lastIndexOf('/', end - 1);
+                packages.add((i < 0) ? "" : name.substring(0, i));
+            }
+        } catch (IOException | SecurityException e) {
+            // It may be readable later, so leave it to URLClassPath
+            return null;
+        }
+        return packages;
+    }
+
+    private static Set<String> load(final File saved, final File jar,
+                                    final long length, final long lastModified) {
+        return AccessController.doPrivileged(new PrivilegedAction<Set<String>>() {
+            public Set<String> run() {
+                if (!saved.isFile())
+                    return null;
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(saved)))) {
+                    if (in.readInt() != MAGIC || in.readInt() != VERSION
+                            || !in.readUTF().equals(jar.getPath())
+                            || in.readLong() != length || in.readLong() != lastModified) {
+                        return null;
+                    }
+                    int n = in.readInt();
+                    Set<String> packages = new HashSet<>(n * 4 / 3 + 1);
+                    if (in.readBoolean())
+                        packages.add(null);
+                    for (int i = 0; i < n; i++)
+                        packages.add(in.readUTF());
+                    return packages;
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        });
+    }
+
+    private static void save(final File saved, final File jar, final long length,
+                             final long lastModified, final Set<String> packages) {
+        AccessController.doPrivileged(new PrivilegedAction<Void>() {
+            public Void run() {
+                // Write a temporary file and rename it, as other VMs may
+                // be reading the index at the same time
+                File tmp = null;
+                try {
+                    indexDir.mkdirs();
+                    tmp = File.createTempFile(saved.getName(), ".tmp", indexDir);
+                    try (DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                        out.writeUTF(jar.getPath());
+                        out.writeLong(length);
+                        out.writeLong(lastModified);
+                        out.writeInt(packages.contains(null) ? packages.size() - 1 : packages.size());
+                        out.writeBoolean(packages.contains(null));
+                        for (String pkg : packages) {
+                            if (pkg != null)
+                                out.writeUTF(pkg);
+                        }
+                    }
+                    if (!tmp.renameTo(saved)) {
+                        saved.delete();
+                        tmp.renameTo(saved);
+                    }
+                } catch (IOException | SecurityException e) {
+                    // The jar is read again next time
+                } finally {
+                    if (tmp != null)
+                        tmp.delete();
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -75,6 +75,9 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
     /* The search path for classes and resources */
     private final URLClassPath ucp;
 
+    /* The package index of the search path, or null */
+    private final ClassPathIndex index;
+
     /* The context to be used when loading classes and resources */
     private final AccessControlContext acc;
 
@@ -106,6 +109,7 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         }
         this.acc = AccessController.getContext();
         ucp = new URLClassPath(urls, acc);
+        index = ClassPathIndex.newInstance(urls, null, acc);
     }
 
     URLClassLoader(URL[] urls, ClassLoader parent,
@@ -118,6 +122,7 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         }
         this.acc = acc;
         ucp = new URLClassPath(urls, acc);
+        index = ClassPathIndex.newInstance(urls, null, acc);
     }
 
     /**
@@ -150,6 +155,7 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         }
         this.acc = AccessController.getContext();
         ucp = new URLClassPath(urls, acc);
+        index = ClassPathIndex.newInstance(urls, null, acc);
     }
 
     URLClassLoader(URL[] urls, AccessControlContext acc) {
@@ -161,6 +167,7 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         }
         this.acc = acc;
         ucp = new URLClassPath(urls, acc);
+        index = ClassPathIndex.newInstance(urls, null, acc);
     }
 
     /**
@@ -194,6 +201,7 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         }
         acc = AccessController.getContext();
         ucp = new URLClassPath(urls, factory, acc);
+        index = ClassPathIndex.newInstance(urls, factory, acc);
     }
 
     /* A map (used as a set) to keep track of closeable local resources
@@ -290,6 +298,9 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
             security.checkPermission(new RuntimePermission("closeClassLoader"));
         }
         List<IOException> errors = ucp.closeLoaders();
+        if (index != null) {
+            errors.addAll(index.closeLoaders());
+        }
 
         // now close any remaining streams.
 
@@ -331,6 +342,9 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
      */
     protected void addURL(URL url) {
         ucp.addURL(url);
+        if (index != null) {
+            index.addURL(url);
+        }
     }
 
     /**
@@ -363,7 +377,9 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
                 new PrivilegedExceptionAction<Class<?>>() {
                     public Class<?> run() throws ClassNotFoundException {
                         String path = name.replace('.', '/').concat(".class");
-                        Resource res = ucp.getResource(path, false);
+                        Resource res = (index != null)
+                            ? index.getResource(path, false)
+                            : ucp.getResource(path, false);
                         if (res != null) {
                             try {
                                 return defineClass(name, res);
@@ -569,7 +585,9 @@ public class URLClassLoader extends SecureClassLoader implements Closeable {
         URL url = AccessController.doPrivileged(
             new PrivilegedAction<URL>() {
                 public URL run() {
-                    return ucp.findResource(name, true);
+                    return (index != null)
+                        ? index.findResource(name, true)
+                        : ucp.findResource(name, true);
                 }
             }, acc);
 
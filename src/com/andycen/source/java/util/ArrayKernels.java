@@ -0,0 +1,1338 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.nio.ByteOrder;
+import java.security.AccessController;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import sun.misc.Unsafe;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * Bulk kernels over ranges of primitive arrays: reductions (sum, minimum,
+ * maximum, dot product), lexicographic mismatch and comparison, content
+ * hashing, and filtered copies driven by a bit mask.
+ *
+ * <p>The loops in this class are written so that the JIT compiler can
+ * unroll and vectorize them: reductions keep several independent
+ * accumulators so that no iteration depends on the one immediately before
+ * it, and mismatch and comparison kernels compare eight bytes at a time
+ * before falling back to element-wise comparison for the tail of a range.
+ * The results are always identical to those of the obvious scalar loop;
+ * in particular {@link #hashCode(int[], int, int)} and friends compute the
+ * same value as the corresponding {@link Arrays#hashCode(int[])} method,
+ * and the floating-point comparisons follow {@link Double#compare} and
+ * {@link Double#doubleToLongBits} just as {@link Arrays#equals(double[],
+ * double[])} does.
+ *
+ * <p>Every method that takes a range checks it the way
+ * {@link Arrays#fill(int[], int, int, int)} does: an
+ * {@code IllegalArgumentException} if {@code fromIndex > toIndex} and an
+ * {@code ArrayIndexOutOfBoundsException} if the range falls outside the
+ * array.
+ *
+ * <p>The spliterator-accepting methods are the bridge used by the
+ * {@code java.util.stream} pipelines: when the spliterator traverses an
+ * array (as those returned by {@link Arrays#spliterator(int[])} and
+ * {@link Spliterators#spliterator(int[], int)} do) the remaining elements
+ * are handed directly to the array kernel, and otherwise the spliterator is
+ * traversed element by element.  In both cases the spliterator is
+ * exhausted when the method returns.
+ *
+ * @since 1.8
+ */
+public final class ArrayKernels {
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private ArrayKernels() {}
+
+    /*
+     * Powers of 31 used to evaluate the polynomial hash of
+     * Arrays.hashCode four elements per step:
+     *   h' = 31^4 h + 31^3 e0 + 31^2 e1 + 31 e2 + e3
+     * which is exactly four iterations of h = 31 * h + e, but without
+     * the loop-carried dependency on every element.
+     */
+    private static final int P1 = 31;
+    private static final int P2 = 31 * 31;
+    private static final int P3 = 31 * 31 * 31;
+    private static final int P4 = 31 * 31 * 31 * 31;
+
+    // ---------------------------------------------------------------- sum
+
+    /**
+     * Returns the sum of the elements in the given range, with the same
+     * overflow behavior as {@link java.util.stream.IntStream#sum}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the sum of the elements in the range
+     */
+    public static int sum(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < toIndex; i++)
+            s0 += a[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of the elements in the given range, accumulated as
+     * a {@code long} so that it cannot overflow.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the sum of the elements in the range
+     */
+    public static long sumAsLong(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < toIndex; i++)
+            s0 += a[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of the elements in the given range, with the same
+     * overflow behavior as {@link java.util.stream.LongStream#sum}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the sum of the elements in the range
+     */
+    public static long sum(long[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < toIndex; i++)
+            s0 += a[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of the elements in the given range computed with
+     * compensated (Kahan) summation, exactly as a sequential
+     * {@link java.util.stream.DoubleStream#sum} over the same elements
+     * would compute it.
+     *
+     * <p>Compensated summation is inherently sequential, so this kernel
+     * gains nothing from vectorization; it exists so that array-sourced
+     * streams bypass the per-element sink chain of the {@code collect}
+     * path.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the sum of the elements in the range
+     */
+    public static double sum(double[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        double sum = 0.0d, compensation = 0.0d, simpleSum = 0.0d;
+        for (int i = fromIndex; i < toIndex; i++) {
+            double value = a[i];
+            double tmp = value - compensation;
+            double velvel = sum + tmp; // Little wolf of rounding error
+            compensation = (velvel - sum) - tmp;
+            sum = velvel;
+            simpleSum += value;
+        }
+        return finalSum(sum, compensation, simpleSum);
+    }
+
+    /**
+     * If the compensated sum is spuriously NaN from accumulating one or
+     * more same-signed infinite values, returns the correctly-signed
+     * infinity stored in the simple sum.
+     */
+    private static double finalSum(double sum, double compensation, double simpleSum) {
+        double tmp = sum + compensation;
+        if (Double.isNaN(tmp) && Double.isInfinite(simpleSum))
+            return simpleSum;
+        else
+            return tmp;
+    }
+
+    // ------------------------------------------------------- min and max
+
+    /**
+     * Returns the least element in the given range.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the least element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static int min(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        int m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.min(m0, a[i]);
+        return Math.min(m0, m1);
+    }
+
+    /**
+     * Returns the greatest element in the given range.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the greatest element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static int max(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        int m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.max(m0, a[i]);
+        return Math.max(m0, m1);
+    }
+
+    /**
+     * Returns the least element in the given range.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the least element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static long min(long[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        long m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.min(m0, a[i]);
+        return Math.min(m0, m1);
+    }
+
+    /**
+     * Returns the greatest element in the given range.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the greatest element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static long max(long[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        long m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.max(m0, a[i]);
+        return Math.max(m0, m1);
+    }
+
+    /**
+     * Returns the least element in the given range, as determined by
+     * {@link Math#min(double, double)}: the result is NaN if any element
+     * is NaN, and {@code -0.0d} is considered smaller than {@code 0.0d}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the least element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static double min(double[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        double m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.min(m0, a[i]);
+        return Math.min(m0, m1);
+    }
+
+    /**
+     * Returns the greatest element in the given range, as determined by
+     * {@link Math#max(double, double)}: the result is NaN if any element
+     * is NaN, and {@code 0.0d} is considered greater than {@code -0.0d}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the greatest element in the range
+     * @throws NoSuchElementException if the range is empty
+     */
+    public static double max(double[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException();
+        double m0 = a[fromIndex], m1 = m0;
+        int i = fromIndex + 1;
+        for (int bound = toIndex - 1; i < bound; i += 2) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+        }
+        if (i < toIndex)
+            m0 = Math.max(m0, a[i]);
+        return Math.max(m0, m1);
+    }
+
+    // -------------------------------------------------------- dot product
+
+    /**
+     * Returns the dot product of {@code length} elements of two arrays,
+     * accumulated as a {@code long}.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}
+     * @param length the number of elements to multiply
+     * @return the sum of the pairwise products
+     * @throws IllegalArgumentException if {@code length} is negative
+     * @throws ArrayIndexOutOfBoundsException if either range falls
+     *         outside its array
+     */
+    public static long dot(int[] a, int aFromIndex, int[] b, int bFromIndex, int length) {
+        Arrays.rangeCheck(a.length, aFromIndex, aFromIndex + length);
+        Arrays.rangeCheck(b.length, bFromIndex, bFromIndex + length);
+        long s0 = 0L, s1 = 0L;
+        int i = 0;
+        for (int bound = length - 1; i < bound; i += 2) {
+            s0 += (long) a[aFromIndex + i] * b[bFromIndex + i];
+            s1 += (long) a[aFromIndex + i + 1] * b[bFromIndex + i + 1];
+        }
+        if (i < length)
+            s0 += (long) a[aFromIndex + i] * b[bFromIndex + i];
+        return s0 + s1;
+    }
+
+    /**
+     * Returns the dot product of {@code length} elements of two arrays.
+     * Overflow wraps around as for ordinary {@code long} arithmetic.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}
+     * @param length the number of elements to multiply
+     * @return the sum of the pairwise products
+     * @throws IllegalArgumentException if {@code length} is negative
+     * @throws ArrayIndexOutOfBoundsException if either range falls
+     *         outside its array
+     */
+    public static long dot(long[] a, int aFromIndex, long[] b, int bFromIndex, int length) {
+        Arrays.rangeCheck(a.length, aFromIndex, aFromIndex + length);
+        Arrays.rangeCheck(b.length, bFromIndex, bFromIndex + length);
+        long s0 = 0L, s1 = 0L;
+        int i = 0;
+        for (int bound = length - 1; i < bound; i += 2) {
+            s0 += a[aFromIndex + i] * b[bFromIndex + i];
+            s1 += a[aFromIndex + i + 1] * b[bFromIndex + i + 1];
+        }
+        if (i < length)
+            s0 += a[aFromIndex + i] * b[bFromIndex + i];
+        return s0 + s1;
+    }
+
+    /**
+     * Returns the dot product of {@code length} elements of two arrays.
+     *
+     * <p>The products are accumulated in four independent partial sums,
+     * so the result may differ in the last bits from a strictly
+     * left-to-right summation.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}
+     * @param length the number of elements to multiply
+     * @return the sum of the pairwise products
+     * @throws IllegalArgumentException if {@code length} is negative
+     * @throws ArrayIndexOutOfBoundsException if either range falls
+     *         outside its array
+     */
+    public static double dot(double[] a, int aFromIndex, double[] b, int bFromIndex, int length) {
+        Arrays.rangeCheck(a.length, aFromIndex, aFromIndex + length);
+        Arrays.rangeCheck(b.length, bFromIndex, bFromIndex + length);
+        double s0 = 0.0d, s1 = 0.0d, s2 = 0.0d, s3 = 0.0d;
+        int i = 0;
+        for (int bound = length - 3; i < bound; i += 4) {
+            s0 += a[aFromIndex + i] * b[bFromIndex + i];
+            s1 += a[aFromIndex + i + 1] * b[bFromIndex + i + 1];
+            s2 += a[aFromIndex + i + 2] * b[bFromIndex + i + 2];
+            s3 += a[aFromIndex + i + 3] * b[bFromIndex + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aFromIndex + i] * b[bFromIndex + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // ---------------------------------------------------- mismatch/compare
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code byte} arrays.
+     *
+     * <p>If the ranges share a common prefix, the returned index is the
+     * length of that prefix and the elements at that index differ (or it
+     * is the length of the shorter range, if one range is a proper prefix
+     * of the other).  Otherwise -1 is returned: the ranges are equal.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(byte[] a, int aFromIndex, int aToIndex,
+                               byte[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        int i = (a == b && aFromIndex == bFromIndex) ? length :
+            mismatchWords(a, BYTE_BASE + aFromIndex,
+                          b, BYTE_BASE + bFromIndex, length, 0);
+        if (i < 0)
+            return aLength == bLength ? -1 : length;
+        for (; i < length; i++)
+            if (a[aFromIndex + i] != b[bFromIndex + i])
+                return i;
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code char} arrays, as {@link #mismatch(byte[], int, int, byte[],
+     * int, int)} does for {@code byte} arrays.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(char[] a, int aFromIndex, int aToIndex,
+                               char[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        int i = (a == b && aFromIndex == bFromIndex) ? length :
+            mismatchWords(a, CHAR_BASE + ((long) aFromIndex << 1),
+                          b, CHAR_BASE + ((long) bFromIndex << 1), length, 1);
+        if (i < 0)
+            return aLength == bLength ? -1 : length;
+        for (; i < length; i++)
+            if (a[aFromIndex + i] != b[bFromIndex + i])
+                return i;
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code short} arrays, as {@link #mismatch(byte[], int, int, byte[],
+     * int, int)} does for {@code byte} arrays.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(short[] a, int aFromIndex, int aToIndex,
+                               short[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        int i = (a == b && aFromIndex == bFromIndex) ? length :
+            mismatchWords(a, SHORT_BASE + ((long) aFromIndex << 1),
+                          b, SHORT_BASE + ((long) bFromIndex << 1), length, 1);
+        if (i < 0)
+            return aLength == bLength ? -1 : length;
+        for (; i < length; i++)
+            if (a[aFromIndex + i] != b[bFromIndex + i])
+                return i;
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code int} arrays, as {@link #mismatch(byte[], int, int, byte[],
+     * int, int)} does for {@code byte} arrays.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(int[] a, int aFromIndex, int aToIndex,
+                               int[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        int i = (a == b && aFromIndex == bFromIndex) ? length :
+            mismatchWords(a, INT_BASE + ((long) aFromIndex << 2),
+                          b, INT_BASE + ((long) bFromIndex << 2), length, 2);
+        if (i < 0)
+            return aLength == bLength ? -1 : length;
+        for (; i < length; i++)
+            if (a[aFromIndex + i] != b[bFromIndex + i])
+                return i;
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code long} arrays, as {@link #mismatch(byte[], int, int, byte[],
+     * int, int)} does for {@code byte} arrays.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(long[] a, int aFromIndex, int aToIndex,
+                               long[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        if (a != b || aFromIndex != bFromIndex) {
+            for (int i = 0; i < length; i++)
+                if (a[aFromIndex + i] != b[bFromIndex + i])
+                    return i;
+        }
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code double} arrays, as {@link #mismatch(byte[], int, int, byte[],
+     * int, int)} does for {@code byte} arrays.  Two elements are considered
+     * equal if their {@link Double#doubleToLongBits} representations are
+     * equal, so all NaN values match one another while {@code 0.0d} and
+     * {@code -0.0d} do not.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(double[] a, int aFromIndex, int aToIndex,
+                               double[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        if (a != b || aFromIndex != bFromIndex) {
+            for (int i = 0; i < length; i++) {
+                double x = a[aFromIndex + i], y = b[bFromIndex + i];
+                // Raw bits first; canonicalize NaNs only on a difference
+                if (Double.doubleToRawLongBits(x) != Double.doubleToRawLongBits(y) &&
+                    !(x != x && y != y))
+                    return i;
+            }
+        }
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Finds the relative index of the first mismatch between two ranges of
+     * {@code float} arrays, with the same rules as {@link
+     * #mismatch(double[], int, int, double[], int, int)}.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return the relative index of the first mismatch, or -1 if none
+     */
+    public static int mismatch(float[] a, int aFromIndex, int aToIndex,
+                               float[] b, int bFromIndex, int bToIndex) {
+        Arrays.rangeCheck(a.length, aFromIndex, aToIndex);
+        Arrays.rangeCheck(b.length, bFromIndex, bToIndex);
+        int aLength = aToIndex - aFromIndex, bLength = bToIndex - bFromIndex;
+        int length = Math.min(aLength, bLength);
+        if (a != b || aFromIndex != bFromIndex) {
+            for (int i = 0; i < length; i++) {
+                float x = a[aFromIndex + i], y = b[bFromIndex + i];
+                if (Float.floatToRawIntBits(x) != Float.floatToRawIntBits(y) &&
+                    !(x != x && y != y))
+                    return i;
+            }
+        }
+        return aLength == bLength ? -1 : length;
+    }
+
+    /**
+     * Compares two ranges of {@code byte} arrays lexicographically,
+     * treating the elements as signed values.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return 0 if the ranges are equal, a negative value if the first range
+     *         is lexicographically less than the second, and a positive
+     *         value otherwise
+     */
+    public static int compare(byte[] a, int aFromIndex, int aToIndex,
+                              byte[] b, int bFromIndex, int bToIndex) {
+        int i = mismatch(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+        if (i >= 0 && i < Math.min(aToIndex - aFromIndex, bToIndex - bFromIndex))
+            return Byte.compare(a[aFromIndex + i], b[bFromIndex + i]);
+        return (aToIndex - aFromIndex) - (bToIndex - bFromIndex);
+    }
+
+    /**
+     * Compares two ranges of {@code char} arrays lexicographically,
+     * treating the elements as unsigned values.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return 0 if the ranges are equal, a negative value if the first range
+     *         is lexicographically less than the second, and a positive
+     *         value otherwise
+     */
+    public static int compare(char[] a, int aFromIndex, int aToIndex,
+                              char[] b, int bFromIndex, int bToIndex) {
+        int i = mismatch(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+        if (i >= 0 && i < Math.min(aToIndex - aFromIndex, bToIndex - bFromIndex))
+            return Character.compare(a[aFromIndex + i], b[bFromIndex + i]);
+        return (aToIndex - aFromIndex) - (bToIndex - bFromIndex);
+    }
+
+    /**
+     * Compares two ranges of {@code int} arrays lexicographically,
+     * treating the elements as signed values.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return 0 if the ranges are equal, a negative value if the first range
+     *         is lexicographically less than the second, and a positive
+     *         value otherwise
+     */
+    public static int compare(int[] a, int aFromIndex, int aToIndex,
+                              int[] b, int bFromIndex, int bToIndex) {
+        int i = mismatch(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+        if (i >= 0 && i < Math.min(aToIndex - aFromIndex, bToIndex - bFromIndex))
+            return Integer.compare(a[aFromIndex + i], b[bFromIndex + i]);
+        return (aToIndex - aFromIndex) - (bToIndex - bFromIndex);
+    }
+
+    /**
+     * Compares two ranges of {@code long} arrays lexicographically,
+     * treating the elements as signed values.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return 0 if the ranges are equal, a negative value if the first range
+     *         is lexicographically less than the second, and a positive
+     *         value otherwise
+     */
+    public static int compare(long[] a, int aFromIndex, int aToIndex,
+                              long[] b, int bFromIndex, int bToIndex) {
+        int i = mismatch(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+        if (i >= 0 && i < Math.min(aToIndex - aFromIndex, bToIndex - bFromIndex))
+            return Long.compare(a[aFromIndex + i], b[bFromIndex + i]);
+        return (aToIndex - aFromIndex) - (bToIndex - bFromIndex);
+    }
+
+    /**
+     * Compares two ranges of {@code double} arrays lexicographically, with
+     * elements compared as by {@link Double#compare(double, double)}.
+     *
+     * @param a the first array
+     * @param aFromIndex the index of the first element of {@code a}, inclusive
+     * @param aToIndex the index of the last element of {@code a}, exclusive
+     * @param b the second array
+     * @param bFromIndex the index of the first element of {@code b}, inclusive
+     * @param bToIndex the index of the last element of {@code b}, exclusive
+     * @return 0 if the ranges are equal, a negative value if the first range
+     *         is lexicographically less than the second, and a positive
+     *         value otherwise
+     */
+    public static int compare(double[] a, int aFromIndex, int aToIndex,
+                              double[] b, int bFromIndex, int bToIndex) {
+        int i = mismatch(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+        if (i >= 0 && i < Math.min(aToIndex - aFromIndex, bToIndex - bFromIndex))
+            return Double.compare(a[aFromIndex + i], b[bFromIndex + i]);
+        return (aToIndex - aFromIndex) - (bToIndex - bFromIndex);
+    }
+
+    /**
+     * Compares {@code length} elements at the given offsets eight bytes at
+     * a time.  Returns the relative index of the element containing the
+     * first differing byte, -1 if every element was compared and all were
+     * equal, or otherwise the index of the first element that still has to
+     * be compared by the caller (the tail that does not fill a whole word).
+     *
+     * @param log2Scale log2 of the element size in bytes (0, 1 or 2)
+     */
+    private static int mismatchWords(Object a, long aOffset,
+                                     Object b, long bOffset,
+                                     int length, int log2Scale) {
+        if (!UNALIGNED)
+            return length == 0 ? -1 : 0;
+        long byteLength = (long) length << log2Scale;
+        long wordBytes = byteLength & ~7L;
+        long off = 0L;
+        for (; off < wordBytes; off += 8) {
+            long x = U.getLong(a, aOffset + off);
+            long y = U.getLong(b, bOffset + off);
+            if (x != y) {
+                long diff = x ^ y;
+                int firstByte = BIG_ENDIAN
+                    ? Long.numberOfLeadingZeros(diff) >>> 3
+                    : Long.numberOfTrailingZeros(diff) >>> 3;
+                return (int) ((off + firstByte) >>> log2Scale);
+            }
+        }
+        return off == byteLength ? -1 : (int) (off >>> log2Scale);
+    }
+
+    // ------------------------------------------------------------ hashing
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(byte[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(byte[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * a[i] + P2 * a[i + 1] + P1 * a[i + 2] + a[i + 3];
+        for (; i < toIndex; i++)
+            h = 31 * h + a[i];
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(char[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(char[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * a[i] + P2 * a[i + 1] + P1 * a[i + 2] + a[i + 3];
+        for (; i < toIndex; i++)
+            h = 31 * h + a[i];
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(short[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(short[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * a[i] + P2 * a[i + 1] + P1 * a[i + 2] + a[i + 3];
+        for (; i < toIndex; i++)
+            h = 31 * h + a[i];
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(int[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * a[i] + P2 * a[i + 1] + P1 * a[i + 2] + a[i + 3];
+        for (; i < toIndex; i++)
+            h = 31 * h + a[i];
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(long[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(long[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * hash(a[i]) + P2 * hash(a[i + 1]) +
+                P1 * hash(a[i + 2]) + hash(a[i + 3]);
+        for (; i < toIndex; i++)
+            h = 31 * h + hash(a[i]);
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(float[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(float[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * Float.floatToIntBits(a[i]) +
+                P2 * Float.floatToIntBits(a[i + 1]) +
+                P1 * Float.floatToIntBits(a[i + 2]) +
+                Float.floatToIntBits(a[i + 3]);
+        for (; i < toIndex; i++)
+            h = 31 * h + Float.floatToIntBits(a[i]);
+        return h;
+    }
+
+    /**
+     * Returns the hash code of the elements in the given range.  For a
+     * whole array the result equals {@link Arrays#hashCode(double[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return the hash code of the range
+     */
+    public static int hashCode(double[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int h = 1;
+        int i = fromIndex;
+        for (int bound = toIndex - 3; i < bound; i += 4)
+            h = P4 * h + P3 * hash(Double.doubleToLongBits(a[i])) +
+                P2 * hash(Double.doubleToLongBits(a[i + 1])) +
+                P1 * hash(Double.doubleToLongBits(a[i + 2])) +
+                hash(Double.doubleToLongBits(a[i + 3]));
+        for (; i < toIndex; i++)
+            h = 31 * h + hash(Double.doubleToLongBits(a[i]));
+        return h;
+    }
+
+    private static int hash(long element) {
+        return (int) (element ^ (element >>> 32));
+    }
+
+    // ------------------------------------------------ masks and filtering
+
+    /**
+     * Sets, in {@code mask}, the bit for each element of the given range
+     * that lies in the half-open interval {@code [lo, hi)}, and clears the
+     * bit for every other element.  Bit {@code k} of the mask (bit
+     * {@code k % 64} of word {@code k / 64}) corresponds to element
+     * {@code fromIndex + k}, matching the layout used by {@link
+     * BitSet#valueOf(long[])}.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param lo the lower bound of the interval, inclusive
+     * @param hi the upper bound of the interval, exclusive
+     * @param mask the mask to fill; must have room for at least
+     *        {@code (toIndex - fromIndex + 63) / 64} words
+     * @return the number of bits set
+     */
+    public static int maskInRange(int[] a, int fromIndex, int toIndex,
+                                  int lo, int hi, long[] mask) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, count = 0;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            int end = Math.min(64, n - (w << 6));
+            long bits = 0L;
+            for (int j = 0; j < end; j++) {
+                int v = a[base + j];
+                bits |= (lo <= v & v < hi ? 1L : 0L) << j;
+            }
+            mask[w] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * Sets, in {@code mask}, the bit for each element of the given range
+     * that lies in the half-open interval {@code [lo, hi)}, as {@link
+     * #maskInRange(int[], int, int, int, int, long[])} does for {@code int}
+     * arrays.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param lo the lower bound of the interval, inclusive
+     * @param hi the upper bound of the interval, exclusive
+     * @param mask the mask to fill; must have room for at least
+     *        {@code (toIndex - fromIndex + 63) / 64} words
+     * @return the number of bits set
+     */
+    public static int maskInRange(long[] a, int fromIndex, int toIndex,
+                                  long lo, long hi, long[] mask) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, count = 0;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            int end = Math.min(64, n - (w << 6));
+            long bits = 0L;
+            for (int j = 0; j < end; j++) {
+                long v = a[base + j];
+                bits |= (lo <= v & v < hi ? 1L : 0L) << j;
+            }
+            mask[w] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * Sets, in {@code mask}, the bit for each element of the given range
+     * that lies in the half-open interval {@code [lo, hi)}, as {@link
+     * #maskInRange(int[], int, int, int, int, long[])} does for {@code int}
+     * arrays.  NaN elements are never in range.
+     *
+     * @param a the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param lo the lower bound of the interval, inclusive
+     * @param hi the upper bound of the interval, exclusive
+     * @param mask the mask to fill; must have room for at least
+     *        {@code (toIndex - fromIndex + 63) / 64} words
+     * @return the number of bits set
+     */
+    public static int maskInRange(double[] a, int fromIndex, int toIndex,
+                                  double lo, double hi, long[] mask) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, count = 0;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            int end = Math.min(64, n - (w << 6));
+            long bits = 0L;
+            for (int j = 0; j < end; j++) {
+                double v = a[base + j];
+                bits |= (lo <= v & v < hi ? 1L : 0L) << j;
+            }
+            mask[w] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * Copies the elements of the given range whose bits are set in
+     * {@code mask} into {@code dest}, in order, starting at
+     * {@code destPos}.  Bit {@code k} of the mask selects element
+     * {@code fromIndex + k}; bits beyond the end of the range are ignored.
+     *
+     * @param src the source array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param mask the selection mask
+     * @param dest the destination array
+     * @param destPos the starting position in the destination array
+     * @return the number of elements copied
+     * @throws ArrayIndexOutOfBoundsException if the mask is too short for
+     *         the range, or the destination has no room for a selected
+     *         element
+     */
+    public static int compress(int[] src, int fromIndex, int toIndex,
+                               long[] mask, int[] dest, int destPos) {
+        Arrays.rangeCheck(src.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, d = destPos;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            long bits = mask[w];
+            if (n - (w << 6) < 64)
+                bits &= (1L << (n - (w << 6))) - 1;
+            if (bits == -1L) {
+                System.arraycopy(src, base, dest, d, 64);
+                d += 64;
+            } else {
+                for (; bits != 0L; bits &= bits - 1)
+                    dest[d++] = src[base + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return d - destPos;
+    }
+
+    /**
+     * Copies the elements of the given range whose bits are set in
+     * {@code mask} into {@code dest}, as {@link #compress(int[], int, int,
+     * long[], int[], int)} does for {@code int} arrays.
+     *
+     * @param src the source array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param mask the selection mask
+     * @param dest the destination array
+     * @param destPos the starting position in the destination array
+     * @return the number of elements copied
+     * @throws ArrayIndexOutOfBoundsException if the mask is too short for
+     *         the range, or the destination has no room for a selected
+     *         element
+     */
+    public static int compress(long[] src, int fromIndex, int toIndex,
+                               long[] mask, long[] dest, int destPos) {
+        Arrays.rangeCheck(src.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, d = destPos;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            long bits = mask[w];
+            if (n - (w << 6) < 64)
+                bits &= (1L << (n - (w << 6))) - 1;
+            if (bits == -1L) {
+                System.arraycopy(src, base, dest, d, 64);
+                d += 64;
+            } else {
+                for (; bits != 0L; bits &= bits - 1)
+                    dest[d++] = src[base + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return d - destPos;
+    }
+
+    /**
+     * Copies the elements of the given range whose bits are set in
+     * {@code mask} into {@code dest}, as {@link #compress(int[], int, int,
+     * long[], int[], int)} does for {@code int} arrays.
+     *
+     * @param src the source array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @param mask the selection mask
+     * @param dest the destination array
+     * @param destPos the starting position in the destination array
+     * @return the number of elements copied
+     * @throws ArrayIndexOutOfBoundsException if the mask is too short for
+     *         the range, or the destination has no room for a selected
+     *         element
+     */
+    public static int compress(double[] src, int fromIndex, int toIndex,
+                               long[] mask, double[] dest, int destPos) {
+        Arrays.rangeCheck(src.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, d = destPos;
+        for (int w = 0, base = fromIndex; w << 6 < n; w++, base += 64) {
+            long bits = mask[w];
+            if (n - (w << 6) < 64)
+                bits &= (1L << (n - (w << 6))) - 1;
+            if (bits == -1L) {
+                System.arraycopy(src, base, dest, d, 64);
+                d += 64;
+            } else {
+                for (; bits != 0L; bits &= bits - 1)
+                    dest[d++] = src[base + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return d - destPos;
+    }
+
+    // ------------------------------------------- spliterator entry points
+
+    /**
+     * Returns the sum of the remaining elements of the spliterator, with
+     * the same overflow behavior as {@link java.util.stream.IntStream#sum}.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the sum of the remaining elements
+     */
+    public static int sum(Spliterator.OfInt s) {
+        if (s instanceof Spliterators.IntArraySpliterator) {
+            Spliterators.IntArraySpliterator as = (Spliterators.IntArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return sum(as.array, lo, hi);
+        }
+        IntSummaryStatistics stats = new IntSummaryStatistics();
+        s.forEachRemaining((IntConsumer) stats);
+        return (int) stats.getSum();
+    }
+
+    /**
+     * Returns the least remaining element of the spliterator.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the least remaining element, or an empty optional if there
+     *         are none
+     */
+    public static OptionalInt min(Spliterator.OfInt s) {
+        if (s instanceof Spliterators.IntArraySpliterator) {
+            Spliterators.IntArraySpliterator as = (Spliterators.IntArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return lo < hi ? OptionalInt.of(min(as.array, lo, hi)) : OptionalInt.empty();
+        }
+        IntSummaryStatistics stats = new IntSummaryStatistics();
+        s.forEachRemaining((IntConsumer) stats);
+        return stats.getCount() > 0 ? OptionalInt.of(stats.getMin()) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the greatest remaining element of the spliterator.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the greatest remaining element, or an empty optional if
+     *         there are none
+     */
+    public static OptionalInt max(Spliterator.OfInt s) {
+        if (s instanceof Spliterators.IntArraySpliterator) {
+            Spliterators.IntArraySpliterator as = (Spliterators.IntArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return lo < hi ? OptionalInt.of(max(as.array, lo, hi)) : OptionalInt.empty();
+        }
+        IntSummaryStatistics stats = new IntSummaryStatistics();
+        s.forEachRemaining((IntConsumer) stats);
+        return stats.getCount() > 0 ? OptionalInt.of(stats.getMax()) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns summary statistics of the remaining elements of the
+     * spliterator.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the statistics of the remaining elements
+     */
+    public static IntSummaryStatistics summaryStatistics(Spliterator.OfInt s) {
+        IntSummaryStatistics stats = new IntSummaryStatistics();
+        if (s instanceof Spliterators.IntArraySpliterator) {
+            Spliterators.IntArraySpliterator as = (Spliterators.IntArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            if (lo < hi)
+                stats.acceptAll(sumAsLong(as.array, lo, hi), hi - lo,
+                                min(as.array, lo, hi), max(as.array, lo, hi));
+        }
+        else
+            s.forEachRemaining((IntConsumer) stats);
+        return stats;
+    }
+
+    /**
+     * Returns the sum of the remaining elements of the spliterator, exactly
+     * as a sequential {@link java.util.stream.DoubleStream#sum} computes it.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the sum of the remaining elements
+     */
+    public static double sum(Spliterator.OfDouble s) {
+        if (s instanceof Spliterators.DoubleArraySpliterator) {
+            Spliterators.DoubleArraySpliterator as = (Spliterators.DoubleArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return sum(as.array, lo, hi);
+        }
+        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        s.forEachRemaining((DoubleConsumer) stats);
+        return stats.getSum();
+    }
+
+    /**
+     * Returns the least remaining element of the spliterator, as
+     * determined by {@link Math#min(double, double)}.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the least remaining element, or an empty optional if there
+     *         are none
+     */
+    public static OptionalDouble min(Spliterator.OfDouble s) {
+        if (s instanceof Spliterators.DoubleArraySpliterator) {
+            Spliterators.DoubleArraySpliterator as = (Spliterators.DoubleArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return lo < hi ? OptionalDouble.of(min(as.array, lo, hi)) : OptionalDouble.empty();
+        }
+        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        s.forEachRemaining((DoubleConsumer) stats);
+        return stats.getCount() > 0 ? OptionalDouble.of(stats.getMin()) : OptionalDouble.empty();
+    }
+
+    /**
+     * Returns the greatest remaining element of the spliterator, as
+     * determined by {@link Math#max(double, double)}.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the greatest remaining element, or an empty optional if
+     *         there are none
+     */
+    public static OptionalDouble max(Spliterator.OfDouble s) {
+        if (s instanceof Spliterators.DoubleArraySpliterator) {
+            Spliterators.DoubleArraySpliterator as = (Spliterators.DoubleArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            return lo < hi ? OptionalDouble.of(max(as.array, lo, hi)) : OptionalDouble.empty();
+        }
+        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        s.forEachRemaining((DoubleConsumer) stats);
+        return stats.getCount() > 0 ? OptionalDouble.of(stats.getMax()) : OptionalDouble.empty();
+    }
+
+    /**
+     * Returns summary statistics of the remaining elements of the
+     * spliterator.
+     *
+     * @param s the spliterator, exhausted on return
+     * @return the statistics of the remaining elements
+     */
+    public static DoubleSummaryStatistics summaryStatistics(Spliterator.OfDouble s) {
+        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        if (s instanceof Spliterators.DoubleArraySpliterator) {
+            Spliterators.DoubleArraySpliterator as = (Spliterators.DoubleArraySpliterator) s;
+            int lo = as.index, hi = as.fence;
+            as.index = hi;
+            stats.acceptAll(as.array, lo, hi);
+        }
+        else
+            s.forEachRemaining((DoubleConsumer) stats);
+        return stats;
+    }
+
+    // Unsafe mechanics
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final boolean BIG_ENDIAN =
+        ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+    // Word reads at arbitrary byte offsets are only safe where the
+    // hardware supports unaligned access; see java.nio.Bits.unaligned
+    private static final boolean UNALIGNED;
+    static {
+        String arch = AccessController.doPrivileged(
+            new GetPropertyAction("os.arch"));
+        UNALIGNED = arch.equals("i386") || arch.equals("x86")
+            || arch.equals("amd64") || arch.equals("x86_64")
+            || arch.equals("ppc64") || arch.equals("ppc64le");
+    }
+    private static final long BYTE_BASE = U.arrayBaseOffset(byte[].class);
+    private static final long CHAR_BASE = U.arrayBaseOffset(char[].class);
+    private static final long SHORT_BASE = U.arrayBaseOffset(short[].class);
+    private static final long INT_BASE = U.arrayBaseOffset(int[].class);
+}
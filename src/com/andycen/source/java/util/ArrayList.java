@@ -26,7 +26,10 @@
 package java.util;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import sun.misc.SharedSecrets;
 
@@ -1465,4 +1468,38 @@ public class ArrayList<E> extends AbstractList<E>
         }
         modCount++;
     }
+
+    @Override
+    public void sortByLongKey(ToLongFunction<? super E> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        final int expectedModCount = modCount;
+        KeySort.sortByLongKey(elementData, 0, size, keyExtractor);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    @Override
+    public void sortByDoubleKey(ToDoubleFunction<? super E> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        final int expectedModCount = modCount;
+        KeySort.sortByDoubleKey(elementData, 0, size, keyExtractor);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    @Override
+    public <U extends Comparable<? super U>> void sortByKey(
+            Function<? super E, ? extends U> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        final int expectedModCount = modCount;
+        KeySort.sortByKey(elementData, 0, size, keyExtractor);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
 }
@@ -30,12 +30,15 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
 import java.util.function.IntBinaryOperator;
 import java.util.function.IntFunction;
 import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -108,7 +111,7 @@ public class Arrays {
      * Checks that {@code fromIndex} and {@code toIndex} are in
      * the range and throws an exception if they aren't.
      */
-    private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+    static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
         if (fromIndex > toIndex) {
             throw new IllegalArgumentException(
                     "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
@@ -665,6 +668,10 @@ public class Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
@@ -674,7 +681,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, 0, n))
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -698,6 +706,10 @@ public class Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -714,7 +726,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, fromIndex, toIndex))
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -735,6 +748,10 @@ public class Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
@@ -744,7 +761,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, 0, n))
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -768,6 +786,10 @@ public class Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -784,7 +806,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, fromIndex, toIndex))
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -813,6 +836,10 @@ public class Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
@@ -822,7 +849,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, 0, n))
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -854,6 +882,10 @@ public class Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -870,7 +902,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, fromIndex, toIndex))
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -899,6 +932,10 @@ public class Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
@@ -908,7 +945,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, 0, n))
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -940,6 +978,10 @@ public class Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * Arrays that are at least a few million elements long and not nearly
+     * sorted are instead sorted by a parallel radix sort, which also runs
+     * on the common pool and needs a working space of the same size.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -956,7 +998,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
-        else
+        else if (n < RadixSort.PARALLEL_RADIX_SORT_THRESHOLD ||
+                 !RadixSort.parallelSort(a, fromIndex, toIndex))
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
                  ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
@@ -1513,6 +1556,176 @@ public class Arrays {
         }
     }
 
+    /*
+     * Sorting by extracted keys.
+     */
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys that the given function extracts from them.  This
+     * sort is guaranteed to be <i>stable</i>: equal elements will not be
+     * reordered as a result of the sort.
+     *
+     * <p>The result is the same as that of {@code
+     * sort(a, Comparator.comparingLong(keyExtractor))}, but the key of each
+     * element is extracted exactly once rather than on every comparison.
+     * The function must therefore return the same key for an element every
+     * time it is applied to it, and should not modify the array.
+     *
+     * @implNote The keys are extracted into a {@code long} array and the
+     * element positions are sorted by those keys with a stable radix sort;
+     * the elements are then moved into place in a single pass.  The
+     * algorithm requires working space for n keys, n positions and n object
+     * references.  If the extracted keys are already in ascending order the
+     * array is left untouched.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @since 1.8
+     */
+    public static <T> void sortByLongKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        KeySort.sortByLongKey(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code long} keys that the given function
+     * extracts from them, as {@link #sortByLongKey(Object[], ToLongFunction)}
+     * does for a whole array.  The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @since 1.8
+     */
+    public static <T> void sortByLongKey(T[] a, int fromIndex, int toIndex,
+                                         ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        KeySort.sortByLongKey(a, fromIndex, toIndex, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code double} keys that the given function extracts from them, as
+     * ordered by {@link Double#compare(double, double)}.  This sort is
+     * guaranteed to be <i>stable</i>: equal elements will not be reordered
+     * as a result of the sort.
+     *
+     * <p>The result is the same as that of {@code
+     * sort(a, Comparator.comparingDouble(keyExtractor))}, but the key of
+     * each element is extracted exactly once, as described for
+     * {@link #sortByLongKey(Object[], ToLongFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @since 1.8
+     */
+    public static <T> void sortByDoubleKey(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        KeySort.sortByDoubleKey(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code double} keys that the given function
+     * extracts from them, as {@link #sortByDoubleKey(Object[],
+     * ToDoubleFunction)} does for a whole array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @since 1.8
+     */
+    public static <T> void sortByDoubleKey(T[] a, int fromIndex, int toIndex,
+                                           ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        KeySort.sortByDoubleKey(a, fromIndex, toIndex, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@link Comparable} keys that the given function extracts from them.
+     * This sort is guaranteed to be <i>stable</i>: equal elements will not
+     * be reordered as a result of the sort.
+     *
+     * <p>The result is the same as that of {@code
+     * sort(a, Comparator.comparing(keyExtractor))}, but the key of each
+     * element is extracted exactly once, into a separate array, and the
+     * comparisons are made between the extracted keys.
+     *
+     * @implNote The element positions are sorted by a stable merge sort
+     * over the extracted keys; the elements are then moved into place in a
+     * single pass.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param <U> the type of the sort key
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null or
+     *         returns null for an element
+     * @throws ClassCastException if the extracted keys are not
+     *         <i>mutually comparable</i>
+     * @since 1.8
+     */
+    public static <T, U extends Comparable<? super U>> void sortByKey(
+            T[] a, Function<? super T, ? extends U> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        KeySort.sortByKey(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@link Comparable} keys that the given
+     * function extracts from them, as {@link #sortByKey(Object[], Function)}
+     * does for a whole array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param <U> the type of the sort key
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if {@code keyExtractor} is null or
+     *         returns null for an element
+     * @throws ClassCastException if the extracted keys are not
+     *         <i>mutually comparable</i>
+     * @since 1.8
+     */
+    public static <T, U extends Comparable<? super U>> void sortByKey(
+            T[] a, int fromIndex, int toIndex,
+            Function<? super T, ? extends U> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        KeySort.sortByKey(a, fromIndex, toIndex, keyExtractor);
+    }
+
     /** To be removed in a future release. */
     private static <T> void legacyMergeSort(T[] a, int fromIndex, int toIndex,
                                             Comparator<? super T> c) {
@@ -2577,11 +2790,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2606,11 +2815,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2635,11 +2840,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2664,11 +2865,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2693,11 +2890,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2757,11 +2950,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (Double.doubleToLongBits(a[i])!=Double.doubleToLongBits(a2[i]))
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -2792,11 +2981,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (Float.floatToIntBits(a[i])!=Float.floatToIntBits(a2[i]))
-                return false;
-
-        return true;
+        return ArrayKernels.mismatch(a, 0, length, a2, 0, length) < 0;
     }
 
     /**
@@ -3916,13 +4101,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (long element : a) {
-            int elementHash = (int)(element ^ (element >>> 32));
-            result = 31 * result + elementHash;
-        }
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -3945,11 +4124,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (int element : a)
-            result = 31 * result + element;
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -3972,11 +4147,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (short element : a)
-            result = 31 * result + element;
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -3999,11 +4170,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (char element : a)
-            result = 31 * result + element;
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -4026,11 +4193,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (byte element : a)
-            result = 31 * result + element;
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -4080,11 +4243,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (float element : a)
-            result = 31 * result + Float.floatToIntBits(element);
-
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
@@ -4107,12 +4266,7 @@ public class Arrays {
         if (a == null)
             return 0;
 
-        int result = 1;
-        for (double element : a) {
-            long bits = Double.doubleToLongBits(element);
-            result = 31 * result + (int)(bits ^ (bits >>> 32));
-        }
-        return result;
+        return ArrayKernels.hashCode(a, 0, a.length);
     }
 
     /**
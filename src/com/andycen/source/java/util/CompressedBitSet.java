@@ -0,0 +1,1821 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compressed set of nonnegative {@code int} values, offering the
+ * operations of {@link BitSet} with a memory footprint proportional to the
+ * information in the set rather than to its largest element.
+ *
+ * <p>The index space is split into chunks of 2<sup>16</sup> values sharing
+ * the same high-order 16 bits.  Only chunks that contain at least one value
+ * are stored, each in whichever of three containers is the smallest:
+ * <ul>
+ * <li>an <em>array</em> container, a sorted {@code char[]} of the low-order
+ *     16 bits, for chunks holding at most 4096 values;
+ * <li>a <em>bitmap</em> container, 1024 {@code long} words, for denser
+ *     chunks;
+ * <li>a <em>run</em> container, a sorted list of (start, length) pairs, for
+ *     chunks made of long stretches of consecutive values.
+ * </ul>
+ * A set of 100 values spread up to 2<sup>31</sup> therefore occupies a few
+ * kilobytes, where a {@code BitSet} holds 256 megabytes of words, and the
+ * logical operations only visit the chunks present in the operands.
+ *
+ * <p>Besides the {@code BitSet} operations the class supports
+ * {@linkplain #rank rank} and {@linkplain #select select} queries, and a
+ * portable little-endian serialized form that {@link #view(ByteBuffer)}
+ * queries in place, for example from a memory-mapped file, without
+ * deserializing it.  The layout of the serialized form is:
+ * <pre>
+ *     int   magic (0x43425331)
+ *     int   number of containers n
+ *     n *   { char key, char type, int cardinality, int offset }
+ *     n *   container payload, at the given offset:
+ *             array:  cardinality * char
+ *             bitmap: 1024 * long
+ *             run:    char number of runs r, r * { char start, char length - 1 }
+ * </pre>
+ * Offsets are relative to the start of the serialized form, and the keys
+ * are in ascending order.
+ *
+ * <p>Unless otherwise noted, passing a null parameter to any of the
+ * methods in a {@code CompressedBitSet} will result in a
+ * {@code NullPointerException}.
+ *
+ * <p>A {@code CompressedBitSet} is not safe for multithreaded use without
+ * external synchronization.
+ *
+ * @see BitSet
+ * @since 1.8
+ */
+public class CompressedBitSet implements Cloneable, java.io.Serializable {
+
+    private static final long serialVersionUID = -4133069146322385186L;
+
+    /** Magic number at the start of the serialized form. */
+    private static final int MAGIC = 0x43425331;
+
+    /** Size in bytes of the header preceding the container descriptors. */
+    private static final int HEADER_BYTES = 8;
+
+    /** Size in bytes of one container descriptor. */
+    private static final int DESCRIPTOR_BYTES = 12;
+
+    /** Container type codes of the serialized form. */
+    private static final int ARRAY = 1, BITMAP = 2, RUN = 3;
+
+    /** Largest cardinality held in an array container. */
+    private static final int ARRAY_MAX = 4096;
+
+    /** Number of words in a bitmap container. */
+    private static final int BITMAP_WORDS = 1024;
+
+    /** Size in bytes of a bitmap container. */
+    private static final int BITMAP_BYTES = BITMAP_WORDS * 8;
+
+    /**
+     * The high-order 16 bits of the values in each container, ascending.
+     */
+    private transient char[] keys;
+
+    /**
+     * The containers, parallel to keys.  None of them is empty.
+     */
+    private transient Container[] containers;
+
+    /**
+     * The number of containers in use.
+     */
+    private transient int size;
+
+    /**
+     * Creates a new, empty set.
+     */
+    public CompressedBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    /**
+     * Returns a new set containing the given values.
+     *
+     * @param values the values
+     * @return a set containing the given values
+     * @throws IndexOutOfBoundsException if one of the values is negative
+     */
+    public static CompressedBitSet of(int... values) {
+        CompressedBitSet s = new CompressedBitSet();
+        for (int v : values)
+            s.set(v);
+        return s;
+    }
+
+    /**
+     * Returns a new set containing the indices of the set bits of the
+     * given {@code BitSet}.
+     *
+     * @param bs a bit set
+     * @return a set containing the set bits of {@code bs}
+     */
+    public static CompressedBitSet valueOf(BitSet bs) {
+        CompressedBitSet s = new CompressedBitSet();
+        long[] words = bs.toLongArray();
+        for (int from = 0; from < words.length; from += BITMAP_WORDS) {
+            long[] chunk = Arrays.copyOfRange(words, from, from + BITMAP_WORDS);
+            Container c = fromWords(chunk);
+            if (c != null)
+                s.append((char) (from / BITMAP_WORDS), c);
+        }
+        return s;
+    }
+
+    /**
+     * Returns a new set containing the ordinals of the elements of the
+     * given {@code EnumSet}.
+     *
+     * @param es an enum set
+     * @return a set containing the ordinals of the elements of {@code es}
+     */
+    public static CompressedBitSet valueOf(EnumSet<?> es) {
+        CompressedBitSet s = new CompressedBitSet();
+        for (Enum<?> e : es)
+            s.set(e.ordinal());
+        return s;
+    }
+
+    /**
+     * Returns a new {@code BitSet} whose set bits are the values of this
+     * set.
+     *
+     * @return a {@code BitSet} holding the values of this set
+     */
+    public BitSet toBitSet() {
+        if (size == 0)
+            return new BitSet();
+        long[] words = new long[(previousSetBit(Integer.MAX_VALUE) >>> 6) + 1];
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] * BITMAP_WORDS;
+            long[] w = containers[i].toWords();
+            System.arraycopy(w, 0, words, base, Math.min(BITMAP_WORDS, words.length - base));
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns a new {@code EnumSet} of the constants of the given type
+     * whose ordinals are values of this set.  Values that are not the
+     * ordinal of a constant are ignored.
+     *
+     * @param <E> the enum type
+     * @param elementType the class object of the enum type
+     * @return an enum set of the constants whose ordinals are in this set
+     */
+    public <E extends Enum<E>> EnumSet<E> toEnumSet(Class<E> elementType) {
+        EnumSet<E> es = EnumSet.noneOf(elementType);
+        E[] universe = elementType.getEnumConstants();
+        for (int i = nextSetBit(0); i >= 0 && i < universe.length; i = nextSetBit(i + 1))
+            es.add(universe[i]);
+        return es;
+    }
+
+    /*
+     * Container directory
+     */
+
+    /**
+     * Returns the index of the container with the given key, or
+     * (-(insertion point) - 1) if there is none.
+     */
+    private int indexOf(int key) {
+        int lo = 0, hi = size - 1;
+        // Appending in ascending order is the common case
+        if (hi >= 0 && keys[hi] < key)
+            return -(size + 1);
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys[mid];
+            if (k < key)
+                lo = mid + 1;
+            else if (k > key)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private void insert(int i, char key, Container c) {
+        if (size == keys.length) {
+            int n = size + (size >> 1) + 1;
+            keys = Arrays.copyOf(keys, n);
+            containers = Arrays.copyOf(containers, n);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    private void append(char key, Container c) {
+        insert(size, key, c);
+    }
+
+    private void remove(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * Stores c as the container at index i, removing the entry if c is
+     * null or empty.
+     */
+    private void replace(int i, Container c) {
+        if (c == null || c.card == 0)
+            remove(i);
+        else
+            containers[i] = c;
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                                                " > toIndex: " + toIndex);
+    }
+
+    /*
+     * Single values and ranges
+     */
+
+    /**
+     * Returns whether the given value is in this set.
+     *
+     * @param bitIndex the value
+     * @return {@code true} if the value is in this set
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        return i >= 0 && containers[i].contains((char) bitIndex);
+    }
+
+    /**
+     * Adds the given value to this set.
+     *
+     * @param bitIndex the value
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public void set(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        if (i >= 0)
+            containers[i] = containers[i].add((char) bitIndex);
+        else
+            insert(-i - 1, (char) (bitIndex >>> 16), new ArrayContainer((char) bitIndex));
+    }
+
+    /**
+     * Adds the given value to this set if {@code value} is {@code true},
+     * otherwise removes it.
+     *
+     * @param bitIndex the value
+     * @param value whether the value is to be in the set
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value)
+            set(bitIndex);
+        else
+            clear(bitIndex);
+    }
+
+    /**
+     * Removes the given value from this set.
+     *
+     * @param bitIndex the value
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public void clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        if (i >= 0)
+            replace(i, containers[i].remove((char) bitIndex));
+    }
+
+    /**
+     * Adds the given value to this set if it is absent, otherwise removes
+     * it.
+     *
+     * @param bitIndex the value
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public void flip(int bitIndex) {
+        if (get(bitIndex))
+            clear(bitIndex);
+        else
+            set(bitIndex);
+    }
+
+    /**
+     * Adds the values from {@code fromIndex} (inclusive) to
+     * {@code toIndex} (exclusive) to this set.  Chunks entirely covered by
+     * the range are stored as a single run.
+     *
+     * @param fromIndex the first value to add
+     * @param toIndex the value after the last value to add
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        int last = toIndex - 1;
+        for (int key = fromIndex >>> 16; key <= last >>> 16; key++) {
+            int lo = key == fromIndex >>> 16 ? fromIndex & 0xFFFF : 0;
+            int hi = key == last >>> 16 ? (last & 0xFFFF) + 1 : 1 << 16;
+            int i = indexOf(key);
+            if (i >= 0)
+                containers[i] = containers[i].addRange(lo, hi);
+            else
+                insert(-i - 1, (char) key, new RunContainer(lo, hi));
+        }
+    }
+
+    /**
+     * Removes the values from {@code fromIndex} (inclusive) to
+     * {@code toIndex} (exclusive) from this set.
+     *
+     * @param fromIndex the first value to remove
+     * @param toIndex the value after the last value to remove
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        int last = toIndex - 1;
+        int i = indexOf(fromIndex >>> 16);
+        if (i < 0)
+            i = -i - 1;
+        while (i < size && keys[i] <= last >>> 16) {
+            int key = keys[i];
+            int lo = key == fromIndex >>> 16 ? fromIndex & 0xFFFF : 0;
+            int hi = key == last >>> 16 ? (last & 0xFFFF) + 1 : 1 << 16;
+            Container c = lo == 0 && hi == 1 << 16 ? null : containers[i].removeRange(lo, hi);
+            if (c == null || c.card == 0)
+                remove(i);
+            else
+                containers[i++] = c;
+        }
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /*
+     * Queries
+     */
+
+    /**
+     * Returns the number of values in this set.
+     *
+     * @return the number of values in this set
+     */
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++)
+            n += containers[i].card;
+        return n;
+    }
+
+    /**
+     * Returns {@code true} if this set contains no values.
+     *
+     * @return whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the largest value in this set plus one, or zero if the set
+     * is empty.
+     *
+     * @return the logical length of this set
+     */
+    public int length() {
+        return size == 0 ? 0 : previousSetBit(Integer.MAX_VALUE) + 1;
+    }
+
+    /**
+     * Returns the number of values in this set that are less than or
+     * equal to the given value.
+     *
+     * @param bitIndex the value
+     * @return the rank of {@code bitIndex}
+     * @throws IndexOutOfBoundsException if the value is negative
+     */
+    public int rank(int bitIndex) {
+        checkIndex(bitIndex);
+        int key = bitIndex >>> 16;
+        int n = 0;
+        for (int i = 0; i < size && keys[i] <= key; i++) {
+            Container c = containers[i];
+            n += keys[i] < key ? c.card : c.rank((char) bitIndex);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the value at position {@code j} of this set in ascending
+     * order, so that {@code select(0)} is the smallest value and
+     * {@code rank(select(j)) == j + 1}.
+     *
+     * @param j the position
+     * @return the value at position {@code j}
+     * @throws IndexOutOfBoundsException if {@code j} is negative or not
+     *         less than {@link #cardinality()}
+     */
+    public int select(int j) {
+        if (j >= 0) {
+            for (int i = 0, left = j; i < size; i++) {
+                Container c = containers[i];
+                if (left < c.card)
+                    return keys[i] << 16 | c.select(left);
+                left -= c.card;
+            }
+        }
+        throw new IndexOutOfBoundsException("j: " + j);
+    }
+
+    /**
+     * Returns the smallest value in this set that is greater than or equal
+     * to {@code fromIndex}, or -1 if there is none.
+     *
+     * @param fromIndex the value to start checking from (inclusive)
+     * @return the next value of this set, or {@code -1}
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int i = indexOf(fromIndex >>> 16);
+        if (i >= 0) {
+            int low = containers[i].next(fromIndex & 0xFFFF);
+            if (low >= 0)
+                return fromIndex & 0xFFFF0000 | low;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return i < size ? keys[i] << 16 | containers[i].next(0) : -1;
+    }
+
+    /**
+     * Returns the smallest value that is not in this set and is greater
+     * than or equal to {@code fromIndex}.  Returns
+     * {@code Integer.MAX_VALUE} if every value from {@code fromIndex} on
+     * is in the set.
+     *
+     * @param fromIndex the value to start checking from (inclusive)
+     * @return the next value not in this set
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextClearBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int i = indexOf(fromIndex >>> 16);
+        if (i < 0)
+            return fromIndex;
+        int v = fromIndex;
+        while (true) {
+            int low = containers[i].nextAbsent(v & 0xFFFF);
+            if (low >= 0 || keys[i] == (Integer.MAX_VALUE >>> 16))
+                return low >= 0 ? v & 0xFFFF0000 | low : Integer.MAX_VALUE;
+            v = (keys[i] + 1) << 16;
+            if (++i == size || keys[i] != v >>> 16)
+                return v;
+        }
+    }
+
+    /**
+     * Returns the largest value in this set that is less than or equal to
+     * {@code fromIndex}, or -1 if there is none or {@code fromIndex} is -1.
+     *
+     * @param fromIndex the value to start checking from (inclusive)
+     * @return the previous value of this set, or {@code -1}
+     * @throws IndexOutOfBoundsException if the specified index is less
+     *         than {@code -1}
+     */
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        }
+        int i = indexOf(fromIndex >>> 16);
+        if (i >= 0) {
+            int low = containers[i].previous(fromIndex & 0xFFFF);
+            if (low >= 0)
+                return fromIndex & 0xFFFF0000 | low;
+            i--;
+        } else {
+            i = -i - 2;
+        }
+        return i >= 0 ? keys[i] << 16 | containers[i].previous(0xFFFF) : -1;
+    }
+
+    /**
+     * Returns true if this set and the specified set have a value in
+     * common.
+     *
+     * @param set the set to intersect with
+     * @return whether this set intersects {@code set}
+     */
+    public boolean intersects(CompressedBitSet set) {
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            int a = keys[i], b = set.keys[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                Container c = and(containers[i++], set.containers[j++]);
+                if (c != null && c.card > 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Set algebra.  Like the corresponding BitSet methods, these modify
+     * this set and leave the argument unchanged.  Chunks only present in
+     * one operand are skipped or shared by copy, so the cost depends on
+     * the number of chunks the operands have in common.
+     */
+
+    /**
+     * Performs a logical AND of this set with the argument set, retaining
+     * only the values that are in both.
+     *
+     * @param set a compressed bit set
+     */
+    public void and(CompressedBitSet set) {
+        int k = 0;
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            int a = keys[i], b = set.keys[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                Container c = and(containers[i++], set.containers[j++]);
+                if (c != null && c.card > 0) {
+                    keys[k] = (char) a;
+                    containers[k++] = c;
+                }
+            }
+        }
+        Arrays.fill(containers, k, size, null);
+        size = k;
+    }
+
+    /**
+     * Performs a logical OR of this set with the argument set, adding the
+     * values of the argument to this set.
+     *
+     * @param set a compressed bit set
+     */
+    public void or(CompressedBitSet set) {
+        merge(set, OR);
+    }
+
+    /**
+     * Performs a logical XOR of this set with the argument set, retaining
+     * the values that are in exactly one of the two sets.
+     *
+     * @param set a compressed bit set
+     */
+    public void xor(CompressedBitSet set) {
+        merge(set, XOR);
+    }
+
+    /**
+     * Removes from this set all values that are in the argument set.
+     *
+     * @param set a compressed bit set
+     */
+    public void andNot(CompressedBitSet set) {
+        int k = 0;
+        for (int i = 0, j = 0; i < size; ) {
+            int a = keys[i];
+            while (j < set.size && set.keys[j] < a)
+                j++;
+            Container c = containers[i++];
+            if (j < set.size && set.keys[j] == a)
+                c = andNot(c, set.containers[j++]);
+            if (c != null && c.card > 0) {
+                keys[k] = (char) a;
+                containers[k++] = c;
+            }
+        }
+        Arrays.fill(containers, k, size, null);
+        size = k;
+    }
+
+    private static final int OR = 0, XOR = 1;
+
+    private void merge(CompressedBitSet set, int op) {
+        int n = size + set.size;
+        char[] ks = new char[Math.max(n, 4)];
+        Container[] cs = new Container[ks.length];
+        int i = 0, j = 0, k = 0;
+        while (i < size || j < set.size) {
+            int a = i < size ? keys[i] : Integer.MAX_VALUE;
+            int b = j < set.size ? set.keys[j] : Integer.MAX_VALUE;
+            Container c;
+            if (a < b) {
+                c = containers[i++];
+            } else if (a > b) {
+                c = set.containers[j++].clone();
+                a = b;
+            } else {
+                Container x = containers[i++], y = set.containers[j++];
+                c = op == OR ? or(x, y) : xor(x, y);
+            }
+            if (c != null && c.card > 0) {
+                ks[k] = (char) a;
+                cs[k++] = c;
+            }
+        }
+        keys = ks;
+        containers = cs;
+        size = k;
+    }
+
+    /**
+     * Converts every container to its smallest representation.  The set
+     * operations already do so for the containers they produce; this
+     * method compacts containers that were built up one value at a time.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            if (!(c instanceof RunContainer))
+                containers[i] = fromWords(c.toWords());
+        }
+    }
+
+    /*
+     * Iteration
+     */
+
+    /**
+     * Returns an iterator over the values of this set in ascending order.
+     *
+     * @return an iterator over the values of this set
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements PrimitiveIterator.OfInt {
+        /** Index of the container of the next value. */
+        int index;
+        /** Low-order bits of the next value, or -1 when done. */
+        int low = size > 0 ? containers[0].next(0) : -1;
+
+        @Override
+        public boolean hasNext() {
+            return low >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (low < 0)
+                throw new NoSuchElementException();
+            int ret = keys[index] << 16 | low;
+            low = low < 0xFFFF ? containers[index].next(low + 1) : -1;
+            if (low < 0 && ++index < size)
+                low = containers[index].next(0);
+            return ret;
+        }
+    }
+
+    /**
+     * Returns a stream of the values of this set in ascending order.
+     *
+     * <p>The stream binds to this set when the terminal stream operation
+     * commences (specifically, the spliterator for the stream is
+     * <a href="Spliterator.html#binding"><em>late-binding</em></a>).  If
+     * the set is modified during that operation then the result is
+     * undefined.
+     *
+     * @return a stream of the values of this set
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(
+                () -> Spliterators.spliterator(
+                        new Itr(), cardinality(),
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
+                Spliterator.SIZED | Spliterator.SUBSIZED |
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
+                false);
+    }
+
+    /*
+     * Serialized form
+     */
+
+    /**
+     * Returns the number of bytes {@link #serialize(ByteBuffer)} writes.
+     *
+     * @return the size in bytes of the serialized form of this set
+     */
+    public int serializedSize() {
+        int n = HEADER_BYTES + size * DESCRIPTOR_BYTES;
+        for (int i = 0; i < size; i++)
+            n += containers[i].serializedSize();
+        return n;
+    }
+
+    /**
+     * Writes the portable serialized form of this set, described in the
+     * class documentation, at the current position of the buffer, and
+     * advances the position past it.  The byte order of the buffer is
+     * neither used nor changed.
+     *
+     * @param buffer the buffer to write to
+     * @throws java.nio.BufferOverflowException if fewer than
+     *         {@link #serializedSize()} bytes remain in the buffer
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     */
+    public void serialize(ByteBuffer buffer) {
+        int length = serializedSize();
+        if (buffer.remaining() < length)
+            throw new java.nio.BufferOverflowException();
+        ByteBuffer b = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(size);
+        int offset = HEADER_BYTES + size * DESCRIPTOR_BYTES;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            b.putChar(keys[i]).putChar((char) c.type()).putInt(c.card).putInt(offset);
+            offset += c.serializedSize();
+        }
+        for (int i = 0; i < size; i++)
+            containers[i].write(b);
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Returns a new byte array holding the portable serialized form of
+     * this set.
+     *
+     * @return the serialized form of this set
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[serializedSize()];
+        serialize(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Reads a set from the portable serialized form at the current
+     * position of the buffer, and advances the position past it.
+     *
+     * @param buffer the buffer to read from
+     * @return the set read
+     * @throws IllegalArgumentException if the buffer does not hold a valid
+     *         serialized form
+     */
+    public static CompressedBitSet deserialize(ByteBuffer buffer) {
+        View v = new View(buffer);
+        CompressedBitSet s = new CompressedBitSet();
+        for (int i = 0; i < v.size; i++)
+            s.append((char) v.key(i), v.container(i));
+        buffer.position(buffer.position() + v.length());
+        return s;
+    }
+
+    /**
+     * Returns a read-only view of the serialized form at the current
+     * position of the buffer.  The view answers queries by reading the
+     * buffer directly; only the container descriptors are validated when
+     * the view is created.  The position of the buffer is not changed, and
+     * later changes to the buffer content are visible through the view.
+     *
+     * @param buffer the buffer holding a serialized set
+     * @return a view of the serialized set
+     * @throws IllegalArgumentException if the buffer does not hold a valid
+     *         serialized form
+     */
+    public static View view(ByteBuffer buffer) {
+        return new View(buffer);
+    }
+
+    /**
+     * A read-only view of a serialized {@code CompressedBitSet}, obtained
+     * from {@link CompressedBitSet#view(ByteBuffer)}.  Membership, rank and
+     * cardinality queries read the buffer in place; whole containers are
+     * only decoded by {@link #select}, {@link #stream} and
+     * {@link #toCompressedBitSet}.
+     *
+     * <p>A view is safe for multithreaded use provided the underlying
+     * buffer content does not change.
+     */
+    public static final class View {
+        private final ByteBuffer b;
+        private final int size;
+
+        View(ByteBuffer buffer) {
+            b = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            if (b.remaining() < HEADER_BYTES || b.getInt(0) != MAGIC)
+                throw new IllegalArgumentException("not a serialized CompressedBitSet");
+            size = b.getInt(4);
+            if (size < 0 || size > (b.limit() - HEADER_BYTES) / DESCRIPTOR_BYTES)
+                throw new IllegalArgumentException("bad container count: " + size);
+            int prev = -1;
+            for (int i = 0; i < size; i++) {
+                int key = key(i), type = type(i), card = cardinality(i), off = offset(i);
+                int bytes = type == ARRAY ? 2 * card
+                          : type == BITMAP ? BITMAP_BYTES
+                          : type == RUN && off >= 0 && off <= b.limit() - 2
+                          ? 2 + 4 * b.getChar(off) : -1;
+                if (key <= prev || card <= 0 || card > 1 << 16 || bytes < 0 ||
+                    off < 0 || off > b.limit() - bytes)
+                    throw new IllegalArgumentException("bad container descriptor: " + i);
+                prev = key;
+            }
+        }
+
+        private int key(int i)         { return b.getChar(HEADER_BYTES + i * DESCRIPTOR_BYTES); }
+        private int type(int i)        { return b.getChar(HEADER_BYTES + i * DESCRIPTOR_BYTES + 2); }
+        private int cardinality(int i) { return b.getInt(HEADER_BYTES + i * DESCRIPTOR_BYTES + 4); }
+        private int offset(int i)      { return b.getInt(HEADER_BYTES + i * DESCRIPTOR_BYTES + 8); }
+
+        /** Returns the length in bytes of the serialized form. */
+        int length() {
+            int n = HEADER_BYTES + size * DESCRIPTOR_BYTES;
+            for (int i = 0; i < size; i++) {
+                int type = type(i);
+                n += type == ARRAY ? 2 * cardinality(i)
+                   : type == BITMAP ? BITMAP_BYTES
+                   : 2 + 4 * b.getChar(offset(i));
+            }
+            return n;
+        }
+
+        private int indexOf(int key) {
+            int lo = 0, hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int k = key(mid);
+                if (k < key)
+                    lo = mid + 1;
+                else if (k > key)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return -(lo + 1);
+        }
+
+        /** Decodes the container at index i. */
+        Container container(int i) {
+            int card = cardinality(i), off = offset(i);
+            switch (type(i)) {
+                case ARRAY: {
+                    char[] content = new char[card];
+                    for (int j = 0; j < card; j++)
+                        content[j] = b.getChar(off + 2 * j);
+                    return new ArrayContainer(content, card);
+                }
+                case BITMAP: {
+                    long[] words = new long[BITMAP_WORDS];
+                    for (int j = 0; j < BITMAP_WORDS; j++)
+                        words[j] = b.getLong(off + 8 * j);
+                    return new BitmapContainer(words, card);
+                }
+                default: {
+                    int n = b.getChar(off);
+                    char[] runs = new char[2 * n];
+                    for (int j = 0; j < 2 * n; j++)
+                        runs[j] = b.getChar(off + 2 + 2 * j);
+                    return new RunContainer(runs, n, card);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of values in the low-order 16 bits of the
+         * container at index i that are less than or equal to x.
+         */
+        private int rank(int i, int x) {
+            int off = offset(i);
+            switch (type(i)) {
+                case ARRAY: {
+                    int lo = 0, hi = cardinality(i) - 1;
+                    while (lo <= hi) {
+                        int mid = (lo + hi) >>> 1;
+                        int v = b.getChar(off + 2 * mid);
+                        if (v <= x)
+                            lo = mid + 1;
+                        else
+                            hi = mid - 1;
+                    }
+                    return lo;
+                }
+                case BITMAP: {
+                    int n = 0, w = x >>> 6;
+                    for (int j = 0; j < w; j++)
+                        n += Long.bitCount(b.getLong(off + 8 * j));
+                    return n + Long.bitCount(b.getLong(off + 8 * w) & ((2L << (x & 63)) - 1));
+                }
+                default: {
+                    int runs = b.getChar(off), n = 0;
+                    for (int j = 0; j < runs; j++) {
+                        int start = b.getChar(off + 2 + 4 * j);
+                        if (start > x)
+                            break;
+                        int len = b.getChar(off + 4 + 4 * j) + 1;
+                        n += Math.min(len, x - start + 1);
+                    }
+                    return n;
+                }
+            }
+        }
+
+        /**
+         * Returns whether the given value is in the serialized set.
+         *
+         * @param bitIndex the value
+         * @return {@code true} if the value is in the set
+         * @throws IndexOutOfBoundsException if the value is negative
+         */
+        public boolean get(int bitIndex) {
+            checkIndex(bitIndex);
+            int i = indexOf(bitIndex >>> 16);
+            if (i < 0)
+                return false;
+            int x = bitIndex & 0xFFFF, off = offset(i);
+            switch (type(i)) {
+                case BITMAP:
+                    return (b.getLong(off + 8 * (x >>> 6)) & (1L << x)) != 0;
+                case ARRAY: {
+                    int lo = 0, hi = cardinality(i) - 1;
+                    while (lo <= hi) {
+                        int mid = (lo + hi) >>> 1;
+                        int v = b.getChar(off + 2 * mid);
+                        if (v < x)
+                            lo = mid + 1;
+                        else if (v > x)
+                            hi = mid - 1;
+                        else
+                            return true;
+                    }
+                    return false;
+                }
+                default: {
+                    int lo = 0, hi = b.getChar(off) - 1;
+                    while (lo <= hi) {
+                        int mid = (lo + hi) >>> 1;
+                        int start = b.getChar(off + 2 + 4 * mid);
+                        if (start > x)
+                            hi = mid - 1;
+                        else if (x - start > b.getChar(off + 4 + 4 * mid))
+                            lo = mid + 1;
+                        else
+                            return true;
+                    }
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of values in the serialized set.
+         *
+         * @return the number of values in the set
+         */
+        public int cardinality() {
+            int n = 0;
+            for (int i = 0; i < size; i++)
+                n += cardinality(i);
+            return n;
+        }
+
+        /**
+         * Returns the number of values in the serialized set that are less
+         * than or equal to the given value.
+         *
+         * @param bitIndex the value
+         * @return the rank of {@code bitIndex}
+         * @throws IndexOutOfBoundsException if the value is negative
+         */
+        public int rank(int bitIndex) {
+            checkIndex(bitIndex);
+            int key = bitIndex >>> 16;
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int k = key(i);
+                if (k > key)
+                    break;
+                n += k < key ? cardinality(i) : rank(i, bitIndex & 0xFFFF);
+            }
+            return n;
+        }
+
+        /**
+         * Returns the value at position {@code j} of the serialized set in
+         * ascending order.
+         *
+         * @param j the position
+         * @return the value at position {@code j}
+         * @throws IndexOutOfBoundsException if {@code j} is negative or not
+         *         less than {@link #cardinality()}
+         */
+        public int select(int j) {
+            if (j >= 0) {
+                for (int i = 0, left = j; i < size; i++) {
+                    int card = cardinality(i);
+                    if (left < card)
+                        return key(i) << 16 | container(i).select(left);
+                    left -= card;
+                }
+            }
+            throw new IndexOutOfBoundsException("j: " + j);
+        }
+
+        /**
+         * Returns a stream of the values of the serialized set in
+         * ascending order.  Each container is decoded when the stream
+         * reaches it.
+         *
+         * @return a stream of the values of the set
+         */
+        public IntStream stream() {
+            return IntStream.range(0, size).flatMap(i -> {
+                int high = key(i) << 16;
+                Container c = container(i);
+                return IntStream.iterate(c.next(0), v -> v < 0xFFFF ? c.next(v + 1) : -1)
+                                .limit(c.card)
+                                .map(v -> high | v);
+            });
+        }
+
+        /**
+         * Returns a new {@code CompressedBitSet} holding the values of the
+         * serialized set.
+         *
+         * @return a copy of the serialized set
+         */
+        public CompressedBitSet toCompressedBitSet() {
+            CompressedBitSet s = new CompressedBitSet();
+            for (int i = 0; i < size; i++)
+                s.append((char) key(i), container(i));
+            return s;
+        }
+    }
+
+    /*
+     * Object methods
+     */
+
+    /**
+     * Cloning this {@code CompressedBitSet} produces a new set that is
+     * equal to it.
+     *
+     * @return a clone of this set
+     */
+    @Override
+    public CompressedBitSet clone() {
+        try {
+            CompressedBitSet result = (CompressedBitSet) super.clone();
+            result.keys = keys.clone();
+            result.containers = containers.clone();
+            for (int i = 0; i < size; i++)
+                result.containers[i] = containers[i].clone();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares this set against the specified object.  The result is
+     * {@code true} if and only if the argument is a
+     * {@code CompressedBitSet} with exactly the same values, regardless of
+     * how either set stores them.
+     *
+     * @param obj the object to compare with
+     * @return {@code true} if the objects are the same
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof CompressedBitSet))
+            return false;
+        CompressedBitSet set = (CompressedBitSet) obj;
+        if (size != set.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            Container a = containers[i], b = set.containers[i];
+            if (keys[i] != set.keys[i] || a.card != b.card)
+                return false;
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                if (ArrayKernels.mismatch(((ArrayContainer) a).content, 0, a.card,
+                                          ((ArrayContainer) b).content, 0, b.card) >= 0)
+                    return false;
+            } else if (!Arrays.equals(a.toWords(), b.toWords())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which depends only on the
+     * values it contains.
+     *
+     * @return the hash code value for this set
+     */
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + keys[i];
+            Container c = containers[i];
+            for (int v = c.next(0); v >= 0; v = v < 0xFFFF ? c.next(v + 1) : -1)
+                h = 31 * h + v;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this set, listing its values in
+     * ascending order in the format of {@link BitSet#toString()}.
+     *
+     * @return a string representation of this set
+     */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (PrimitiveIterator.OfInt it = new Itr(); it.hasNext(); ) {
+            b.append(it.nextInt());
+            if (it.hasNext())
+                b.append(", ");
+        }
+        return b.append('}').toString();
+    }
+
+    /**
+     * Saves the state of the set to a stream.
+     *
+     * @serialData the length of the portable serialized form (int),
+     *             followed by its bytes
+     */
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        s.defaultWriteObject();
+        byte[] bytes = toByteArray();
+        s.writeInt(bytes.length);
+        s.write(bytes);
+    }
+
+    /**
+     * Reconstitutes the set from a stream.
+     */
+    private void readObject(ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int length = s.readInt();
+        if (length < HEADER_BYTES)
+            throw new InvalidObjectException("bad length: " + length);
+        byte[] bytes = new byte[length];
+        s.readFully(bytes);
+        try {
+            CompressedBitSet set = deserialize(ByteBuffer.wrap(bytes));
+            keys = set.keys;
+            containers = set.containers;
+            size = set.size;
+        } catch (IllegalArgumentException e) {
+            InvalidObjectException ioe = new InvalidObjectException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    /*
+     * Containers
+     */
+
+    /**
+     * Returns the smallest container holding the set bits of the given
+     * 1024 words, or null if there are none.  The words array may become
+     * the content of a bitmap container.
+     */
+    static Container fromWords(long[] words) {
+        int card = 0, runs = 0;
+        long carry = 0;
+        for (long w : words) {
+            card += Long.bitCount(w);
+            // A run starts at every set bit whose predecessor is clear
+            runs += Long.bitCount(w & ~(w << 1 | carry));
+            carry = w >>> 63;
+        }
+        if (card == 0)
+            return null;
+        int arrayBytes = card <= ARRAY_MAX ? 2 * card : Integer.MAX_VALUE;
+        int runBytes = 2 + 4 * runs;
+        if (runBytes < arrayBytes && runBytes < BITMAP_BYTES) {
+            char[] r = new char[2 * runs];
+            int n = 0;
+            for (int start = nextBit(words, 0, true); start >= 0; ) {
+                int end = nextBit(words, start, false);
+                int stop = end < 0 ? 1 << 16 : end;
+                r[n++] = (char) start;
+                r[n++] = (char) (stop - start - 1);
+                start = end < 0 ? -1 : nextBit(words, end, true);
+            }
+            return new RunContainer(r, runs, card);
+        }
+        if (card <= ARRAY_MAX) {
+            char[] content = new char[card];
+            int n = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                for (long w = words[i]; w != 0; w &= w - 1)
+                    content[n++] = (char) (i << 6 | Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(content, card);
+        }
+        return new BitmapContainer(words, card);
+    }
+
+    /**
+     * Returns the index of the first bit at or after from that is set (or
+     * clear, if set is false) in the 1024 words, or -1 if there is none.
+     */
+    static int nextBit(long[] words, int from, boolean set) {
+        if (from >= 1 << 16)
+            return -1;
+        int u = from >>> 6;
+        long w = (set ? words[u] : ~words[u]) & (-1L << from);
+        while (true) {
+            if (w != 0)
+                return u << 6 | Long.numberOfTrailingZeros(w);
+            if (++u == BITMAP_WORDS)
+                return -1;
+            w = set ? words[u] : ~words[u];
+        }
+    }
+
+    /**
+     * Returns the index of the last bit at or before from that is set in
+     * the 1024 words, or -1 if there is none.
+     */
+    static int previousBit(long[] words, int from) {
+        int u = from >>> 6;
+        long w = words[u] & (-1L >>> -(from + 1));
+        while (true) {
+            if (w != 0)
+                return u << 6 | 63 - Long.numberOfLeadingZeros(w);
+            if (u-- == 0)
+                return -1;
+            w = words[u];
+        }
+    }
+
+    /** Sets the bits [lo, hi) of the 1024 words. */
+    static void setBits(long[] words, int lo, int hi) {
+        if (lo >= hi)
+            return;
+        int u = lo >>> 6, v = (hi - 1) >>> 6;
+        long first = -1L << lo, last = -1L >>> -hi;
+        if (u == v) {
+            words[u] |= first & last;
+        } else {
+            words[u] |= first;
+            for (int i = u + 1; i < v; i++)
+                words[i] = -1L;
+            words[v] |= last;
+        }
+    }
+
+    /** Clears the bits [lo, hi) of the 1024 words. */
+    static void clearBits(long[] words, int lo, int hi) {
+        if (lo >= hi)
+            return;
+        int u = lo >>> 6, v = (hi - 1) >>> 6;
+        long first = -1L << lo, last = -1L >>> -hi;
+        if (u == v) {
+            words[u] &= ~(first & last);
+        } else {
+            words[u] &= ~first;
+            for (int i = u + 1; i < v; i++)
+                words[i] = 0;
+            words[v] &= ~last;
+        }
+    }
+
+    static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer)
+            return ((ArrayContainer) a).filter(b, true);
+        if (b instanceof ArrayContainer)
+            return ((ArrayContainer) b).filter(a, true);
+        long[] w = a.toWords(), v = b.toWords();
+        for (int i = 0; i < BITMAP_WORDS; i++)
+            w[i] &= v[i];
+        return fromWords(w);
+    }
+
+    static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer &&
+            a.card + b.card <= ARRAY_MAX)
+            return ((ArrayContainer) a).union((ArrayContainer) b);
+        long[] w = a.toWords();
+        b.orInto(w);
+        return fromWords(w);
+    }
+
+    static Container xor(Container a, Container b) {
+        long[] w = a.toWords(), v = b.toWords();
+        for (int i = 0; i < BITMAP_WORDS; i++)
+            w[i] ^= v[i];
+        return fromWords(w);
+    }
+
+    static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer)
+            return ((ArrayContainer) a).filter(b, false);
+        long[] w = a.toWords();
+        if (b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) b;
+            for (int i = 0; i < x.card; i++)
+                w[x.content[i] >>> 6] &= ~(1L << x.content[i]);
+        } else {
+            long[] v = b.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                w[i] &= ~v[i];
+        }
+        return fromWords(w);
+    }
+
+    /**
+     * The values of one chunk, as the low-order 16 bits.  Mutators return
+     * the container that holds the result, which is this container or a
+     * new one of another kind.
+     */
+    static abstract class Container implements Cloneable {
+        /** Number of values, from 1 to 2^16 in a set. */
+        int card;
+
+        abstract int type();
+
+        abstract boolean contains(char x);
+
+        abstract Container add(char x);
+
+        abstract Container remove(char x);
+
+        /** Returns the number of values less than or equal to x. */
+        abstract int rank(char x);
+
+        /** Returns the value at position j, 0 <= j < card. */
+        abstract int select(int j);
+
+        /** Returns the smallest value >= from, or -1. */
+        abstract int next(int from);
+
+        /** Returns the smallest absent value >= from, or -1. */
+        abstract int nextAbsent(int from);
+
+        /** Returns the largest value <= from, or -1. */
+        abstract int previous(int from);
+
+        /** Sets the bits of the values in the 1024 words. */
+        abstract void orInto(long[] words);
+
+        abstract int serializedSize();
+
+        abstract void write(ByteBuffer b);
+
+        /** Returns a new array of 1024 words holding the values. */
+        long[] toWords() {
+            long[] w = new long[BITMAP_WORDS];
+            orInto(w);
+            return w;
+        }
+
+        Container addRange(int lo, int hi) {
+            long[] w = toWords();
+            setBits(w, lo, hi);
+            return fromWords(w);
+        }
+
+        /** Returns the container without [lo, hi), or null if empty. */
+        Container removeRange(int lo, int hi) {
+            long[] w = toWords();
+            clearBits(w, lo, hi);
+            return fromWords(w);
+        }
+
+        @Override
+        public Container clone() {
+            try {
+                return (Container) super.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new InternalError(e);
+            }
+        }
+    }
+
+    static final class ArrayContainer extends Container {
+        char[] content;
+
+        ArrayContainer(char x) {
+            content = new char[] { x };
+            card = 1;
+        }
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        int type() { return ARRAY; }
+
+        boolean contains(char x) {
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        Container add(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0)
+                return this;
+            if (card == ARRAY_MAX) {
+                BitmapContainer c = new BitmapContainer(toWords(), card);
+                return c.add(x);
+            }
+            i = -i - 1;
+            if (card == content.length)
+                content = Arrays.copyOf(content, Math.min(ARRAY_MAX, card + (card >> 1) + 1));
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = x;
+            card++;
+            return this;
+        }
+
+        Container remove(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        int rank(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        int select(int j) {
+            return content[j];
+        }
+
+        int next(int from) {
+            int i = Arrays.binarySearch(content, 0, card, (char) from);
+            if (i < 0)
+                i = -i - 1;
+            return i < card ? content[i] : -1;
+        }
+
+        int nextAbsent(int from) {
+            int i = Arrays.binarySearch(content, 0, card, (char) from);
+            if (i < 0)
+                return from;
+            // content[i + k] == from + k for as long as the values are consecutive
+            while (i + 1 < card && content[i + 1] == content[i] + 1)
+                i++;
+            int v = content[i] + 1;
+            return v < 1 << 16 ? v : -1;
+        }
+
+        int previous(int from) {
+            int i = Arrays.binarySearch(content, 0, card, (char) from);
+            if (i < 0)
+                i = -i - 2;
+            return i >= 0 ? content[i] : -1;
+        }
+
+        void orInto(long[] words) {
+            for (int i = 0; i < card; i++)
+                words[content[i] >>> 6] |= 1L << content[i];
+        }
+
+        /** Returns the values that are (or are not) contained in c. */
+        Container filter(Container c, boolean keep) {
+            char[] r = new char[card];
+            int n = 0;
+            for (int i = 0; i < card; i++) {
+                char x = content[i];
+                if (c.contains(x) == keep)
+                    r[n++] = x;
+            }
+            return n == 0 ? null : new ArrayContainer(r, n);
+        }
+
+        /** Merges two sorted arrays. */
+        Container union(ArrayContainer c) {
+            char[] r = new char[card + c.card];
+            int i = 0, j = 0, n = 0;
+            while (i < card && j < c.card) {
+                char x = content[i], y = c.content[j];
+                if (x < y) {
+                    r[n++] = x;
+                    i++;
+                } else if (x > y) {
+                    r[n++] = y;
+                    j++;
+                } else {
+                    r[n++] = x;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < card)
+                r[n++] = content[i++];
+            while (j < c.card)
+                r[n++] = c.content[j++];
+            return new ArrayContainer(r, n);
+        }
+
+        int serializedSize() {
+            return 2 * card;
+        }
+
+        void write(ByteBuffer b) {
+            for (int i = 0; i < card; i++)
+                b.putChar(content[i]);
+        }
+
+        @Override
+        public Container clone() {
+            ArrayContainer c = (ArrayContainer) super.clone();
+            c.content = Arrays.copyOf(content, card);
+            return c;
+        }
+    }
+
+    static final class BitmapContainer extends Container {
+        long[] words;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        int type() { return BITMAP; }
+
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        Container add(char x) {
+            long w = words[x >>> 6];
+            if ((w & (1L << x)) == 0) {
+                words[x >>> 6] = w | (1L << x);
+                card++;
+            }
+            return this;
+        }
+
+        Container remove(char x) {
+            long w = words[x >>> 6];
+            if ((w & (1L << x)) != 0) {
+                words[x >>> 6] = w & ~(1L << x);
+                if (--card <= ARRAY_MAX)
+                    return fromWords(words);
+            }
+            return this;
+        }
+
+        int rank(char x) {
+            int n = 0, u = x >>> 6;
+            for (int i = 0; i < u; i++)
+                n += Long.bitCount(words[i]);
+            return n + Long.bitCount(words[u] & ((2L << (x & 63)) - 1));
+        }
+
+        int select(int j) {
+            for (int i = 0; ; i++) {
+                long w = words[i];
+                int c = Long.bitCount(w);
+                if (j < c) {
+                    for (; j > 0; j--)
+                        w &= w - 1;
+                    return i << 6 | Long.numberOfTrailingZeros(w);
+                }
+                j -= c;
+            }
+        }
+
+        int next(int from) {
+            return nextBit(words, from, true);
+        }
+
+        int nextAbsent(int from) {
+            return nextBit(words, from, false);
+        }
+
+        int previous(int from) {
+            return previousBit(words, from);
+        }
+
+        void orInto(long[] w) {
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                w[i] |= words[i];
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+        int serializedSize() {
+            return BITMAP_BYTES;
+        }
+
+        void write(ByteBuffer b) {
+            for (long w : words)
+                b.putLong(w);
+        }
+
+        @Override
+        public Container clone() {
+            BitmapContainer c = (BitmapContainer) super.clone();
+            c.words = words.clone();
+            return c;
+        }
+    }
+
+    static final class RunContainer extends Container {
+        /** Pairs of (start, length - 1), ascending and not adjacent. */
+        char[] runs;
+        int nRuns;
+
+        /** Creates a container holding the values [lo, hi). */
+        RunContainer(int lo, int hi) {
+            this(new char[] { (char) lo, (char) (hi - lo - 1) }, 1, hi - lo);
+        }
+
+        RunContainer(char[] runs, int nRuns, int card) {
+            this.runs = runs;
+            this.nRuns = nRuns;
+            this.card = card;
+        }
+
+        int type() { return RUN; }
+
+        /** Returns the index of the last run starting at or before x, or -1. */
+        private int runAtOrBefore(int x) {
+            int lo = 0, hi = nRuns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[2 * mid] <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            return hi;
+        }
+
+        boolean contains(char x) {
+            int i = runAtOrBefore(x);
+            return i >= 0 && x - runs[2 * i] <= runs[2 * i + 1];
+        }
+
+        Container add(char x) {
+            return contains(x) ? this : addRange(x, x + 1);
+        }
+
+        Container remove(char x) {
+            return contains(x) ? removeRange(x, x + 1) : this;
+        }
+
+        int rank(char x) {
+            int n = 0;
+            for (int i = 0; i < nRuns; i++) {
+                int start = runs[2 * i];
+                if (start > x)
+                    break;
+                n += Math.min(runs[2 * i + 1] + 1, x - start + 1);
+            }
+            return n;
+        }
+
+        int select(int j) {
+            for (int i = 0; ; i++) {
+                int len = runs[2 * i + 1] + 1;
+                if (j < len)
+                    return runs[2 * i] + j;
+                j -= len;
+            }
+        }
+
+        int next(int from) {
+            int i = runAtOrBefore(from);
+            if (i >= 0 && from - runs[2 * i] <= runs[2 * i + 1])
+                return from;
+            return i + 1 < nRuns ? runs[2 * i + 2] : -1;
+        }
+
+        int nextAbsent(int from) {
+            int i = runAtOrBefore(from);
+            if (i < 0 || from - runs[2 * i] > runs[2 * i + 1])
+                return from;
+            int v = runs[2 * i] + runs[2 * i + 1] + 1;
+            return v < 1 << 16 ? v : -1;
+        }
+
+        int previous(int from) {
+            int i = runAtOrBefore(from);
+            if (i < 0)
+                return -1;
+            return Math.min(from, runs[2 * i] + runs[2 * i + 1]);
+        }
+
+        void orInto(long[] words) {
+            for (int i = 0; i < nRuns; i++) {
+                int start = runs[2 * i];
+                setBits(words, start, start + runs[2 * i + 1] + 1);
+            }
+        }
+
+        int serializedSize() {
+            return 2 + 4 * nRuns;
+        }
+
+        void write(ByteBuffer b) {
+            b.putChar((char) nRuns);
+            for (int i = 0; i < 2 * nRuns; i++)
+                b.putChar(runs[i]);
+        }
+
+        @Override
+        public Container clone() {
+            RunContainer c = (RunContainer) super.clone();
+            c.runs = Arrays.copyOf(runs, 2 * nRuns);
+            return c;
+        }
+    }
+}
@@ -105,6 +105,33 @@ public class DoubleSummaryStatistics implements DoubleConsumer {
         max = Math.max(max, other.max);
     }
 
+    /**
+     * Records the values in the given array range, exactly as if each had
+     * been passed to {@link #accept(double)} in order.  Used by
+     * {@link ArrayKernels}; the summation and the minimum and maximum are
+     * kept in locals for the duration of the loop.
+     */
+    void acceptAll(double[] a, int fromIndex, int toIndex) {
+        double s = sum, c = sumCompensation, simple = simpleSum;
+        double lo = min, hi = max;
+        for (int i = fromIndex; i < toIndex; i++) {
+            double value = a[i];
+            simple += value;
+            double tmp = value - c;
+            double velvel = s + tmp; // Little wolf of rounding error
+            c = (velvel - s) - tmp;
+            s = velvel;
+            lo = Math.min(lo, value);
+            hi = Math.max(hi, value);
+        }
+        count += toIndex - fromIndex;
+        sum = s;
+        sumCompensation = c;
+        simpleSum = simple;
+        min = lo;
+        max = hi;
+    }
+
     /**
      * Incorporate a new double value using Kahan summation /
      * compensated summation.
@@ -47,8 +47,6 @@ import java.text.DateFormatSymbols;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import java.time.DateTimeException;
 import java.time.Instant;
@@ -2492,13 +2490,85 @@ public final class Formatter implements Closeable, Flushable {
      */
     public Formatter format(Locale l, String format, Object ... args) {
         ensureOpen();
+        return format(l, CompiledFormat.cached(format), args);
+    }
+
+    /**
+     * Writes a formatted string to this object's destination using a
+     * compiled format and the specified arguments.  The locale used is the
+     * one defined during the construction of this formatter.
+     *
+     * <p> A formatter that repeatedly prints the same compiled format reuses
+     * the specifiers bound to it, so that formatting allocates no more than
+     * the conversions of the arguments themselves require.
+     *
+     * @param  format
+     *         A format string compiled by {@link #compile(String)}
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the format
+     *         string.  If there are more arguments than format specifiers, the
+     *         extra arguments are ignored.
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with the given
+     *          arguments, insufficient arguments are given, or other illegal
+     *          conditions.  For specification of all possible formatting
+     *          errors, see the <a href="#detail">Details</a> section of the
+     *          formatter class specification.
+     *
+     * @throws  FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  This formatter
+     * @since 1.8
+     */
+    public Formatter format(CompiledFormat format, Object ... args) {
+        return format(l, format, args);
+    }
+
+    /**
+     * Writes a formatted string to this object's destination using the
+     * specified locale, compiled format, and arguments.
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.  This does not change this object's locale that was
+     *         set during construction.
+     *
+     * @param  format
+     *         A format string compiled by {@link #compile(String)}
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the format
+     *         string.  If there are more arguments than format specifiers, the
+     *         extra arguments are ignored.
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with the given
+     *          arguments, insufficient arguments are given, or other illegal
+     *          conditions.  For specification of all possible formatting
+     *          errors, see the <a href="#detail">Details</a> section of the
+     *          formatter class specification.
+     *
+     * @throws  FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  This formatter
+     * @since 1.8
+     */
+    public Formatter format(Locale l, CompiledFormat format, Object ... args) {
+        ensureOpen();
 
         // index of last argument referenced
         int last = -1;
         // last ordinary index
         int lasto = -1;
 
-        FormatString[] fsa = parse(format);
+        FormatString[] fsa = bind(format);
         for (int i = 0; i < fsa.length; i++) {
             FormatString fs = fsa[i];
             int index = fs.index();
@@ -2533,44 +2603,273 @@ public final class Formatter implements Closeable, Flushable {
         return this;
     }
 
-    // %[argument_index$][flags][width][.precision][t]conversion
-    private static final String formatSpecifier
-        = "%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])";
+    /**
+     * Compiles a format string into an immutable plan that can be used to
+     * format many times, by any number of threads, without parsing the
+     * format string again.  The returned plan may be passed to {@link
+     * #format(CompiledFormat, Object...)} or used directly through its own
+     * {@code format} methods.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled format
+     * @since 1.8
+     */
+    public static CompiledFormat compile(String format) {
+        return new CompiledFormat(format);
+    }
+
+    // The compiled format last printed, and its specifiers bound to this
+    // formatter
+    private CompiledFormat boundFormat;
+    private FormatString[] bound;
+
+    /**
+     * Returns copies of the specifiers of a compiled format that print to
+     * this formatter.
+     */
+    private FormatString[] bind(CompiledFormat format) {
+        if (format != boundFormat) {
+            FormatString[] template = format.template;
+            FormatString[] fsa = new FormatString[template.length];
+            for (int i = 0; i < template.length; i++) {
+                if (template[i] instanceof FixedString)
+                    fsa[i] = new FixedString(((FixedString) template[i]).s);
+                else
+                    fsa[i] = new FormatSpecifier((FormatSpecifier) template[i]);
+            }
+            bound = fsa;
+            boundFormat = format;
+        }
+        return bound;
+    }
+
+    /**
+     * A format string compiled into an immutable sequence of fixed text and
+     * format specifiers.  Compiling checks the syntax of the format string
+     * and of each specifier once; formatting then only converts the
+     * arguments.  Instances are safe for use by multiple concurrent threads.
+     *
+     * @see Formatter#compile(String)
+     * @since 1.8
+     */
+    public static final class CompiledFormat {
+
+        /**
+         * A direct-mapped cache of the formats compiled by
+         * {@link Formatter#format(Locale, String, Object...)}, and so by
+         * {@link String#format}.  A collision simply replaces the entry; the
+         * entries are immutable, so the races between threads are benign.
+         */
+        private static final int CACHE_SIZE = 256;
+        private static final int MAX_CACHED_LENGTH = 512;
+        private static final CompiledFormat[] cache = new CompiledFormat[CACHE_SIZE];
+
+        /** Owner of the template specifiers, which are never printed. */
+        private static final Formatter parser = new Formatter(Locale.US, null);
+
+        private final String format;
+        private final FormatString[] template;
+
+        private CompiledFormat(String format) {
+            this.format = format;
+            this.template = parser.parse(format);
+        }
+
+        static CompiledFormat cached(String format) {
+            if (format.length() > MAX_CACHED_LENGTH)
+                return new CompiledFormat(format);
+            int slot = format.hashCode() & (CACHE_SIZE - 1);
+            CompiledFormat cf = cache[slot];
+            if (cf == null || !cf.format.equals(format)) {
+                cf = new CompiledFormat(format);
+                cache[slot] = cf;
+            }
+            return cf;
+        }
+
+        /**
+         * Returns a string formatted with the default locale for
+         * {@linkplain Locale.Category#FORMAT formatting}.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or insufficient arguments are given
+         *
+         * @return  A formatted string
+         */
+        public String format(Object... args) {
+            return format(Locale.getDefault(Locale.Category.FORMAT), args);
+        }
+
+        /**
+         * Returns a string formatted with the specified locale.
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or insufficient arguments are given
+         *
+         * @return  A formatted string
+         */
+        public String format(Locale l, Object... args) {
+            StringBuilder sb = new StringBuilder();
+            new Formatter(l, sb).format(l, this, args);
+            return sb.toString();
+        }
 
-    private static Pattern fsPattern = Pattern.compile(formatSpecifier);
+        /**
+         * Appends a string formatted with the specified locale to the
+         * given destination.
+         *
+         * @param  <A>
+         *         The type of the destination
+         *
+         * @param  a
+         *         Destination for the formatted output
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or insufficient arguments are given
+         *
+         * @throws  IOException
+         *          If the destination throws it
+         *
+         * @return  The destination
+         */
+        public <A extends Appendable> A formatTo(A a, Locale l, Object... args)
+            throws IOException
+        {
+            Formatter fmt = new Formatter(l, Objects.requireNonNull(a));
+            fmt.format(l, this, args);
+            if (fmt.lastException != null)
+                throw fmt.lastException;
+            return a;
+        }
+
+        /**
+         * Returns the format string this format was compiled from.
+         *
+         * @return  The format string
+         */
+        @Override
+        public String toString() {
+            return format;
+        }
+    }
+
+    // Characters of the flags part of a format specifier
+    private static final String FLAG_CHARS = "-#+ 0,(<";
 
     /**
-     * Finds format specifiers in the format string.
+     * Finds format specifiers in the format string.  The scanner accepts
+     * exactly the specifiers matched by the regular expression
+     *
+     *     %(\d+\$)?([-#+ 0,(\<]*)?(\d+)?(\.\d+)?([tT])?([a-zA-Z%])
+     *
+     * which it replaces, i.e.
+     * %[argument_index$][flags][width][.precision][t]conversion
      */
     private FormatString[] parse(String s) {
         ArrayList<FormatString> al = new ArrayList<>();
-        Matcher m = fsPattern.matcher(s);
         for (int i = 0, len = s.length(); i < len; ) {
-            if (m.find(i)) {
-                // Anything between the start of the string and the beginning
-                // of the format specifier is either fixed text or contains
-                // an invalid format string.
-                if (m.start() != i) {
-                    // Make sure we didn't miss any invalid format specifiers
-                    checkText(s, i, m.start());
-                    // Assume previous characters were fixed text
-                    al.add(new FixedString(s.substring(i, m.start())));
-                }
-
-                al.add(new FormatSpecifier(m));
-                i = m.end();
-            } else {
-                // No more valid format specifiers.  Check for possible invalid
-                // format specifiers.
-                checkText(s, i, len);
+            int start = s.indexOf('%', i);
+            if (start < 0) {
                 // The rest of the string is fixed text
                 al.add(new FixedString(s.substring(i)));
                 break;
             }
+            if (start != i)
+                al.add(new FixedString(s.substring(i, start)));
+            i = parseSpecifier(s, start, al);
         }
         return al.toArray(new FormatString[al.size()]);
     }
 
+    /**
+     * Parses the format specifier starting at the '%' at {@code start} and
+     * returns the index following it.
+     */
+    private int parseSpecifier(String s, int start, ArrayList<FormatString> al) {
+        int len = s.length();
+        int i = start + 1;
+
+        String index = null;
+        int end = digits(s, i);
+        if (end > i && end < len && s.charAt(end) == '$') {
+            index = s.substring(i, end + 1);
+            i = end + 1;
+        }
+
+        end = i;
+        while (end < len && FLAG_CHARS.indexOf(s.charAt(end)) >= 0)
+            end++;
+        String flags = s.substring(i, end);
+        i = end;
+
+        String width = null;
+        end = digits(s, i);
+        if (end > i) {
+            width = s.substring(i, end);
+            i = end;
+        }
+
+        String precision = null;
+        if (i < len && s.charAt(i) == '.') {
+            end = digits(s, i + 1);
+            if (end == i + 1)
+                checkText(s, start, len);   // throws
+            precision = s.substring(i, end);
+            i = end;
+        }
+
+        String tT = null;
+        if (i + 1 < len && (s.charAt(i) == 't' || s.charAt(i) == 'T')
+                && isConversionChar(s.charAt(i + 1))) {
+            tT = s.substring(i, i + 1);
+            i++;
+        }
+
+        if (i == len || !isConversionChar(s.charAt(i)))
+            checkText(s, start, len);       // throws
+        al.add(new FormatSpecifier(index, flags, width, precision, tT,
+                                   s.substring(i, i + 1)));
+        return i + 1;
+    }
+
+    private static int digits(String s, int i) {
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+            i++;
+        return i;
+    }
+
+    private static boolean isConversionChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '%';
+    }
+
     private static void checkText(String s, int start, int end) {
         for (int i = start; i < end; i++) {
             // Any '%' found in the region starts an invalid format specifier.
@@ -2702,22 +3001,20 @@ public final class Formatter implements Closeable, Flushable {
             return c;
         }
 
-        FormatSpecifier(Matcher m) {
-            int idx = 1;
+        FormatSpecifier(String index, String flags, String width,
+                        String precision, String tT, String conversion) {
+            index(index);
+            flags(flags);
+            width(width);
+            precision(precision);
 
-            index(m.group(idx++));
-            flags(m.group(idx++));
-            width(m.group(idx++));
-            precision(m.group(idx++));
-
-            String tT = m.group(idx++);
             if (tT != null) {
                 dt = true;
                 if (tT.equals("T"))
                     f.add(Flags.UPPERCASE);
             }
 
-            conversion(m.group(idx));
+            conversion(conversion);
 
             if (dt)
                 checkDateTime();
@@ -2735,6 +3032,19 @@ public final class Formatter implements Closeable, Flushable {
                 throw new UnknownFormatConversionException(String.valueOf(c));
         }
 
+        /**
+         * Copies a checked specifier of a compiled format, to print to this
+         * formatter.
+         */
+        FormatSpecifier(FormatSpecifier template) {
+            index = template.index;
+            f = template.f;
+            width = template.width;
+            precision = template.precision;
+            dt = template.dt;
+            c = template.c;
+        }
+
         public void print(Object arg, Locale l) throws IOException {
             if (dt) {
                 printDateTime(arg, l);
@@ -101,6 +101,19 @@ public class IntSummaryStatistics implements IntConsumer {
         max = Math.max(max, other.max);
     }
 
+    /**
+     * Records a batch of values summarized by the caller, as if each of
+     * the {@code n} values had been passed to {@link #accept(int)}.  Used
+     * by {@link ArrayKernels} to fold an array range into these statistics
+     * in one step.
+     */
+    void acceptAll(long sum, long n, int min, int max) {
+        count += n;
+        this.sum += sum;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+
     /**
      * Returns the count of values recorded.
      *
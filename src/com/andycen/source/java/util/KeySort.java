@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stable sorts of object arrays by extracted keys, in the
+ * decorate-sort-undecorate style: the key of every element is extracted
+ * exactly once into a separate array, the positions of the elements are
+ * sorted by those keys, and the elements are then moved into place in one
+ * final pass.
+ *
+ * <p>A {@link Comparator} built with {@link Comparator#comparing(Function)}
+ * extracts both keys on every one of the O(n log n) comparisons made by
+ * {@link TimSort}.  With the keys extracted up front, primitive keys are
+ * sorted by {@link RadixSort} without any comparisons at all, and
+ * {@code Comparable} keys are compared without being recomputed.
+ *
+ * <p>All exposed methods are package-private, designed to be invoked from
+ * public methods (in class Arrays and the List implementations) after
+ * performing any necessary array bounds checks.
+ *
+ * @since 1.8
+ */
+final class KeySort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private KeySort() {}
+
+    /**
+     * If the number of elements to be sorted by {@code Comparable} keys is
+     * less than this constant, insertion sort is used in preference to
+     * merge sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Sorts the specified range of the array by the {@code long} keys
+     * that {@code keyExtractor} computes for its elements.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param keyExtractor the function computing the sort key of an element
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void sortByLongKey(Object[] a, int lo, int hi,
+                                  ToLongFunction<? super T> keyExtractor) {
+        int n = hi - lo;
+        long[] keys = new long[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; ++i) {
+            long k = keyExtractor.applyAsLong((T) a[lo + i]);
+            keys[i] = k;
+            if (i > 0 && k < keys[i - 1])
+                sorted = false;
+        }
+        if (!sorted)
+            permute(a, lo, n, keys);
+    }
+
+    /**
+     * Sorts the specified range of the array by the {@code double} keys
+     * that {@code keyExtractor} computes for its elements.  Keys are
+     * ordered as by {@link Double#compare(double, double)}.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param keyExtractor the function computing the sort key of an element
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void sortByDoubleKey(Object[] a, int lo, int hi,
+                                    ToDoubleFunction<? super T> keyExtractor) {
+        int n = hi - lo;
+        long[] keys = new long[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; ++i) {
+            /*
+             * doubleToLongBits collapses all NaNs into one, and flipping
+             * the magnitude bits of negative values makes signed long
+             * order agree with Double.compare, -0.0 before 0.0 included.
+             */
+            long bits = Double.doubleToLongBits(keyExtractor.applyAsDouble((T) a[lo + i]));
+            long k = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            keys[i] = k;
+            if (i > 0 && k < keys[i - 1])
+                sorted = false;
+        }
+        if (!sorted)
+            permute(a, lo, n, keys);
+    }
+
+    /**
+     * Stably sorts the positions [0, n) by their keys, then moves the
+     * elements of the range into sorted order.
+     */
+    private static void permute(Object[] a, int lo, int n, long[] keys) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i)
+            order[i] = i;
+        RadixSort.sort(keys, order, n);
+        Object[] copy = Arrays.copyOfRange(a, lo, lo + n);
+        for (int i = 0; i < n; ++i)
+            a[lo + i] = copy[order[i]];
+    }
+
+    /**
+     * Sorts the specified range of the array by the {@code Comparable}
+     * keys that {@code keyExtractor} computes for its elements.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param keyExtractor the function computing the sort key of an element
+     * @throws NullPointerException if a computed key is null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T, U extends Comparable<? super U>> void sortByKey(
+            Object[] a, int lo, int hi,
+            Function<? super T, ? extends U> keyExtractor) {
+        int n = hi - lo;
+        Comparable[] keys = new Comparable[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; ++i) {
+            Comparable k = Objects.requireNonNull(keyExtractor.apply((T) a[lo + i]));
+            keys[i] = k;
+            if (i > 0 && k.compareTo(keys[i - 1]) < 0)
+                sorted = false;
+        }
+        if (sorted)
+            return;
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i)
+            order[i] = i;
+        mergeSort(order, new int[n], 0, n, keys);
+        Object[] copy = Arrays.copyOfRange(a, lo, hi);
+        for (int i = 0; i < n; ++i)
+            a[lo + i] = copy[order[i]];
+    }
+
+    /**
+     * Stably sorts order[lo, hi) by the keys the positions refer to, using
+     * tmp[lo, hi) as merge space.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void mergeSort(int[] order, int[] tmp, int lo, int hi,
+                                  Comparable[] keys) {
+        if (hi - lo < INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; ++i) {
+                int v = order[i];
+                Comparable k = keys[v];
+                int j = i - 1;
+                for (; j >= lo && keys[order[j]].compareTo(k) > 0; --j)
+                    order[j + 1] = order[j];
+                order[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(order, tmp, lo, mid, keys);
+        mergeSort(order, tmp, mid, hi, keys);
+        // Already in order across the split: nothing to merge
+        if (keys[order[mid - 1]].compareTo(keys[order[mid]]) <= 0)
+            return;
+        System.arraycopy(order, lo, tmp, lo, hi - lo);
+        for (int i = lo, p = lo, q = mid; i < hi; ++i) {
+            if (q >= hi || p < mid && keys[tmp[p]].compareTo(keys[tmp[q]]) <= 0)
+                order[i] = tmp[p++];
+            else
+                order[i] = tmp[q++];
+        }
+    }
+}
@@ -25,6 +25,9 @@
 
 package java.util;
 
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 /**
@@ -483,6 +486,106 @@ public interface List<E> extends Collection<E> {
         }
     }
 
+    /**
+     * Sorts this list into ascending order of the {@code long} keys that the
+     * given function extracts from its elements.  The sort is stable, and
+     * gives the same result as {@code sort(Comparator.comparingLong(keyExtractor))},
+     * but extracts the key of each element only once.
+     *
+     * <p>This list must be modifiable, but need not be resizable.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByLongKey(Object[],
+     * ToLongFunction)}, and iterates over this list resetting each element
+     * from the corresponding position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     * @since 1.8
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sortByLongKey(ToLongFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByLongKey(a, (ToLongFunction) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
+    /**
+     * Sorts this list into ascending order of the {@code double} keys that
+     * the given function extracts from its elements, as ordered by
+     * {@link Double#compare(double, double)}.  The sort is stable, and gives
+     * the same result as {@code sort(Comparator.comparingDouble(keyExtractor))},
+     * but extracts the key of each element only once.
+     *
+     * <p>This list must be modifiable, but need not be resizable.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByDoubleKey(Object[],
+     * ToDoubleFunction)}, and iterates over this list resetting each element
+     * from the corresponding position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     * @since 1.8
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sortByDoubleKey(ToDoubleFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByDoubleKey(a, (ToDoubleFunction) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
+    /**
+     * Sorts this list into ascending order of the {@link Comparable} keys
+     * that the given function extracts from its elements.  The sort is
+     * stable, and gives the same result as {@code
+     * sort(Comparator.comparing(keyExtractor))}, but extracts the key of each
+     * element only once.
+     *
+     * <p>This list must be modifiable, but need not be resizable.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with {@link Arrays#sortByKey(Object[],
+     * Function)}, and iterates over this list resetting each element from
+     * the corresponding position in the array.
+     *
+     * @param <U> the type of the sort key
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null or
+     *         returns null for an element
+     * @throws ClassCastException if the extracted keys are not
+     *         <i>mutually comparable</i>
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     * @since 1.8
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default <U extends Comparable<? super U>> void sortByKey(
+            Function<? super E, ? extends U> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByKey(a, (Function) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
     /**
      * Removes all of the elements from this list (optional operation).
      * The list will be empty after this call returns.
@@ -0,0 +1,790 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Least-significant-digit radix sort for {@code int}, {@code long},
+ * {@code float} and {@code double} arrays, in sequential and parallel
+ * forms.
+ *
+ * <p>Keys are sorted eight bits at a time.  Each key is first mapped to
+ * an unsigned integer with the same ordering: the sign bit of integral
+ * keys is flipped, and floating-point keys use the IEEE 754 trick of
+ * flipping every bit of negative values and only the sign bit of
+ * non-negative ones, which orders {@code -0.0} before {@code 0.0} as
+ * {@link Double#compare} does.  NaNs have no place in that ordering and
+ * must have been moved out of the range by the caller, as
+ * {@link DualPivotQuicksort} already does in its first phase.
+ *
+ * <p>A single read of the input computes the digit histograms of every
+ * pass; a pass whose digit is the same for all keys is skipped.  Skewed
+ * inputs, such as timestamps that share their high-order bytes or ids
+ * drawn from a narrow range, therefore cost only as many passes as they
+ * have distinct digit positions.  Already sorted and nearly sorted inputs
+ * never reach this class: {@code DualPivotQuicksort} detects them during
+ * its run scan and merges the runs instead.
+ *
+ * <p>The parallel variants split the range into chunks that are
+ * histogrammed and scattered concurrently on the
+ * {@link ForkJoinPool#commonPool() common pool}.  Each chunk scatters
+ * into offsets reserved for it within every bucket, so no two tasks write
+ * the same slot and the sort stays stable, one pass at a time.
+ *
+ * All exposed methods are package-private, designed to be invoked
+ * from public methods (in class Arrays) or from DualPivotQuicksort
+ * after performing any necessary array bounds checks.
+ *
+ * @since 1.8
+ */
+final class RadixSort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RadixSort() {}
+
+    /*
+     * Tuning parameters.
+     */
+
+    /**
+     * If the length of an unstructured array to be sorted is at least this
+     * constant, radix sort is used in preference to Quicksort.
+     */
+    static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+    /**
+     * If the length of an array to be sorted in parallel is at least this
+     * constant, parallel radix sort is used in preference to the parallel
+     * sort-merge of ArraysParallelSortHelpers.
+     */
+    static final int PARALLEL_RADIX_SORT_THRESHOLD = 1 << 21;
+
+    /**
+     * The minimum number of elements handled by one task of a parallel
+     * radix sort.
+     */
+    private static final int MIN_CHUNK = 1 << 16;
+
+    /**
+     * If an array to be sorted in parallel has fewer descents than this,
+     * it is nearly sorted and left to the run-merging sort-merge.
+     */
+    private static final int MAX_DESCENT_COUNT = 67;
+
+    private static final int DIGIT_BITS = 8;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = BUCKETS - 1;
+
+    /*
+     * Sort-order preserving key mappings.
+     */
+
+    private static int key(int v) {
+        return v ^ Integer.MIN_VALUE;
+    }
+
+    private static long key(long v) {
+        return v ^ Long.MIN_VALUE;
+    }
+
+    private static int key(float v) {
+        int bits = Float.floatToRawIntBits(v);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    private static long key(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns true if the histogram at {@code count[base..]} holds all
+     * {@code n} keys in one bucket, so that its pass would move nothing.
+     */
+    private static boolean singleBucket(int[] count, int base, int n) {
+        for (int b = base, end = base + BUCKETS; b < end; ++b) {
+            int c = count[b];
+            if (c != 0)
+                return c == n;
+        }
+        return true;
+    }
+
+    /**
+     * Converts the histogram at {@code count[base..]} in place into the
+     * starting offsets of each bucket in a destination starting at
+     * {@code origin}.
+     */
+    private static void toOffsets(int[] count, int base, int origin) {
+        for (int b = base, end = base + BUCKETS, sum = origin; b < end; ++b) {
+            int c = count[b];
+            count[b] = sum;
+            sum += c;
+        }
+    }
+
+    /*
+     * Sequential sorts.  The parameters follow DualPivotQuicksort: the
+     * range is [left, right] inclusive, and the work array slice is used
+     * as the scatter buffer if it is large enough.
+     */
+
+    /**
+     * Sorts the specified range of the array.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    static void sort(int[] a, int left, int right,
+                     int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 * BUCKETS];
+        for (int i = left; i <= right; ++i) {
+            int k = key(a[i]);
+            ++count[k & DIGIT_MASK];
+            ++count[BUCKETS + ((k >>> 8) & DIGIT_MASK)];
+            ++count[2 * BUCKETS + ((k >>> 16) & DIGIT_MASK)];
+            ++count[3 * BUCKETS + (k >>> 24)];
+        }
+        int[] src = a, dst = work;
+        int so = left, d = workBase;
+        for (int pass = 0; pass < 4; ++pass) {
+            int base = pass * BUCKETS, shift = pass * DIGIT_BITS;
+            if (singleBucket(count, base, n))
+                continue;
+            toOffsets(count, base, d);
+            for (int i = so, end = so + n; i < end; ++i) {
+                int v = src[i];
+                dst[count[base + ((key(v) >>> shift) & DIGIT_MASK)]++] = v;
+            }
+            int[] t = src; src = dst; dst = t;
+            int o = so; so = d; d = o;
+        }
+        if (src != a)
+            System.arraycopy(src, so, a, left, n);
+    }
+
+    /**
+     * Sorts the specified range of the array.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    static void sort(long[] a, int left, int right,
+                     long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 * BUCKETS];
+        for (int i = left; i <= right; ++i) {
+            long k = key(a[i]);
+            for (int base = 0; base < 8 * BUCKETS; base += BUCKETS, k >>>= 8)
+                ++count[base + ((int) k & DIGIT_MASK)];
+        }
+        long[] src = a, dst = work;
+        int so = left, d = workBase;
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * BUCKETS, shift = pass * DIGIT_BITS;
+            if (singleBucket(count, base, n))
+                continue;
+            toOffsets(count, base, d);
+            for (int i = so, end = so + n; i < end; ++i) {
+                long v = src[i];
+                dst[count[base + ((int) (key(v) >>> shift) & DIGIT_MASK)]++] = v;
+            }
+            long[] t = src; src = dst; dst = t;
+            int o = so; so = d; d = o;
+        }
+        if (src != a)
+            System.arraycopy(src, so, a, left, n);
+    }
+
+    /**
+     * Sorts the specified range of the array, which must not contain NaN.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    static void sort(float[] a, int left, int right,
+                     float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 * BUCKETS];
+        for (int i = left; i <= right; ++i) {
+            int k = key(a[i]);
+            ++count[k & DIGIT_MASK];
+            ++count[BUCKETS + ((k >>> 8) & DIGIT_MASK)];
+            ++count[2 * BUCKETS + ((k >>> 16) & DIGIT_MASK)];
+            ++count[3 * BUCKETS + (k >>> 24)];
+        }
+        float[] src = a, dst = work;
+        int so = left, d = workBase;
+        for (int pass = 0; pass < 4; ++pass) {
+            int base = pass * BUCKETS, shift = pass * DIGIT_BITS;
+            if (singleBucket(count, base, n))
+                continue;
+            toOffsets(count, base, d);
+            for (int i = so, end = so + n; i < end; ++i) {
+                float v = src[i];
+                dst[count[base + ((key(v) >>> shift) & DIGIT_MASK)]++] = v;
+            }
+            float[] t = src; src = dst; dst = t;
+            int o = so; so = d; d = o;
+        }
+        if (src != a)
+            System.arraycopy(src, so, a, left, n);
+    }
+
+    /**
+     * Sorts the specified range of the array, which must not contain NaN.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    static void sort(double[] a, int left, int right,
+                     double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 * BUCKETS];
+        for (int i = left; i <= right; ++i) {
+            long k = key(a[i]);
+            for (int base = 0; base < 8 * BUCKETS; base += BUCKETS, k >>>= 8)
+                ++count[base + ((int) k & DIGIT_MASK)];
+        }
+        double[] src = a, dst = work;
+        int so = left, d = workBase;
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * BUCKETS, shift = pass * DIGIT_BITS;
+            if (singleBucket(count, base, n))
+                continue;
+            toOffsets(count, base, d);
+            for (int i = so, end = so + n; i < end; ++i) {
+                double v = src[i];
+                dst[count[base + ((int) (key(v) >>> shift) & DIGIT_MASK)]++] = v;
+            }
+            double[] t = src; src = dst; dst = t;
+            int o = so; so = d; d = o;
+        }
+        if (src != a)
+            System.arraycopy(src, so, a, left, n);
+    }
+
+    /**
+     * If the number of keys to be sorted together with their values is
+     * less than this constant, insertion sort is used in preference to
+     * radix sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 64;
+
+    /**
+     * Sorts the first {@code n} keys into ascending order and applies the
+     * same permutation to the first {@code n} values.  The sort is stable:
+     * values whose keys are equal keep their relative order.  Used by
+     * KeySort to order elements by extracted primitive keys.
+     *
+     * @param keys the keys to be sorted
+     * @param values the values to be permuted alongside the keys
+     * @param n the number of keys and values to sort
+     */
+    static void sort(long[] keys, int[] values, int n) {
+        if (n < INSERTION_SORT_THRESHOLD) {
+            for (int i = 1; i < n; ++i) {
+                long k = keys[i];
+                int v = values[i], j = i - 1;
+                for (; j >= 0 && keys[j] > k; --j) {
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                }
+                keys[j + 1] = k;
+                values[j + 1] = v;
+            }
+            return;
+        }
+        int[] count = new int[8 * BUCKETS];
+        for (int i = 0; i < n; ++i) {
+            long k = key(keys[i]);
+            for (int base = 0; base < 8 * BUCKETS; base += BUCKETS, k >>>= 8)
+                ++count[base + ((int) k & DIGIT_MASK)];
+        }
+        long[] srcKeys = keys, dstKeys = new long[n];
+        int[] srcValues = values, dstValues = new int[n];
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * BUCKETS, shift = pass * DIGIT_BITS;
+            if (singleBucket(count, base, n))
+                continue;
+            toOffsets(count, base, 0);
+            for (int i = 0; i < n; ++i) {
+                long k = srcKeys[i];
+                int j = count[base + ((int) (key(k) >>> shift) & DIGIT_MASK)]++;
+                dstKeys[j] = k;
+                dstValues[j] = srcValues[i];
+            }
+            long[] tk = srcKeys; srcKeys = dstKeys; dstKeys = tk;
+            int[] tv = srcValues; srcValues = dstValues; dstValues = tv;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcValues, 0, values, 0, n);
+        }
+    }
+
+    /*
+     * Parallel sorts.  The range is [fromIndex, toIndex) as in the public
+     * Arrays methods.  Each returns false, without touching the array, if
+     * the range is nearly sorted; the caller should then fall back to the
+     * run-merging parallel sort-merge, which handles such input in
+     * linear time.
+     */
+
+    /**
+     * Returns the number of chunks a parallel sort of {@code n} elements
+     * is split into: four per unit of common pool parallelism, but none
+     * smaller than MIN_CHUNK.
+     */
+    private static int chunkCount(int n) {
+        int p = ForkJoinPool.getCommonPoolParallelism() << 2;
+        return Math.max(1, Math.min(p, n / MIN_CHUNK));
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @return false if the range is nearly sorted and was left untouched
+     */
+    static boolean parallelSort(int[] a, int fromIndex, int toIndex) {
+        int descents = 0;
+        for (int i = fromIndex + 1; i < toIndex && descents < MAX_DESCENT_COUNT; ++i)
+            if (a[i - 1] > a[i])
+                ++descents;
+        if (descents < MAX_DESCENT_COUNT)
+            return false;
+        new IntSorter(a, fromIndex, toIndex - fromIndex).sort();
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @return false if the range is nearly sorted and was left untouched
+     */
+    static boolean parallelSort(long[] a, int fromIndex, int toIndex) {
+        int descents = 0;
+        for (int i = fromIndex + 1; i < toIndex && descents < MAX_DESCENT_COUNT; ++i)
+            if (a[i - 1] > a[i])
+                ++descents;
+        if (descents < MAX_DESCENT_COUNT)
+            return false;
+        new LongSorter(a, fromIndex, toIndex - fromIndex).sort();
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel.  NaNs are moved
+     * to the end of the range first, as DualPivotQuicksort does.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @return false if the range is nearly sorted and was left untouched
+     */
+    static boolean parallelSort(float[] a, int fromIndex, int toIndex) {
+        int descents = 0;
+        for (int i = fromIndex + 1; i < toIndex && descents < MAX_DESCENT_COUNT; ++i)
+            if (a[i - 1] > a[i])
+                ++descents;
+        if (descents < MAX_DESCENT_COUNT)
+            return false;
+        int right = toIndex - 1;
+        while (right >= fromIndex && Float.isNaN(a[right]))
+            --right;
+        for (int k = right; --k >= fromIndex; ) {
+            float ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[right];
+                a[right] = ak;
+                --right;
+            }
+        }
+        new FloatSorter(a, fromIndex, right + 1 - fromIndex).sort();
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel.  NaNs are moved
+     * to the end of the range first, as DualPivotQuicksort does.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @return false if the range is nearly sorted and was left untouched
+     */
+    static boolean parallelSort(double[] a, int fromIndex, int toIndex) {
+        int descents = 0;
+        for (int i = fromIndex + 1; i < toIndex && descents < MAX_DESCENT_COUNT; ++i)
+            if (a[i - 1] > a[i])
+                ++descents;
+        if (descents < MAX_DESCENT_COUNT)
+            return false;
+        int right = toIndex - 1;
+        while (right >= fromIndex && Double.isNaN(a[right]))
+            --right;
+        for (int k = right; --k >= fromIndex; ) {
+            double ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[right];
+                a[right] = ak;
+                --right;
+            }
+        }
+        new DoubleSorter(a, fromIndex, right + 1 - fromIndex).sort();
+        return true;
+    }
+
+    /**
+     * Shared driver of the parallel sorts.  Subclasses supply the two
+     * per-chunk steps for their element type; this class schedules them,
+     * decides which passes can be skipped, and turns the per-chunk
+     * histograms into per-chunk scatter offsets.
+     */
+    private abstract static class ParallelSorter {
+        final int n, chunks, chunkSize, passes;
+        final int[][] count;      // count[chunk][bucket], reused per pass
+        int srcOff, dstOff;       // origins of the current source and target
+
+        ParallelSorter(int n, int passes) {
+            this.n = n;
+            this.passes = passes;
+            this.chunks = chunkCount(n);
+            this.chunkSize = (n + chunks - 1) / chunks;
+            this.count = new int[chunks][BUCKETS * passes];
+        }
+
+        /**
+         * Adds the digits of every pass of the keys in chunk {@code c}
+         * to {@code count[c]}.
+         */
+        abstract void histogramAll(int c);
+
+        /**
+         * Counts the digit at {@code shift} of the keys in chunk {@code c}
+         * of the current source into {@code count[c][0..BUCKETS)}.
+         */
+        abstract void histogram(int c, int shift);
+
+        /**
+         * Scatters chunk {@code c} of the current source into the current
+         * target, using the offsets in {@code count[c][0..BUCKETS)}.
+         */
+        abstract void scatter(int c, int shift);
+
+        /** Swaps the roles of the source and target arrays. */
+        abstract void swap();
+
+        /** Copies the result back into the array if it ended in the buffer. */
+        abstract void finish();
+
+        final int lo(int c) { return srcOff + Math.min(n, c * chunkSize); }
+        final int hi(int c) { return srcOff + Math.min(n, (c + 1) * chunkSize); }
+
+        final void sort() {
+            runAll(PHASE_HISTOGRAM_ALL, 0);
+            int[] totals = new int[BUCKETS * passes];
+            for (int[] row : count)
+                for (int b = 0; b < totals.length; ++b)
+                    totals[b] += row[b];
+            for (int pass = 0; pass < passes; ++pass) {
+                if (singleBucket(totals, pass * BUCKETS, n))
+                    continue;
+                int shift = pass * DIGIT_BITS;
+                for (int[] row : count)
+                    Arrays.fill(row, 0, BUCKETS, 0);
+                runAll(PHASE_HISTOGRAM, shift);
+                // bucket-major, chunk-minor offsets keep the sort stable
+                for (int b = 0, sum = dstOff; b < BUCKETS; ++b) {
+                    for (int c = 0; c < chunks; ++c) {
+                        int k = count[c][b];
+                        count[c][b] = sum;
+                        sum += k;
+                    }
+                }
+                runAll(PHASE_SCATTER, shift);
+                swap();
+            }
+            finish();
+        }
+
+        private void runAll(int phase, int shift) {
+            if (chunks == 1) {
+                new Chunk(this, 0, phase, shift).compute();
+                return;
+            }
+            Chunk[] tasks = new Chunk[chunks];
+            for (int c = 0; c < chunks; ++c)
+                tasks[c] = new Chunk(this, c, phase, shift);
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+    private static final int PHASE_HISTOGRAM_ALL = 0;
+    private static final int PHASE_HISTOGRAM = 1;
+    private static final int PHASE_SCATTER = 2;
+
+    /**
+     * One phase of a parallel sort applied to one chunk.
+     */
+    private static final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 2446542900576103244L;
+        final ParallelSorter sorter;
+        final int c, phase, shift;
+        Chunk(ParallelSorter sorter, int c, int phase, int shift) {
+            this.sorter = sorter; this.c = c;
+            this.phase = phase; this.shift = shift;
+        }
+        protected void compute() {
+            switch (phase) {
+            case PHASE_HISTOGRAM_ALL: sorter.histogramAll(c); break;
+            case PHASE_HISTOGRAM:     sorter.histogram(c, shift); break;
+            default:                  sorter.scatter(c, shift); break;
+            }
+        }
+    }
+
+    private static final class IntSorter extends ParallelSorter {
+        final int[] a;
+        int[] src, dst;
+        final int base;
+        IntSorter(int[] a, int base, int n) {
+            super(n, 4);
+            this.a = this.src = a;
+            this.dst = new int[n];
+            this.base = this.srcOff = base;
+            this.dstOff = 0;
+        }
+        void histogramAll(int c) {
+            int[] cnt = count[c], s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                int k = key(s[i]);
+                ++cnt[k & DIGIT_MASK];
+                ++cnt[BUCKETS + ((k >>> 8) & DIGIT_MASK)];
+                ++cnt[2 * BUCKETS + ((k >>> 16) & DIGIT_MASK)];
+                ++cnt[3 * BUCKETS + (k >>> 24)];
+            }
+        }
+        void histogram(int c, int shift) {
+            int[] cnt = count[c], s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i)
+                ++cnt[(key(s[i]) >>> shift) & DIGIT_MASK];
+        }
+        void scatter(int c, int shift) {
+            int[] cnt = count[c], s = src, t = dst;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                int v = s[i];
+                t[cnt[(key(v) >>> shift) & DIGIT_MASK]++] = v;
+            }
+        }
+        void swap() {
+            int[] t = src; src = dst; dst = t;
+            int o = srcOff; srcOff = dstOff; dstOff = o;
+        }
+        void finish() {
+            if (src != a)
+                System.arraycopy(src, srcOff, a, base, n);
+        }
+    }
+
+    private static final class LongSorter extends ParallelSorter {
+        final long[] a;
+        long[] src, dst;
+        final int base;
+        LongSorter(long[] a, int base, int n) {
+            super(n, 8);
+            this.a = this.src = a;
+            this.dst = new long[n];
+            this.base = this.srcOff = base;
+            this.dstOff = 0;
+        }
+        void histogramAll(int c) {
+            int[] cnt = count[c];
+            long[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                long k = key(s[i]);
+                for (int b = 0; b < 8 * BUCKETS; b += BUCKETS, k >>>= 8)
+                    ++cnt[b + ((int) k & DIGIT_MASK)];
+            }
+        }
+        void histogram(int c, int shift) {
+            int[] cnt = count[c];
+            long[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i)
+                ++cnt[(int) (key(s[i]) >>> shift) & DIGIT_MASK];
+        }
+        void scatter(int c, int shift) {
+            int[] cnt = count[c];
+            long[] s = src, t = dst;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                long v = s[i];
+                t[cnt[(int) (key(v) >>> shift) & DIGIT_MASK]++] = v;
+            }
+        }
+        void swap() {
+            long[] t = src; src = dst; dst = t;
+            int o = srcOff; srcOff = dstOff; dstOff = o;
+        }
+        void finish() {
+            if (src != a)
+                System.arraycopy(src, srcOff, a, base, n);
+        }
+    }
+
+    private static final class FloatSorter extends ParallelSorter {
+        final float[] a;
+        float[] src, dst;
+        final int base;
+        FloatSorter(float[] a, int base, int n) {
+            super(n, 4);
+            this.a = this.src = a;
+            this.dst = new float[n];
+            this.base = this.srcOff = base;
+            this.dstOff = 0;
+        }
+        void histogramAll(int c) {
+            int[] cnt = count[c];
+            float[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                int k = key(s[i]);
+                ++cnt[k & DIGIT_MASK];
+                ++cnt[BUCKETS + ((k >>> 8) & DIGIT_MASK)];
+                ++cnt[2 * BUCKETS + ((k >>> 16) & DIGIT_MASK)];
+                ++cnt[3 * BUCKETS + (k >>> 24)];
+            }
+        }
+        void histogram(int c, int shift) {
+            int[] cnt = count[c];
+            float[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i)
+                ++cnt[(key(s[i]) >>> shift) & DIGIT_MASK];
+        }
+        void scatter(int c, int shift) {
+            int[] cnt = count[c];
+            float[] s = src, t = dst;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                float v = s[i];
+                t[cnt[(key(v) >>> shift) & DIGIT_MASK]++] = v;
+            }
+        }
+        void swap() {
+            float[] t = src; src = dst; dst = t;
+            int o = srcOff; srcOff = dstOff; dstOff = o;
+        }
+        void finish() {
+            if (src != a)
+                System.arraycopy(src, srcOff, a, base, n);
+        }
+    }
+
+    private static final class DoubleSorter extends ParallelSorter {
+        final double[] a;
+        double[] src, dst;
+        final int base;
+        DoubleSorter(double[] a, int base, int n) {
+            super(n, 8);
+            this.a = this.src = a;
+            this.dst = new double[n];
+            this.base = this.srcOff = base;
+            this.dstOff = 0;
+        }
+        void histogramAll(int c) {
+            int[] cnt = count[c];
+            double[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                long k = key(s[i]);
+                for (int b = 0; b < 8 * BUCKETS; b += BUCKETS, k >>>= 8)
+                    ++cnt[b + ((int) k & DIGIT_MASK)];
+            }
+        }
+        void histogram(int c, int shift) {
+            int[] cnt = count[c];
+            double[] s = src;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i)
+                ++cnt[(int) (key(s[i]) >>> shift) & DIGIT_MASK];
+        }
+        void scatter(int c, int shift) {
+            int[] cnt = count[c];
+            double[] s = src, t = dst;
+            for (int i = lo(c), hi = hi(c); i < hi; ++i) {
+                double v = s[i];
+                t[cnt[(int) (key(v) >>> shift) & DIGIT_MASK]++] = v;
+            }
+        }
+        void swap() {
+            double[] t = src; src = dst; dst = t;
+            int o = srcOff; srcOff = dstOff; dstOff = o;
+        }
+        void finish() {
+            if (src != a)
+                System.arraycopy(src, srcOff, a, base, n);
+        }
+    }
+}
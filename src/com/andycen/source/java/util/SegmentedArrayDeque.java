@@ -0,0 +1,754 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/**
+ * Segmented implementation of the {@link Deque} interface.  Like
+ * {@link ArrayDeque}, segmented array deques have no capacity
+ * restrictions, are not thread-safe, and prohibit null elements.
+ *
+ * <p>The elements are held in fixed-size segments of 256 elements, reached
+ * through a circular directory.  Growing the deque allocates one segment
+ * and never copies elements; only the directory, one reference per
+ * segment, is occasionally doubled.  Segments are released as soon as the
+ * elements they held have been removed, except for one spare segment that
+ * is kept to absorb a deque oscillating around a segment boundary, and
+ * the directory is halved when it is mostly unused.  A deque that drains
+ * after a load spike therefore returns to a footprint proportional to its
+ * size, where an {@code ArrayDeque} keeps the largest array it ever
+ * needed.  {@link #clear()} releases all of the storage.
+ *
+ * <p>Most {@code SegmentedArrayDeque} operations run in amortized constant
+ * time.  Exceptions include {@link #remove(Object) remove}, {@link
+ * #removeFirstOccurrence removeFirstOccurrence}, {@link #removeLastOccurrence
+ * removeLastOccurrence}, {@link #contains contains}, {@link #iterator
+ * iterator.remove()}, and the bulk operations, all of which run in linear
+ * time.
+ *
+ * <p>The iterators returned by this class's {@code iterator} method are
+ * <i>fail-fast</i>, as described in {@link ArrayDeque}.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces.
+ *
+ * @see     ArrayDeque
+ * @see     SegmentedArrayList
+ * @since   1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class SegmentedArrayDeque<E> extends AbstractCollection<E>
+                                    implements Deque<E>, Cloneable, Serializable
+{
+    private static final long serialVersionUID = -3104564934530766318L;
+
+    /**
+     * Number of elements in a segment, a power of two.
+     */
+    static final int SEGMENT_SHIFT = 8;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * The smallest directory allocated, a power of two.
+     */
+    private static final int MIN_DIRECTORY = 8;
+
+    /**
+     * The circular directory of segments; its length is zero or a power
+     * of two.  Segment k of the deque is
+     * directory[(first + k) & (directory.length - 1)] for k < segmentCount,
+     * and all other directory slots are null.
+     */
+    private transient Object[][] directory;
+
+    /** Directory index of the first segment. */
+    private transient int first;
+
+    /** The number of segments in use. */
+    private transient int segmentCount;
+
+    /**
+     * Position of the head element in the first segment.  The element at
+     * index i of the deque is at position head + i of the concatenated
+     * segments.  All slots not holding elements are null.
+     */
+    private transient int head;
+
+    /** The number of elements in the deque. */
+    private transient int size;
+
+    /** An empty segment kept for reuse, or null. */
+    private transient Object[] spare;
+
+    /** The number of structural modifications, for the iterators. */
+    private transient int modCount;
+
+    /**
+     * Constructs an empty deque.  No storage is allocated until the first
+     * element is added.
+     */
+    public SegmentedArrayDeque() {
+        directory = new Object[0][];
+    }
+
+    /**
+     * Constructs a deque containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection whose elements are to be placed into the deque
+     * @throws NullPointerException if the specified collection is null
+     */
+    public SegmentedArrayDeque(Collection<? extends E> c) {
+        this();
+        addAll(c);
+    }
+
+    // ******  Segment allocation and release ******
+
+    private Object[] segment(int k) {
+        return directory[(first + k) & (directory.length - 1)];
+    }
+
+    private Object[] newSegment() {
+        Object[] s = spare;
+        if (s == null)
+            return new Object[SEGMENT_SIZE];
+        spare = null;
+        return s;
+    }
+
+    /**
+     * Rebuilds the directory with the given capacity, unrolling the
+     * segments to start at index zero.
+     */
+    private void resizeDirectory(int capacity) {
+        Object[][] d = new Object[capacity][];
+        for (int k = 0; k < segmentCount; k++)
+            d[k] = segment(k);
+        directory = d;
+        first = 0;
+    }
+
+    private void addSegmentLast() {
+        if (segmentCount == directory.length)
+            resizeDirectory(Math.max(MIN_DIRECTORY, directory.length << 1));
+        directory[(first + segmentCount) & (directory.length - 1)] = newSegment();
+        segmentCount++;
+    }
+
+    private void addSegmentFirst() {
+        if (segmentCount == directory.length)
+            resizeDirectory(Math.max(MIN_DIRECTORY, directory.length << 1));
+        first = (first - 1) & (directory.length - 1);
+        directory[first] = newSegment();
+        segmentCount++;
+        head += SEGMENT_SIZE;
+    }
+
+    /**
+     * Releases the first (or last) segment, which holds no elements.
+     */
+    private void removeSegment(boolean atFirst) {
+        int mask = directory.length - 1;
+        int slot = atFirst ? first : (first + segmentCount - 1) & mask;
+        if (spare == null)
+            spare = directory[slot];
+        directory[slot] = null;
+        segmentCount--;
+        if (atFirst) {
+            first = (first + 1) & mask;
+            head -= SEGMENT_SIZE;
+        }
+        if (directory.length > MIN_DIRECTORY && segmentCount < directory.length >>> 2)
+            resizeDirectory(directory.length >>> 1);
+    }
+
+    /**
+     * Releases the segments that no longer hold elements after a removal
+     * at either end.
+     */
+    private void trimSegments() {
+        if (size == 0) {
+            while (segmentCount > 0)
+                removeSegment(true);
+            head = 0;
+            return;
+        }
+        while (head >= SEGMENT_SIZE)
+            removeSegment(true);
+        while (segmentCount << SEGMENT_SHIFT >= head + size + SEGMENT_SIZE)
+            removeSegment(false);
+    }
+
+    // ******  Element access ******
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int i) {
+        int p = head + i;
+        return (E) segment(p >>> SEGMENT_SHIFT)[p & SEGMENT_MASK];
+    }
+
+    private void setElementAt(int i, Object e) {
+        int p = head + i;
+        segment(p >>> SEGMENT_SHIFT)[p & SEGMENT_MASK] = e;
+    }
+
+    // The main insertion and extraction methods are addFirst,
+    // addLast, pollFirst, pollLast. The other methods are defined in
+    // terms of these.
+
+    /**
+     * Inserts the specified element at the front of this deque.
+     *
+     * @param e the element to add
+     * @throws NullPointerException if the specified element is null
+     */
+    public void addFirst(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        modCount++;
+        if (head == 0)
+            addSegmentFirst();
+        directory[first][--head] = e;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * <p>This method is equivalent to {@link #add}.
+     *
+     * @param e the element to add
+     * @throws NullPointerException if the specified element is null
+     */
+    public void addLast(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        modCount++;
+        int p = head + size;
+        if (p >>> SEGMENT_SHIFT == segmentCount)
+            addSegmentLast();
+        segment(p >>> SEGMENT_SHIFT)[p & SEGMENT_MASK] = e;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the front of this deque.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Deque#offerFirst})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Deque#offerLast})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E removeFirst() {
+        E x = pollFirst();
+        if (x == null)
+            throw new NoSuchElementException();
+        return x;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E removeLast() {
+        E x = pollLast();
+        if (x == null)
+            throw new NoSuchElementException();
+        return x;
+    }
+
+    public E pollFirst() {
+        if (size == 0)
+            return null;
+        modCount++;
+        Object[] s = directory[first];
+        @SuppressWarnings("unchecked")
+        E result = (E) s[head];
+        s[head++] = null;
+        size--;
+        if (head == SEGMENT_SIZE || size == 0)
+            trimSegments();
+        return result;
+    }
+
+    public E pollLast() {
+        if (size == 0)
+            return null;
+        modCount++;
+        E result = elementAt(size - 1);
+        setElementAt(size - 1, null);
+        size--;
+        if (((head + size) & SEGMENT_MASK) == 0)
+            trimSegments();
+        return result;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E getFirst() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return elementAt(0);
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E getLast() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return elementAt(size - 1);
+    }
+
+    public E peekFirst() {
+        return size == 0 ? null : elementAt(0);
+    }
+
+    public E peekLast() {
+        return size == 0 ? null : elementAt(size - 1);
+    }
+
+    /**
+     * Removes the first occurrence of the specified element in this
+     * deque (when traversing the deque from head to tail).
+     * If the deque does not contain the element, it is unchanged.
+     *
+     * @param o element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeFirstOccurrence(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++) {
+                if (o.equals(elementAt(i))) {
+                    delete(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the last occurrence of the specified element in this
+     * deque (when traversing the deque from head to tail).
+     * If the deque does not contain the element, it is unchanged.
+     *
+     * @param o element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeLastOccurrence(Object o) {
+        if (o != null) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (o.equals(elementAt(i))) {
+                    delete(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the element at index i of the deque, shifting whichever side
+     * of it is shorter.
+     */
+    private void delete(int i) {
+        if (i < size >>> 1) {
+            for (int j = i; j > 0; j--)
+                setElementAt(j, elementAt(j - 1));
+            pollFirst();
+        } else {
+            for (int j = i; j < size - 1; j++)
+                setElementAt(j, elementAt(j + 1));
+            pollLast();
+        }
+    }
+
+    // *** Queue methods ***
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * <p>This method is equivalent to {@link #addLast}.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Collection#add})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * <p>This method is equivalent to {@link #offerLast}.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    /**
+     * Retrieves and removes the head of the queue represented by this deque.
+     *
+     * <p>This method is equivalent to {@link #removeFirst}.
+     *
+     * @return the head of the queue represented by this deque
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E remove() {
+        return removeFirst();
+    }
+
+    /**
+     * Retrieves and removes the head of the queue represented by this deque
+     * (in other words, the first element of this deque), or returns
+     * {@code null} if this deque is empty.
+     *
+     * <p>This method is equivalent to {@link #pollFirst}.
+     *
+     * @return the head of the queue represented by this deque, or
+     *         {@code null} if this deque is empty
+     */
+    public E poll() {
+        return pollFirst();
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of the queue represented by
+     * this deque.
+     *
+     * <p>This method is equivalent to {@link #getFirst}.
+     *
+     * @return the head of the queue represented by this deque
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E element() {
+        return getFirst();
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of the queue represented by
+     * this deque, or returns {@code null} if this deque is empty.
+     *
+     * <p>This method is equivalent to {@link #peekFirst}.
+     *
+     * @return the head of the queue represented by this deque, or
+     *         {@code null} if this deque is empty
+     */
+    public E peek() {
+        return peekFirst();
+    }
+
+    // *** Stack methods ***
+
+    /**
+     * Pushes an element onto the stack represented by this deque.  In other
+     * words, inserts the element at the front of this deque.
+     *
+     * <p>This method is equivalent to {@link #addFirst}.
+     *
+     * @param e the element to push
+     * @throws NullPointerException if the specified element is null
+     */
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    /**
+     * Pops an element from the stack represented by this deque.  In other
+     * words, removes and returns the first element of this deque.
+     *
+     * <p>This method is equivalent to {@link #removeFirst()}.
+     *
+     * @return the element at the front of this deque (which is the top
+     *         of the stack represented by this deque)
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public E pop() {
+        return removeFirst();
+    }
+
+    // *** Collection Methods ***
+
+    /**
+     * Returns the number of elements in this deque.
+     *
+     * @return the number of elements in this deque
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this deque contains no elements.
+     *
+     * @return {@code true} if this deque contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in this deque.  The elements
+     * will be ordered from first (head) to last (tail).  This is the same
+     * order that elements would be dequeued (via successive calls to
+     * {@link #remove} or popped (via successive calls to {@link #pop}).
+     *
+     * @return an iterator over the elements in this deque
+     */
+    public Iterator<E> iterator() {
+        return new DeqIterator(false);
+    }
+
+    public Iterator<E> descendingIterator() {
+        return new DeqIterator(true);
+    }
+
+    private class DeqIterator implements Iterator<E> {
+        private final boolean descending;
+
+        /** Index of element to be returned by subsequent call to next. */
+        private int cursor;
+
+        /** Index of element returned by most recent call to next, or -1. */
+        private int lastRet = -1;
+
+        private int expectedModCount = modCount;
+
+        DeqIterator(boolean descending) {
+            this.descending = descending;
+            cursor = descending ? size - 1 : 0;
+        }
+
+        public boolean hasNext() {
+            return descending ? cursor >= 0 : cursor < size;
+        }
+
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            lastRet = cursor;
+            cursor += descending ? -1 : 1;
+            return elementAt(lastRet);
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            delete(lastRet);
+            // Indices past the deleted element are one lower now
+            if (!descending)
+                cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            while (hasNext())
+                action.accept(next());
+        }
+    }
+
+    /**
+     * Returns {@code true} if this deque contains the specified element.
+     *
+     * @param o object to be checked for containment in this deque
+     * @return {@code true} if this deque contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(elementAt(i)))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this deque.
+     *
+     * <p>This method is equivalent to {@link #removeFirstOccurrence(Object)}.
+     *
+     * @param o element to be removed from this deque, if present
+     * @return {@code true} if this deque contained the specified element
+     */
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    /**
+     * Removes all of the elements from this deque and releases their
+     * storage.  The deque will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        directory = new Object[0][];
+        first = segmentCount = head = size = 0;
+        spare = null;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this deque
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all of the elements in this deque
+     */
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        copyTo(a);
+        return a;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this deque in
+     * proper sequence (from first to last element); the runtime type of the
+     * returned array is that of the specified array.
+     *
+     * @param a the array into which the elements of the deque are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose
+     * @return an array containing all of the elements in this deque
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this deque
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size)
+            a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), size);
+        copyTo(a);
+        if (a.length > size)
+            a[size] = null;
+        return a;
+    }
+
+    private void copyTo(Object[] a) {
+        for (int i = 0; i < size; ) {
+            int p = head + i, off = p & SEGMENT_MASK;
+            int n = Math.min(size - i, SEGMENT_SIZE - off);
+            System.arraycopy(segment(p >>> SEGMENT_SHIFT), off, a, i, n);
+            i += n;
+        }
+    }
+
+    // *** Object methods ***
+
+    /**
+     * Returns a copy of this deque.
+     *
+     * @return a copy of this deque
+     */
+    public SegmentedArrayDeque<E> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            SegmentedArrayDeque<E> result = (SegmentedArrayDeque<E>) super.clone();
+            result.directory = directory.clone();
+            for (int k = 0; k < segmentCount; k++) {
+                int slot = (first + k) & (directory.length - 1);
+                result.directory[slot] = directory[slot].clone();
+            }
+            result.spare = null;
+            result.modCount = 0;
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+
+    /**
+     * Saves this deque to a stream (that is, serializes it).
+     *
+     * @serialData The current size ({@code int}) of the deque,
+     * followed by all of its elements (each an object reference) in
+     * first-to-last order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+            throws java.io.IOException {
+        s.defaultWriteObject();
+
+        // Write out size
+        s.writeInt(size);
+
+        // Write out elements in order.
+        for (int i = 0; i < size; i++)
+            s.writeObject(elementAt(i));
+    }
+
+    /**
+     * Reconstitutes this deque from a stream (that is, deserializes it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        int size = s.readInt();
+        if (size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        directory = new Object[0][];
+
+        // Read in all elements in the proper order.
+        for (int i = 0; i < size; i++)
+            addLast((E) s.readObject());
+    }
+}
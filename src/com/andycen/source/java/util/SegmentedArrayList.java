@@ -0,0 +1,711 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resizable-array implementation of the <tt>List</tt> interface that
+ * stores its elements in fixed-size segments rather than in one array.
+ * Implements all optional list operations, and permits all elements,
+ * including <tt>null</tt>.
+ *
+ * <p>A small list keeps its elements in a single array that grows by
+ * half, like {@link ArrayList}, until it reaches the segment size of 1024
+ * elements.  From then on the list grows one segment at a time, and only
+ * the directory of segment references is ever copied, so appending to a
+ * list of 100 million elements never copies the elements.  Element
+ * access takes one extra array load compared to <tt>ArrayList</tt>.
+ *
+ * <p>Unlike <tt>ArrayList</tt>, this list also gives memory back: when
+ * removals leave more than one trailing segment empty the unused segments
+ * are released, and {@link #clear()} releases all of the storage.  Long
+ * lived lists that absorb an occasional load spike therefore return to a
+ * footprint proportional to their size.
+ *
+ * <p>The <tt>size</tt>, <tt>isEmpty</tt>, <tt>get</tt>, <tt>set</tt>,
+ * <tt>iterator</tt>, and <tt>listIterator</tt> operations run in constant
+ * time.  The <tt>add</tt> operation runs in <i>amortized constant
+ * time</i>.  All of the other operations run in linear time.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a <tt>SegmentedArrayList</tt> instance
+ * concurrently, and at least one of the threads modifies the list
+ * structurally, it <i>must</i> be synchronized externally.
+ *
+ * <p>The iterators returned by this class's {@link #iterator() iterator}
+ * and {@link #listIterator(int) listIterator} methods are <em>fail-fast</em>,
+ * as described in {@link AbstractList}.
+ *
+ * @param <E> the type of elements in this list
+ *
+ * @see     ArrayList
+ * @see     SegmentedArrayDeque
+ * @since   1.8
+ */
+public class SegmentedArrayList<E> extends AbstractList<E>
+        implements List<E>, RandomAccess, Cloneable, java.io.Serializable
+{
+    private static final long serialVersionUID = 2857374939406329618L;
+
+    /**
+     * Number of elements in a full segment, a power of two.
+     */
+    static final int SEGMENT_SHIFT = 10;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Default capacity of the first segment.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final Object[][] EMPTY_DIRECTORY = {};
+
+    /**
+     * The segments holding the elements.  Element i is held in
+     * segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK].  When there is a
+     * single segment it may be shorter than SEGMENT_SIZE; otherwise every
+     * segment has SEGMENT_SIZE elements.  Slots at or beyond size are null.
+     */
+    private transient Object[][] segments;
+
+    /**
+     * The number of allocated segments.
+     */
+    private transient int segmentCount;
+
+    /**
+     * The size of the list (the number of elements it contains).
+     *
+     * @serial
+     */
+    private int size;
+
+    /**
+     * Constructs an empty list.  No storage is allocated until the first
+     * element is added.
+     */
+    public SegmentedArrayList() {
+        segments = EMPTY_DIRECTORY;
+    }
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param  initialCapacity  the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is negative
+     */
+    public SegmentedArrayList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        segments = EMPTY_DIRECTORY;
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Constructs a list containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection whose elements are to be placed into this list
+     * @throws NullPointerException if the specified collection is null
+     */
+    public SegmentedArrayList(Collection<? extends E> c) {
+        segments = EMPTY_DIRECTORY;
+        addAll(c);
+    }
+
+    /**
+     * Returns the number of elements the list can hold without allocating.
+     */
+    private int capacity() {
+        return segmentCount <= 1 ? (segmentCount == 0 ? 0 : segments[0].length)
+                                 : segmentCount << SEGMENT_SHIFT;
+    }
+
+    /**
+     * Increases the capacity of this <tt>SegmentedArrayList</tt> instance,
+     * if necessary, to ensure that it can hold at least the number of
+     * elements specified by the minimum capacity argument.
+     *
+     * @param   minCapacity   the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity())
+            grow(minCapacity);
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        if (minCapacity <= SEGMENT_SIZE && segmentCount <= 1) {
+            // Small list: grow the first segment by half
+            int oldCapacity = segmentCount == 0 ? 0 : segments[0].length;
+            int newCapacity = Math.max(DEFAULT_CAPACITY, oldCapacity + (oldCapacity >> 1));
+            newCapacity = Math.min(SEGMENT_SIZE, Math.max(newCapacity, minCapacity));
+            if (segments.length == 0)
+                segments = new Object[4][];
+            segments[0] = segmentCount == 0 ? new Object[newCapacity]
+                                            : Arrays.copyOf(segments[0], newCapacity);
+            segmentCount = 1;
+            return;
+        }
+        if (segmentCount == 1 && segments[0].length < SEGMENT_SIZE)
+            segments[0] = Arrays.copyOf(segments[0], SEGMENT_SIZE);
+        int needed = ((minCapacity - 1) >>> SEGMENT_SHIFT) + 1;
+        if (needed > segments.length)
+            segments = Arrays.copyOf(segments, Math.max(needed, segments.length << 1));
+        while (segmentCount < needed)
+            segments[segmentCount++] = new Object[SEGMENT_SIZE];
+    }
+
+    /**
+     * Releases the trailing segments that hold no elements, keeping one of
+     * them as headroom so that a list hovering around a segment boundary
+     * does not allocate on every add.  The directory is halved when it is
+     * mostly unused.
+     */
+    private void shrink() {
+        int keep = size == 0 ? 1 : ((size - 1) >>> SEGMENT_SHIFT) + 2;
+        if (segmentCount <= keep)
+            return;
+        Arrays.fill(segments, keep, segmentCount, null);
+        segmentCount = keep;
+        if (segments.length > 8 && segmentCount < segments.length >>> 2)
+            segments = Arrays.copyOf(segments, segments.length >>> 1);
+    }
+
+    /**
+     * Trims the capacity of this list to be close to its current size:
+     * unused segments are released, and the single segment of a small list
+     * is trimmed to the size of the list.
+     */
+    public void trimToSize() {
+        modCount++;
+        if (size == 0) {
+            segments = EMPTY_DIRECTORY;
+            segmentCount = 0;
+        } else if (segmentCount == 1) {
+            if (segments[0].length > size)
+                segments[0] = Arrays.copyOf(segments[0], size);
+            if (segments.length > 1)
+                segments = Arrays.copyOf(segments, 1);
+        } else {
+            int needed = ((size - 1) >>> SEGMENT_SHIFT) + 1;
+            segmentCount = needed;
+            segments = Arrays.copyOf(segments, needed);
+        }
+    }
+
+    /**
+     * Copies len elements from index src to index dst, segment by segment.
+     * The ranges may overlap.
+     */
+    private void move(int src, int dst, int len) {
+        Object[][] segs = segments;
+        if (dst > src) {
+            int s = src + len, d = dst + len;
+            while (len > 0) {
+                int sOff = (s - 1) & SEGMENT_MASK, dOff = (d - 1) & SEGMENT_MASK;
+                int n = Math.min(len, Math.min(sOff, dOff) + 1);
+                System.arraycopy(segs[(s - 1) >>> SEGMENT_SHIFT], sOff - n + 1,
+                                 segs[(d - 1) >>> SEGMENT_SHIFT], dOff - n + 1, n);
+                s -= n;
+                d -= n;
+                len -= n;
+            }
+        } else {
+            while (len > 0) {
+                int sOff = src & SEGMENT_MASK, dOff = dst & SEGMENT_MASK;
+                int n = Math.min(len, SEGMENT_SIZE - Math.max(sOff, dOff));
+                System.arraycopy(segs[src >>> SEGMENT_SHIFT], sOff,
+                                 segs[dst >>> SEGMENT_SHIFT], dOff, n);
+                src += n;
+                dst += n;
+                len -= n;
+            }
+        }
+    }
+
+    /**
+     * Sets the slots [from, to) to null.
+     */
+    private void clearSlots(int from, int to) {
+        while (from < to) {
+            int off = from & SEGMENT_MASK;
+            int n = Math.min(to - from, SEGMENT_SIZE - off);
+            Arrays.fill(segments[from >>> SEGMENT_SHIFT], off, off + n, null);
+            from += n;
+        }
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     *
+     * @return <tt>true</tt> if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     *
+     * @param o element whose presence in this list is to be tested
+     * @return <tt>true</tt> if this list contains the specified element
+     */
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified element
+     * in this list, or -1 if this list does not contain the element.
+     */
+    public int indexOf(Object o) {
+        for (int base = 0; base < size; base += SEGMENT_SIZE) {
+            Object[] seg = segments[base >>> SEGMENT_SHIFT];
+            int n = Math.min(SEGMENT_SIZE, size - base);
+            if (o == null) {
+                for (int i = 0; i < n; i++)
+                    if (seg[i] == null)
+                        return base + i;
+            } else {
+                for (int i = 0; i < n; i++)
+                    if (o.equals(seg[i]))
+                        return base + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the specified element
+     * in this list, or -1 if this list does not contain the element.
+     */
+    public int lastIndexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            Object e = segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK];
+            if (o == null ? e == null : o.equals(e))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a shallow copy of this <tt>SegmentedArrayList</tt> instance.
+     * (The elements themselves are not copied.)
+     *
+     * @return a clone of this <tt>SegmentedArrayList</tt> instance
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        try {
+            SegmentedArrayList<E> v = (SegmentedArrayList<E>) super.clone();
+            v.segments = segments.clone();
+            for (int i = 0; i < segmentCount; i++)
+                v.segments[i] = segments[i].clone();
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all of the elements in this list in
+     *         proper sequence
+     */
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        copyTo(a);
+        return a;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in proper
+     * sequence (from first to last element); the runtime type of the returned
+     * array is that of the specified array.
+     *
+     * @param a the array into which the elements of the list are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose.
+     * @return an array containing the elements of the list
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this list
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size)
+            a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), size);
+        copyTo(a);
+        if (a.length > size)
+            a[size] = null;
+        return a;
+    }
+
+    private void copyTo(Object[] a) {
+        for (int base = 0; base < size; base += SEGMENT_SIZE)
+            System.arraycopy(segments[base >>> SEGMENT_SHIFT], 0, a, base,
+                             Math.min(SEGMENT_SIZE, size - base));
+    }
+
+    // Positional Access Operations
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param  index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        rangeCheck(index);
+        return (E) segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+    }
+
+    /**
+     * Replaces the element at the specified position in this list with
+     * the specified element.
+     *
+     * @param index index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        rangeCheck(index);
+        Object[] seg = segments[index >>> SEGMENT_SHIFT];
+        E oldValue = (E) seg[index & SEGMENT_MASK];
+        seg[index & SEGMENT_MASK] = element;
+        return oldValue;
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param e element to be appended to this list
+     * @return <tt>true</tt> (as specified by {@link Collection#add})
+     */
+    public boolean add(E e) {
+        modCount++;
+        int s = size;
+        if (s == capacity())
+            grow(s + 1);
+        segments[s >>> SEGMENT_SHIFT][s & SEGMENT_MASK] = e;
+        size = s + 1;
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this
+     * list. Shifts the element currently at that position (if any) and
+     * any subsequent elements to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public void add(int index, E element) {
+        rangeCheckForAdd(index);
+        modCount++;
+        ensureCapacity(size + 1);
+        move(index, index + 1, size - index);
+        segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK] = element;
+        size++;
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * Shifts any subsequent elements to the left (subtracts one from their
+     * indices).
+     *
+     * @param index the index of the element to be removed
+     * @return the element that was removed from the list
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E remove(int index) {
+        E oldValue = get(index);
+        modCount++;
+        move(index + 1, index, size - index - 1);
+        int last = --size;
+        segments[last >>> SEGMENT_SHIFT][last & SEGMENT_MASK] = null;
+        if ((last & SEGMENT_MASK) == 0)
+            shrink();
+        return oldValue;
+    }
+
+    /**
+     * Removes the first occurrence of the specified element from this list,
+     * if it is present.
+     *
+     * @param o element to be removed from this list, if present
+     * @return <tt>true</tt> if this list contained the specified element
+     */
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Removes all of the elements from this list and releases their
+     * storage.  The list will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        segments = EMPTY_DIRECTORY;
+        segmentCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the end of
+     * this list, in the order that they are returned by the
+     * specified collection's Iterator.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return <tt>true</tt> if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size, c);
+    }
+
+    /**
+     * Inserts all of the elements in the specified collection into this
+     * list, starting at the specified position.
+     *
+     * @param index index at which to insert the first element from the
+     *              specified collection
+     * @param c collection containing elements to be added to this list
+     * @return <tt>true</tt> if this list changed as a result of the call
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(int index, Collection<? extends E> c) {
+        rangeCheckForAdd(index);
+        Object[] a = c.toArray();
+        int numNew = a.length;
+        modCount++;
+        if (numNew == 0)
+            return false;
+        ensureCapacity(size + numNew);
+        move(index, index + numNew, size - index);
+        for (int i = 0, dst = index; i < numNew; ) {
+            int off = dst & SEGMENT_MASK;
+            int n = Math.min(numNew - i, SEGMENT_SIZE - off);
+            System.arraycopy(a, i, segments[dst >>> SEGMENT_SHIFT], off, n);
+            i += n;
+            dst += n;
+        }
+        size += numNew;
+        return true;
+    }
+
+    /**
+     * Removes from this list all of the elements whose index is between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     *
+     * @throws IndexOutOfBoundsException if {@code fromIndex} or
+     *         {@code toIndex} is out of range
+     *         ({@code fromIndex < 0 ||
+     *          fromIndex >= size() ||
+     *          toIndex > size() ||
+     *          toIndex < fromIndex})
+     */
+    protected void removeRange(int fromIndex, int toIndex) {
+        modCount++;
+        move(toIndex, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        clearSlots(newSize, size);
+        size = newSize;
+        shrink();
+    }
+
+    private void rangeCheck(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: "+index+", Size: "+size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        for (int base = 0; base < size && modCount == expectedModCount; base += SEGMENT_SIZE) {
+            Object[] seg = segments[base >>> SEGMENT_SHIFT];
+            int n = Math.min(SEGMENT_SIZE, size - base);
+            for (int i = 0; i < n && modCount == expectedModCount; i++)
+                action.accept((E) seg[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        // Compact the survivors in one pass; nothing is modified until the
+        // filter has been applied to every element.
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        final BitSet removeSet = new BitSet(size);
+        int removeCount = 0;
+        for (int i = 0; modCount == expectedModCount && i < size; i++) {
+            final E element = (E) segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK];
+            if (filter.test(element)) {
+                removeSet.set(i);
+                removeCount++;
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (removeCount == 0)
+            return false;
+        final int newSize = size - removeCount;
+        for (int i = 0, j = 0; i < size && j < newSize; i++, j++) {
+            i = removeSet.nextClearBit(i);
+            segments[j >>> SEGMENT_SHIFT][j & SEGMENT_MASK] =
+                segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK];
+        }
+        clearSlots(newSize, size);
+        this.size = newSize;
+        modCount++;
+        shrink();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(UnaryOperator<E> operator) {
+        Objects.requireNonNull(operator);
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        for (int i = 0; modCount == expectedModCount && i < size; i++) {
+            Object[] seg = segments[i >>> SEGMENT_SHIFT];
+            seg[i & SEGMENT_MASK] = operator.apply((E) seg[i & SEGMENT_MASK]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        final int expectedModCount = modCount;
+        Object[] a = toArray();
+        Arrays.sort(a, (Comparator) c);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        for (int base = 0; base < size; base += SEGMENT_SIZE)
+            System.arraycopy(a, base, segments[base >>> SEGMENT_SHIFT], 0,
+                             Math.min(SEGMENT_SIZE, size - base));
+        modCount++;
+    }
+
+    /**
+     * Save the state of the <tt>SegmentedArrayList</tt> instance to a
+     * stream (that is, serialize it).
+     *
+     * @serialData The number of elements (int), followed by all of its
+     *             elements (each an <tt>Object</tt>) in the proper order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException{
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+        for (int i=0; i<size; i++) {
+            s.writeObject(segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK]);
+        }
+
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>SegmentedArrayList</tt> instance from a stream
+     * (that is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        segments = EMPTY_DIRECTORY;
+        segmentCount = 0;
+        size = 0;
+        ensureCapacity(n);
+        for (int i=0; i<n; i++) {
+            segments[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK] = s.readObject();
+        }
+        size = n;
+    }
+}
@@ -982,9 +982,9 @@ public final class Spliterators {
      * elements maintained in an unmodifiable {@code int[]} array.
      */
     static final class IntArraySpliterator implements Spliterator.OfInt {
-        private final int[] array;
-        private int index;        // current index, modified on advance/split
-        private final int fence;  // one past last index
+        final int[] array;        // package-private for ArrayKernels
+        int index;                // current index, modified on advance/split
+        final int fence;          // one past last index
         private final int characteristics;
 
         /**
@@ -1065,9 +1065,9 @@ public final class Spliterators {
      * elements maintained in an unmodifiable {@code int[]} array.
      */
     static final class LongArraySpliterator implements Spliterator.OfLong {
-        private final long[] array;
-        private int index;        // current index, modified on advance/split
-        private final int fence;  // one past last index
+        final long[] array;        // package-private for ArrayKernels
+        int index;                // current index, modified on advance/split
+        final int fence;          // one past last index
         private final int characteristics;
 
         /**
@@ -1148,9 +1148,9 @@ public final class Spliterators {
      * elements maintained in an unmodifiable {@code int[]} array.
      */
     static final class DoubleArraySpliterator implements Spliterator.OfDouble {
-        private final double[] array;
-        private int index;        // current index, modified on advance/split
-        private final int fence;  // one past last index
+        final double[] array;        // package-private for ArrayKernels
+        int index;                // current index, modified on advance/split
+        final int fence;          // one past last index
         private final int characteristics;
 
         /**
@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe pool of canonical strings, performing the task of
+ * {@link String#intern()} in Java code: for equal strings,
+ * {@link #intern(String)} returns the same instance.
+ *
+ * <p>Strings can also be looked up by a slice of a {@code char[]} or of a
+ * {@code byte[]} holding Latin-1 or ASCII text, as parsers see them.  When
+ * the pool already holds the string no {@code String} is created, so a
+ * parser that interns its repeated field names and values allocates only
+ * once per distinct string.
+ *
+ * <p>A <em>strong</em> pool keeps its strings until {@link #clear()} is
+ * called; a <em>weak</em> pool drops a string once nothing else refers to
+ * it, so it can be shared across the lifetime of an application without
+ * growing without bound.
+ *
+ * <p>The pool is divided into independently locked segments.  Lookups of
+ * strings that are present take no lock; only the insertion of a new
+ * string locks the segment it goes into.
+ *
+ * @see String#intern()
+ * @since 1.8
+ */
+public final class StringPool {
+
+    /** The default number of segments, a power of two. */
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    /** The initial table capacity of a segment, a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The largest table capacity of a segment. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final boolean weak;
+    private final boolean vmIntern;
+
+    private StringPool(boolean weak, boolean vmIntern, int concurrencyLevel) {
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("concurrencyLevel: " + concurrencyLevel);
+        int n = 1;
+        while (n < concurrencyLevel && n < (1 << 16))
+            n <<= 1;
+        this.segments = new Segment[n];
+        for (int i = 0; i < n; i++)
+            segments[i] = new Segment(weak);
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+        this.weak = weak;
+        this.vmIntern = vmIntern;
+    }
+
+    /**
+     * Returns a new pool that keeps its strings until cleared.
+     *
+     * @return a new strong pool
+     */
+    public static StringPool newStrongPool() {
+        return new StringPool(false, false, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Returns a new pool that keeps its strings only while they are
+     * otherwise reachable.
+     *
+     * @return a new weak pool
+     */
+    public static StringPool newWeakPool() {
+        return new StringPool(true, false, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Returns a new pool with the given reference strength and number of
+     * independently locked segments.
+     *
+     * @param weak whether the pool holds its strings weakly
+     * @param concurrencyLevel the estimated number of threads inserting
+     *        strings concurrently
+     * @return a new pool
+     * @throws IllegalArgumentException if {@code concurrencyLevel} is not
+     *         positive
+     */
+    public static StringPool newPool(boolean weak, int concurrencyLevel) {
+        return new StringPool(weak, false, concurrencyLevel);
+    }
+
+    private static final class SystemPoolHolder {
+        static final StringPool INSTANCE = new StringPool(true, true, 64);
+    }
+
+    /**
+     * Returns the process-wide weak pool whose strings are those of
+     * {@link String#intern()}.  Strings obtained from it are therefore
+     * identical to equal string literals and constant expressions, while
+     * repeated lookups do not call into the virtual machine, and lookups by
+     * character slices do not create strings.
+     *
+     * @return the process-wide pool of interned strings
+     */
+    public static StringPool systemPool() {
+        return SystemPoolHolder.INSTANCE;
+    }
+
+    /**
+     * Returns whether this pool holds its strings weakly.
+     *
+     * @return {@code true} if this is a weak pool
+     */
+    public boolean isWeak() {
+        return weak;
+    }
+
+    /*
+     * Lookup keys.  A key is a String, a char[] slice or a Latin-1 byte[]
+     * slice; its hash is String.hashCode of the characters, so the three
+     * forms of the same string find the same entry.
+     */
+
+    private static final int STRING = 0, CHARS = 1, LATIN1 = 2;
+
+    private static int hash(char[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off, end = off + len; i < end; i++)
+            h = 31 * h + buf[i];
+        return h;
+    }
+
+    private static int hash(byte[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off, end = off + len; i < end; i++)
+            h = 31 * h + (buf[i] & 0xff);
+        return h;
+    }
+
+    /**
+     * Returns whether s has the characters of the key.
+     */
+    private static boolean matches(String s, int kind, Object key, int off, int len) {
+        if (s.length() != len)
+            return false;
+        switch (kind) {
+            case STRING:
+                return s.equals(key);
+            case CHARS: {
+                char[] buf = (char[]) key;
+                for (int i = 0; i < len; i++)
+                    if (s.charAt(i) != buf[off + i])
+                        return false;
+                return true;
+            }
+            default: {
+                byte[] buf = (byte[]) key;
+                for (int i = 0; i < len; i++)
+                    if (s.charAt(i) != (buf[off + i] & 0xff))
+                        return false;
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private String newString(int kind, Object key, int off, int len) {
+        String s;
+        switch (kind) {
+            case STRING:
+                s = (String) key;
+                break;
+            case CHARS:
+                s = new String((char[]) key, off, len);
+                break;
+            default:
+                // The Latin-1 constructor: each byte is one char
+                s = new String((byte[]) key, 0, off, len);
+                break;
+        }
+        return vmIntern ? s.intern() : s;
+    }
+
+    private String intern(int hash, int kind, Object key, int off, int len) {
+        int h = hash ^ (hash >>> 16);
+        Segment seg = segments[segmentShift == 32 ? 0 : h >>> segmentShift];
+        String s = seg.find(h, kind, key, off, len);
+        return s != null ? s : seg.add(this, h, kind, key, off, len);
+    }
+
+    /**
+     * Returns the canonical instance of the given string, adding it to the
+     * pool if there is none.
+     *
+     * @param s a string
+     * @return a string equal to {@code s} that is the same instance for
+     *         all equal strings
+     */
+    public String intern(String s) {
+        return intern(s.hashCode(), STRING, s, 0, s.length());
+    }
+
+    /**
+     * Returns the canonical instance of the string with the characters of
+     * the given subarray.  No string is created if the pool holds one.
+     *
+     * @param buf the characters
+     * @param off the index of the first character
+     * @param len the number of characters
+     * @return the canonical string with the given characters
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         negative, or {@code off + len} is larger than
+     *         {@code buf.length}
+     */
+    public String intern(char[] buf, int off, int len) {
+        checkFromIndexSize(off, len, buf.length);
+        return intern(hash(buf, off, len), CHARS, buf, off, len);
+    }
+
+    /**
+     * Returns the canonical instance of the string whose characters are
+     * the given Latin-1 (ISO-8859-1) bytes, which includes ASCII.  No
+     * string is created if the pool holds one.
+     *
+     * @param buf the bytes, one per character
+     * @param off the index of the first byte
+     * @param len the number of bytes
+     * @return the canonical string with the given characters
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         negative, or {@code off + len} is larger than
+     *         {@code buf.length}
+     */
+    public String internLatin1(byte[] buf, int off, int len) {
+        checkFromIndexSize(off, len, buf.length);
+        return intern(hash(buf, off, len), LATIN1, buf, off, len);
+    }
+
+    /**
+     * Returns the canonical instance of the given string if the pool holds
+     * one, without adding it.
+     *
+     * @param s a string
+     * @return the pooled string equal to {@code s}, or {@code null}
+     */
+    public String get(String s) {
+        int h = s.hashCode();
+        h ^= h >>> 16;
+        return segments[segmentShift == 32 ? 0 : h >>> segmentShift]
+            .find(h, STRING, s, 0, s.length());
+    }
+
+    /**
+     * Returns the number of strings in the pool.  In a weak pool this
+     * includes strings that have been dropped but not yet purged.
+     *
+     * @return the number of strings in the pool
+     */
+    public int size() {
+        long n = 0;
+        for (Segment seg : segments)
+            n += seg.count;
+        return (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes all strings from the pool.  Strings obtained before remain
+     * valid, but are no longer canonical for later lookups.
+     */
+    public void clear() {
+        for (Segment seg : segments)
+            seg.clear();
+    }
+
+    private static void checkFromIndexSize(int off, int len, int length) {
+        if ((off | len) < 0 || len > length - off)
+            throw new IndexOutOfBoundsException(
+                "off: " + off + ", len: " + len + ", length: " + length);
+    }
+
+    /*
+     * Tables
+     */
+
+    /**
+     * A pooled string.  Entries are immutable, so readers can walk a chain
+     * without locking; a removal copies the entries before it.
+     */
+    static final class Entry {
+        final int hash;
+        /** The string, or a WeakRef to it in a weak pool. */
+        final Object ref;
+        final Entry next;
+
+        Entry(int hash, Object ref, Entry next) {
+            this.hash = hash;
+            this.ref = ref;
+            this.next = next;
+        }
+
+        String get() {
+            Object r = ref;
+            return r instanceof String ? (String) r : ((WeakRef) r).get();
+        }
+    }
+
+    static final class WeakRef extends WeakReference<String> {
+        final int hash;
+
+        WeakRef(String s, int hash, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = hash;
+        }
+    }
+
+    @SuppressWarnings("serial") // Never serialized
+    static final class Segment extends ReentrantLock {
+        /** The buckets; the length is a power of two. */
+        volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+
+        /** The number of entries, written under the lock. */
+        volatile int count;
+
+        /** Cleared references of a weak pool, or null. */
+        final ReferenceQueue<String> queue;
+
+        Segment(boolean weak) {
+            queue = weak ? new ReferenceQueue<String>() : null;
+        }
+
+        /**
+         * Returns the pooled string with the key's characters, or null.
+         * Takes no lock: a concurrent insertion may be missed, which the
+         * caller resolves by looking again under the lock in add.
+         */
+        String find(int hash, int kind, Object key, int off, int len) {
+            Entry[] tab = table;
+            for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash) {
+                    String s = e.get();
+                    if (s != null && matches(s, kind, key, off, len))
+                        return s;
+                }
+            }
+            return null;
+        }
+
+        String add(StringPool pool, int hash, int kind, Object key, int off, int len) {
+            lock();
+            try {
+                if (queue != null)
+                    expunge();
+                String s = find(hash, kind, key, off, len);
+                if (s != null)
+                    return s;
+                s = pool.newString(kind, key, off, len);
+                Entry[] tab = table;
+                if (count >= tab.length - (tab.length >>> 2) && tab.length < MAXIMUM_CAPACITY)
+                    tab = resize(tab);
+                int i = hash & (tab.length - 1);
+                Object ref = queue == null ? s : new WeakRef(s, hash, queue);
+                tab[i] = new Entry(hash, ref, tab[i]);
+                count++;
+                return s;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Doubles the table.  The new table is filled before it is
+         * published, so readers see either table complete.
+         */
+        private Entry[] resize(Entry[] old) {
+            Entry[] tab = new Entry[old.length << 1];
+            int mask = tab.length - 1, n = 0;
+            for (Entry head : old) {
+                for (Entry e = head; e != null; e = e.next) {
+                    if (e.get() == null)
+                        continue;
+                    int i = e.hash & mask;
+                    tab[i] = new Entry(e.hash, e.ref, tab[i]);
+                    n++;
+                }
+            }
+            table = tab;
+            count = n;
+            return tab;
+        }
+
+        /**
+         * Removes the entries whose strings have been collected.  Called
+         * with the lock held.
+         */
+        private void expunge() {
+            for (WeakRef r; (r = (WeakRef) queue.poll()) != null; ) {
+                Entry[] tab = table;
+                int i = r.hash & (tab.length - 1);
+                Entry head = tab[i];
+                for (Entry e = head; e != null; e = e.next) {
+                    if (e.ref == r) {
+                        // Copy the entries before e, which readers may be walking
+                        Entry rest = e.next;
+                        for (Entry p = head; p != e; p = p.next)
+                            rest = new Entry(p.hash, p.ref, rest);
+                        tab[i] = rest;
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                table = new Entry[INITIAL_CAPACITY];
+                count = 0;
+                if (queue != null) {
+                    while (queue.poll() != null)
+                        ;
+                }
+            } finally {
+                unlock();
+            }
+        }
+    }
+}
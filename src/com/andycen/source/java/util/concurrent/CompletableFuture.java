@@ -439,7 +439,14 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         /** Returns true if possibly still triggerable. Used by cleanStack. */
         abstract boolean isLive();
 
-        public final void run()                { tryFire(ASYNC); }
+        public final void run() {
+            Object prev = enterBindings();
+            try {
+                tryFire(ASYNC);
+            } finally {
+                exitBindings(prev);
+            }
+        }
         public final boolean exec()            { tryFire(ASYNC); return true; }
         public final Void getRawResult()       { return null; }
         public final void setRawResult(Void v) {}
@@ -1585,12 +1592,17 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             CompletableFuture<T> d; Supplier<T> f;
             if ((d = dep) != null && (f = fn) != null) {
                 dep = null; fn = null;
-                if (d.result == null) {
-                    try {
-                        d.completeValue(f.get());
-                    } catch (Throwable ex) {
-                        d.completeThrowable(ex);
+                Object prev = enterBindings();
+                try {
+                    if (d.result == null) {
+                        try {
+                            d.completeValue(f.get());
+                        } catch (Throwable ex) {
+                            d.completeThrowable(ex);
+                        }
                     }
+                } finally {
+                    exitBindings(prev);
                 }
                 d.postComplete();
             }
@@ -1621,13 +1633,18 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             CompletableFuture<Void> d; Runnable f;
             if ((d = dep) != null && (f = fn) != null) {
                 dep = null; fn = null;
-                if (d.result == null) {
-                    try {
-                        f.run();
-                        d.completeNull();
-                    } catch (Throwable ex) {
-                        d.completeThrowable(ex);
+                Object prev = enterBindings();
+                try {
+                    if (d.result == null) {
+                        try {
+                            f.run();
+                            d.completeNull();
+                        } catch (Throwable ex) {
+                            d.completeThrowable(ex);
+                        }
                     }
+                } finally {
+                    exitBindings(prev);
                 }
                 d.postComplete();
             }
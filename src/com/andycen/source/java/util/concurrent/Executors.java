@@ -34,6 +34,7 @@
  */
 
 package java.util.concurrent;
+import java.lang.ref.Cleaner;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.security.AccessControlContext;
@@ -43,6 +44,7 @@ import java.security.PrivilegedExceptionAction;
 import java.security.PrivilegedActionException;
 import java.security.AccessControlException;
 import sun.security.util.SecurityConstants;
+import jdk.internal.ref.CleanerFactory;
 
 /**
  * Factory and utility methods for {@link Executor}, {@link
@@ -168,7 +170,7 @@ public class Executors {
      * @return the newly created single-threaded Executor
      */
     public static ExecutorService newSingleThreadExecutor() {
-        return new FinalizableDelegatedExecutorService
+        return new AutoShutdownDelegatedExecutorService
             (new ThreadPoolExecutor(1, 1,
                                     0L, TimeUnit.MILLISECONDS,
                                     new LinkedBlockingQueue<Runnable>()));
@@ -189,7 +191,7 @@ public class Executors {
      * @throws NullPointerException if threadFactory is null
      */
     public static ExecutorService newSingleThreadExecutor(ThreadFactory threadFactory) {
-        return new FinalizableDelegatedExecutorService
+        return new AutoShutdownDelegatedExecutorService
             (new ThreadPoolExecutor(1, 1,
                                     0L, TimeUnit.MILLISECONDS,
                                     new LinkedBlockingQueue<Runnable>(),
@@ -703,13 +705,26 @@ public class Executors {
         }
     }
 
-    static class FinalizableDelegatedExecutorService
+    /**
+     * A wrapper that shuts down the executor it wraps once the wrapper
+     * is no longer referenced.
+     */
+    static class AutoShutdownDelegatedExecutorService
         extends DelegatedExecutorService {
-        FinalizableDelegatedExecutorService(ExecutorService executor) {
+        private final Cleaner.Cleanable cleanable;
+        AutoShutdownDelegatedExecutorService(ExecutorService executor) {
             super(executor);
+            Runnable action = () -> executor.shutdown();
+            cleanable = CleanerFactory.cleaner().register(this, action);
         }
-        protected void finalize() {
+        public void shutdown() {
             super.shutdown();
+            cleanable.clean();
+        }
+        public List<Runnable> shutdownNow() {
+            List<Runnable> unexecuted = super.shutdownNow();
+            cleanable.clean();
+            return unexecuted;
         }
     }
 
@@ -206,6 +206,10 @@ import java.lang.reflect.Constructor;
  * sensible to serialize tasks only before or after, but not during,
  * execution. Serialization is not relied on during execution itself.
  *
+ * <p>A task runs with the {@link java.lang.ScopedValue} bindings of
+ * the thread that constructed it, in whichever thread executes it.
+ * A deserialized task runs without bindings.
+ *
  * @since 1.7
  * @author Doug Lea
  */
@@ -256,6 +260,13 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
     static final int SIGNAL      = 0x00010000;  // must be >= 1 << 16
     static final int SMASK       = 0x0000ffff;  // short bits for tags
 
+    /**
+     * The ScopedValue bindings of the thread that constructed this
+     * task, which are immutable, so that capturing them is a read.
+     */
+    final transient Object bindings =
+        U.getObject(Thread.currentThread(), BINDINGS);
+
     /**
      * Marks completion and wakes up threads waiting to join this
      * task.
@@ -285,10 +296,13 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
     final int doExec() {
         int s; boolean completed;
         if ((s = status) >= 0) {
+            Object prev = enterBindings();
             try {
                 completed = exec();
             } catch (Throwable rex) {
                 return setExceptionalCompletion(rex);
+            } finally {
+                exitBindings(prev);
             }
             if (completed)
                 s = setCompletion(NORMAL);
@@ -296,6 +310,31 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
         return s;
     }
 
+    /**
+     * Installs the bindings of this task in the current thread, unless
+     * they are installed already, and returns the previous ones.
+     */
+    final Object enterBindings() {
+        Thread t = Thread.currentThread();
+        Object prev = U.getObject(t, BINDINGS);
+        if (prev != bindings)
+            U.putObject(t, BINDINGS, bindings);
+        return prev;
+    }
+
+    /**
+     * Restores the bindings of the current thread returned by
+     * enterBindings, dropping its cached values if it has none.
+     */
+    final void exitBindings(Object prev) {
+        if (prev != bindings) {
+            Thread t = Thread.currentThread();
+            U.putObject(t, BINDINGS, prev);
+            if (prev == null)
+                U.putObject(t, BINDINGS_CACHE, null);
+        }
+    }
+
     /**
      * If not done, sets SIGNAL status and performs Object.wait(timeout).
      * This task may or may not be done on exit. Ignores interrupts.
@@ -1511,6 +1550,8 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
     // Unsafe mechanics
     private static final sun.misc.Unsafe U;
     private static final long STATUS;
+    private static final long BINDINGS;
+    private static final long BINDINGS_CACHE;
 
     static {
         exceptionTableLock = new ReentrantLock();
@@ -1521,6 +1562,11 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
             Class<?> k = ForkJoinTask.class;
             STATUS = U.objectFieldOffset
                 (k.getDeclaredField("status"));
+            Class<?> tk = Thread.class;
+            BINDINGS = U.objectFieldOffset
+                (tk.getDeclaredField("scopedValueBindings"));
+            BINDINGS_CACHE = U.objectFieldOffset
+                (tk.getDeclaredField("scopedValueCache"));
         } catch (Exception e) {
             throw new Error(e);
         }
@@ -171,9 +171,10 @@ public class ForkJoinWorkerThread extends Thread {
     }
 
     /**
-     * Erases ThreadLocals by nulling out Thread maps.
+     * Erases ThreadLocals by nulling out Thread slots and maps.
      */
     final void eraseThreadLocals() {
+        U.putObject(this, THREADLOCALSLOTS, null);
         U.putObject(this, THREADLOCALS, null);
         U.putObject(this, INHERITABLETHREADLOCALS, null);
     }
@@ -186,6 +187,7 @@ public class ForkJoinWorkerThread extends Thread {
 
     // Set up to allow setting thread fields in constructor
     private static final sun.misc.Unsafe U;
+    private static final long THREADLOCALSLOTS;
     private static final long THREADLOCALS;
     private static final long INHERITABLETHREADLOCALS;
     private static final long INHERITEDACCESSCONTROLCONTEXT;
@@ -193,6 +195,8 @@ public class ForkJoinWorkerThread extends Thread {
         try {
             U = sun.misc.Unsafe.getUnsafe();
             Class<?> tk = Thread.class;
+            THREADLOCALSLOTS = U.objectFieldOffset
+                (tk.getDeclaredField("threadLocalSlots"));
             THREADLOCALS = U.objectFieldOffset
                 (tk.getDeclaredField("threadLocals"));
             INHERITABLETHREADLOCALS = U.objectFieldOffset
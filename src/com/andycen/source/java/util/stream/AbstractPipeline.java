@@ -261,6 +261,16 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         }
     }
 
+    /**
+     * Returns whether this pipeline stage is the source stage of a
+     * sequential pipeline, in which case a terminal operation may consume
+     * the source stage spliterator directly instead of evaluating through
+     * a sink chain.
+     */
+    final boolean isSequentialSourceStage() {
+        return this == sourceStage && !sourceStage.parallel;
+    }
+
     /**
      * Gets the source stage spliterator if this pipeline stage is the source
      * stage.  The pipeline is consumed after this method is called and
@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.ArrayKernels;
 import java.util.DoubleSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -377,6 +378,8 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final double sum() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.sum(adapt(sourceStageSpliterator()));
         /*
          * In the arrays allocated for the collect operation, index 0
          * holds the high-order bits of the running sum, index 1 holds
@@ -401,11 +404,15 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final OptionalDouble min() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.min(adapt(sourceStageSpliterator()));
         return reduce(Math::min);
     }
 
     @Override
     public final OptionalDouble max() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.max(adapt(sourceStageSpliterator()));
         return reduce(Math::max);
     }
 
@@ -451,6 +458,8 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final DoubleSummaryStatistics summaryStatistics() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.summaryStatistics(adapt(sourceStageSpliterator()));
         return collect(DoubleSummaryStatistics::new, DoubleSummaryStatistics::accept,
                        DoubleSummaryStatistics::combine);
     }
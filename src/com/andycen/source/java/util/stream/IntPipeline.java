@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.ArrayKernels;
 import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -411,16 +412,22 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final int sum() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.sum(adapt(sourceStageSpliterator()));
         return reduce(0, Integer::sum);
     }
 
     @Override
     public final OptionalInt min() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.min(adapt(sourceStageSpliterator()));
         return reduce(Math::min);
     }
 
     @Override
     public final OptionalInt max() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.max(adapt(sourceStageSpliterator()));
         return reduce(Math::max);
     }
 
@@ -447,6 +454,8 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final IntSummaryStatistics summaryStatistics() {
+        if (isSequentialSourceStage())
+            return ArrayKernels.summaryStatistics(adapt(sourceStageSpliterator()));
         return collect(IntSummaryStatistics::new, IntSummaryStatistics::accept,
                        IntSummaryStatistics::combine);
     }
@@ -168,7 +168,7 @@ class Deflater {
     public Deflater(int level, boolean nowrap) {
         this.level = level;
         this.strategy = DEFAULT_STRATEGY;
-        this.zsRef = new ZStreamRef(init(level, DEFAULT_STRATEGY, nowrap));
+        this.zsRef = new DeflaterZStreamRef(this, init(level, DEFAULT_STRATEGY, nowrap));
     }
 
     /**
@@ -531,26 +531,34 @@ class Deflater {
     /**
      * Closes the compressor and discards any unprocessed input.
      * This method should be called when the compressor is no longer
-     * being used, but will also be called automatically by the
-     * finalize() method. Once this method is called, the behavior
-     * of the Deflater object is undefined.
+     * being used, but will also be called automatically by a cleaner
+     * once the compressor is phantom reachable. Once this method is called,
+     * the behavior of the Deflater object is undefined.
      */
     public void end() {
         synchronized (zsRef) {
-            long addr = zsRef.address();
-            zsRef.clear();
-            if (addr != 0) {
-                end(addr);
+            if (zsRef.address() != 0) {
+                zsRef.clean();
                 buf = null;
             }
         }
     }
 
     /**
-     * Closes the compressor when garbage is collected.
+     * Does nothing.  The compressor is closed by a cleaner once it is
+     * phantom reachable, if it has not been closed by {@link #end}.
      */
     protected void finalize() {
-        end();
+    }
+
+    private static class DeflaterZStreamRef extends ZStreamRef {
+        DeflaterZStreamRef(Deflater owner, long address) {
+            super(owner, address);
+        }
+
+        void end(long addr) {
+            Deflater.end(addr);
+        }
     }
 
     private void ensureOpen() {
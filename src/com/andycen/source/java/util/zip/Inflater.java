@@ -100,7 +100,7 @@ class Inflater {
      * @param nowrap if true then support GZIP compatible compression
      */
     public Inflater(boolean nowrap) {
-        zsRef = new ZStreamRef(init(nowrap));
+        zsRef = new InflaterZStreamRef(this, init(nowrap));
     }
 
     /**
@@ -361,26 +361,34 @@ class Inflater {
     /**
      * Closes the decompressor and discards any unprocessed input.
      * This method should be called when the decompressor is no longer
-     * being used, but will also be called automatically by the finalize()
-     * method. Once this method is called, the behavior of the Inflater
-     * object is undefined.
+     * being used, but will also be called automatically by a cleaner
+     * once the decompressor is phantom reachable. Once this method is called,
+     * the behavior of the Inflater object is undefined.
      */
     public void end() {
         synchronized (zsRef) {
-            long addr = zsRef.address();
-            zsRef.clear();
-            if (addr != 0) {
-                end(addr);
+            if (zsRef.address() != 0) {
+                zsRef.clean();
                 buf = null;
             }
         }
     }
 
     /**
-     * Closes the decompressor when garbage is collected.
+     * Does nothing.  The decompressor is closed by a cleaner once it is
+     * phantom reachable, if it has not been closed by {@link #end}.
      */
     protected void finalize() {
-        end();
+    }
+
+    private static class InflaterZStreamRef extends ZStreamRef {
+        InflaterZStreamRef(Inflater owner, long address) {
+            super(owner, address);
+        }
+
+        void end(long addr) {
+            Inflater.end(addr);
+        }
     }
 
     private void ensureOpen () {
@@ -25,22 +25,48 @@
 
 package java.util.zip;
 
+import java.lang.ref.Cleaner;
+import jdk.internal.ref.CleanerFactory;
+
 /**
- * A reference to the native zlib's z_stream structure.
+ * A reference to the native zlib's z_stream structure, which ends it
+ * once its owner becomes phantom reachable, unless the owner ends it
+ * explicitly first.
  */
 
-class ZStreamRef {
+abstract class ZStreamRef implements Runnable {
 
     private volatile long address;
-    ZStreamRef (long address) {
+    private final Cleaner.Cleanable cleanable;
+
+    ZStreamRef (Object owner, long address) {
         this.address = address;
+        this.cleanable = CleanerFactory.cleaner().register(owner, this);
     }
 
     long address() {
         return address;
     }
 
-    void clear() {
-        address = 0;
+    /**
+     * Ends the z_stream, if it has not been ended, and unregisters it
+     * from the cleaner.
+     */
+    void clean() {
+        cleanable.clean();
     }
+
+    public void run() {
+        synchronized (this) {
+            long addr = address;
+            address = 0;
+            if (addr != 0)
+                end(addr);
+        }
+    }
+
+    /**
+     * Ends the z_stream at the given address.
+     */
+    abstract void end(long addr);
 }
@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.IOException;
 import java.io.EOFException;
 import java.io.File;
+import java.lang.ref.Cleaner;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
@@ -44,6 +45,7 @@ import java.util.Spliterators;
 import java.util.WeakHashMap;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import jdk.internal.ref.CleanerFactory;
 
 import static java.util.zip.ZipConstants64.*;
 
@@ -63,6 +65,9 @@ class ZipFile implements ZipConstants, Closeable {
     private final int total;       // total number of entries
     private final boolean locsig;  // if zip file starts with LOCSIG (usually true)
     private volatile boolean closeRequested = false;
+    // The native zip file and inflaters, shared with the cleanup actions
+    private final ZipFileCleanup resources;
+    private final Cleaner.Cleanable cleanable;
 
     private static final int STORED = ZipEntry.STORED;
     private static final int DEFLATED = ZipEntry.DEFLATED;
@@ -223,6 +228,8 @@ class ZipFile implements ZipConstants, Closeable {
         this.zc = ZipCoder.get(charset);
         long t0 = System.nanoTime();
         jzfile = open(name, mode, file.lastModified(), usemmap);
+        resources = new ZipFileCleanup(jzfile, inflaterCache);
+        cleanable = CleanerFactory.cleaner().register(this, resources);
         sun.misc.PerfCounter.getZipFileOpenTime().addElapsedTimeFrom(t0);
         sun.misc.PerfCounter.getZipFileCount().increment();
         this.name = name;
@@ -402,11 +409,14 @@ class ZipFile implements ZipConstants, Closeable {
         private volatile boolean closeRequested = false;
         private boolean eof = false;
         private final ZipFileInputStream zfin;
+        private final Cleaner.Cleanable cleanable;
 
         ZipFileInflaterInputStream(ZipFileInputStream zfin, Inflater inf,
                 int size) {
             super(zfin, inf, size);
             this.zfin = zfin;
+            this.cleanable = CleanerFactory.cleaner().register(this,
+                new InflaterCleanup(resources, inf));
         }
 
         public void close() throws IOException {
@@ -415,13 +425,10 @@ class ZipFile implements ZipConstants, Closeable {
             closeRequested = true;
 
             super.close();
-            Inflater inf;
             synchronized (streams) {
-                inf = streams.remove(this);
-            }
-            if (inf != null) {
-                releaseInflater(inf);
+                streams.remove(this);
             }
+            cleanable.clean();
         }
 
         // Override fill() method to provide an extra "dummy" byte
@@ -447,9 +454,25 @@ class ZipFile implements ZipConstants, Closeable {
             return (avail > (long) Integer.MAX_VALUE ?
                     Integer.MAX_VALUE : (int) avail);
         }
+    }
+
+    /*
+     * Releases the inflater of an entry stream when the stream is closed or
+     * phantom reachable, or ends it if the zip file has been closed.  Holds
+     * the resources of the zip file rather than the ZipFile, so that an
+     * unclosed stream does not delay the cleanup of the ZipFile.
+     */
+    private static class InflaterCleanup implements Runnable {
+        private final ZipFileCleanup zfr;
+        private final Inflater inf;
+
+        InflaterCleanup(ZipFileCleanup zfr, Inflater inf) {
+            this.zfr = zfr;
+            this.inf = inf;
+        }
 
-        protected void finalize() throws Throwable {
-            close();
+        public void run() {
+            zfr.releaseInflater(inf);
         }
     }
 
@@ -469,20 +492,8 @@ class ZipFile implements ZipConstants, Closeable {
         return new Inflater(true);
     }
 
-    /*
-     * Releases the specified inflater to the list of available inflaters.
-     */
-    private void releaseInflater(Inflater inf) {
-        if (false == inf.ended()) {
-            inf.reset();
-            synchronized (inflaterCache) {
-                inflaterCache.add(inf);
-            }
-        }
-    }
-
     // List of available Inflater objects for decompression
-    private Deque<Inflater> inflaterCache = new ArrayDeque<>();
+    private final Deque<Inflater> inflaterCache = new ArrayDeque<>();
 
     /**
      * Returns the path name of the ZIP file.
@@ -643,30 +654,21 @@ class ZipFile implements ZipConstants, Closeable {
                 }
             }
 
-            // Release cached inflaters
-            Inflater inf;
-            synchronized (inflaterCache) {
-                while (null != (inf = inflaterCache.poll())) {
-                    inf.end();
-                }
-            }
-
             if (jzfile != 0) {
-                // Close the zip file
-                long zf = this.jzfile;
+                // Release cached inflaters and close the zip file
                 jzfile = 0;
 
-                close(zf);
+                cleanable.clean();
             }
         }
     }
 
     /**
-     * Ensures that the system resources held by this ZipFile object are
-     * released when there are no more references to it.
+     * Does nothing.  The system resources held by this ZipFile object are
+     * released by a cleaner once there are no more references to it.
      *
      * <p>
-     * Since the time when GC would invoke this method is undetermined,
+     * Since the time when GC would release them is undetermined,
      * it is strongly recommended that applications invoke the <code>close</code>
      * method as soon they have finished accessing this <code>ZipFile</code>.
      * This will prevent holding up system resources for an undetermined
@@ -676,7 +678,65 @@ class ZipFile implements ZipConstants, Closeable {
      * @see    java.util.zip.ZipFile#close()
      */
     protected void finalize() throws IOException {
-        close();
+    }
+
+    /*
+     * Ends the cached inflaters and closes the native zip file when the
+     * ZipFile is closed or phantom reachable.  The cleanup actions of the
+     * entry streams share it, and lock it to free their native entries
+     * only while the zip file is open.
+     */
+    private static class ZipFileCleanup implements Runnable {
+        private long jzfile;  // guarded by this
+        private volatile boolean closed;
+        private final Deque<Inflater> inflaterCache;
+
+        ZipFileCleanup(long jzfile, Deque<Inflater> inflaterCache) {
+            this.jzfile = jzfile;
+            this.inflaterCache = inflaterCache;
+        }
+
+        /*
+         * Releases the specified inflater to the list of available
+         * inflaters, or ends it if the zip file has been closed.
+         */
+        void releaseInflater(Inflater inf) {
+            if (false == inf.ended()) {
+                synchronized (inflaterCache) {
+                    if (!closed) {
+                        inf.reset();
+                        inflaterCache.add(inf);
+                        return;
+                    }
+                }
+                inf.end();
+            }
+        }
+
+        /*
+         * Frees a native entry, unless the zip file has been closed.
+         */
+        synchronized void freeEntry(long jzentry) {
+            if (jzfile != 0) {
+                ZipFile.freeEntry(jzfile, jzentry);
+            }
+        }
+
+        public void run() {
+            closed = true;
+            Inflater inf;
+            synchronized (inflaterCache) {
+                while (null != (inf = inflaterCache.poll())) {
+                    inf.end();
+                }
+            }
+            synchronized (this) {
+                if (jzfile != 0) {
+                    close(jzfile);
+                    jzfile = 0;
+                }
+            }
+        }
     }
 
     private static native void close(long jzfile);
@@ -707,12 +767,15 @@ class ZipFile implements ZipConstants, Closeable {
         private   long pos;     // current position within entry data
         protected long rem;     // number of remaining bytes within entry
         protected long size;    // uncompressed size of this entry
+        private final Cleaner.Cleanable cleanable;
 
         ZipFileInputStream(long jzentry) {
             pos = 0;
             rem = getEntryCSize(jzentry);
             size = getEntrySize(jzentry);
             this.jzentry = jzentry;
+            this.cleanable = CleanerFactory.cleaner().register(this,
+                new EntryCleanup(resources, jzentry));
         }
 
         public int read(byte b[], int off, int len) throws IOException {
@@ -779,18 +842,33 @@ class ZipFile implements ZipConstants, Closeable {
 
             rem = 0;
             synchronized (ZipFile.this) {
-                if (jzentry != 0 && ZipFile.this.jzfile != 0) {
-                    freeEntry(ZipFile.this.jzfile, jzentry);
-                    jzentry = 0;
-                }
+                jzentry = 0;
+                // Free the entry while no read of this zip file is running
+                cleanable.clean();
             }
             synchronized (streams) {
                 streams.remove(this);
             }
         }
+    }
+
+    /*
+     * Frees the native entry of an entry stream when the stream is closed
+     * or phantom reachable, unless the zip file has been closed.  Holds
+     * the resources of the zip file rather than the ZipFile, so that an
+     * unclosed stream does not delay the cleanup of the ZipFile.
+     */
+    private static class EntryCleanup implements Runnable {
+        private final ZipFileCleanup zfr;
+        private final long jzentry;
+
+        EntryCleanup(ZipFileCleanup zfr, long jzentry) {
+            this.zfr = zfr;
+            this.jzentry = jzentry;
+        }
 
-        protected void finalize() {
-            close();
+        public void run() {
+            zfr.freeEntry(jzentry);
         }
     }
 
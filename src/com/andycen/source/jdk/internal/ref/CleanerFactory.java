@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package jdk.internal.ref;
+
+import java.lang.ref.Cleaner;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ThreadFactory;
+import sun.security.action.GetIntegerAction;
+
+/**
+ * CleanerFactory provides a Cleaner for use within system modules.
+ * The cleaner is created on the first reference to the CleanerFactory.
+ *
+ * <p>The number of threads of the cleaner is given by the system property
+ * {@code jdk.lang.ref.Cleaner.threads}, and is one by default.
+ */
+public final class CleanerFactory {
+
+    /* The common Cleaner. */
+    private final static Cleaner commonCleaner;
+
+    static {
+        int threads = AccessController.doPrivileged(
+            new GetIntegerAction("jdk.lang.ref.Cleaner.threads", 1));
+        commonCleaner = Cleaner.create(new ThreadFactory() {
+            private int threadNumber;
+
+            public Thread newThread(final Runnable r) {
+                final String name = "Common-Cleaner-" + threadNumber++;
+                return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+                    public Thread run() {
+                        ThreadGroup tg = Thread.currentThread().getThreadGroup();
+                        for (ThreadGroup tgn = tg;
+                             tgn != null;
+                             tg = tgn, tgn = tg.getParent());
+                        Thread t = new Thread(tg, r, name);
+                        t.setPriority(Thread.MAX_PRIORITY - 2);
+                        t.setContextClassLoader(null);
+                        return t;
+                    }
+                });
+            }
+        }, Math.max(1, threads));
+    }
+
+    private CleanerFactory() { }
+
+    /**
+     * Cleaner for use within system modules.
+     *
+     * This Cleaner will run on a thread whose context class loader
+     * is {@code null}. The system cleaning action to perform in
+     * this Cleaner should handle a {@code null} context class loader.
+     *
+     * @return a Cleaner for use within system modules
+     */
+    public static Cleaner cleaner() {
+        return commonCleaner;
+    }
+}
@@ -77,6 +77,7 @@ static const char *_fVersion;
 static const char *_dVersion;
 static jboolean _wc_enabled = JNI_FALSE;
 static jint _ergo_policy = DEFAULT_POLICY;
+static jlong launchStart;            /* for _JAVA_LAUNCHER_TIMING */
 
 /*
  * Entries for splash screen environment variables.
@@ -191,7 +192,7 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
     char *main_class = NULL;
     int ret;
     InvocationFunctions ifn;
-    jlong start, end;
+    jlong start, end, phase;
     char jvmpath[MAXPATHLEN];
     char jrepath[MAXPATHLEN];
     char jvmcfg[MAXPATHLEN];
@@ -205,6 +206,7 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
     _ergo_policy = ergo;
 
     InitLauncher(javaw);
+    launchStart = JLI_TimingStart();
     DumpState();
     if (JLI_IsTraceLauncher()) {
         int i;
@@ -232,12 +234,16 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
      *     (Note: This side effect has been disabled.  See comment on
      *     bugid 5030265 below.)
      */
+    phase = JLI_TimingStart();
     SelectVersion(argc, argv, &main_class);
+    JLI_TimingEnd("SelectVersion", phase);
 
+    phase = JLI_TimingStart();
     CreateExecutionEnvironment(&argc, &argv,
                                jrepath, sizeof(jrepath),
                                jvmpath, sizeof(jvmpath),
                                jvmcfg,  sizeof(jvmcfg));
+    JLI_TimingEnd("CreateExecutionEnvironment", phase);
 
     if (!IsJavaArgs()) {
         SetJvmEnvironment(argc,argv);
@@ -250,9 +256,11 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
         start = CounterGet();
     }
 
+    phase = JLI_TimingStart();
     if (!LoadJavaVM(jvmpath, &ifn)) {
         return(6);
     }
+    JLI_TimingEnd("LoadJavaVM", phase);
 
     if (JLI_IsTraceLauncher()) {
         end   = CounterGet();
@@ -264,6 +272,7 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
     ++argv;
     --argc;
 
+    phase = JLI_TimingStart();
     if (IsJavaArgs()) {
         /* Preprocess wrapper arguments */
         TranslateApplicationArgs(jargc, jargv, &argc, &argv);
@@ -300,6 +309,7 @@ JLI_Launch(int argc, char ** argv,              /* main argc, argc */
 
     /* set the -Dsun.java.launcher.* platform properties */
     SetJavaLauncherPlatformProps();
+    JLI_TimingEnd("ParseArguments", phase);
 
     return JVMInit(&ifn, threadStackSize, argc, argv, mode, what, ret);
 }
@@ -367,16 +377,18 @@ JavaMain(void * _args)
     jmethodID mainID;
     jobjectArray mainArgs;
     int ret = 0;
-    jlong start, end;
+    jlong start, end, phase;
 
     RegisterThread();
 
     /* Initialize the virtual machine */
     start = CounterGet();
+    phase = JLI_TimingStart();
     if (!InitializeJVM(&vm, &env, &ifn)) {
         JLI_ReportErrorMessage(JVM_ERROR1);
         exit(1);
     }
+    JLI_TimingEnd("InitializeJVM", phase);
 
     if (showSettings != NULL) {
         ShowSettings(env, showSettings);
@@ -441,8 +453,10 @@ JavaMain(void * _args)
      * This method also correctly handles launching existing JavaFX
      * applications that may or may not have a Main-Class manifest entry.
      */
+    phase = JLI_TimingStart();
     mainClass = LoadMainClass(env, mode, what);
     CHECK_EXCEPTION_NULL_LEAVE(mainClass);
+    JLI_TimingEnd("LoadMainClass", phase);
     /*
      * In some cases when launching an application that needs a helper, e.g., a
      * JavaFX application with no main method, the mainClass will not be the
@@ -474,6 +488,8 @@ JavaMain(void * _args)
     mainArgs = CreateApplicationArgs(env, argv, argc);
     CHECK_EXCEPTION_NULL_LEAVE(mainArgs);
 
+    JLI_TimingEnd("total until main", launchStart);
+
     /* Invoke main method. */
     (*env)->CallStaticVoidMethod(env, mainClass, mainID, mainArgs);
 
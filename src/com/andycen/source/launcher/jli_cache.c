@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+#include <sys/types.h>
+#include <sys/stat.h>
+
+#include "java.h"       /* Strictly for FILE_SEPARATOR */
+#include "jli_util.h"
+#include "jli_cache.h"
+
+/*
+ * Returns the key of the entry for the given file or directory in its
+ * current state, a malloc'd line, or NULL if the cache is disabled or the
+ * file cannot be accessed.  The modification time is also returned.
+ */
+static char *
+cacheKey(const char *kind, const char *path, time_t *mtime)
+{
+    struct stat st;
+    size_t len;
+    char *key;
+
+    if (getenv(JLCACHE_ENV_ENTRY) == NULL || stat(path, &st) != 0)
+        return NULL;
+    len = JLI_StrLen(kind) + JLI_StrLen(path) + 64;
+    key = (char *) JLI_MemAlloc(len);
+    JLI_Snprintf(key, len, "JLICACHE1 %s %lld %lld %s\n", kind,
+                 (long long) st.st_size, (long long) st.st_mtime, path);
+    *mtime = st.st_mtime;
+    return key;
+}
+
+/*
+ * Returns the name of the cache file for the given path, a malloc'd string.
+ * The name is a 64-bit FNV-1a hash of the path, so that a changed file
+ * replaces its entry; the whole key is kept in the file, and checked when
+ * the file is read.
+ */
+static char *
+cacheFile(const char *kind, const char *path)
+{
+    const char *dir = getenv(JLCACHE_ENV_ENTRY);
+    unsigned long long hash = 0xcbf29ce484222325ULL;
+    const unsigned char *p;
+    size_t len;
+    char *file;
+
+    for (p = (const unsigned char *) path; *p != '\0'; p++) {
+        hash ^= *p;
+        hash *= 0x100000001b3ULL;
+    }
+    len = JLI_StrLen(dir) + JLI_StrLen(kind) + 32;
+    file = (char *) JLI_MemAlloc(len);
+    JLI_Snprintf(file, len, "%s%c%s-%016llx", dir, FILE_SEPARATOR, kind, hash);
+    return file;
+}
+
+/*
+ * Returns the cached data derived from the given file or directory, as a
+ * NUL-terminated malloc'd buffer, or NULL if there is no up to date entry.
+ * The size of the data is returned in size_out, unless it is NULL.
+ */
+char *
+JLI_CacheGet(const char *kind, const char *path, int *size_out)
+{
+    time_t mtime;
+    char *key, *file, *buf, *data = NULL;
+    FILE *fp;
+    long len;
+    size_t keylen;
+
+    if ((key = cacheKey(kind, path, &mtime)) == NULL)
+        return NULL;
+    file = cacheFile(kind, path);
+    if ((fp = fopen(file, "rb")) != NULL) {
+        if (fseek(fp, 0, SEEK_END) == 0 && (len = ftell(fp)) > 0 &&
+                fseek(fp, 0, SEEK_SET) == 0) {
+            buf = (char *) JLI_MemAlloc(len + 1);
+            keylen = JLI_StrLen(key);
+            if (fread(buf, 1, len, fp) == (size_t) len && (size_t) len >= keylen &&
+                    memcmp(buf, key, keylen) == 0) {
+                /* Move the data to the front, and terminate it */
+                len -= (long) keylen;
+                memmove(buf, buf + keylen, len);
+                buf[len] = '\0';
+                if (size_out != NULL)
+                    *size_out = (int) len;
+                data = buf;
+            } else {
+                JLI_MemFree(buf);
+            }
+        }
+        fclose(fp);
+    }
+    JLI_TraceLauncher("Launcher cache %s for %s %s\n",
+                      data != NULL ? "hit" : "miss", kind, path);
+    JLI_MemFree(file);
+    JLI_MemFree(key);
+    return data;
+}
+
+/*
+ * Caches the data derived from the given file or directory.  Nothing is
+ * cached for a file modified within the last two seconds, as it might
+ * change again without its modification time changing.
+ */
+void
+JLI_CachePut(const char *kind, const char *path, const char *data, int size)
+{
+    time_t mtime;
+    char *key, *file, *tmp;
+    size_t len;
+    FILE *fp;
+    int ok;
+
+    if ((key = cacheKey(kind, path, &mtime)) == NULL)
+        return;
+    if (mtime >= time(NULL) - 2) {
+        JLI_MemFree(key);
+        return;
+    }
+    file = cacheFile(kind, path);
+    /* Write a private file and rename it, as other launchers may read it */
+    len = JLI_StrLen(file) + 32;
+    tmp = (char *) JLI_MemAlloc(len);
+    JLI_Snprintf(tmp, len, "%s.%d.tmp", file, (int) JLI_GetPid());
+    if ((fp = fopen(tmp, "wb")) != NULL) {
+        ok = fwrite(key, 1, JLI_StrLen(key), fp) == JLI_StrLen(key) &&
+             fwrite(data, 1, size, fp) == (size_t) size;
+        ok = (fclose(fp) == 0) && ok;
+        if (ok && rename(tmp, file) != 0) {
+            /* Windows does not replace an existing file */
+            remove(file);
+            ok = rename(tmp, file) == 0;
+        }
+        if (!ok)
+            remove(tmp);
+    }
+    JLI_MemFree(tmp);
+    JLI_MemFree(file);
+    JLI_MemFree(key);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+#ifndef _JLI_CACHE_H
+#define _JLI_CACHE_H
+
+/*
+ * An on-disk cache of what the launcher derives from files and directories
+ * that rarely change: the jar files a class path wildcard expands to, and
+ * the manifests of jar files.  It is enabled by setting the environment
+ * variable below to a directory.  Each entry is keyed by the path, size and
+ * modification time of the file or directory it was derived from, and is
+ * ignored once any of them changes.
+ */
+#define JLCACHE_ENV_ENTRY "_JAVA_LAUNCHER_CACHE"
+
+char *JLI_CacheGet(const char *kind, const char *path, int *size_out);
+void  JLI_CachePut(const char *kind, const char *path, const char *data, int size);
+
+#endif  /* _JLI_CACHE_H */
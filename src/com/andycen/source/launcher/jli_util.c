@@ -29,6 +29,10 @@
 
 #include "jli_util.h"
 
+#ifndef _WIN32
+#include <sys/time.h>
+#endif
+
 /*
  * Returns a pointer to a block of at least 'size' bytes of memory.
  * Prints error message and exits if the memory could not be allocated.
@@ -88,6 +92,7 @@ JLI_MemFree(void *ptr)
  * debug helpers we use
  */
 static jboolean _launcher_debug = JNI_FALSE;
+static jboolean _launcher_timing = JNI_FALSE;
 
 void
 JLI_TraceLauncher(const char* fmt, ...)
@@ -106,6 +111,9 @@ JLI_SetTraceLauncher()
         _launcher_debug = JNI_TRUE;
         JLI_TraceLauncher("----%s----\n", JLDEBUG_ENV_ENTRY);
    }
+   if (getenv(JLTIMING_ENV_ENTRY) != 0) {
+        _launcher_timing = JNI_TRUE;
+   }
 }
 
 jboolean
@@ -114,6 +122,43 @@ JLI_IsTraceLauncher()
    return _launcher_debug;
 }
 
+/*
+ * Launcher phase timing, reported on stderr when _JAVA_LAUNCHER_TIMING is
+ * set.  A phase is timed by JLI_TimingEnd(phase, JLI_TimingStart()); the
+ * clock is only read when timing is enabled.
+ */
+static jlong
+TimingMicros()
+{
+#ifdef _WIN32
+    LARGE_INTEGER count, freq;
+    QueryPerformanceCounter(&count);
+    QueryPerformanceFrequency(&freq);
+    /* split the division, so that count * 1000000 cannot overflow */
+    return (jlong)((count.QuadPart / freq.QuadPart) * 1000000
+                   + (count.QuadPart % freq.QuadPart) * 1000000 / freq.QuadPart);
+#else
+    struct timeval tv;
+    gettimeofday(&tv, NULL);
+    return (jlong)tv.tv_sec * 1000000 + tv.tv_usec;
+#endif
+}
+
+jlong
+JLI_TimingStart()
+{
+   return _launcher_timing ? TimingMicros() : 0;
+}
+
+void
+JLI_TimingEnd(const char *phase, jlong start)
+{
+   if (_launcher_timing) {
+        fprintf(stderr, "[launcher timing] %-28s %8ld us\n",
+                phase, (long)(TimingMicros() - start));
+   }
+}
+
 int
 JLI_StrCCmp(const char *s1, const char* s2)
 {
@@ -31,6 +31,7 @@
 #include <stdio.h>
 #include <jni.h>
 #define JLDEBUG_ENV_ENTRY "_JAVA_LAUNCHER_DEBUG"
+#define JLTIMING_ENV_ENTRY "_JAVA_LAUNCHER_TIMING"
 
 void *JLI_MemAlloc(size_t size);
 void *JLI_MemRealloc(void *ptr, size_t size);
@@ -101,5 +102,7 @@ void JLI_CmdToArgs(char *cmdline);
 void     JLI_TraceLauncher(const char* fmt, ...);
 void     JLI_SetTraceLauncher();
 jboolean JLI_IsTraceLauncher();
+jlong    JLI_TimingStart();
+void     JLI_TimingEnd(const char *phase, jlong start);
 
 #endif  /* _JLI_UTIL_H */
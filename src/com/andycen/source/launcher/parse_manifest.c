@@ -30,6 +30,7 @@
 #include <stdlib.h>
 #include <string.h>
 #include "jli_util.h"
+#include "jli_cache.h"
 
 #include <zlib.h>
 #include "manifest_info.h"
@@ -541,6 +542,46 @@ parse_nv_pair(char **lp, char **name, char **value)
     return (1);
 }
 
+/*
+ * Read the manifest of the specified jar file, from the launcher cache if
+ * the jar file has not changed since it was cached, without locating and
+ * inflating it through the central directory.
+ *
+ * Returns a NUL-terminated malloc'd buffer, to be released by free(), or
+ * NULL with the error code (as below) in error_out.
+ */
+static char *
+read_manifest(const char *jarfile, int *error_out)
+{
+    int     fd;
+    zentry  entry;
+    char    *mp;
+    int     size;
+
+    if ((mp = JLI_CacheGet("manifest", jarfile, NULL)) != NULL)
+        return (mp);
+    if ((fd = open(jarfile, O_RDONLY
+#ifdef O_LARGEFILE
+        | O_LARGEFILE /* large file mode */
+#endif
+#ifdef O_BINARY
+        | O_BINARY /* use binary mode on windows */
+#endif
+        )) == -1) {
+        *error_out = -1;
+        return (NULL);
+    }
+    if (find_file(fd, &entry, manifest_name) != 0 ||
+            (mp = inflate_file(fd, &entry, &size)) == NULL) {
+        close(fd);
+        *error_out = -2;
+        return (NULL);
+    }
+    close(fd);
+    JLI_CachePut("manifest", jarfile, mp, size);
+    return (mp);
+}
+
 /*
  * Read the manifest from the specified jar file and fill in the manifest_info
  * structure with the information found within.
@@ -554,37 +595,19 @@ parse_nv_pair(char **lp, char **name, char **value)
 int
 JLI_ParseManifest(char *jarfile, manifest_info *info)
 {
-    int     fd;
-    zentry  entry;
     char    *lp;
     char    *name;
     char    *value;
     int     rc;
     char    *splashscreen_name = NULL;
 
-    if ((fd = open(jarfile, O_RDONLY
-#ifdef O_LARGEFILE
-        | O_LARGEFILE /* large file mode */
-#endif
-#ifdef O_BINARY
-        | O_BINARY /* use binary mode on windows */
-#endif
-        )) == -1) {
-        return (-1);
-    }
     info->manifest_version = NULL;
     info->main_class = NULL;
     info->jre_version = NULL;
     info->jre_restrict_search = 0;
     info->splashscreen_image_file_name = NULL;
-    if (rc = find_file(fd, &entry, manifest_name) != 0) {
-        close(fd);
-        return (-2);
-    }
-    manifest = inflate_file(fd, &entry, NULL);
-    if (manifest == NULL) {
-        close(fd);
-        return (-2);
+    if ((manifest = read_manifest(jarfile, &rc)) == NULL) {
+        return (rc);
     }
     lp = manifest;
     while ((rc = parse_nv_pair(&lp, &name, &value)) > 0) {
@@ -601,7 +624,6 @@ JLI_ParseManifest(char *jarfile, manifest_info *info)
             info->splashscreen_image_file_name = value;
         }
     }
-    close(fd);
     if (rc == 0)
         return (0);
     else
@@ -658,34 +680,14 @@ JLI_FreeManifest()
 int
 JLI_ManifestIterate(const char *jarfile, attribute_closure ac, void *user_data)
 {
-    int     fd;
-    zentry  entry;
     char    *mp;        /* manifest pointer */
     char    *lp;        /* pointer into manifest, updated during iteration */
     char    *name;
     char    *value;
     int     rc;
 
-    if ((fd = open(jarfile, O_RDONLY
-#ifdef O_LARGEFILE
-        | O_LARGEFILE /* large file mode */
-#endif
-#ifdef O_BINARY
-        | O_BINARY /* use binary mode on windows */
-#endif
-        )) == -1) {
-        return (-1);
-    }
-
-    if (rc = find_file(fd, &entry, manifest_name) != 0) {
-        close(fd);
-        return (-2);
-    }
-
-    mp = inflate_file(fd, &entry, NULL);
-    if (mp == NULL) {
-        close(fd);
-        return (-2);
+    if ((mp = read_manifest(jarfile, &rc)) == NULL) {
+        return (rc);
     }
 
     lp = mp;
@@ -693,6 +695,5 @@ JLI_ManifestIterate(const char *jarfile, attribute_closure ac, void *user_data)
         (*ac)(name, value, user_data);
     }
     free(mp);
-    close(fd);
     return (rc == 0) ? 0 : -2;
 }
@@ -92,6 +92,7 @@
 #include <sys/types.h>
 #include "java.h"       /* Strictly for PATH_SEPARATOR/FILE_SEPARATOR */
 #include "jli_util.h"
+#include "jli_cache.h"
 
 #ifdef _WIN32
 #include <windows.h>
@@ -372,6 +373,61 @@ wildcardFileList(const char *wildcard)
     return fl;
 }
 
+/*
+ * Returns the jar files a wildcard expands to, as wildcardFileList does,
+ * from the launcher cache if the directory has not changed since they
+ * were cached.  The cache holds the basenames, one per line, in the order
+ * the directory listed them.
+ */
+static FileList
+cachedWildcardFileList(const char *wildcard)
+{
+    int wildlen = (int)JLI_StrLen(wildcard);
+    char *dir, *names, *beg, *end;
+    FileList fl;
+    int i, len;
+
+    if (getenv(JLCACHE_ENV_ENTRY) == NULL)
+        return wildcardFileList(wildcard);
+
+    /* The directory is the wildcard without its '*', or "." */
+    if (wildlen == 1) {
+        dir = JLI_StringDup(".");
+    } else {
+        dir = JLI_StringDup(wildcard);
+        dir[wildlen - 1] = '\0';
+    }
+    names = JLI_CacheGet("wildcard", dir, NULL);
+    if (names != NULL) {
+        fl = FileList_new(16);
+        for (beg = names; *beg != '\0'; beg = end + 1) {
+            end = JLI_StrChr(beg, '\n');
+            if (end == NULL)
+                break;
+            *end = '\0';
+            FileList_add(fl, wildcardConcat(wildcard, beg));
+        }
+        JLI_MemFree(names);
+    } else if ((fl = wildcardFileList(wildcard)) != NULL) {
+        len = 0;
+        for (i = 0; i < fl->size; i++)
+            len += (int)JLI_StrLen(fl->files[i]) - (wildlen - 1) + 1;
+        names = JLI_MemAlloc(len + 1);
+        end = names;
+        for (i = 0; i < fl->size; i++) {
+            int baselen = (int)JLI_StrLen(fl->files[i]) - (wildlen - 1);
+            memcpy(end, fl->files[i] + wildlen - 1, baselen);
+            end += baselen;
+            *end++ = '\n';
+        }
+        *end = '\0';
+        JLI_CachePut("wildcard", dir, names, len);
+        JLI_MemFree(names);
+    }
+    JLI_MemFree(dir);
+    return fl;
+}
+
 static int
 isWildcard(const char *filename)
 {
@@ -388,7 +444,7 @@ FileList_expandWildcards(FileList fl)
     int i, j;
     for (i = 0; i < fl->size; i++) {
         if (isWildcard(fl->files[i])) {
-            FileList expanded = wildcardFileList(fl->files[i]);
+            FileList expanded = cachedWildcardFileList(fl->files[i]);
             if (expanded != NULL && expanded->size > 0) {
                 JLI_MemFree(fl->files[i]);
                 FileList_ensureCapacity(fl, fl->size + expanded->size);
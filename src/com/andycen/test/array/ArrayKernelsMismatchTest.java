@@ -0,0 +1,42 @@
+package com.andycen.test.array;
+
+import java.util.ArrayKernels;
+
+/**
+ * Checks that ArrayKernels.mismatch reports the length of the shorter
+ * range when one range is a proper prefix of the other, whether the
+ * common prefix is found by the word-at-a-time scan, by the same-array
+ * shortcut, or is empty.
+ */
+public class ArrayKernelsMismatchTest {
+
+    public static void main(String[] args) {
+        byte[] b = new byte[16];
+        check(ArrayKernels.mismatch(b, 0, 8, new byte[16], 0, 16), 8);
+        check(ArrayKernels.mismatch(b, 0, 16, new byte[16], 0, 8), 8);
+        check(ArrayKernels.mismatch(b, 0, 8, b, 0, 16), 8);
+        check(ArrayKernels.mismatch(b, 0, 0, b, 0, 3), 0);
+        check(ArrayKernels.mismatch(b, 0, 8, new byte[16], 8, 16), -1);
+
+        char[] c = new char[8];
+        check(ArrayKernels.mismatch(c, 0, 4, new char[8], 0, 8), 4);
+        check(ArrayKernels.mismatch(c, 0, 4, c, 0, 8), 4);
+
+        short[] s = new short[8];
+        check(ArrayKernels.mismatch(s, 0, 4, new short[8], 0, 8), 4);
+        check(ArrayKernels.mismatch(s, 0, 0, s, 0, 8), 0);
+
+        int[] i = new int[8];
+        check(ArrayKernels.mismatch(i, 0, 2, new int[8], 0, 8), 2);
+        check(ArrayKernels.mismatch(i, 0, 2, i, 0, 8), 2);
+
+        if (ArrayKernels.compare(b, 0, 8, new byte[16], 0, 16) >= 0)
+            throw new RuntimeException("shorter equal prefix must compare less");
+        System.out.println("ok");
+    }
+
+    private static void check(int actual, int expected) {
+        if (actual != expected)
+            throw new RuntimeException("mismatch: expected " + expected + ", got " + actual);
+    }
+}
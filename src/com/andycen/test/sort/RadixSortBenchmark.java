@@ -0,0 +1,89 @@
+package com.andycen.test.sort;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Times Arrays.sort and Arrays.parallelSort on large int and long arrays
+ * of several shapes: uniformly random, already sorted, reverse sorted,
+ * few distinct values, and skewed timestamps that share their high-order
+ * bytes. The last two are the inputs where skipping radix passes pays off,
+ * and the sorted ones show that run detection still short-circuits.
+ *
+ * Run with a large heap, e.g. -Xmx8g, and optionally the array size in
+ * millions as the first argument.
+ */
+public class RadixSortBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int n = (args.length > 0 ? Integer.parseInt(args[0]) : 20) * 1_000_000;
+        Random random = new Random(42);
+
+        int[] ints = new int[n];
+        long[] longs = new long[n];
+
+        for (String shape : new String[] {"random", "sorted", "reversed", "few-distinct", "skewed"}) {
+            for (int i = 0; i < n; i++) {
+                switch (shape) {
+                    case "random":
+                        ints[i] = random.nextInt();
+                        longs[i] = random.nextLong();
+                        break;
+                    case "sorted":
+                        ints[i] = i;
+                        longs[i] = 1_600_000_000_000L + i;
+                        break;
+                    case "reversed":
+                        ints[i] = n - i;
+                        longs[i] = 1_600_000_000_000L - i;
+                        break;
+                    case "few-distinct":
+                        ints[i] = random.nextInt(16);
+                        longs[i] = random.nextInt(16);
+                        break;
+                    default:
+                        // ids below 2^20 and timestamps within one day
+                        ints[i] = random.nextInt(1 << 20);
+                        longs[i] = 1_600_000_000_000L + random.nextInt(86_400_000);
+                        break;
+                }
+            }
+            report("int[]  " + shape, ints, Arrays::sort, Arrays::parallelSort);
+            report("long[] " + shape, longs, Arrays::sort, Arrays::parallelSort);
+        }
+    }
+
+    private static void report(String name, int[] data,
+                               Consumer<int[]> sort, Consumer<int[]> parallelSort) {
+        long best = Long.MAX_VALUE, bestParallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, time(data.clone(), sort));
+            bestParallel = Math.min(bestParallel, time(data.clone(), parallelSort));
+        }
+        print(name, data.length, best, bestParallel);
+    }
+
+    private static void report(String name, long[] data,
+                               Consumer<long[]> sort, Consumer<long[]> parallelSort) {
+        long best = Long.MAX_VALUE, bestParallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, time(data.clone(), sort));
+            bestParallel = Math.min(bestParallel, time(data.clone(), parallelSort));
+        }
+        print(name, data.length, best, bestParallel);
+    }
+
+    private static <T> long time(T array, Consumer<T> sort) {
+        long start = System.nanoTime();
+        sort.accept(array);
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, int n, long sortNanos, long parallelNanos) {
+        System.out.printf("%-22s n=%,d  sort %,8.1f ms  parallelSort %,8.1f ms%n",
+                name, n, sortNanos / 1e6, parallelNanos / 1e6);
+    }
+}
@@ -0,0 +1,109 @@
+package com.andycen.test.string;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Compares String and CompactString on ASCII-dominated text shaped like
+ * JSON keys and log lines: retained heap for a large set of distinct
+ * strings, and the throughput of decoding them from UTF-8, hashing them
+ * into a map, looking them up, and searching them.
+ *
+ * Run with a fixed heap, e.g. -Xms2g -Xmx2g, and optionally the number
+ * of strings in millions as the first argument.
+ */
+public class CompactStringBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int n = (args.length > 0 ? Integer.parseInt(args[0]) : 2) * 1_000_000;
+        byte[][] lines = generate(n, new Random(42));
+
+        measure("String", lines, bytes -> new String(bytes, StandardCharsets.UTF_8));
+        measure("CompactString", lines,
+                bytes -> CompactString.decode(bytes, 0, bytes.length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns UTF-8 encoded keys and log lines, one in fifty of them with
+     * a non-ASCII character.
+     */
+    private static byte[][] generate(int n, Random random) {
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        byte[][] lines = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            String s;
+            if ((i & 1) == 0) {
+                s = "user.session." + Integer.toHexString(random.nextInt()) + ".lastAccessTime";
+            } else {
+                s = "2020-06-01T12:" + (i % 60) + " " + levels[i & 3] +
+                    " [worker-" + (i % 32) + "] request " + i + " completed in " +
+                    random.nextInt(1000) + "ms";
+            }
+            if (i % 50 == 0)
+                s += " café";
+            lines[i] = s.getBytes(StandardCharsets.UTF_8);
+        }
+        return lines;
+    }
+
+    private static <T extends CharSequence> void measure(String name, byte[][] lines,
+                                                         Function<byte[], T> decode) {
+        long before = usedHeap();
+        List<T> strings = new ArrayList<>(lines.length);
+        for (byte[] line : lines)
+            strings.add(decode.apply(line));
+        long retained = usedHeap() - before;
+
+        long decodeNanos = Long.MAX_VALUE, mapNanos = Long.MAX_VALUE;
+        long lookupNanos = Long.MAX_VALUE, searchNanos = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (byte[] line : lines)
+                sink += decode.apply(line).length();
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Map<T, Integer> map = new HashMap<>();
+            for (int i = 0; i < lines.length; i++)
+                map.put(decode.apply(lines[i]), i);
+            mapNanos = Math.min(mapNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (T s : strings)
+                sink += map.get(s);
+            lookupNanos = Math.min(lookupNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (T s : strings)
+                sink += indexOf(s, ']');
+            searchNanos = Math.min(searchNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-14s retained %,7.1f MB  decode %,7.1f ms  put %,7.1f ms" +
+                          "  get %,7.1f ms  indexOf %,7.1f ms  (%d)%n",
+                name, retained / 1e6, decodeNanos / 1e6, mapNanos / 1e6,
+                lookupNanos / 1e6, searchNanos / 1e6, sink & 1);
+        strings.clear();
+    }
+
+    private static int indexOf(CharSequence s, char c) {
+        if (s instanceof String)
+            return ((String) s).indexOf(c);
+        return ((CompactString) s).indexOf(c);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,60 @@
+package com.andycen.test.string;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Measures the cost of writing metric samples as text, the way an exporter
+ * renders "name value timestamp" lines: once through StringBuilder and the
+ * toString methods, and once with DecimalDigits writing into a reused
+ * direct ByteBuffer.
+ *
+ * Optionally takes the number of samples in millions as the first argument.
+ */
+public class DecimalDigitsBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int n = (args.length > 0 ? Integer.parseInt(args[0]) : 2) * 1_000_000;
+        Random random = new Random(42);
+        double[] values = new double[n];
+        long[] timestamps = new long[n];
+        long now = 1_590_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            values[i] = (i & 1) == 0 ? random.nextInt(100_000) : random.nextDouble() * 1000;
+            timestamps[i] = now + i;
+        }
+        byte[] name = "http_requests_seconds ".getBytes();
+
+        long stringNanos = Long.MAX_VALUE, digitsNanos = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < n; i++) {
+                sb.setLength(0);
+                sb.append("http_requests_seconds ").append(values[i]).append(' ')
+                  .append(timestamps[i]).append('\n');
+                sink += sb.toString().getBytes().length;
+            }
+            stringNanos = Math.min(stringNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ByteBuffer out = ByteBuffer.allocateDirect(64);
+            for (int i = 0; i < n; i++) {
+                out.clear();
+                out.put(name);
+                DecimalDigits.write(values[i], out).put((byte) ' ');
+                DecimalDigits.write(timestamps[i], out).put((byte) '\n');
+                sink += out.position();
+            }
+            digitsNanos = Math.min(digitsNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("toString      %,7.1f ns/sample  %,6.1f M samples/s%n",
+                (double) stringNanos / n, n * 1e3 / stringNanos);
+        System.out.printf("DecimalDigits %,7.1f ns/sample  %,6.1f M samples/s  (%d)%n",
+                (double) digitsNanos / n, n * 1e3 / digitsNanos, sink & 1);
+    }
+}